@@ -1,40 +1,70 @@
 package vp.financemanager.cli;
 
+import vp.financemanager.core.csv.CsvCompression;
+import vp.financemanager.core.format.TransactionFormat;
 import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.CategoryTotal;
+import vp.financemanager.core.models.ImportProgress;
+import vp.financemanager.core.models.ImportReport;
+import vp.financemanager.core.models.RecurrenceFrequency;
+import vp.financemanager.core.models.RecurringRule;
+import vp.financemanager.core.models.RollupGranularity;
 import vp.financemanager.core.models.Transaction;
 import vp.financemanager.core.models.TransactionType;
 import vp.financemanager.core.models.User;
 import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.query.PageCursor;
+import vp.financemanager.core.query.TransactionPage;
+import vp.financemanager.core.query.TransactionQuery;
+import vp.financemanager.core.repository.CommitNotAppliedException;
 import vp.financemanager.core.repository.UserRepository;
 import vp.financemanager.core.repository.WalletRepository;
 import vp.financemanager.core.service.BudgetService;
 import vp.financemanager.core.service.CategoryService;
+import vp.financemanager.core.service.DelegatingPasswordHasher;
+import vp.financemanager.core.service.FxRateService;
 import vp.financemanager.core.service.PasswordHasher;
+import vp.financemanager.core.service.RecurringTransactionScheduler;
+import vp.financemanager.core.service.TransferService;
 import vp.financemanager.core.service.UserService;
 import vp.financemanager.core.service.WalletService;
+import vp.financemanager.infra.repository.FileFxRateRepository;
 import vp.financemanager.infra.repository.FileUserRepository;
 import vp.financemanager.infra.repository.FileWalletRepository;
 
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Currency;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Scanner;
 
 public class FinanceCliApp {
 
+    private static final String DATA_DIR = "data";
+    private static final int PAGE_SIZE = 20;
+    private static final int TOP_CATEGORIES = 10;
+    private static final int TOP_EXPENSES = 20;
+    private static final DateTimeFormatter EXPORT_FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HHmmss");
+
     private final Scanner scanner;
     private final UserService userService;
     private final WalletService walletService;
     private final BudgetService budgetService;
     private final CategoryService categoryService;
+    private final RecurringTransactionScheduler recurringScheduler;
+    private final TransferService transferService;
     private final UserRepository userRepository;
     private final WalletRepository walletRepository;
 
@@ -42,17 +72,35 @@ public class FinanceCliApp {
     private User currentUser;
 
     public FinanceCliApp() {
-        this.scanner = new Scanner(System.in);
-
         // infrastructure initialization
-        this.userRepository = new FileUserRepository();
-        this.walletRepository = new FileWalletRepository();
-        PasswordHasher passwordHasher = new PasswordHasher();
+        this(new Scanner(System.in), Paths.get(DATA_DIR),
+                new FxRateService(new FileFxRateRepository().loadRates()), new DelegatingPasswordHasher());
+    }
+
+    FinanceCliApp(Scanner scanner, Path dataDir, FxRateService fxRateService, PasswordHasher passwordHasher) {
+        this(scanner, new FileWalletRepository(dataDir), dataDir, fxRateService, passwordHasher);
+    }
+
+    // Репозиторий кошельков создается первым: при создании он доигрывает журналы переводов,
+    // и только после этого пользователи загружают свои кошельки
+    private FinanceCliApp(Scanner scanner, WalletRepository walletRepository, Path dataDir,
+                          FxRateService fxRateService, PasswordHasher passwordHasher) {
+        this(scanner, new FileUserRepository(dataDir, walletRepository), walletRepository, fxRateService,
+                passwordHasher);
+    }
+
+    FinanceCliApp(Scanner scanner, UserRepository userRepository, WalletRepository walletRepository,
+                  FxRateService fxRateService, PasswordHasher passwordHasher) {
+        this.scanner = scanner;
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
 
         this.userService = new UserService(userRepository, passwordHasher);
         this.categoryService = new CategoryService();
-        this.budgetService = new BudgetService(walletRepository, categoryService);
+        this.budgetService = new BudgetService(walletRepository, categoryService, fxRateService);
         this.walletService = new WalletService(walletRepository, budgetService);
+        this.recurringScheduler = new RecurringTransactionScheduler(walletRepository, walletService);
+        this.transferService = new TransferService(walletRepository);
     }
 
     public static void main(String[] args) {
@@ -104,18 +152,36 @@ public class FinanceCliApp {
                 case "show_summary":
                     handleShowSummary();
                     break;
+                case "show_top":
+                    handleShowTop();
+                    break;
                 case "show_transactions":
                     handleShowTransactions();
                     break;
                 case "export_transactions":
                     handleExportTransactions();
                     break;
+                case "export_new_transactions":
+                    handleExportNewTransactions();
+                    break;
                 case "import_transactions":
                     handleImportTransactions();
                     break;
                 case "rename_category":
                     handleRenameCategory();
                     break;
+                case "transfer":
+                    handleTransfer();
+                    break;
+                case "add_recurring":
+                    handleAddRecurring();
+                    break;
+                case "show_recurring":
+                    handleShowRecurring();
+                    break;
+                case "remove_recurring":
+                    handleRemoveRecurring();
+                    break;
                 case "exit":
                     saveAllData();
                     running = false;
@@ -155,10 +221,16 @@ public class FinanceCliApp {
         System.out.println("  show_budgets   - show budgets and remaining limits");
         System.out.println("  show_categories- list all categories with budgets");
         System.out.println("  show_summary   - show income/expenses summary");
+        System.out.println("  show_top       - show top expense categories and largest expenses this month");
         System.out.println("  show_transactions - show transactions with filters (category, date range)");
-        System.out.println("  export_transactions - export transactions to CSV file");
-        System.out.println("  import_transactions - import transactions from CSV file");
+        System.out.println("  export_transactions - export transactions to CSV, JSON Lines or columnar file");
+        System.out.println("  export_new_transactions - export only transactions added since the last export to a target");
+        System.out.println("  import_transactions - import transactions from CSV, JSON Lines or columnar file");
         System.out.println("  rename_category - rename a category (updates all transactions and budgets)");
+        System.out.println("  transfer       - transfer money to another user's wallet");
+        System.out.println("  add_recurring  - add a recurring income or expense (salary, rent, subscriptions)");
+        System.out.println("  show_recurring - list recurring rules with next due dates");
+        System.out.println("  remove_recurring - remove a recurring rule");
         System.out.println("  exit           - exit the application");
     }
 
@@ -189,8 +261,14 @@ public class FinanceCliApp {
             return;
         }
 
+        Currency currency = readCurrency(Wallet.DEFAULT_CURRENCY);
+        if (currency == null) {
+            System.out.println("Unknown currency code. Registration cancelled.");
+            return;
+        }
+
         try {
-            User user = userService.register(login, password, initialBalance);
+            User user = userService.register(login, password, initialBalance, currency);
             currentUser = user; // Автоматический вход после регистрации
             System.out.println("User '" + user.getLogin() + "' registered successfully. You are now logged in.");
         } catch (IllegalArgumentException ex) {
@@ -217,6 +295,12 @@ public class FinanceCliApp {
         } else {
             currentUser = user;
             System.out.println("Login successful. Current user: " + currentUser.getLogin());
+
+            // Повторения, пропущенные с прошлого входа, добавляются одним пакетом
+            int added = recurringScheduler.runDue(currentUser.getWallet()).size();
+            if (added > 0) {
+                System.out.println("Recurring transactions added: " + added);
+            }
         }
     }
 
@@ -255,8 +339,14 @@ public class FinanceCliApp {
         System.out.print("Description (optional): ");
         String description = scanner.nextLine();
 
+        Currency currency = readCurrency(wallet.getCurrency());
+        if (currency == null) {
+            System.out.println("Unknown currency code. Income not added.");
+            return;
+        }
+
         try {
-            walletService.addIncome(wallet, amount, category, description);
+            walletService.addIncome(wallet, amount, category, description, currency);
             System.out.println("Income added successfully.");
 
             // Zero balance alert
@@ -294,8 +384,14 @@ public class FinanceCliApp {
         System.out.print("Description (optional): ");
         String description = scanner.nextLine();
 
+        Currency currency = readCurrency(wallet.getCurrency());
+        if (currency == null) {
+            System.out.println("Unknown currency code. Expense not added.");
+            return;
+        }
+
         try {
-            walletService.addExpense(wallet, amount, category, description);
+            walletService.addExpense(wallet, amount, category, description, currency);
             System.out.println("Expense added successfully.");
 
             // Budget alerts (if category has a budget)
@@ -304,6 +400,9 @@ public class FinanceCliApp {
                     System.out.println("WARNING: Budget limit exceeded for category '" + category.getName() + "'.");
                 } else if (budgetService.isBudgetNearLimit(wallet, category)) {
                     System.out.println("WARNING: Budget for category '" + category.getName() + "' is at 80% or more of the limit.");
+                } else if (budgetService.isProjectedToExceed(wallet, category, RollupGranularity.MONTH)) {
+                    System.out.println("WARNING: At the current pace, budget for category '" + category.getName()
+                            + "' will be exceeded in " + budgetService.daysUntilLimit(wallet, category) + " day(s).");
                 }
             } catch (IllegalStateException ignored) {
                 // No budget set for this category — silently ignore for now
@@ -321,7 +420,8 @@ public class FinanceCliApp {
                 System.out.println("WARNING: Total expenses are greater than total income.");
             }
 
-        } catch (IllegalArgumentException ex) {
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            // IllegalStateException — нет курса валюты на дату
             System.out.println("Error adding expense: " + ex.getMessage());
         }
     }
@@ -392,6 +492,8 @@ public class FinanceCliApp {
                             + ": limit = " + limit
                             + ", spent = " + spent
                             + ", remaining = " + remaining
+                            + ", projected by month end = "
+                            + budgetService.projectedSpent(wallet, category, RollupGranularity.MONTH)
             );
         }
     }
@@ -425,23 +527,35 @@ public class FinanceCliApp {
 
         System.out.println("--- Summary ---");
 
+        try {
+            printSummary(wallet);
+        } catch (IllegalStateException ex) {
+            System.out.println("Cannot convert currencies: " + ex.getMessage());
+        }
+    }
+
+    private void printSummary(Wallet wallet) {
+        // 0. Остатки по валютам, если их несколько
+        if (wallet.hasForeignCurrencies()) {
+            System.out.println("Остатки по валютам:");
+            wallet.getBalances().forEach((currency, amount) ->
+                    System.out.println("  " + currency.getCurrencyCode() + ": " + amount)
+            );
+            System.out.println("Итого в " + wallet.getCurrency().getCurrencyCode() + ": "
+                    + walletService.getConvertedBalance(wallet, wallet.getCurrency(), LocalDate.now()));
+        }
+
         // 1. Общий доход
         BigDecimal totalIncome = walletService.getTotalIncome(wallet);
         System.out.println("Общий доход: " + totalIncome);
 
         // 2. Доходы по категориям
-        Map<String, BigDecimal> incomeByCategory = new HashMap<>();
-        wallet.getTransactions().forEach(tx -> {
-            if (tx.getType() == TransactionType.INCOME) {
-                    String catName = tx.getCategory().getName();
-                    incomeByCategory.merge(catName, tx.getAmount(), BigDecimal::add);
-            }
-        });
+        Map<Category, BigDecimal> incomeByCategory = walletService.getTotalsByCategory(wallet, TransactionType.INCOME);
 
         if (!incomeByCategory.isEmpty()) {
             System.out.println("Доходы по категориям:");
-            incomeByCategory.forEach((catName, amount) ->
-                    System.out.println("  " + catName + ": " + amount)
+            incomeByCategory.forEach((category, amount) ->
+                    System.out.println("  " + category.getName() + ": " + amount)
             );
         }
 
@@ -467,97 +581,118 @@ public class FinanceCliApp {
 
                 System.out.println("  " + category.getName()
                         + ": " + limit
-                        + ", Оставшийся бюджет: " + remaining);
+                        + ", Оставшийся бюджет: " + remaining
+                        + ", Прогноз на конец месяца: "
+                        + budgetService.projectedSpent(wallet, category, RollupGranularity.MONTH));
             }
         }
     }
 
-    private void handleShowTransactions() {
+    private void handleShowTop() {
         if (!ensureLoggedIn()) {
             return;
         }
 
         Wallet wallet = currentUser.getWallet();
 
-        System.out.println("--- Show Transactions ---");
-        System.out.print("Type (income/expense/all, default: all): ");
-        String typeInput = scanner.nextLine().trim().toLowerCase();
-
-        TransactionType type = null;
-        if ("income".equals(typeInput)) {
-            type = TransactionType.INCOME;
-        } else if ("expense".equals(typeInput)) {
-            type = TransactionType.EXPENSE;
+        LocalDate today = LocalDate.now();
+        TransactionQuery thisMonth = TransactionQuery.builder()
+                .type(TransactionType.EXPENSE)
+                .between(today.withDayOfMonth(1), today)
+                .build();
+
+        String walletCurrency = wallet.getCurrency().getCurrencyCode();
+        System.out.println("--- Top expense categories this month (" + walletCurrency + ") ---");
+        List<CategoryTotal> topCategories = walletService.getTopCategories(wallet, thisMonth, TOP_CATEGORIES);
+        if (topCategories.isEmpty()) {
+            System.out.println("No expenses this month.");
+            return;
         }
-
-        System.out.print("Categories (comma-separated, empty for all): ");
-        String categoriesInput = scanner.nextLine().trim();
-
-        List<Category> categories = null;
-        if (!categoriesInput.isEmpty()) {
-            categories = new ArrayList<>();
-            String[] categoryNames = categoriesInput.split(",");
-            for (String catName : categoryNames) {
-                Category existing = categoryService.findCategoryByName(wallet, catName.trim());
-                if (existing != null) {
-                    categories.add(existing);
-                } else {
-                    System.out.println("Warning: Category '" + catName.trim() + "' not found, skipping.");
-                }
-            }
-            if (categories.isEmpty()) {
-                System.out.println("No valid categories found. Showing all transactions.");
-                categories = null;
-            }
+        for (int i = 0; i < topCategories.size(); i++) {
+            CategoryTotal total = topCategories.get(i);
+            System.out.println("  " + (i + 1) + ". " + total.getCategory().getName() + ": " + total.getTotal()
+                    + " " + walletCurrency);
         }
 
-        System.out.print("From date (YYYY-MM-DD, empty for no limit): ");
-        String fromDateInput = scanner.nextLine().trim();
-        LocalDate fromDate = parseDate(fromDateInput);
-        if (fromDateInput != null && !fromDateInput.isEmpty() && fromDate == null) {
-            System.out.println("Invalid date format. Ignoring from date filter.");
+        System.out.println("--- Largest expenses this month ---");
+        for (Transaction tx : walletService.getLargestTransactions(wallet, thisMonth, TOP_EXPENSES)) {
+            System.out.println(String.format("  %s | %s | %s | %s",
+                    tx.getTimestamp().toLocalDate(),
+                    tx.getCategory().getName(),
+                    formatAmount(wallet, tx),
+                    tx.getDescription() != null ? tx.getDescription() : ""));
         }
+    }
 
-        System.out.print("To date (YYYY-MM-DD, empty for no limit): ");
-        String toDateInput = scanner.nextLine().trim();
-        LocalDate toDate = parseDate(toDateInput);
-        if (toDateInput != null && !toDateInput.isEmpty() && toDate == null) {
-            System.out.println("Invalid date format. Ignoring to date filter.");
+    private void handleShowTransactions() {
+        if (!ensureLoggedIn()) {
+            return;
         }
 
-        List<Transaction> transactions = walletService.getTransactions(wallet, type, categories, fromDate, toDate);
+        Wallet wallet = currentUser.getWallet();
+
+        System.out.println("--- Show Transactions ---");
+        TransactionQuery query = readTransactionQuery(wallet, "Showing all transactions.");
 
-        if (transactions.isEmpty()) {
+        TransactionPage page = walletService.getTransactionPage(wallet, query, PageCursor.start(), PAGE_SIZE);
+        if (page.getTransactions().isEmpty()) {
             System.out.println("No transactions found matching the criteria.");
             return;
         }
 
         System.out.println("\nTransactions:");
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpense = BigDecimal.ZERO;
-
-        for (Transaction tx : transactions) {
-            System.out.println(String.format("  %s | %s | %s | %s | %s",
-                    tx.getTimestamp().toLocalDate(),
-                    tx.getType(),
-                    tx.getCategory().getName(),
-                    tx.getAmount(),
-                    tx.getDescription() != null ? tx.getDescription() : ""));
+        while (true) {
+            for (Transaction tx : page.getTransactions()) {
+                System.out.println(String.format("  %s | %s | %s | %s | %s",
+                        tx.getTimestamp().toLocalDate(),
+                        tx.getType(),
+                        tx.getCategory().getName(),
+                        formatAmount(wallet, tx),
+                        tx.getDescription() != null ? tx.getDescription() : ""));
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            System.out.print("-- more: press Enter to continue, 'q' to stop -- ");
+            if ("q".equalsIgnoreCase(scanner.nextLine().trim())) {
+                break;
+            }
+            page = walletService.getTransactionPage(wallet, query, page.getNextCursor(), PAGE_SIZE);
+        }
 
+        // Итоги считаем потоком, не собирая все строки в список; суммы в других валютах
+        // пересчитываются в основную валюту кошелька
+        long[] count = {0};
+        BigDecimal[] totals = {BigDecimal.ZERO, BigDecimal.ZERO};
+        walletService.streamTransactions(wallet, query).forEach(tx -> {
+            count[0]++;
+            BigDecimal amount = walletService.getAmountInWalletCurrency(wallet, tx);
             if (tx.getType() == TransactionType.INCOME) {
-                totalIncome = totalIncome.add(tx.getAmount());
+                totals[0] = totals[0].add(amount);
             } else {
-                totalExpense = totalExpense.add(tx.getAmount());
+                totals[1] = totals[1].add(amount);
             }
-        }
+        });
 
-        System.out.println("\nTotal: " + transactions.size() + " transaction(s)");
+        TransactionType type = query.getType();
+        String walletCurrency = wallet.getCurrency().getCurrencyCode();
+        System.out.println("\nTotal: " + count[0] + " transaction(s)");
         if (type == null || type == TransactionType.INCOME) {
-            System.out.println("Total income (filtered): " + totalIncome);
+            System.out.println("Total income (filtered): " + totals[0] + " " + walletCurrency);
         }
         if (type == null || type == TransactionType.EXPENSE) {
-            System.out.println("Total expense (filtered): " + totalExpense);
+            System.out.println("Total expense (filtered): " + totals[1] + " " + walletCurrency);
+        }
+    }
+
+    // Сумма с кодом валюты; для другой валюты — еще и в основной валюте кошелька
+    private String formatAmount(Wallet wallet, Transaction tx) {
+        String amount = tx.getAmount() + " " + tx.getCurrency().getCurrencyCode();
+        if (tx.getCurrency().equals(wallet.getCurrency())) {
+            return amount;
         }
+        return amount + " (" + walletService.getAmountInWalletCurrency(wallet, tx) + " "
+                + wallet.getCurrency().getCurrencyCode() + ")";
     }
 
     private void handleExportTransactions() {
@@ -567,7 +702,75 @@ public class FinanceCliApp {
 
         Wallet wallet = currentUser.getWallet();
 
-        System.out.println("--- Export Transactions to CSV ---");
+        System.out.println("--- Export Transactions ---");
+        TransactionQuery query = readTransactionQuery(wallet, "Exporting all transactions.");
+
+        System.out.print("Output file name (default: transactions_export.csv; .jsonl for JSON Lines, "
+                + ".txc for columnar; add .gz or .zz to compress): ");
+        String fileName = scanner.nextLine().trim();
+        if (fileName.isEmpty()) {
+            fileName = "transactions_export.csv";
+        }
+        CsvCompression compression = CsvCompression.forFileName(fileName);
+        String baseName = fileName.substring(0, fileName.length() - compression.getExtension().length());
+        TransactionFormat format = TransactionFormat.forFileName(baseName);
+        if (!baseName.toLowerCase(Locale.ROOT).endsWith(format.getExtension())) {
+            fileName = baseName + format.getExtension() + compression.getExtension();
+        }
+
+        if (walletService.streamTransactions(wallet, query).findAny().isEmpty()) {
+            System.out.println("No transactions found matching the criteria. Export cancelled.");
+            return;
+        }
+
+        try (OutputStream out = CsvCompression.newOutputStream(Paths.get(fileName))) {
+            int exported = walletService.exportTransactions(wallet, query, format, out);
+            System.out.println("Exported " + exported + " transaction(s) to " + fileName);
+        } catch (IOException e) {
+            System.out.println("Error exporting transactions: " + e.getMessage());
+        }
+    }
+
+    private void handleExportNewTransactions() {
+        if (!ensureLoggedIn()) {
+            return;
+        }
+
+        Wallet wallet = currentUser.getWallet();
+
+        System.out.println("--- Incremental Export to CSV ---");
+        System.out.print("Export target (e.g. 'accounting', default: default): ");
+        String target = scanner.nextLine().trim();
+        if (target.isEmpty()) {
+            target = "default";
+        }
+
+        int pending = walletService.countPendingExport(wallet, target);
+        if (pending == 0) {
+            System.out.println("No new transactions since the last export to '" + target + "'.");
+            return;
+        }
+        System.out.println(pending + " new transaction(s) since the last export to '" + target + "'.");
+
+        // время в имени, чтобы повторная выгрузка за день не упиралась в существующий файл
+        String defaultName = target + "_" + LocalDateTime.now().format(EXPORT_FILE_TIME_FORMAT) + ".csv";
+        System.out.print("Output file name (default: " + defaultName + ", add .gz or .zz to compress): ");
+        String fileName = scanner.nextLine().trim();
+        if (fileName.isEmpty()) {
+            fileName = defaultName;
+        }
+
+        try {
+            int exported = walletService.exportNewTransactionsToCsv(wallet, target, Paths.get(fileName));
+            System.out.println("Exported " + exported + " transaction(s) to " + fileName);
+        } catch (FileAlreadyExistsException e) {
+            System.out.println("File " + fileName + " already exists; choose another name.");
+        } catch (IOException e) {
+            System.out.println("Error exporting transactions: " + e.getMessage());
+        }
+    }
+
+    private TransactionQuery readTransactionQuery(Wallet wallet, String noCategoriesMessage) {
         System.out.print("Type (income/expense/all, default: all): ");
         String typeInput = scanner.nextLine().trim().toLowerCase();
 
@@ -594,7 +797,7 @@ public class FinanceCliApp {
                 }
             }
             if (categories.isEmpty()) {
-                System.out.println("No valid categories found. Exporting all transactions.");
+                System.out.println("No valid categories found. " + noCategoriesMessage);
                 categories = null;
             }
         }
@@ -613,28 +816,15 @@ public class FinanceCliApp {
             System.out.println("Invalid date format. Ignoring to date filter.");
         }
 
-        System.out.print("Output file name (default: transactions_export.csv): ");
-        String fileName = scanner.nextLine().trim();
-        if (fileName.isEmpty()) {
-            fileName = "transactions_export.csv";
-        }
-        if (!fileName.endsWith(".csv")) {
-            fileName += ".csv";
-        }
-
-        List<Transaction> transactions = walletService.getTransactions(wallet, type, categories, fromDate, toDate);
-
-        if (transactions.isEmpty()) {
-            System.out.println("No transactions found matching the criteria. Export cancelled.");
-            return;
-        }
+        System.out.print("Description words (e.g. 'такси', prefixes allowed, empty for any): ");
+        String keywords = scanner.nextLine().trim();
 
-        try (FileWriter writer = new FileWriter(fileName)) {
-            walletService.exportTransactionsToCsv(wallet, type, categories, fromDate, toDate, writer);
-            System.out.println("Exported " + transactions.size() + " transaction(s) to " + fileName);
-        } catch (IOException e) {
-            System.out.println("Error exporting transactions: " + e.getMessage());
-        }
+        return TransactionQuery.builder()
+                .type(type)
+                .categories(categories)
+                .between(fromDate, toDate)
+                .keywordPrefix(keywords)
+                .build();
     }
 
     private void handleImportTransactions() {
@@ -644,8 +834,8 @@ public class FinanceCliApp {
 
         Wallet wallet = currentUser.getWallet();
 
-        System.out.println("--- Import Transactions from CSV ---");
-        System.out.print("CSV file name: ");
+        System.out.println("--- Import Transactions ---");
+        System.out.print("File name (CSV, JSON Lines or columnar; plain, gzip or zlib-compressed): ");
         String fileName = scanner.nextLine().trim();
 
         if (fileName.isEmpty()) {
@@ -653,22 +843,53 @@ public class FinanceCliApp {
             return;
         }
 
-        try (FileReader reader = new FileReader(fileName)) {
-            List<String> errors = walletService.importTransactionsFromCsv(wallet, reader, categoryService);
+        System.out.print("Skip transactions already in the wallet? (y/n, default y): ");
+        boolean skipDuplicates = !scanner.nextLine().trim().equalsIgnoreCase("n");
 
+        try {
+            // строка хода импорта перерисовывается на месте; итог печатается с новой строки
+            ImportReport report = walletService.importTransactions(wallet, Paths.get(fileName),
+                    categoryService, skipDuplicates, progress -> System.out.print("\r" + formatProgress(progress)));
+            System.out.println();
+            List<String> errors = report.getErrors();
+            ImportProgress stats = report.getProgress();
+
+            System.out.println("Imported: " + report.getImported()
+                    + (skipDuplicates ? ", skipped as duplicates: " + report.getSkippedDuplicates() : ""));
+            System.out.println(String.format(Locale.ROOT, "Time: %.2f s (read and parse %.2f s, apply %.2f s, save %.2f s)",
+                    seconds(stats.getElapsedNanos()), seconds(stats.getParseNanos()),
+                    seconds(stats.getApplyNanos()), seconds(stats.getPersistNanos())));
             if (errors.isEmpty()) {
                 System.out.println("Transactions imported successfully.");
             } else {
-                System.out.println("Import completed with " + errors.size() + " error(s):");
+                System.out.println("Import completed with " + report.getErrorCount() + " error(s) "
+                        + stats.getErrorsByKind() + ":");
                 for (String error : errors) {
                     System.out.println("  - " + error);
                 }
+                if (report.getErrorCount() > errors.size()) {
+                    System.out.println("  ... and " + (report.getErrorCount() - errors.size()) + " more");
+                }
             }
+        } catch (NoSuchFileException e) {
+            System.out.println("File not found: " + fileName);
         } catch (IOException e) {
             System.out.println("Error reading file: " + e.getMessage());
         }
     }
 
+    private static String formatProgress(ImportProgress progress) {
+        int percent = progress.getPercentRead();
+        return String.format(Locale.ROOT, "%s%,d rows, %,.0f rows/s, %.1f MB read, %d error(s)",
+                percent >= 0 ? percent + "% | " : "",
+                progress.getRowsProcessed(), progress.getRowsPerSecond(),
+                progress.getBytesRead() / (1024.0 * 1024.0), progress.getErrorCount());
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
     private void handleRenameCategory() {
         if (!ensureLoggedIn()) {
             return;
@@ -707,6 +928,205 @@ public class FinanceCliApp {
         }
     }
 
+    private void handleTransfer() {
+        if (!ensureLoggedIn()) {
+            return;
+        }
+
+        Wallet wallet = currentUser.getWallet();
+
+        System.out.println("--- Transfer ---");
+        System.out.print("Recipient login: ");
+        String recipientLogin = scanner.nextLine().trim();
+        // кошелек берется у пользователя из userRepository, а не читается заново с диска:
+        // иначе зачисление попадет в копию, а при входе получателя сохранится его старый кошелек
+        Wallet recipient = userRepository.findByLogin(recipientLogin).map(User::getWallet).orElse(null);
+        if (recipient == null) {
+            System.out.println("User '" + recipientLogin + "' not found.");
+            return;
+        }
+
+        System.out.print("Amount: ");
+        String amountInput = scanner.nextLine();
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(amountInput.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid amount format. Transfer cancelled.");
+            return;
+        }
+
+        Currency currency = readCurrency(wallet.getCurrency());
+        if (currency == null) {
+            System.out.println("Unknown currency code. Transfer cancelled.");
+            return;
+        }
+
+        System.out.print("Description (optional): ");
+        String description = scanner.nextLine();
+
+        try {
+            transferService.transfer(wallet, recipient, amount, currency, description);
+            System.out.println("Transferred " + amount + " " + currency.getCurrencyCode()
+                    + " to '" + recipient.getOwnerLogin() + "'.");
+        } catch (CommitNotAppliedException ex) {
+            System.out.println("Transferred " + amount + " " + currency.getCurrencyCode()
+                    + " to '" + recipient.getOwnerLogin() + "', but the wallet files will be updated later: "
+                    + ex.getCause().getMessage());
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Transfer error: " + ex.getMessage());
+        }
+    }
+
+    private void handleAddRecurring() {
+        if (!ensureLoggedIn()) {
+            return;
+        }
+
+        Wallet wallet = currentUser.getWallet();
+
+        System.out.println("--- Add recurring transaction ---");
+        System.out.print("Type (income/expense): ");
+        String typeInput = scanner.nextLine().trim().toLowerCase();
+        TransactionType type;
+        if (typeInput.equals("income")) {
+            type = TransactionType.INCOME;
+        } else if (typeInput.equals("expense")) {
+            type = TransactionType.EXPENSE;
+        } else {
+            System.out.println("Invalid type. Rule not added.");
+            return;
+        }
+
+        System.out.print("Amount: ");
+        String amountInput = scanner.nextLine();
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(amountInput.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid amount format. Rule not added.");
+            return;
+        }
+
+        System.out.print("Category name: ");
+        String categoryName = scanner.nextLine();
+        Category category = categoryService.createCategory(wallet, categoryName);
+
+        System.out.print("Description (optional): ");
+        String description = scanner.nextLine();
+
+        System.out.print("Frequency (daily/weekly/monthly/yearly): ");
+        RecurrenceFrequency frequency;
+        try {
+            frequency = RecurrenceFrequency.valueOf(scanner.nextLine().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid frequency. Rule not added.");
+            return;
+        }
+
+        System.out.print("Start date (YYYY-MM-DD, empty for today): ");
+        String startInput = scanner.nextLine();
+        LocalDate startDate = startInput.trim().isEmpty() ? LocalDate.now() : parseDate(startInput);
+        if (startDate == null) {
+            System.out.println("Invalid date format. Rule not added.");
+            return;
+        }
+
+        System.out.print("End date (YYYY-MM-DD, optional): ");
+        String endInput = scanner.nextLine();
+        LocalDate endDate = parseDate(endInput);
+        if (endDate == null && !endInput.trim().isEmpty()) {
+            System.out.println("Invalid date format. Rule not added.");
+            return;
+        }
+
+        try {
+            recurringScheduler.addRule(wallet, RecurringRule.builder()
+                    .type(type)
+                    .amount(amount)
+                    .category(category)
+                    .description(description)
+                    .schedule(frequency, startDate, endDate)
+                    .build());
+            System.out.println("Recurring rule added.");
+
+            int added = recurringScheduler.runDue(wallet).size();
+            if (added > 0) {
+                System.out.println("Recurring transactions added: " + added);
+            }
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Error adding recurring rule: " + ex.getMessage());
+        }
+    }
+
+    private void handleShowRecurring() {
+        if (!ensureLoggedIn()) {
+            return;
+        }
+
+        List<RecurringRule> rules = currentUser.getWallet().getRecurringRules();
+        System.out.println("--- Recurring transactions ---");
+        if (rules.isEmpty()) {
+            System.out.println("No recurring rules.");
+            return;
+        }
+
+        for (int i = 0; i < rules.size(); i++) {
+            RecurringRule rule = rules.get(i);
+            System.out.println((i + 1) + ". " + rule.getType()
+                    + " | " + rule.getAmount()
+                    + " | " + rule.getCategory().getName()
+                    + " | " + rule.getFrequency().name().toLowerCase()
+                    + " | " + (rule.isFinished() ? "finished" : "next: " + rule.getNextDue())
+                    + (rule.getDescription().isEmpty() ? "" : " | " + rule.getDescription()));
+        }
+    }
+
+    private void handleRemoveRecurring() {
+        if (!ensureLoggedIn()) {
+            return;
+        }
+
+        Wallet wallet = currentUser.getWallet();
+        List<RecurringRule> rules = wallet.getRecurringRules();
+        if (rules.isEmpty()) {
+            System.out.println("No recurring rules.");
+            return;
+        }
+
+        handleShowRecurring();
+        System.out.print("Rule number to remove: ");
+        String numberInput = scanner.nextLine();
+        int number;
+        try {
+            number = Integer.parseInt(numberInput.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number. Rule not removed.");
+            return;
+        }
+        if (number < 1 || number > rules.size()) {
+            System.out.println("No rule with this number.");
+            return;
+        }
+
+        recurringScheduler.removeRule(wallet, rules.get(number - 1));
+        System.out.println("Recurring rule removed.");
+    }
+
+    // null — неизвестный код валюты
+    private Currency readCurrency(Currency defaultCurrency) {
+        System.out.print("Currency (e.g. RUB, USD, EUR; empty for " + defaultCurrency.getCurrencyCode() + "): ");
+        String currencyInput = scanner.nextLine().trim();
+        if (currencyInput.isEmpty()) {
+            return defaultCurrency;
+        }
+        try {
+            return Currency.getInstance(currencyInput.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private LocalDate parseDate(String dateInput) {
         if (dateInput == null || dateInput.trim().isEmpty()) {
             return null;
@@ -0,0 +1,51 @@
+package vp.financemanager.core.csv;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Считает байты, прочитанные из исходного потока (до распаковки — если обернуть им файл).
+// Счетчик не синхронизирован: читать его нужно из потока, который читает данные.
+public final class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    // mark/reset не поддерживаются: повторно прочитанные байты исказили бы счетчик
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package vp.financemanager.core.csv;
+
+import java.util.List;
+
+// Результат разбора одного блока: непустые строки и число строк в блоке (для сквозной нумерации)
+final class CsvChunk {
+
+    private final List<CsvRow> rows;
+    private final int lineCount;
+
+    CsvChunk(List<CsvRow> rows, int lineCount) {
+        this.rows = rows;
+        this.lineCount = lineCount;
+    }
+
+    List<CsvRow> getRows() {
+        return rows;
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+}
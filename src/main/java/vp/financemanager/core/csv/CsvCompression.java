@@ -0,0 +1,157 @@
+package vp.financemanager.core.csv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// Сжатие файлов импорта и экспорта. При записи формат выбирается по расширению,
+// при чтении — по первым байтам файла, так что переименованный архив все равно читается.
+// Сжатие и распаковка потоковые: в памяти только буферы потоков, а не файл целиком.
+public enum CsvCompression {
+
+    NONE(""),
+    GZIP(".gz"),
+    // zlib (RFC 1950) — то, что пишет DeflaterOutputStream
+    DEFLATE(".zz");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String extension;
+
+    CsvCompression(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static CsvCompression forFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        for (CsvCompression compression : values()) {
+            if (compression != NONE && name.endsWith(compression.extension)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    // gzip: 1F 8B; zlib: метод 8 в младших битах CMF и (CMF * 256 + FLG) кратно 31
+    public static CsvCompression detect(byte[] head, int length) {
+        if (length >= 2) {
+            int first = head[0] & 0xFF;
+            int second = head[1] & 0xFF;
+            if (first == 0x1F && second == 0x8B) {
+                return GZIP;
+            }
+            if ((first & 0x0F) == 8 && (first >> 4) <= 7 && (first * 256 + second) % 31 == 0) {
+                return DEFLATE;
+            }
+        }
+        return NONE;
+    }
+
+    public static CsvCompression detect(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] head = new byte[2];
+            return detect(head, in.readNBytes(head, 0, head.length));
+        }
+    }
+
+    public InputStream wrap(InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            case DEFLATE:
+                Inflater inflater = new Inflater();
+                return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        // свой Inflater поток не освобождает сам
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            default:
+                return in;
+        }
+    }
+
+    public OutputStream wrap(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out, BUFFER_SIZE);
+            case DEFLATE:
+                Deflater deflater = new Deflater();
+                return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            deflater.end();
+                        }
+                    }
+                };
+            default:
+                return out;
+        }
+    }
+
+    // Распакованный поток файла; сжатие определяется по содержимому
+    public static InputStream newInputStream(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        try {
+            in.mark(2);
+            byte[] head = new byte[2];
+            int length = in.readNBytes(head, 0, head.length);
+            in.reset();
+            return detect(head, length).wrap(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // Поток в файл со сжатием по расширению
+    // options — как у Files.newOutputStream (например, CREATE_NEW, чтобы не перезаписать файл)
+    public static OutputStream newOutputStream(Path file, OpenOption... options) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file, options), BUFFER_SIZE);
+        try {
+            return forFileName(file.getFileName().toString()).wrap(out);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    // Текстовый UTF-8 поток файла; сжатие определяется по содержимому
+    public static Reader newReader(Path file) throws IOException {
+        return new InputStreamReader(newInputStream(file), StandardCharsets.UTF_8);
+    }
+
+    // Текстовый UTF-8 поток в файл; сжатие определяется по расширению
+    public static Writer newWriter(Path file, OpenOption... options) throws IOException {
+        return new OutputStreamWriter(newOutputStream(file, options), StandardCharsets.UTF_8);
+    }
+}
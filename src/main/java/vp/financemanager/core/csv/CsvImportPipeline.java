@@ -0,0 +1,251 @@
+package vp.financemanager.core.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+// Конвейер импорта: вызывающий поток читает ввод блоками по chunkSize символов, выровненными
+// по концу записи (перевод строки вне кавычек), разбор блоков идет параллельно в executor, а готовые строки отдаются
+// обработчику в порядке файла в том же вызывающем потоке — кошелек меняет только он.
+// Впереди обработчика разбирается не больше maxInFlight блоков, поэтому память ограничена
+// независимо от размера файла. Ввод, уместившийся в один блок, разбирается без пула.
+public final class CsvImportPipeline {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    public static final int DEFAULT_MAPPED_CHUNK_SIZE = 8 << 20;
+
+    private static final int PROBE_SIZE = 8 * 1024;
+
+    @FunctionalInterface
+    public interface RowHandler {
+        void accept(int lineNumber, CsvRow row);
+
+        // Сколько байт файла прочитано; вызывается только при разборе из FileChannel,
+        // при разборе из Reader байты считает тот, кто его создал
+        default void bytesRead(long bytes) {
+        }
+    }
+
+    private final Executor executor;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final int mappedChunkSize;
+
+    public CsvImportPipeline() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, ForkJoinPool.getCommonPoolParallelism() + 1);
+    }
+
+    public CsvImportPipeline(Executor executor, int chunkSize, int maxInFlight) {
+        this(executor, chunkSize, maxInFlight, Math.max(chunkSize, DEFAULT_MAPPED_CHUNK_SIZE));
+    }
+
+    public CsvImportPipeline(Executor executor, int chunkSize, int maxInFlight, int mappedChunkSize) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight chunks must be greater than 0");
+        }
+        if (mappedChunkSize <= 0) {
+            throw new IllegalArgumentException("Mapped chunk size must be greater than 0");
+        }
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+        this.mappedChunkSize = mappedChunkSize;
+    }
+
+    // firstLineNumber — номер в файле первой строки, которую вернет reader (после заголовка — 2)
+    public void run(Reader reader, int firstLineNumber, RowHandler handler) throws IOException {
+        if (reader == null || handler == null) {
+            throw new IllegalArgumentException("Reader and handler cannot be null");
+        }
+
+        OrderedDelivery delivery = new OrderedDelivery(firstLineNumber, handler);
+        char[] buffer = new char[chunkSize];
+        int length = 0;
+        boolean eof = false;
+        boolean firstChunk = true;
+        try {
+            while (!eof) {
+                while (length < buffer.length) {
+                    int read = reader.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        eof = true;
+                        break;
+                    }
+                    length += read;
+                }
+
+                int end = eof ? length : lastRecordEnd(buffer, length);
+                if (end == 0) {
+                    // запись длиннее блока
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+
+                char[] chunk = buffer;
+                int chunkEnd = end;
+                int remainder = length - end;
+                buffer = new char[Math.max(chunkSize, remainder * 2)];
+                System.arraycopy(chunk, end, buffer, 0, remainder);
+                length = remainder;
+
+                if (firstChunk && eof) {
+                    delivery.deliver(CsvTransactionParser.parse(chunk, 0, chunkEnd));
+                    return;
+                }
+                firstChunk = false;
+                delivery.submit(() -> CsvTransactionParser.parse(chunk, 0, chunkEnd));
+            }
+            delivery.drain();
+        } finally {
+            delivery.cancel();
+        }
+    }
+
+    // То же для файла на диске без декодирования в String: участки по mappedChunkSize байт,
+    // выровненные по концу записи, отображаются в память и разбираются MappedCsvParser
+    // прямо по байтам UTF-8. position — смещение первой строки данных (сразу за заголовком).
+    public void run(FileChannel channel, long position, int firstLineNumber, RowHandler handler) throws IOException {
+        if (channel == null || handler == null) {
+            throw new IllegalArgumentException("Channel and handler cannot be null");
+        }
+
+        OrderedDelivery delivery = new OrderedDelivery(firstLineNumber, handler);
+        ConcurrentHashMap<String, String> categoryNames = new ConcurrentHashMap<>();
+        long size = channel.size();
+        boolean firstChunk = true;
+        try {
+            while (position < size) {
+                long end = position + mappedChunkSize >= size
+                        ? size
+                        : recordEndAfter(channel, position, position + mappedChunkSize);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+                handler.bytesRead(end - position);
+                if (firstChunk && end == size) {
+                    delivery.deliver(MappedCsvParser.parse(region, categoryNames));
+                    return;
+                }
+                firstChunk = false;
+                delivery.submit(() -> MappedCsvParser.parse(region, categoryNames));
+                position = end;
+            }
+            delivery.drain();
+        } finally {
+            delivery.cancel();
+        }
+    }
+
+    // Позиция сразу за первым \n вне кавычек не раньше from (или конец файла). Блок начинается
+    // с начала записи, поэтому четность кавычек считается от recordStart: участок до from
+    // все равно будет отображен и прочитан при разборе.
+    private static long recordEndAfter(FileChannel channel, long recordStart, long from) throws IOException {
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, recordStart, from - recordStart);
+        boolean inQuotes = false;
+        for (int i = 0; i < head.limit(); i++) {
+            if (head.get(i) == '"') {
+                inQuotes = !inQuotes;
+            }
+        }
+
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long position = from;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = probe.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    // Позиция сразу за последним \n вне кавычек; буфер всегда начинается с начала записи
+    private static int lastRecordEnd(char[] buffer, int length) {
+        int end = 0;
+        boolean inQuotes = false;
+        for (int i = 0; i < length; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (c == '\n' && !inQuotes) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    // Готовые блоки отдаются обработчику строго в порядке отправки
+    private final class OrderedDelivery {
+
+        private final ArrayDeque<CompletableFuture<CsvChunk>> inFlight = new ArrayDeque<>();
+        private final RowHandler handler;
+        private int lineNumber;
+
+        private OrderedDelivery(int firstLineNumber, RowHandler handler) {
+            this.lineNumber = firstLineNumber;
+            this.handler = handler;
+        }
+
+        private void submit(Supplier<CsvChunk> parse) {
+            if (inFlight.size() >= maxInFlight) {
+                deliver(await(inFlight.poll()));
+            }
+            inFlight.add(CompletableFuture.supplyAsync(parse, executor));
+        }
+
+        private void drain() {
+            while (!inFlight.isEmpty()) {
+                deliver(await(inFlight.poll()));
+            }
+        }
+
+        private void deliver(CsvChunk chunk) {
+            for (CsvRow row : chunk.getRows()) {
+                handler.accept(lineNumber + row.getLineOffset(), row);
+            }
+            lineNumber += chunk.getLineCount();
+        }
+
+        // обработчик упал — оставшиеся блоки больше не нужны
+        private void cancel() {
+            for (CompletableFuture<CsvChunk> pending : inFlight) {
+                pending.cancel(false);
+            }
+            inFlight.clear();
+        }
+
+        private CsvChunk await(CompletableFuture<CsvChunk> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
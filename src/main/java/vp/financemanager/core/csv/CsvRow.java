@@ -0,0 +1,114 @@
+package vp.financemanager.core.csv;
+
+import vp.financemanager.core.models.ImportErrorKind;
+import vp.financemanager.core.models.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Currency;
+
+// Разобранная строка импорта: либо поля транзакции, либо текст ошибки.
+// Номер строки в файле знает только CsvImportPipeline — здесь хранится смещение внутри блока.
+// В CSV есть только дата, а валюты может не быть (старый формат); форматы из core.format
+// передают время через of. Валюта null — валюта кошелька.
+public final class CsvRow {
+
+    private final int lineOffset;
+    private final LocalDateTime timestamp;
+    private final TransactionType type;
+    private final String categoryName;
+    private final BigDecimal amount;
+    private final String description;
+    private final Currency currency;
+    private final ImportErrorKind errorKind;
+    private final String error;
+
+    private CsvRow(int lineOffset, LocalDateTime timestamp, TransactionType type, String categoryName,
+                   BigDecimal amount, String description, Currency currency) {
+        this.lineOffset = lineOffset;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.categoryName = categoryName;
+        this.amount = amount;
+        this.description = description;
+        this.currency = currency;
+        this.errorKind = null;
+        this.error = null;
+    }
+
+    private CsvRow(int lineOffset, ImportErrorKind errorKind, String error) {
+        this.lineOffset = lineOffset;
+        this.timestamp = null;
+        this.type = null;
+        this.categoryName = null;
+        this.amount = null;
+        this.description = null;
+        this.currency = null;
+        this.errorKind = errorKind;
+        this.error = error;
+    }
+
+    static CsvRow valid(int lineOffset, LocalDate date, TransactionType type, String categoryName,
+                        BigDecimal amount, String description, Currency currency) {
+        return new CsvRow(lineOffset, date.atStartOfDay(), type, categoryName, amount, description, currency);
+    }
+
+    static CsvRow invalid(int lineOffset, ImportErrorKind errorKind, String error) {
+        return new CsvRow(lineOffset, errorKind, error);
+    }
+
+    public static CsvRow of(LocalDateTime timestamp, TransactionType type, String categoryName,
+                            BigDecimal amount, String description, Currency currency) {
+        return new CsvRow(0, timestamp, type, categoryName, amount, description, currency);
+    }
+
+    public static CsvRow error(ImportErrorKind errorKind, String error) {
+        return invalid(0, errorKind, error);
+    }
+
+    int getLineOffset() {
+        return lineOffset;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public ImportErrorKind getErrorKind() {
+        return errorKind;
+    }
+
+    public LocalDate getDate() {
+        return timestamp.toLocalDate();
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    // null — валюта кошелька
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
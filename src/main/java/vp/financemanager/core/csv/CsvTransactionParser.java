@@ -0,0 +1,278 @@
+package vp.financemanager.core.csv;
+
+import vp.financemanager.core.models.ImportErrorKind;
+import vp.financemanager.core.models.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+// Разбор блока записей CSV прямо по массиву символов; запись с переводом строки в кавычках
+// занимает несколько строк файла, номер у нее — первой из них. Поля без кавычек не копируются:
+// дата, тип и сумма читаются из диапазона массива, строки создаются только для категории,
+// описания и кода валюты. Ошибки формата возвращаются текстом, без исключений на каждую плохую строку.
+// Экземпляр хранит границы полей текущей строки и не потокобезопасен — один на блок.
+final class CsvTransactionParser {
+
+    private static final int MAX_FIELDS = 6;
+    // больше цифр может не поместиться в long
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+    private final String[] unquoted = new String[MAX_FIELDS];
+
+    private char[] chars;
+
+    static CsvChunk parse(char[] chars, int from, int to) {
+        return new CsvTransactionParser().parseChunk(chars, from, to);
+    }
+
+    private CsvChunk parseChunk(char[] chars, int from, int to) {
+        this.chars = chars;
+        List<CsvRow> rows = new ArrayList<>();
+        int line = 0;
+        int pos = from;
+        while (pos < to) {
+            // перевод строки внутри кавычек — часть поля, а не конец записи
+            int eol = pos;
+            int lineBreaks = 0;
+            boolean inQuotes = false;
+            while (eol < to) {
+                char c = chars[eol];
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if (c == '\n') {
+                    if (!inQuotes) {
+                        break;
+                    }
+                    lineBreaks++;
+                }
+                eol++;
+            }
+            // как String.trim: заодно отрезает \r
+            int start = pos;
+            int end = eol;
+            while (start < end && chars[start] <= ' ') {
+                start++;
+            }
+            while (end > start && chars[end - 1] <= ' ') {
+                end--;
+            }
+            if (start < end) {
+                rows.add(parseLine(line, start, end));
+            }
+            line += 1 + lineBreaks;
+            pos = eol + 1;
+        }
+        return new CsvChunk(rows, line);
+    }
+
+    private CsvRow parseLine(int line, int start, int end) {
+        int fields = split(start, end);
+        if (fields < 4) {
+            return CsvRow.invalid(line, ImportErrorKind.FORMAT, "Invalid format (expected at least 4 fields)");
+        }
+
+        LocalDate date = parseDate(0);
+        if (date == null) {
+            return CsvRow.invalid(line, ImportErrorKind.DATE, "Invalid date '" + text(0) + "' (expected YYYY-MM-DD)");
+        }
+        TransactionType type = parseType(1);
+        if (type == null) {
+            return CsvRow.invalid(line, ImportErrorKind.TYPE, "Invalid transaction type '" + text(1) + "'");
+        }
+        BigDecimal amount = parseAmount(3);
+        if (amount == null) {
+            return CsvRow.invalid(line, ImportErrorKind.AMOUNT, "Invalid amount '" + text(3) + "'");
+        }
+        if (amount.signum() <= 0) {
+            return CsvRow.invalid(line, ImportErrorKind.AMOUNT, "Amount must be greater than 0");
+        }
+        Currency currency = null;
+        if (fields > 5 && ends[5] > starts[5]) {
+            String code = text(5).trim();
+            try {
+                currency = Currency.getInstance(code);
+            } catch (IllegalArgumentException e) {
+                return CsvRow.invalid(line, ImportErrorKind.CURRENCY, "Invalid currency '" + code + "'");
+            }
+        }
+        String description = fields > 4 ? text(4) : "";
+        return CsvRow.valid(line, date, type, text(2), amount, description, currency);
+    }
+
+    // Границы полей; кавычки, как и раньше, переключают режим в любом месте поля,
+    // "" внутри кавычек — сама кавычка. Поля после шестого не нужны и не запоминаются.
+    private int split(int start, int end) {
+        int count = 0;
+        int pos = start;
+        while (true) {
+            int fieldStart = pos;
+            boolean quoted = false;
+            boolean inQuotes = false;
+            while (pos < end) {
+                char c = chars[pos];
+                if (c == '"') {
+                    quoted = true;
+                    inQuotes = !inQuotes;
+                } else if (c == ',' && !inQuotes) {
+                    break;
+                }
+                pos++;
+            }
+            if (count < MAX_FIELDS) {
+                starts[count] = fieldStart;
+                ends[count] = pos;
+                unquoted[count] = quoted ? unquote(fieldStart, pos) : null;
+            }
+            count++;
+            if (pos >= end) {
+                return count;
+            }
+            pos++;
+        }
+    }
+
+    private String unquote(int start, int end) {
+        StringBuilder field = new StringBuilder(end - start);
+        boolean inQuotes = false;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c == '"') {
+                if (inQuotes && i + 1 < end && chars[i + 1] == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        return field.toString();
+    }
+
+    private String text(int field) {
+        if (unquoted[field] != null) {
+            return unquoted[field];
+        }
+        return new String(chars, starts[field], ends[field] - starts[field]);
+    }
+
+    private LocalDate parseDate(int field) {
+        if (unquoted[field] != null) {
+            return parseDate(unquoted[field].toCharArray(), 0, unquoted[field].length());
+        }
+        return parseDate(chars, starts[field], ends[field]);
+    }
+
+    private TransactionType parseType(int field) {
+        if (unquoted[field] != null) {
+            return parseType(unquoted[field].toCharArray(), 0, unquoted[field].length());
+        }
+        return parseType(chars, starts[field], ends[field]);
+    }
+
+    private BigDecimal parseAmount(int field) {
+        if (unquoted[field] != null) {
+            return parseAmount(unquoted[field].toCharArray(), 0, unquoted[field].length());
+        }
+        return parseAmount(chars, starts[field], ends[field]);
+    }
+
+    // YYYY-MM-DD
+    static LocalDate parseDate(char[] c, int start, int end) {
+        if (end - start != 10 || c[start + 4] != '-' || c[start + 7] != '-') {
+            return null;
+        }
+        int year = digits(c, start, start + 4);
+        int month = digits(c, start + 5, start + 7);
+        int day = digits(c, start + 8, start + 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            // 2025-02-30 и подобные
+            return null;
+        }
+    }
+
+    private static int digits(char[] c, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = c[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    static TransactionType parseType(char[] c, int start, int end) {
+        if (matches(c, start, end, "EXPENSE")) {
+            return TransactionType.EXPENSE;
+        }
+        if (matches(c, start, end, "INCOME")) {
+            return TransactionType.INCOME;
+        }
+        return null;
+    }
+
+    private static boolean matches(char[] c, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (c[start + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Обычные суммы ([+-]цифры[.цифры], до 18 цифр) собираются в long без разбора строки;
+    // остальное (экспонента, длинные числа) — через конструктор BigDecimal
+    static BigDecimal parseAmount(char[] c, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (c[pos] == '-' || c[pos] == '+')) {
+            negative = c[pos] == '-';
+            pos++;
+        }
+        long unscaled = 0;
+        int digitCount = 0;
+        int scale = -1;
+        for (; pos < end; pos++) {
+            char ch = c[pos];
+            if (ch >= '0' && ch <= '9') {
+                unscaled = unscaled * 10 + (ch - '0');
+                digitCount++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (ch == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        if (pos == end && digitCount > 0 && digitCount <= MAX_FAST_DIGITS) {
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        }
+        if (end == start) {
+            return null;
+        }
+        try {
+            return new BigDecimal(c, start, end - start);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package vp.financemanager.core.csv;
+
+import vp.financemanager.core.models.Transaction;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Построчная запись транзакций в CSV (RFC 4180) через собственный буфер символов.
+// Дата и сумма пишутся в буфер цифрами, без промежуточных строк; поля с запятой, кавычкой,
+// переводом строки или пробелом по краям берутся в кавычки, кавычки внутри удваиваются.
+// Нижележащий Writer получает данные кусками размером с буфер; память не зависит от числа строк.
+// Последняя колонка — код валюты суммы; файлы старого формата без нее читаются в валюте кошелька.
+public final class CsvTransactionWriter implements Closeable, Flushable {
+
+    public static final String HEADER = "Date,Type,Category,Amount,Description,Currency";
+    public static final String LEGACY_HEADER = "Date,Type,Category,Amount,Description";
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    // длиннее самой длинной строки без текстовых полей: дата, тип, сумма и разделители
+    private static final int MIN_BUFFER_SIZE = 128;
+
+    private final Writer out;
+    private final char[] buffer;
+    private int position;
+
+    public CsvTransactionWriter(Writer out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTransactionWriter(Writer out, int bufferSize) {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE);
+        }
+        this.out = out;
+        this.buffer = new char[bufferSize];
+    }
+
+    public static boolean isHeader(String line) {
+        String header = line.trim();
+        return header.equals(HEADER) || header.equals(LEGACY_HEADER);
+    }
+
+    public void writeHeader() throws IOException {
+        writeRaw(HEADER);
+        writeChar('\n');
+    }
+
+    public void write(Transaction transaction) throws IOException {
+        writeDate(transaction.getTimestamp().toLocalDate());
+        writeChar(',');
+        writeRaw(transaction.getType().name());
+        writeChar(',');
+        writeField(transaction.getCategory().getName());
+        writeChar(',');
+        writeAmount(transaction.getAmount());
+        writeChar(',');
+        String description = transaction.getDescription();
+        if (description != null) {
+            writeField(description);
+        }
+        writeChar(',');
+        writeRaw(transaction.getCurrency().getCurrencyCode());
+        writeChar('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) {
+            writeRaw(date.toString());
+            return;
+        }
+        ensureCapacity(10);
+        writeDigits(year, 4);
+        buffer[position++] = '-';
+        writeDigits(date.getMonthValue(), 2);
+        buffer[position++] = '-';
+        writeDigits(date.getDayOfMonth(), 2);
+    }
+
+    private void writeDigits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    // Как BigDecimal.toPlainString, но для сумм до 18 знаков — без строки
+    private void writeAmount(BigDecimal amount) throws IOException {
+        int scale = amount.scale();
+        if (scale < 0 || scale > 18 || amount.precision() > 18) {
+            writeRaw(amount.toPlainString());
+            return;
+        }
+        long unscaled = amount.unscaledValue().longValue();
+        ensureCapacity(21);
+        if (unscaled < 0) {
+            buffer[position++] = '-';
+            unscaled = -unscaled;
+        }
+        int digits = Math.max(countDigits(unscaled), scale + 1);
+        int end = position + digits + (scale > 0 ? 1 : 0);
+        int i = end - 1;
+        for (int written = 0; written < digits; written++) {
+            if (scale > 0 && written == scale) {
+                buffer[i--] = '.';
+            }
+            buffer[i--] = (char) ('0' + unscaled % 10);
+            unscaled /= 10;
+        }
+        position = end;
+    }
+
+    private static int countDigits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void writeField(String value) throws IOException {
+        if (!needsQuoting(value)) {
+            writeRaw(value);
+            return;
+        }
+        writeChar('"');
+        int start = 0;
+        int quote;
+        while ((quote = value.indexOf('"', start)) >= 0) {
+            writeRaw(value, start, quote + 1);
+            writeChar('"');
+            start = quote + 1;
+        }
+        writeRaw(value, start, value.length());
+        writeChar('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+        if (value.charAt(0) == ' ' || value.charAt(length - 1) == ' ') {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeRaw(String value) throws IOException {
+        writeRaw(value, 0, value.length());
+    }
+
+    private void writeRaw(String value, int from, int to) throws IOException {
+        int length = to - from;
+        if (length > buffer.length) {
+            flushBuffer();
+            out.write(value, from, length);
+            return;
+        }
+        ensureCapacity(length);
+        value.getChars(from, to, buffer, position);
+        position += length;
+    }
+
+    private void writeChar(char c) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = c;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (position + length > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
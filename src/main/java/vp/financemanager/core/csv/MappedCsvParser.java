@@ -0,0 +1,343 @@
+package vp.financemanager.core.csv;
+
+import vp.financemanager.core.models.ImportErrorKind;
+import vp.financemanager.core.models.TransactionType;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Разбор участка файла, отображенного в память, прямо по байтам UTF-8 — без декодирования
+// строки целиком. Разделители и кавычки в UTF-8 однобайтовые, поэтому границы полей ищутся
+// по байтам; дата, тип и сумма разбираются из байтов. String создается только для описания
+// и для новой категории: имена категорий берутся из кэша по байтам и приводятся к одному
+// экземпляру через общий для всего импорта categoryNames.
+final class MappedCsvParser {
+
+    private static final int MAX_FIELDS = 6;
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private final ByteBuffer buffer;
+    private final ConcurrentHashMap<String, String> categoryNames;
+    private final CategoryCache categoryCache = new CategoryCache();
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+    private final boolean[] quoted = new boolean[MAX_FIELDS];
+    private byte[] scratch = new byte[256];
+    private ByteBuffer scratchBuffer = ByteBuffer.wrap(scratch);
+
+    private MappedCsvParser(ByteBuffer buffer, ConcurrentHashMap<String, String> categoryNames) {
+        this.buffer = buffer;
+        this.categoryNames = categoryNames;
+    }
+
+    static CsvChunk parse(ByteBuffer region, ConcurrentHashMap<String, String> categoryNames) {
+        return new MappedCsvParser(region, categoryNames).parseChunk();
+    }
+
+    private CsvChunk parseChunk() {
+        List<CsvRow> rows = new ArrayList<>();
+        int limit = buffer.limit();
+        int line = 0;
+        int pos = 0;
+        while (pos < limit) {
+            // как в CsvTransactionParser: перевод строки в кавычках не завершает запись
+            int eol = pos;
+            int lineBreaks = 0;
+            boolean inQuotes = false;
+            while (eol < limit) {
+                byte b = buffer.get(eol);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n') {
+                    if (!inQuotes) {
+                        break;
+                    }
+                    lineBreaks++;
+                }
+                eol++;
+            }
+            int start = pos;
+            int end = eol;
+            while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+                start++;
+            }
+            while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+                end--;
+            }
+            if (start < end) {
+                rows.add(parseLine(line, start, end));
+            }
+            line += 1 + lineBreaks;
+            pos = eol + 1;
+        }
+        return new CsvChunk(rows, line);
+    }
+
+    private CsvRow parseLine(int line, int start, int end) {
+        int fields = split(start, end);
+        if (fields < 4) {
+            return CsvRow.invalid(line, ImportErrorKind.FORMAT, "Invalid format (expected at least 4 fields)");
+        }
+
+        LocalDate date = quoted[0] ? parseDate(scratchBuffer, 0, unquote(0)) : parseDate(buffer, starts[0], ends[0]);
+        if (date == null) {
+            return CsvRow.invalid(line, ImportErrorKind.DATE, "Invalid date '" + text(0) + "' (expected YYYY-MM-DD)");
+        }
+        TransactionType type = quoted[1] ? parseType(scratchBuffer, 0, unquote(1)) : parseType(buffer, starts[1], ends[1]);
+        if (type == null) {
+            return CsvRow.invalid(line, ImportErrorKind.TYPE, "Invalid transaction type '" + text(1) + "'");
+        }
+        BigDecimal amount = quoted[3] ? parseAmount(scratchBuffer, 0, unquote(3)) : parseAmount(buffer, starts[3], ends[3]);
+        if (amount == null) {
+            return CsvRow.invalid(line, ImportErrorKind.AMOUNT, "Invalid amount '" + text(3) + "'");
+        }
+        if (amount.signum() <= 0) {
+            return CsvRow.invalid(line, ImportErrorKind.AMOUNT, "Amount must be greater than 0");
+        }
+        Currency currency = null;
+        if (fields > 5 && ends[5] > starts[5]) {
+            String code = text(5).trim();
+            try {
+                currency = Currency.getInstance(code);
+            } catch (IllegalArgumentException e) {
+                return CsvRow.invalid(line, ImportErrorKind.CURRENCY, "Invalid currency '" + code + "'");
+            }
+        }
+        String description = fields > 4 ? text(4) : "";
+        return CsvRow.valid(line, date, type, categoryName(), amount, description, currency);
+    }
+
+    // Те же правила кавычек, что у CsvTransactionParser
+    private int split(int start, int end) {
+        int count = 0;
+        int pos = start;
+        while (true) {
+            int fieldStart = pos;
+            boolean hasQuotes = false;
+            boolean inQuotes = false;
+            while (pos < end) {
+                byte b = buffer.get(pos);
+                if (b == '"') {
+                    hasQuotes = true;
+                    inQuotes = !inQuotes;
+                } else if (b == ',' && !inQuotes) {
+                    break;
+                }
+                pos++;
+            }
+            if (count < MAX_FIELDS) {
+                starts[count] = fieldStart;
+                ends[count] = pos;
+                quoted[count] = hasQuotes;
+            }
+            count++;
+            if (pos >= end) {
+                return count;
+            }
+            pos++;
+        }
+    }
+
+    // Снимает кавычки поля в scratch; возвращает длину
+    private int unquote(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        ensureScratch(end - start);
+        int length = 0;
+        boolean inQuotes = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                if (inQuotes && i + 1 < end && buffer.get(i + 1) == '"') {
+                    scratch[length++] = '"';
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else {
+                scratch[length++] = b;
+            }
+        }
+        return length;
+    }
+
+    private int copy(int field) {
+        int length = ends[field] - starts[field];
+        ensureScratch(length);
+        buffer.get(starts[field], scratch, 0, length);
+        return length;
+    }
+
+    private String text(int field) {
+        int length = quoted[field] ? unquote(field) : copy(field);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private String categoryName() {
+        int length = quoted[2] ? unquote(2) : copy(2);
+        return categoryCache.get(scratch, length);
+    }
+
+    private void ensureScratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+            scratchBuffer = ByteBuffer.wrap(scratch);
+        }
+    }
+
+    // YYYY-MM-DD
+    static LocalDate parseDate(ByteBuffer b, int start, int end) {
+        if (end - start != 10 || b.get(start + 4) != '-' || b.get(start + 7) != '-') {
+            return null;
+        }
+        int year = digits(b, start, start + 4);
+        int month = digits(b, start + 5, start + 7);
+        int day = digits(b, start + 8, start + 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(ByteBuffer b, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = b.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    static TransactionType parseType(ByteBuffer b, int start, int end) {
+        if (matches(b, start, end, "EXPENSE")) {
+            return TransactionType.EXPENSE;
+        }
+        if (matches(b, start, end, "INCOME")) {
+            return TransactionType.INCOME;
+        }
+        return null;
+    }
+
+    private static boolean matches(ByteBuffer b, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (b.get(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static BigDecimal parseAmount(ByteBuffer b, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (b.get(pos) == '-' || b.get(pos) == '+')) {
+            negative = b.get(pos) == '-';
+            pos++;
+        }
+        long unscaled = 0;
+        int digitCount = 0;
+        int scale = -1;
+        for (; pos < end; pos++) {
+            byte ch = b.get(pos);
+            if (ch >= '0' && ch <= '9') {
+                unscaled = unscaled * 10 + (ch - '0');
+                digitCount++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (ch == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        if (pos == end && digitCount > 0 && digitCount <= MAX_FAST_DIGITS) {
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        }
+        if (end == start) {
+            return null;
+        }
+        // экспонента и длинные числа — редкий путь через строку
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (b.get(start + i) & 0xFF);
+        }
+        try {
+            return new BigDecimal(chars);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Открытая адресация по байтам имени: повторная категория находится без создания строки
+    private final class CategoryCache {
+
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int size;
+
+        private String get(byte[] bytes, int length) {
+            int hash = hash(bytes, length);
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != null) {
+                if (Arrays.equals(keys[slot], 0, keys[slot].length, bytes, 0, length)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            String name = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            String canonical = categoryNames.putIfAbsent(name, name);
+            keys[slot] = Arrays.copyOf(bytes, length);
+            values[slot] = canonical != null ? canonical : name;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return values[slot];
+        }
+
+        private void resize() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = hash(oldKeys[i], oldKeys[i].length) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private int hash(byte[] bytes, int length) {
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package vp.financemanager.core.format;
+
+import vp.financemanager.core.csv.CsvImportPipeline;
+import vp.financemanager.core.csv.CsvRow;
+import vp.financemanager.core.models.ImportErrorKind;
+import vp.financemanager.core.models.TransactionType;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+
+// Чтение файла ColumnarTransactionWriter блок за блоком: колонки блока декодируются целиком,
+// затем строки отдаются обработчику. Номер строки — порядковый номер записи в файле.
+// Поврежденный файл — IOException, продолжать после него нельзя.
+public final class ColumnarTransactionReader {
+
+    // защита от огромных аллокаций на поврежденном файле
+    private static final int MAX_STRING_BYTES = 16 << 20;
+
+    private final InputStream in;
+    private final List<String> categoryNames = new ArrayList<>();
+    private final List<Currency> currencies = new ArrayList<>();
+    private long previousSecond;
+
+    private ColumnarTransactionReader(InputStream in) {
+        this.in = in;
+    }
+
+    public static void read(InputStream in, CsvImportPipeline.RowHandler handler) throws IOException {
+        new ColumnarTransactionReader(new BufferedInputStream(in, 64 * 1024)).readAll(handler);
+    }
+
+    private void readAll(CsvImportPipeline.RowHandler handler) throws IOException {
+        byte[] magic = in.readNBytes(ColumnarTransactionWriter.MAGIC.length);
+        if (!Arrays.equals(magic, ColumnarTransactionWriter.MAGIC)) {
+            throw new IOException("Not a columnar transaction file");
+        }
+        int version = in.read();
+        if (version != ColumnarTransactionWriter.VERSION) {
+            throw new IOException("Unsupported columnar format version " + version);
+        }
+
+        long[] seconds = new long[ColumnarTransactionWriter.BLOCK_ROWS];
+        int[] nanos = new int[ColumnarTransactionWriter.BLOCK_ROWS];
+        byte[] expenseBits = new byte[ColumnarTransactionWriter.BLOCK_ROWS / 8];
+        int[] categoryIds = new int[ColumnarTransactionWriter.BLOCK_ROWS];
+        BigDecimal[] amounts = new BigDecimal[ColumnarTransactionWriter.BLOCK_ROWS];
+        int[] currencyIds = new int[ColumnarTransactionWriter.BLOCK_ROWS];
+        int lineNumber = 0;
+
+        int rows;
+        while ((rows = (int) readVarint()) != 0) {
+            if (rows < 0 || rows > ColumnarTransactionWriter.BLOCK_ROWS) {
+                throw new IOException("Corrupted columnar file: block of " + rows + " rows");
+            }
+            int newCategories = (int) readVarint();
+            for (int i = 0; i < newCategories; i++) {
+                categoryNames.add(readString());
+            }
+            int newCurrencies = (int) readVarint();
+            for (int i = 0; i < newCurrencies; i++) {
+                try {
+                    currencies.add(Currency.getInstance(readString()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Corrupted columnar file: unknown currency", e);
+                }
+            }
+
+            for (int i = 0; i < rows; i++) {
+                previousSecond += unzigzag(readVarint());
+                seconds[i] = previousSecond;
+            }
+            for (int i = 0; i < rows; i++) {
+                nanos[i] = (int) readVarint();
+            }
+            readFully(expenseBits, (rows + 7) >> 3);
+            for (int i = 0; i < rows; i++) {
+                categoryIds[i] = checkId(readVarint(), categoryNames.size());
+            }
+            for (int i = 0; i < rows; i++) {
+                amounts[i] = readAmount();
+            }
+            for (int i = 0; i < rows; i++) {
+                currencyIds[i] = checkId(readVarint(), currencies.size());
+            }
+
+            for (int i = 0; i < rows; i++) {
+                String description = readString();
+                lineNumber++;
+                TransactionType type = (expenseBits[i >> 3] & (1 << (i & 7))) != 0
+                        ? TransactionType.EXPENSE
+                        : TransactionType.INCOME;
+                CsvRow row = amounts[i].signum() <= 0
+                        ? CsvRow.error(ImportErrorKind.AMOUNT, "Amount must be greater than 0")
+                        : CsvRow.of(LocalDateTime.ofEpochSecond(seconds[i], nanos[i], ZoneOffset.UTC), type,
+                                categoryNames.get(categoryIds[i]), amounts[i], description,
+                                currencies.get(currencyIds[i]));
+                handler.accept(lineNumber, row);
+            }
+        }
+    }
+
+    private BigDecimal readAmount() throws IOException {
+        int scale = readByte();
+        if (scale == ColumnarTransactionWriter.ESCAPE_SCALE) {
+            try {
+                return new BigDecimal(readString());
+            } catch (NumberFormatException e) {
+                throw new IOException("Corrupted columnar file: invalid amount", e);
+            }
+        }
+        return BigDecimal.valueOf(unzigzag(readVarint()), scale);
+    }
+
+    private static int checkId(long id, int size) throws IOException {
+        if (id < 0 || id >= size) {
+            throw new IOException("Corrupted columnar file: dictionary id " + id + " out of range");
+        }
+        return (int) id;
+    }
+
+    private String readString() throws IOException {
+        long length = readVarint();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupted columnar file: string of " + length + " bytes");
+        }
+        byte[] bytes = new byte[(int) length];
+        readFully(bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void readFully(byte[] target, int length) throws IOException {
+        if (in.readNBytes(target, 0, length) != length) {
+            throw new EOFException("Unexpected end of columnar file");
+        }
+    }
+
+    private int readByte() throws IOException {
+        int value = in.read();
+        if (value < 0) {
+            throw new EOFException("Unexpected end of columnar file");
+        }
+        return value;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted columnar file: varint too long");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
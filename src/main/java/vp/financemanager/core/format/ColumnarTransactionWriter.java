@@ -0,0 +1,212 @@
+package vp.financemanager.core.format;
+
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Компактный колоночный формат для аналитики. Файл: MAGIC и версия, затем блоки до BLOCK_ROWS строк,
+// в конце блок с нулем строк. Блок (числа — varint, знаковые — zigzag):
+//   число строк;
+//   новые категории и новые валюты: количество и строки UTF-8 (id — порядковый номер в файле);
+//   время: разность секунд эпохи с предыдущей строкой (для первой строки файла — с нулем), наносекунды;
+//   типы: битовая маска, 1 — EXPENSE;
+//   id категорий;
+//   суммы: масштаб (байт) и unscaled; масштаб ESCAPE_SCALE — сумма строкой;
+//   id валют;
+//   описания: длина и UTF-8.
+// В памяти только текущий блок и словари.
+public final class ColumnarTransactionWriter implements TransactionWriter {
+
+    static final byte[] MAGIC = {'F', 'M', 'T', 'C'};
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 4_096;
+    static final int ESCAPE_SCALE = 255;
+
+    private final OutputStream out;
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final Map<String, Integer> currencyIds = new HashMap<>();
+    private final ByteSink block = new ByteSink();
+
+    private final long[] seconds = new long[BLOCK_ROWS];
+    private final int[] nanos = new int[BLOCK_ROWS];
+    private final byte[] expenseBits = new byte[BLOCK_ROWS / 8];
+    private final int[] categories = new int[BLOCK_ROWS];
+    private final BigDecimal[] amounts = new BigDecimal[BLOCK_ROWS];
+    private final int[] currencies = new int[BLOCK_ROWS];
+    private final String[] descriptions = new String[BLOCK_ROWS];
+    private String[] newCategories = new String[16];
+    private String[] newCurrencies = new String[4];
+    private int newCategoryCount;
+    private int newCurrencyCount;
+    private int rows;
+    private long previousSecond;
+
+    public ColumnarTransactionWriter(OutputStream out) throws IOException {
+        this.out = out;
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    @Override
+    public void write(Transaction transaction) throws IOException {
+        LocalDateTime timestamp = transaction.getTimestamp();
+        seconds[rows] = timestamp.toEpochSecond(ZoneOffset.UTC);
+        nanos[rows] = timestamp.getNano();
+        if (transaction.getType() == TransactionType.EXPENSE) {
+            expenseBits[rows >> 3] |= (byte) (1 << (rows & 7));
+        }
+        categories[rows] = categoryId(transaction.getCategory().getName());
+        amounts[rows] = transaction.getAmount();
+        currencies[rows] = currencyId(transaction.getCurrency().getCurrencyCode());
+        descriptions[rows] = transaction.getDescription() != null ? transaction.getDescription() : "";
+        if (++rows == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            flushBlock();
+        }
+        block.writeVarint(0);
+        block.drainTo(out);
+        out.flush();
+    }
+
+    private int categoryId(String name) {
+        Integer id = categoryIds.get(name);
+        if (id == null) {
+            id = categoryIds.size();
+            categoryIds.put(name, id);
+            if (newCategoryCount == newCategories.length) {
+                newCategories = Arrays.copyOf(newCategories, newCategoryCount * 2);
+            }
+            newCategories[newCategoryCount++] = name;
+        }
+        return id;
+    }
+
+    private int currencyId(String code) {
+        Integer id = currencyIds.get(code);
+        if (id == null) {
+            id = currencyIds.size();
+            currencyIds.put(code, id);
+            if (newCurrencyCount == newCurrencies.length) {
+                newCurrencies = Arrays.copyOf(newCurrencies, newCurrencyCount * 2);
+            }
+            newCurrencies[newCurrencyCount++] = code;
+        }
+        return id;
+    }
+
+    private void flushBlock() throws IOException {
+        block.writeVarint(rows);
+        block.writeVarint(newCategoryCount);
+        for (int i = 0; i < newCategoryCount; i++) {
+            block.writeString(newCategories[i]);
+            newCategories[i] = null;
+        }
+        block.writeVarint(newCurrencyCount);
+        for (int i = 0; i < newCurrencyCount; i++) {
+            block.writeString(newCurrencies[i]);
+            newCurrencies[i] = null;
+        }
+        newCategoryCount = 0;
+        newCurrencyCount = 0;
+
+        for (int i = 0; i < rows; i++) {
+            block.writeVarint(zigzag(seconds[i] - previousSecond));
+            previousSecond = seconds[i];
+        }
+        for (int i = 0; i < rows; i++) {
+            block.writeVarint(nanos[i]);
+        }
+        block.write(expenseBits, 0, (rows + 7) >> 3);
+        Arrays.fill(expenseBits, (byte) 0);
+        for (int i = 0; i < rows; i++) {
+            block.writeVarint(categories[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            writeAmount(amounts[i]);
+            amounts[i] = null;
+        }
+        for (int i = 0; i < rows; i++) {
+            block.writeVarint(currencies[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            block.writeString(descriptions[i]);
+            descriptions[i] = null;
+        }
+        rows = 0;
+        block.drainTo(out);
+    }
+
+    private void writeAmount(BigDecimal amount) {
+        int scale = amount.scale();
+        if (scale >= 0 && scale < ESCAPE_SCALE && amount.precision() <= 18) {
+            block.writeByte(scale);
+            block.writeVarint(zigzag(amount.unscaledValue().longValue()));
+        } else {
+            block.writeByte(ESCAPE_SCALE);
+            block.writeString(amount.toString());
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // Растущий буфер блока
+    private static final class ByteSink {
+
+        private byte[] bytes = new byte[64 * 1024];
+        private int size;
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        void drainTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+            size = 0;
+        }
+
+        private void ensure(int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+        }
+    }
+}
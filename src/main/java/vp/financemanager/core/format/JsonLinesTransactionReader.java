@@ -0,0 +1,116 @@
+package vp.financemanager.core.format;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import vp.financemanager.core.csv.CsvImportPipeline;
+import vp.financemanager.core.csv.CsvRow;
+import vp.financemanager.core.models.ImportErrorKind;
+import vp.financemanager.core.models.TransactionType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Currency;
+
+// Чтение JSON Lines, записанного JsonLinesTransactionWriter. Каждая строка разбирается своим
+// потоковым JsonParser, поэтому испорченная строка дает ошибку со своим номером и не ломает остальные.
+// Неизвестные поля пропускаются.
+public final class JsonLinesTransactionReader {
+
+    private JsonLinesTransactionReader() {
+    }
+
+    public static void read(Reader reader, CsvImportPipeline.RowHandler handler) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            handler.accept(lineNumber, parseLine(line));
+        }
+    }
+
+    static CsvRow parseLine(String line) throws IOException {
+        String timestamp = null;
+        String type = null;
+        String category = null;
+        BigDecimal amount = null;
+        String currency = null;
+        String description = "";
+
+        try (JsonParser parser = JsonLinesTransactionWriter.JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return CsvRow.error(ImportErrorKind.FORMAT, "Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "timestamp":
+                        timestamp = parser.getValueAsString();
+                        break;
+                    case "type":
+                        type = parser.getValueAsString();
+                        break;
+                    case "category":
+                        category = parser.getValueAsString();
+                        break;
+                    case "amount":
+                        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+                            amount = parser.getDecimalValue();
+                        } else {
+                            return CsvRow.error(ImportErrorKind.AMOUNT, "Invalid amount '" + parser.getText() + "'");
+                        }
+                        break;
+                    case "currency":
+                        currency = parser.getValueAsString();
+                        break;
+                    case "description":
+                        description = value == JsonToken.VALUE_NULL ? "" : parser.getValueAsString();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        } catch (JsonParseException e) {
+            return CsvRow.error(ImportErrorKind.FORMAT, "Invalid JSON: " + e.getOriginalMessage());
+        }
+
+        if (timestamp == null || type == null || category == null || amount == null) {
+            return CsvRow.error(ImportErrorKind.FORMAT, "Missing field (timestamp, type, category and amount are required)");
+        }
+        LocalDateTime parsedTimestamp;
+        try {
+            parsedTimestamp = LocalDateTime.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            return CsvRow.error(ImportErrorKind.DATE, "Invalid timestamp '" + timestamp + "'");
+        }
+        TransactionType parsedType;
+        if ("INCOME".equals(type)) {
+            parsedType = TransactionType.INCOME;
+        } else if ("EXPENSE".equals(type)) {
+            parsedType = TransactionType.EXPENSE;
+        } else {
+            return CsvRow.error(ImportErrorKind.TYPE, "Invalid transaction type '" + type + "'");
+        }
+        if (amount.signum() <= 0) {
+            return CsvRow.error(ImportErrorKind.AMOUNT, "Amount must be greater than 0");
+        }
+        Currency parsedCurrency = null;
+        if (currency != null) {
+            try {
+                parsedCurrency = Currency.getInstance(currency);
+            } catch (IllegalArgumentException e) {
+                return CsvRow.error(ImportErrorKind.CURRENCY, "Invalid currency '" + currency + "'");
+            }
+        }
+        return CsvRow.of(parsedTimestamp, parsedType, category, amount, description, parsedCurrency);
+    }
+}
@@ -0,0 +1,49 @@
+package vp.financemanager.core.format;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import vp.financemanager.core.models.Transaction;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// JSON Lines: один объект на строку, через потоковый JsonGenerator без промежуточного дерева.
+// Сумма пишется числом в исходном масштабе (100.50 остается 100.50), время — с точностью до наносекунд,
+// валюта — явно.
+public final class JsonLinesTransactionWriter implements TransactionWriter {
+
+    static final JsonFactory JSON_FACTORY = JsonFactory.builder().build();
+
+    private final JsonGenerator generator;
+
+    public JsonLinesTransactionWriter(OutputStream out) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // иначе Jackson ставит пробел перед каждым следующим объектом; строки разделяет writeRaw('\n')
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(Transaction transaction) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("timestamp", transaction.getTimestamp().toString());
+        generator.writeStringField("type", transaction.getType().name());
+        generator.writeStringField("category", transaction.getCategory().getName());
+        generator.writeFieldName("amount");
+        generator.writeNumber(transaction.getAmount());
+        generator.writeStringField("currency", transaction.getCurrency().getCurrencyCode());
+        generator.writeStringField("description",
+                transaction.getDescription() != null ? transaction.getDescription() : "");
+        if (transaction.isTransfer()) {
+            generator.writeStringField("transferId", transaction.getTransferId());
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,83 @@
+package vp.financemanager.core.format;
+
+import vp.financemanager.core.csv.CsvCompression;
+import vp.financemanager.core.csv.CsvTransactionWriter;
+import vp.financemanager.core.models.Transaction;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Форматы выгрузки и импорта. При записи формат выбирается по расширению (без суффикса сжатия),
+// при чтении — по первым байтам: MAGIC колоночного формата, '{' у JSON Lines, иначе CSV.
+public enum TransactionFormat {
+
+    CSV(".csv"),
+    JSON_LINES(".jsonl"),
+    COLUMNAR(".txc");
+
+    private final String extension;
+
+    TransactionFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static TransactionFormat forFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        name = name.substring(0, name.length() - CsvCompression.forFileName(name).getExtension().length());
+        for (TransactionFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return CSV;
+    }
+
+    public static TransactionFormat detect(byte[] head, int length) {
+        byte[] magic = ColumnarTransactionWriter.MAGIC;
+        if (length >= magic.length && Arrays.equals(head, 0, magic.length, magic, 0, magic.length)) {
+            return COLUMNAR;
+        }
+        for (int i = 0; i < length; i++) {
+            if (head[i] == '{') {
+                return JSON_LINES;
+            }
+            if (head[i] != ' ' && head[i] != '\n' && head[i] != '\r' && head[i] != '\t') {
+                break;
+            }
+        }
+        return CSV;
+    }
+
+    // Для CSV сразу пишется заголовок
+    public TransactionWriter newWriter(OutputStream out) throws IOException {
+        switch (this) {
+            case JSON_LINES:
+                return new JsonLinesTransactionWriter(out);
+            case COLUMNAR:
+                return new ColumnarTransactionWriter(out);
+            default:
+                CsvTransactionWriter csv = new CsvTransactionWriter(
+                        new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                csv.writeHeader();
+                return new TransactionWriter() {
+                    @Override
+                    public void write(Transaction transaction) throws IOException {
+                        csv.write(transaction);
+                    }
+
+                    @Override
+                    public void finish() throws IOException {
+                        csv.flush();
+                    }
+                };
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package vp.financemanager.core.format;
+
+import vp.financemanager.core.models.Transaction;
+
+import java.io.IOException;
+
+// Потоковая запись транзакций в один из форматов выгрузки
+public interface TransactionWriter {
+
+    void write(Transaction transaction) throws IOException;
+
+    // Дописывает буферы и служебный хвост формата; сам поток не закрывает
+    void finish() throws IOException;
+}
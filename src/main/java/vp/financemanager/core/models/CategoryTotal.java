@@ -0,0 +1,50 @@
+package vp.financemanager.core.models;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+public class CategoryTotal {
+
+    private final Category category;
+    private final BigDecimal total;
+
+    public CategoryTotal(Category category, BigDecimal total) {
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
+        }
+        if (total == null) {
+            throw new IllegalArgumentException("Total cannot be null");
+        }
+        this.category = category;
+        this.total = total;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return category.getName() + ": " + total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CategoryTotal that)) {
+            return false;
+        }
+        return category.equals(that.category) && total.compareTo(that.total) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, total.stripTrailingZeros());
+    }
+}
@@ -0,0 +1,13 @@
+package vp.financemanager.core.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+// Пересчет суммы в основную валюту кошелька по курсу на дату. Курсы живут в сервисах,
+// поэтому модель получает пересчет снаружи
+@FunctionalInterface
+public interface CurrencyConverter {
+
+    BigDecimal toWalletCurrency(BigDecimal amount, Currency from, LocalDate date);
+}
@@ -0,0 +1,101 @@
+package vp.financemanager.core.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+
+// Инвертированный индекс слов описаний: слово -> позиции транзакций.
+// Слова хранятся отсортированными, поэтому поиск по префиксу — это поддиапазон.
+// Обновляется самим Wallet при добавлении и замене транзакций.
+public final class DescriptionIndex {
+
+    private final NavigableMap<String, PositionList> postings;
+
+    DescriptionIndex() {
+        this.postings = new TreeMap<>();
+    }
+
+    void add(int position, Transaction transaction) {
+        for (String token : DescriptionTokenizer.tokenize(transaction.getDescription())) {
+            postings.computeIfAbsent(token, t -> new PositionList()).add(position);
+        }
+    }
+
+    void remove(int position, Transaction transaction) {
+        for (String token : DescriptionTokenizer.tokenize(transaction.getDescription())) {
+            PositionList positions = postings.get(token);
+            if (positions != null && positions.remove(position) && positions.size() == 0) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    public int count(String token) {
+        PositionList positions = postings.get(token);
+        return positions == null ? 0 : positions.size();
+    }
+
+    public int countPrefix(String prefix) {
+        int count = 0;
+        for (PositionList positions : withPrefix(prefix).values()) {
+            count += positions.size();
+        }
+        return count;
+    }
+
+    // Позиции по возрастанию
+    public int[] positions(String token) {
+        PositionList positions = postings.get(token);
+        if (positions == null) {
+            return new int[0];
+        }
+        int[] result = new int[positions.size()];
+        positions.copyTo(result, 0);
+        return result;
+    }
+
+    // Позиции больше after по возрастанию, без копирования списка
+    public PrimitiveIterator.OfInt positionsAfter(String token, int after) {
+        PositionList positions = postings.get(token);
+        return PositionList.mergeAfter(positions == null ? List.of() : List.of(positions), after);
+    }
+
+    // Позиции транзакций, где есть слово с этим префиксом, по возрастанию и без повторов
+    public int[] positionsForPrefix(String prefix) {
+        Collection<PositionList> matching = withPrefix(prefix).values();
+        int count = 0;
+        for (PositionList positions : matching) {
+            count += positions.size();
+        }
+
+        int[] result = new int[count];
+        int offset = 0;
+        for (PositionList positions : matching) {
+            offset = positions.copyTo(result, offset);
+        }
+        if (matching.size() <= 1) {
+            return result;
+        }
+
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    // То же, но только позиции больше after и без копирования списков
+    public PrimitiveIterator.OfInt positionsForPrefixAfter(String prefix, int after) {
+        return PositionList.mergeAfter(withPrefix(prefix).values(), after);
+    }
+
+    private NavigableMap<String, PositionList> withPrefix(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+}
@@ -0,0 +1,58 @@
+package vp.financemanager.core.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Курсы валют по дням: сколько единиц quoteCurrency стоит одна единица валюты.
+// На дни без записи действует последний известный курс.
+public final class FxRateTable {
+
+    private final Currency quoteCurrency;
+    private final Map<Currency, NavigableMap<LocalDate, BigDecimal>> rates;
+
+    public FxRateTable(Currency quoteCurrency) {
+        if (quoteCurrency == null) {
+            throw new IllegalArgumentException("Quote currency cannot be null");
+        }
+        this.quoteCurrency = quoteCurrency;
+        this.rates = new HashMap<>();
+    }
+
+    public static FxRateTable empty() {
+        return new FxRateTable(Wallet.DEFAULT_CURRENCY);
+    }
+
+    public void addRate(Currency currency, LocalDate date, BigDecimal rate) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        if (rate == null || rate.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Rate must be greater than 0");
+        }
+        if (currency.equals(quoteCurrency)) {
+            throw new IllegalArgumentException("Rate of the quote currency is always 1");
+        }
+        rates.computeIfAbsent(currency, c -> new TreeMap<>()).put(date, rate);
+    }
+
+    public Currency getQuoteCurrency() {
+        return quoteCurrency;
+    }
+
+    public NavigableMap<LocalDate, BigDecimal> getRates(Currency currency) {
+        NavigableMap<LocalDate, BigDecimal> currencyRates = rates.get(currency);
+        if (currencyRates == null) {
+            return Collections.emptyNavigableMap();
+        }
+        return Collections.unmodifiableNavigableMap(currencyRates);
+    }
+}
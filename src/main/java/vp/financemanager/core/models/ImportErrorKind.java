@@ -0,0 +1,11 @@
+package vp.financemanager.core.models;
+
+// Причина, по которой строка импорта не попала в кошелек
+public enum ImportErrorKind {
+    FORMAT,      // строку не удалось разобрать: мало полей, битый JSON, нет обязательного поля
+    DATE,
+    TYPE,
+    AMOUNT,
+    CURRENCY,
+    REJECTED     // строка разобрана, но кошелек ее не принял (например, нет курса валюты)
+}
@@ -0,0 +1,169 @@
+package vp.financemanager.core.models;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Снимок хода импорта. Время — в наносекундах от начала импорта:
+// parse — сколько импортирующий поток читал файл и ждал разобранных строк
+// (разбор в пуле, идущий одновременно с применением, сюда не входит),
+// apply — применение строк к кошельку, persist — сохранение кошелька.
+public final class ImportProgress {
+
+    private final int imported;
+    private final int skippedDuplicates;
+    private final Map<ImportErrorKind, Integer> errorsByKind;
+    private final long bytesRead;
+    private final long totalBytes;           // -1, если размер ввода неизвестен
+    private final long elapsedNanos;
+    private final long parseNanos;
+    private final long applyNanos;
+    private final long persistNanos;
+
+    private ImportProgress(Builder builder) {
+        this.imported = builder.imported;
+        this.skippedDuplicates = builder.skippedDuplicates;
+        this.errorsByKind = builder.errorsByKind.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new EnumMap<>(builder.errorsByKind));
+        this.bytesRead = builder.bytesRead;
+        this.totalBytes = builder.totalBytes;
+        this.elapsedNanos = builder.elapsedNanos;
+        this.parseNanos = builder.parseNanos;
+        this.applyNanos = builder.applyNanos;
+        this.persistNanos = builder.persistNanos;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Все обработанные строки: добавленные, пропущенные и ошибочные
+    public long getRowsProcessed() {
+        return (long) imported + skippedDuplicates + getErrorCount();
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getSkippedDuplicates() {
+        return skippedDuplicates;
+    }
+
+    public int getErrorCount() {
+        int count = 0;
+        for (int kindCount : errorsByKind.values()) {
+            count += kindCount;
+        }
+        return count;
+    }
+
+    public Map<ImportErrorKind, Integer> getErrorsByKind() {
+        return errorsByKind;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    // Доля прочитанного файла в процентах или -1, если размер неизвестен
+    public int getPercentRead() {
+        if (totalBytes <= 0) {
+            return -1;
+        }
+        return (int) Math.min(100, bytesRead * 100 / totalBytes);
+    }
+
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0.0;
+        }
+        return getRowsProcessed() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getApplyNanos() {
+        return applyNanos;
+    }
+
+    public long getPersistNanos() {
+        return persistNanos;
+    }
+
+    public static final class Builder {
+
+        private int imported;
+        private int skippedDuplicates;
+        private Map<ImportErrorKind, Integer> errorsByKind = Collections.emptyMap();
+        private long bytesRead;
+        private long totalBytes = -1;
+        private long elapsedNanos;
+        private long parseNanos;
+        private long applyNanos;
+        private long persistNanos;
+
+        private Builder() {
+        }
+
+        public Builder imported(int imported) {
+            this.imported = imported;
+            return this;
+        }
+
+        public Builder skippedDuplicates(int skippedDuplicates) {
+            this.skippedDuplicates = skippedDuplicates;
+            return this;
+        }
+
+        public Builder errorsByKind(Map<ImportErrorKind, Integer> errorsByKind) {
+            if (errorsByKind == null) {
+                throw new IllegalArgumentException("Errors by kind cannot be null");
+            }
+            this.errorsByKind = errorsByKind;
+            return this;
+        }
+
+        // totalBytes = -1, если размер ввода неизвестен
+        public Builder bytes(long bytesRead, long totalBytes) {
+            this.bytesRead = bytesRead;
+            this.totalBytes = totalBytes;
+            return this;
+        }
+
+        public Builder elapsedNanos(long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+            return this;
+        }
+
+        public Builder parseNanos(long parseNanos) {
+            this.parseNanos = parseNanos;
+            return this;
+        }
+
+        public Builder applyNanos(long applyNanos) {
+            this.applyNanos = applyNanos;
+            return this;
+        }
+
+        public Builder persistNanos(long persistNanos) {
+            this.persistNanos = persistNanos;
+            return this;
+        }
+
+        public ImportProgress build() {
+            return new ImportProgress(this);
+        }
+    }
+}
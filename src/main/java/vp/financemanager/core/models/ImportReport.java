@@ -0,0 +1,39 @@
+package vp.financemanager.core.models;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class ImportReport {
+
+    private final List<String> errors;
+    private final ImportProgress progress;
+
+    // errors может быть короче progress.getErrorCount(): сообщения хранятся только для первых ошибок
+    public ImportReport(List<String> errors, ImportProgress progress) {
+        this.errors = Collections.unmodifiableList(errors);
+        this.progress = progress;
+    }
+
+    public int getImported() {
+        return progress.getImported();
+    }
+
+    // Строки, уже имеющиеся в кошельке (только в режиме пропуска дубликатов)
+    public int getSkippedDuplicates() {
+        return progress.getSkippedDuplicates();
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    // Все ошибки, включая те, чьи сообщения не сохранены
+    public int getErrorCount() {
+        return progress.getErrorCount();
+    }
+
+    // Итоговые счетчики и время по этапам
+    public ImportProgress getProgress() {
+        return progress;
+    }
+}
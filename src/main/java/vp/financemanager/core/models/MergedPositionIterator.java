@@ -0,0 +1,68 @@
+package vp.financemanager.core.models;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+// Слияние возрастающих списков позиций: в очереди по одной текущей позиции от каждого списка,
+// поэтому память не зависит от длины списков
+final class MergedPositionIterator implements PrimitiveIterator.OfInt {
+
+    private final PriorityQueue<Head> heads;
+    private int last;
+
+    MergedPositionIterator(Collection<PositionList> lists, int after) {
+        this.heads = new PriorityQueue<>(Math.max(1, lists.size()));
+        this.last = after;
+        for (PositionList list : lists) {
+            PrimitiveIterator.OfInt iterator = list.iteratorAfter(after);
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.nextInt(), iterator));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        // одна транзакция может попасть в несколько списков (слова с общим префиксом)
+        while (!heads.isEmpty() && heads.peek().position <= last) {
+            advance(heads.poll());
+        }
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Head head = heads.poll();
+        last = head.position;
+        advance(head);
+        return last;
+    }
+
+    private void advance(Head head) {
+        if (head.rest.hasNext()) {
+            head.position = head.rest.nextInt();
+            heads.add(head);
+        }
+    }
+
+    private static final class Head implements Comparable<Head> {
+
+        private int position;
+        private final PrimitiveIterator.OfInt rest;
+
+        private Head(int position, PrimitiveIterator.OfInt rest) {
+            this.position = position;
+            this.rest = rest;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            return Integer.compare(position, other.position);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package vp.financemanager.core.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// Отсортированный по возрастанию список позиций транзакций в кошельке
+final class PositionList {
+
+    private int[] positions;
+    private int size;
+
+    PositionList() {
+        this.positions = new int[4];
+        this.size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(int position) {
+        // при обычном добавлении позиция всегда больше последней
+        if (size == 0 || positions[size - 1] < position) {
+            ensureCapacity();
+            positions[size++] = position;
+            return;
+        }
+
+        int at = Arrays.binarySearch(positions, 0, size, position);
+        if (at >= 0) {
+            return;
+        }
+        int insertAt = -at - 1;
+        ensureCapacity();
+        System.arraycopy(positions, insertAt, positions, insertAt + 1, size - insertAt);
+        positions[insertAt] = position;
+        size++;
+    }
+
+    boolean remove(int position) {
+        int at = Arrays.binarySearch(positions, 0, size, position);
+        if (at < 0) {
+            return false;
+        }
+        System.arraycopy(positions, at + 1, positions, at, size - at - 1);
+        size--;
+        return true;
+    }
+
+    int copyTo(int[] target, int offset) {
+        System.arraycopy(positions, 0, target, offset, size);
+        return offset + size;
+    }
+
+    // Позиции больше after по возрастанию; список читается напрямую, без копии
+    PrimitiveIterator.OfInt iteratorAfter(int after) {
+        int at = Arrays.binarySearch(positions, 0, size, after + 1);
+        int start = at >= 0 ? at : -at - 1;
+        return new PrimitiveIterator.OfInt() {
+            private int next = start;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return positions[next++];
+            }
+        };
+    }
+
+    // Позиции больше after из всех списков по возрастанию и без повторов
+    static PrimitiveIterator.OfInt mergeAfter(Collection<PositionList> lists, int after) {
+        if (lists.size() == 1) {
+            return lists.iterator().next().iteratorAfter(after);
+        }
+        return new MergedPositionIterator(lists, after);
+    }
+
+    private void ensureCapacity() {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package vp.financemanager.core.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// KLL-скетч квантилей (Karnin, Lang, Liberty, 2016).
+// Память O(k log(n/k)), обновление за амортизированное O(1), запрос — O(k log k).
+// Погрешность по рангу при k = 200 — около 1.65% с вероятностью 99%
+// (значение из анализа KLL в Apache DataSketches); min и max точные.
+// Скетчи с одинаковым k можно сливать (merge), например по разным кошелькам.
+public final class QuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    private final int k;
+    private final Random random;
+    // levels.get(h) — значения с весом 2^h
+    private final List<double[]> levels;
+    private final List<Integer> sizes;
+    private long count;
+    private double min;
+    private double max;
+    // кэш для запросов
+    private double[] sortedValues;
+    private long[] cumulativeWeights;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("K must be at least " + MIN_LEVEL_CAPACITY);
+        }
+        this.k = k;
+        this.random = new Random(k);
+        this.levels = new ArrayList<>();
+        this.sizes = new ArrayList<>();
+        this.count = 0;
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+        addLevel();
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Value cannot be NaN");
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        sortedValues = null;
+        append(0, value);
+        compressIfNeeded();
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other == null || other.isEmpty()) {
+            return;
+        }
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge sketches with different k");
+        }
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+        sortedValues = null;
+
+        for (int level = 0; level < other.levels.size(); level++) {
+            double[] values = other.levels.get(level);
+            int size = other.sizes.get(level);
+            for (int i = 0; i < size; i++) {
+                append(level, values[i]);
+            }
+        }
+        compressIfNeeded();
+    }
+
+    // q в [0, 1]; для пустого скетча — NaN
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0) {
+            return min;
+        }
+        if (q == 1) {
+            return max;
+        }
+
+        if (sortedValues == null) {
+            buildSortedView();
+        }
+
+        // первое значение, у которого накопленный вес >= q * count
+        double targetWeight = q * count;
+        int low = 0;
+        int high = sortedValues.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] >= targetWeight) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return sortedValues[low];
+    }
+
+    // Отсортированные значения с накопленными весами; сбрасывается при update и merge
+    private void buildSortedView() {
+        int retained = 0;
+        for (int size : sizes) {
+            retained += size;
+        }
+
+        double[] values = new double[retained];
+        int at = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            double[] levelValues = levels.get(level);
+            for (int i = 0; i < sizes.get(level); i++) {
+                values[at] = levelValues[i];
+                at++;
+            }
+        }
+
+        // сортируем индексы по значению
+        Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        int[] levelOf = new int[retained];
+        at = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            for (int i = 0; i < sizes.get(level); i++) {
+                levelOf[at++] = level;
+            }
+        }
+
+        sortedValues = new double[retained];
+        cumulativeWeights = new long[retained];
+        long cumulative = 0;
+        for (int i = 0; i < retained; i++) {
+            int index = order[i];
+            cumulative += 1L << levelOf[index];
+            sortedValues[i] = values[index];
+            cumulativeWeights[i] = cumulative;
+        }
+    }
+
+    private void append(int level, double value) {
+        while (levels.size() <= level) {
+            addLevel();
+        }
+        double[] values = levels.get(level);
+        int size = sizes.get(level);
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+            levels.set(level, values);
+        }
+        values[size] = value;
+        sizes.set(level, size + 1);
+    }
+
+    private void compressIfNeeded() {
+        while (true) {
+            int overflowing = -1;
+            for (int level = 0; level < levels.size(); level++) {
+                if (sizes.get(level) > capacity(level)) {
+                    overflowing = level;
+                    break;
+                }
+            }
+            if (overflowing < 0) {
+                return;
+            }
+            compact(overflowing);
+        }
+    }
+
+    // Половина отсортированных значений уровня переходит выше с удвоенным весом
+    private void compact(int level) {
+        double[] values = levels.get(level);
+        int size = sizes.get(level);
+        Arrays.sort(values, 0, size);
+
+        // при нечетном размере одно значение остается на уровне
+        int keep = size % 2;
+        int offset = random.nextBoolean() ? 1 : 0;
+        for (int i = keep + offset; i < size; i += 2) {
+            append(level + 1, values[i]);
+        }
+        sizes.set(level, keep);
+    }
+
+    private int capacity(int level) {
+        int depth = levels.size() - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private void addLevel() {
+        levels.add(new double[MIN_LEVEL_CAPACITY]);
+        sizes.add(0);
+    }
+}
@@ -0,0 +1,25 @@
+package vp.financemanager.core.models;
+
+import java.time.LocalDate;
+
+public enum RecurrenceFrequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY,
+    YEARLY;
+
+    // Дата n-го повторения считается от начала правила, а не от предыдущей даты:
+    // правило на 31-е число после 28 февраля снова дает 31 марта
+    public LocalDate occurrence(LocalDate start, long n) {
+        switch (this) {
+            case WEEKLY:
+                return start.plusWeeks(n);
+            case MONTHLY:
+                return start.plusMonths(n);
+            case YEARLY:
+                return start.plusYears(n);
+            default:
+                return start.plusDays(n);
+        }
+    }
+}
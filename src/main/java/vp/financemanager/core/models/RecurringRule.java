@@ -0,0 +1,178 @@
+package vp.financemanager.core.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public final class RecurringRule {
+
+    private final TransactionType type;
+    private final BigDecimal amount;
+    private final Category category;
+    private final String description;
+    private final RecurrenceFrequency frequency;
+    private final LocalDate startDate;
+    private final LocalDate endDate;   // null — без окончания
+    // сколько повторений уже добавлено в кошелек
+    private long occurrences;
+    private LocalDate nextDue;
+
+    private RecurringRule(Builder builder) {
+        TransactionType type = builder.type;
+        BigDecimal amount = builder.amount;
+        Category category = builder.category;
+        RecurrenceFrequency frequency = builder.frequency;
+        LocalDate startDate = builder.startDate;
+        LocalDate endDate = builder.endDate;
+        long occurrences = builder.occurrences;
+        if (type == null) {
+            throw new IllegalArgumentException("Transaction type cannot be null");
+        }
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than 0");
+        }
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
+        }
+        if (frequency == null) {
+            throw new IllegalArgumentException("Frequency cannot be null");
+        }
+        if (startDate == null) {
+            throw new IllegalArgumentException("Start date cannot be null");
+        }
+        if (endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+        if (occurrences < 0) {
+            throw new IllegalArgumentException("Occurrences cannot be negative");
+        }
+
+        this.type = type;
+        this.amount = amount;
+        this.category = category;
+        this.description = builder.description == null ? "" : builder.description;
+        this.frequency = frequency;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.occurrences = occurrences;
+        this.nextDue = frequency.occurrence(startDate, occurrences);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public RecurrenceFrequency getFrequency() {
+        return frequency;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public long getOccurrences() {
+        return occurrences;
+    }
+
+    public LocalDate getNextDue() {
+        return nextDue;
+    }
+
+    public boolean isFinished() {
+        return endDate != null && nextDue.isAfter(endDate);
+    }
+
+    // Сдвигает правило на следующее повторение; вызывает только кошелек,
+    // чтобы не нарушить порядок в очереди правил
+    void advance() {
+        occurrences++;
+        nextDue = frequency.occurrence(startDate, occurrences);
+    }
+
+    public static final class Builder {
+
+        private TransactionType type;
+        private BigDecimal amount;
+        private Category category;
+        private String description;
+        private RecurrenceFrequency frequency;
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private long occurrences;
+
+        private Builder() {
+        }
+
+        public Builder type(TransactionType type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder amount(BigDecimal amount) {
+            this.amount = amount;
+            return this;
+        }
+
+        public Builder category(Category category) {
+            this.category = category;
+            return this;
+        }
+
+        public Builder description(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder frequency(RecurrenceFrequency frequency) {
+            this.frequency = frequency;
+            return this;
+        }
+
+        // endDate == null — без окончания
+        public Builder schedule(RecurrenceFrequency frequency, LocalDate startDate, LocalDate endDate) {
+            this.frequency = frequency;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            return this;
+        }
+
+        public Builder startDate(LocalDate startDate) {
+            this.startDate = startDate;
+            return this;
+        }
+
+        public Builder endDate(LocalDate endDate) {
+            this.endDate = endDate;
+            return this;
+        }
+
+        // Сколько повторений уже добавлено; нужно при загрузке сохраненного правила
+        public Builder occurrences(long occurrences) {
+            this.occurrences = occurrences;
+            return this;
+        }
+
+        public RecurringRule build() {
+            return new RecurringRule(this);
+        }
+    }
+}
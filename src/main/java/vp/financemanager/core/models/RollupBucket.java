@@ -0,0 +1,63 @@
+package vp.financemanager.core.models;
+
+import java.math.BigDecimal;
+
+// Агрегат сумм за период: сумма, количество, минимум и максимум
+public final class RollupBucket {
+
+    private final BigDecimal sum;
+    private final long count;
+    private final BigDecimal min;
+    private final BigDecimal max;
+
+    public RollupBucket(BigDecimal sum, long count, BigDecimal min, BigDecimal max) {
+        if (sum == null || min == null || max == null) {
+            throw new IllegalArgumentException("Sum, min and max cannot be null");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be greater than 0");
+        }
+        this.sum = sum;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+    }
+
+    public static RollupBucket of(BigDecimal amount) {
+        return new RollupBucket(amount, 1, amount, amount);
+    }
+
+    public RollupBucket add(BigDecimal amount) {
+        return new RollupBucket(sum.add(amount), count + 1, min.min(amount), max.max(amount));
+    }
+
+    public RollupBucket merge(RollupBucket other) {
+        return new RollupBucket(sum.add(other.sum), count + other.count, min.min(other.min), max.max(other.max));
+    }
+
+    public BigDecimal getSum() {
+        return sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "RollupBucket{"
+                + "sum=" + sum
+                + ", count=" + count
+                + ", min=" + min
+                + ", max=" + max
+                + '}';
+    }
+}
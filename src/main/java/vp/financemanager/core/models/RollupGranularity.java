@@ -0,0 +1,39 @@
+package vp.financemanager.core.models;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum RollupGranularity {
+    DAY,
+    WEEK,    // неделя с понедельника
+    MONTH,
+    YEAR;
+
+    public LocalDate bucketStart(LocalDate date) {
+        switch (this) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            case YEAR:
+                return date.withDayOfYear(1);
+            default:
+                return date;
+        }
+    }
+
+    public LocalDate nextBucketStart(LocalDate date) {
+        LocalDate start = bucketStart(date);
+        switch (this) {
+            case WEEK:
+                return start.plusWeeks(1);
+            case MONTH:
+                return start.plusMonths(1);
+            case YEAR:
+                return start.plusYears(1);
+            default:
+                return start.plusDays(1);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package vp.financemanager.core.models;
+
+import java.time.Instant;
+
+// Сессия пользователя после входа. Время хранится в миллисекундах эпохи, чтобы проверка
+// токена обходилась без выделения памяти. lastAccess меняется при каждом обращении
+// из разных потоков, поэтому он volatile; остальные поля неизменяемы.
+public final class Session {
+
+    private final String token;
+    private final User user;
+    private final long createdAtMillis;
+    private final long expiresAtMillis;     // абсолютный срок жизни, продлением не сдвигается
+    private volatile long lastAccessMillis;
+
+    public Session(String token, User user, Instant createdAt, Instant expiresAt) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Token cannot be null or empty");
+        }
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        if (createdAt == null || expiresAt == null) {
+            throw new IllegalArgumentException("Session times cannot be null");
+        }
+        this.token = token;
+        this.user = user;
+        this.createdAtMillis = createdAt.toEpochMilli();
+        this.expiresAtMillis = expiresAt.toEpochMilli();
+        this.lastAccessMillis = createdAtMillis;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Instant getCreatedAt() {
+        return Instant.ofEpochMilli(createdAtMillis);
+    }
+
+    public Instant getExpiresAt() {
+        return Instant.ofEpochMilli(expiresAtMillis);
+    }
+
+    public Instant getLastAccess() {
+        return Instant.ofEpochMilli(lastAccessMillis);
+    }
+
+    public boolean isExpired(long nowMillis, long idleTimeoutMillis) {
+        return nowMillis >= expiresAtMillis || nowMillis - lastAccessMillis >= idleTimeoutMillis;
+    }
+
+    // Гонка двух обращений безвредна: побеждает одно из почти одинаковых значений
+    public void touch(long nowMillis) {
+        lastAccessMillis = nowMillis;
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+}
@@ -0,0 +1,74 @@
+package vp.financemanager.core.models;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// Экспоненциально взвешенная оценка дневных трат по категории.
+// Каждый календарный день — одно наблюдение (дни без трат считаются нулями),
+// вес дня убывает вдвое за halfLifeDays. Обновление и запрос — O(1):
+// пропуск в g пустых дней учитывается одним возведением в степень.
+// Оценка делится на накопленный вес, чтобы короткая история не занижала темп.
+public final class SpendingForecast {
+
+    public static final double DEFAULT_HALF_LIFE_DAYS = 14.0;
+
+    private final double alpha;
+    private LocalDate lastDay;   // последний день с тратами, еще не учтенный в rate
+    private double openDaySpent;
+    private double rate;
+    private double weight;
+
+    public SpendingForecast() {
+        this(DEFAULT_HALF_LIFE_DAYS);
+    }
+
+    public SpendingForecast(double halfLifeDays) {
+        if (!(halfLifeDays > 0)) {
+            throw new IllegalArgumentException("Half-life must be greater than 0");
+        }
+        this.alpha = 1.0 - Math.pow(0.5, 1.0 / halfLifeDays);
+    }
+
+    // Трата задним числом (раньше lastDay) засчитывается в текущий день
+    public void record(LocalDate day, double amount) {
+        if (day == null) {
+            throw new IllegalArgumentException("Day cannot be null");
+        }
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount cannot be negative");
+        }
+        if (lastDay == null) {
+            lastDay = day;
+            openDaySpent = amount;
+        } else if (day.isAfter(lastDay)) {
+            long gap = ChronoUnit.DAYS.between(lastDay, day);
+            double decay = Math.pow(1.0 - alpha, gap - 1);
+            rate = (alpha * openDaySpent + (1.0 - alpha) * rate) * decay;
+            weight = 1.0 - (1.0 - (alpha + (1.0 - alpha) * weight)) * decay;
+            lastDay = day;
+            openDaySpent = amount;
+        } else {
+            openDaySpent += amount;
+        }
+    }
+
+    public boolean isEmpty() {
+        return lastDay == null;
+    }
+
+    // Средние траты в день на дату asOf; сам день asOf в оценку не входит,
+    // кроме случая asOf == lastDay
+    public double dailyRate(LocalDate asOf) {
+        if (asOf == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        if (lastDay == null) {
+            return 0.0;
+        }
+        long gap = Math.max(1, ChronoUnit.DAYS.between(lastDay, asOf));
+        double decay = Math.pow(1.0 - alpha, gap - 1);
+        double foldedRate = (alpha * openDaySpent + (1.0 - alpha) * rate) * decay;
+        double foldedWeight = 1.0 - (1.0 - (alpha + (1.0 - alpha) * weight)) * decay;
+        return foldedRate / foldedWeight;
+    }
+}
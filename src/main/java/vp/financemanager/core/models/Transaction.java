@@ -2,6 +2,7 @@ package vp.financemanager.core.models;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Currency;
 import java.util.Objects;
 
 public class Transaction {
@@ -11,6 +12,8 @@ public class Transaction {
     private final Category category;           // категория (например, "Еда", "Зарплата")
     private final String description;        // комментарий (может быть null или пустой)
     private final LocalDateTime timestamp;   // время операции
+    private final Currency currency;         // валюта суммы
+    private final String transferId;         // общий id пары транзакций перевода; null — не перевод
 
     public Transaction(
             TransactionType type,
@@ -18,6 +21,29 @@ public class Transaction {
             Category category,
             String description,
             LocalDateTime timestamp
+    ) {
+        this(type, amount, category, description, timestamp, Wallet.DEFAULT_CURRENCY);
+    }
+
+    public Transaction(
+            TransactionType type,
+            BigDecimal amount,
+            Category category,
+            String description,
+            LocalDateTime timestamp,
+            Currency currency
+    ) {
+        this(type, amount, category, description, timestamp, currency, null);
+    }
+
+    public Transaction(
+            TransactionType type,
+            BigDecimal amount,
+            Category category,
+            String description,
+            LocalDateTime timestamp,
+            Currency currency,
+            String transferId
     ) {
         if (type == null) {
             throw new IllegalArgumentException("Transaction type cannot be null");
@@ -34,12 +60,17 @@ public class Transaction {
         if (timestamp == null) {
             throw new IllegalArgumentException("Timestamp cannot be null");
         }
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
 
         this.type = type;
         this.amount = amount;
         this.category = category;
         this.description = description;
         this.timestamp = timestamp;
+        this.currency = currency;
+        this.transferId = transferId;
     }
 
     public TransactionType getType() {
@@ -62,14 +93,28 @@ public class Transaction {
         return timestamp;
     }
 
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public String getTransferId() {
+        return transferId;
+    }
+
+    public boolean isTransfer() {
+        return transferId != null;
+    }
+
     @Override
     public String toString() {
         return "Transaction{" +
                 "type=" + type +
                 ", amount=" + amount +
+                ", currency=" + currency +
                 ", category='" + category.getName() + '\'' +
                 ", description='" + description + '\'' +
                 ", timestamp=" + timestamp +
+                (transferId != null ? ", transferId=" + transferId : "") +
                 '}';
     }
 
@@ -81,11 +126,13 @@ public class Transaction {
                 && Objects.equals(amount, that.amount)
                 && Objects.equals(category, that.category)
                 && Objects.equals(description, that.description)
-                && Objects.equals(timestamp, that.timestamp);
+                && Objects.equals(timestamp, that.timestamp)
+                && Objects.equals(currency, that.currency)
+                && Objects.equals(transferId, that.transferId);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, amount, category, description, timestamp);
+        return Objects.hash(type, amount, category, description, timestamp, currency, transferId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package vp.financemanager.core.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.Objects;
+
+// Ключ для поиска повторно импортируемых транзакций: день, тип, категория (без учета регистра),
+// сумма (без учета масштаба: 100 и 100.00 совпадают), валюта и описание. Время внутри дня не учитывается —
+// в выгрузках банков его обычно нет.
+public final class TransactionFingerprint {
+
+    private final LocalDate date;
+    private final TransactionType type;
+    private final String category;
+    private final BigDecimal amount;
+    private final Currency currency;
+    private final String description;
+    private final int hash;
+
+    private TransactionFingerprint(LocalDate date, TransactionType type, String category, BigDecimal amount,
+                                   Currency currency, String description) {
+        this.date = date;
+        this.type = type;
+        this.category = category;
+        this.amount = amount;
+        this.currency = currency;
+        this.description = description;
+        this.hash = Objects.hash(date, type, category, amount, currency, description);
+    }
+
+    public static TransactionFingerprint of(Transaction transaction) {
+        return of(transaction.getTimestamp().toLocalDate(), transaction.getType(), transaction.getCategory(),
+                transaction.getAmount(), transaction.getCurrency(), transaction.getDescription());
+    }
+
+    public static TransactionFingerprint of(LocalDate date, TransactionType type, Category category,
+                                            BigDecimal amount, Currency currency, String description) {
+        return new TransactionFingerprint(date, type, category.getName().toLowerCase(Locale.ROOT),
+                amount.stripTrailingZeros(), currency, description == null ? "" : description);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TransactionFingerprint that)) {
+            return false;
+        }
+        return hash == that.hash
+                && type == that.type
+                && date.equals(that.date)
+                && amount.equals(that.amount)
+                && category.equals(that.category)
+                && currency.equals(that.currency)
+                && description.equals(that.description);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
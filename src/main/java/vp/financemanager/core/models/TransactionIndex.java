@@ -0,0 +1,138 @@
+package vp.financemanager.core.models;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Индексы по позициям транзакций кошелька: по дням и по категориям.
+// Обновляется самим Wallet при добавлении и замене транзакций.
+public final class TransactionIndex {
+
+    private final NavigableMap<LocalDate, PositionList> byDay;
+    private final Map<Category, PositionList> byCategory;
+
+    TransactionIndex() {
+        this.byDay = new TreeMap<>();
+        this.byCategory = new HashMap<>();
+    }
+
+    void add(int position, Transaction transaction) {
+        byDay.computeIfAbsent(transaction.getTimestamp().toLocalDate(), day -> new PositionList()).add(position);
+        byCategory.computeIfAbsent(transaction.getCategory(), category -> new PositionList()).add(position);
+    }
+
+    void remove(int position, Transaction transaction) {
+        LocalDate day = transaction.getTimestamp().toLocalDate();
+        PositionList dayPositions = byDay.get(day);
+        if (dayPositions != null && dayPositions.remove(position) && dayPositions.size() == 0) {
+            byDay.remove(day);
+        }
+
+        PositionList categoryPositions = byCategory.get(transaction.getCategory());
+        if (categoryPositions != null && categoryPositions.remove(position) && categoryPositions.size() == 0) {
+            byCategory.remove(transaction.getCategory());
+        }
+    }
+
+    public Set<Category> getCategories() {
+        return Collections.unmodifiableSet(byCategory.keySet());
+    }
+
+    public int countForCategories(Collection<Category> categories) {
+        int count = 0;
+        for (Category category : new HashSet<>(categories)) {
+            PositionList positions = byCategory.get(category);
+            if (positions != null) {
+                count += positions.size();
+            }
+        }
+        return count;
+    }
+
+    // Позиции транзакций указанных категорий по возрастанию
+    public int[] positionsForCategories(Collection<Category> categories) {
+        Set<Category> distinct = new HashSet<>(categories);
+        int[] result = new int[countForCategories(distinct)];
+        int offset = 0;
+        for (Category category : distinct) {
+            PositionList positions = byCategory.get(category);
+            if (positions != null) {
+                offset = positions.copyTo(result, offset);
+            }
+        }
+        if (distinct.size() > 1) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+
+    // То же, но только позиции больше after и без копирования списков
+    public PrimitiveIterator.OfInt positionsForCategoriesAfter(Collection<Category> categories, int after) {
+        List<PositionList> lists = new ArrayList<>();
+        for (Category category : new HashSet<>(categories)) {
+            PositionList positions = byCategory.get(category);
+            if (positions != null) {
+                lists.add(positions);
+            }
+        }
+        return PositionList.mergeAfter(lists, after);
+    }
+
+    public int countBetween(LocalDate fromDate, LocalDate toDate) {
+        int count = 0;
+        for (PositionList positions : daysBetween(fromDate, toDate).values()) {
+            count += positions.size();
+        }
+        return count;
+    }
+
+    // Позиции транзакций с датой в [fromDate, toDate] по возрастанию; null — без границы
+    public int[] positionsBetween(LocalDate fromDate, LocalDate toDate) {
+        NavigableMap<LocalDate, PositionList> days = daysBetween(fromDate, toDate);
+        int count = 0;
+        for (PositionList positions : days.values()) {
+            count += positions.size();
+        }
+
+        int[] result = new int[count];
+        int offset = 0;
+        for (PositionList positions : days.values()) {
+            offset = positions.copyTo(result, offset);
+        }
+        if (days.size() > 1) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+
+    // То же, но только позиции больше after и без копирования списков
+    public PrimitiveIterator.OfInt positionsBetweenAfter(LocalDate fromDate, LocalDate toDate, int after) {
+        return PositionList.mergeAfter(daysBetween(fromDate, toDate).values(), after);
+    }
+
+    private NavigableMap<LocalDate, PositionList> daysBetween(LocalDate fromDate, LocalDate toDate) {
+        if (fromDate != null && toDate != null) {
+            if (fromDate.isAfter(toDate)) {
+                return Collections.emptyNavigableMap();
+            }
+            return byDay.subMap(fromDate, true, toDate, true);
+        }
+        if (fromDate != null) {
+            return byDay.tailMap(fromDate, true);
+        }
+        if (toDate != null) {
+            return byDay.headMap(toDate, true);
+        }
+        return byDay;
+    }
+}
@@ -0,0 +1,70 @@
+package vp.financemanager.core.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+
+public class TransactionRequest {
+
+    private final TransactionType type;
+    private final BigDecimal amount;
+    private final Category category;
+    private final String description;
+    private final LocalDateTime timestamp;   // null — время добавления в кошелек
+    private final Currency currency;         // null — основная валюта кошелька
+
+    public TransactionRequest(TransactionType type, BigDecimal amount, Category category, String description) {
+        this(type, amount, category, description, null);
+    }
+
+    public TransactionRequest(
+            TransactionType type,
+            BigDecimal amount,
+            Category category,
+            String description,
+            LocalDateTime timestamp
+    ) {
+        this(type, amount, category, description, timestamp, null);
+    }
+
+    public TransactionRequest(
+            TransactionType type,
+            BigDecimal amount,
+            Category category,
+            String description,
+            LocalDateTime timestamp,
+            Currency currency
+    ) {
+        // проверка полей выполняется при добавлении, чтобы ошибка попала в результат строки
+        this.type = type;
+        this.amount = amount;
+        this.category = category;
+        this.description = description;
+        this.timestamp = timestamp;
+        this.currency = currency;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+}
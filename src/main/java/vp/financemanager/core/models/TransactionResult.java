@@ -0,0 +1,44 @@
+package vp.financemanager.core.models;
+
+public final class TransactionResult {
+
+    private final int index;                 // номер строки в исходном списке
+    private final Transaction transaction;   // null, если строка отклонена
+    private final String error;              // null, если строка добавлена
+
+    private TransactionResult(int index, Transaction transaction, String error) {
+        this.index = index;
+        this.transaction = transaction;
+        this.error = error;
+    }
+
+    public static TransactionResult success(int index, Transaction transaction) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be null");
+        }
+        return new TransactionResult(index, transaction, null);
+    }
+
+    public static TransactionResult failure(int index, String error) {
+        if (error == null || error.isBlank()) {
+            throw new IllegalArgumentException("Error cannot be null or blank");
+        }
+        return new TransactionResult(index, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
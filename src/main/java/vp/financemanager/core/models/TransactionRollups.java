@@ -0,0 +1,111 @@
+package vp.financemanager.core.models;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Дневные агрегаты по типу и категории. Недели, месяцы и годы собираются из дней при запросе.
+// Обновляется самим Wallet при добавлении и замене транзакций.
+public final class TransactionRollups {
+
+    private final Map<TransactionType, Map<Category, NavigableMap<LocalDate, RollupBucket>>> days;
+
+    TransactionRollups() {
+        this.days = new EnumMap<>(TransactionType.class);
+    }
+
+    void add(Transaction transaction) {
+        daysOf(transaction.getType(), transaction.getCategory())
+                .merge(transaction.getTimestamp().toLocalDate(), RollupBucket.of(transaction.getAmount()),
+                        RollupBucket::merge);
+    }
+
+    // Пересчитывает один день по транзакциям этого дня (нужно после замены: min/max нельзя «вычесть»)
+    void recompute(TransactionType type, Category category, LocalDate day, List<Transaction> dayTransactions) {
+        RollupBucket bucket = null;
+        for (Transaction tx : dayTransactions) {
+            if (tx.getType() == type && tx.getCategory().equals(category)) {
+                bucket = bucket == null ? RollupBucket.of(tx.getAmount()) : bucket.add(tx.getAmount());
+            }
+        }
+
+        NavigableMap<LocalDate, RollupBucket> categoryDays = daysOf(type, category);
+        if (bucket != null) {
+            categoryDays.put(day, bucket);
+        } else {
+            categoryDays.remove(day);
+            if (categoryDays.isEmpty()) {
+                days.get(type).remove(category);
+            }
+        }
+    }
+
+    void restore(TransactionType type, Category category, LocalDate day, RollupBucket bucket) {
+        daysOf(type, category).put(day, bucket);
+    }
+
+    void clear() {
+        days.clear();
+    }
+
+    public Map<Category, NavigableMap<LocalDate, RollupBucket>> getDays(TransactionType type) {
+        Map<Category, NavigableMap<LocalDate, RollupBucket>> byCategory = days.get(type);
+        if (byCategory == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(byCategory);
+    }
+
+    // Агрегаты по периодам в [fromDate, toDate]; category == null — все категории.
+    // Крайние недели и месяцы учитывают только дни внутри диапазона.
+    public NavigableMap<LocalDate, RollupBucket> query(TransactionType type,
+                                                       Category category,
+                                                       RollupGranularity granularity,
+                                                       LocalDate fromDate,
+                                                       LocalDate toDate) {
+        NavigableMap<LocalDate, RollupBucket> result = new TreeMap<>();
+        Map<Category, NavigableMap<LocalDate, RollupBucket>> byCategory = days.get(type);
+        if (byCategory == null || (fromDate != null && toDate != null && fromDate.isAfter(toDate))) {
+            return result;
+        }
+
+        if (category != null) {
+            NavigableMap<LocalDate, RollupBucket> categoryDays = byCategory.get(category);
+            if (categoryDays != null) {
+                collect(categoryDays, granularity, fromDate, toDate, result);
+            }
+        } else {
+            for (NavigableMap<LocalDate, RollupBucket> categoryDays : byCategory.values()) {
+                collect(categoryDays, granularity, fromDate, toDate, result);
+            }
+        }
+        return result;
+    }
+
+    private void collect(NavigableMap<LocalDate, RollupBucket> categoryDays,
+                         RollupGranularity granularity,
+                         LocalDate fromDate,
+                         LocalDate toDate,
+                         NavigableMap<LocalDate, RollupBucket> result) {
+        NavigableMap<LocalDate, RollupBucket> range = categoryDays;
+        if (fromDate != null) {
+            range = range.tailMap(fromDate, true);
+        }
+        if (toDate != null) {
+            range = range.headMap(toDate, true);
+        }
+        for (Map.Entry<LocalDate, RollupBucket> entry : range.entrySet()) {
+            result.merge(granularity.bucketStart(entry.getKey()), entry.getValue(), RollupBucket::merge);
+        }
+    }
+
+    private NavigableMap<LocalDate, RollupBucket> daysOf(TransactionType type, Category category) {
+        return days.computeIfAbsent(type, t -> new HashMap<>())
+                .computeIfAbsent(category, c -> new TreeMap<>());
+    }
+}
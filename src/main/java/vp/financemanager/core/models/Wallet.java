@@ -1,16 +1,34 @@
 package vp.financemanager.core.models;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Currency;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
 
 public class Wallet {
+
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("RUB");
+
     private final String ownerLogin;
-    // текущий баланс кошелька
+    // основная валюта кошелька
+    private final Currency currency;
+    // текущий баланс кошелька в основной валюте
     private BigDecimal balance;
+    // остатки в других валютах
+    private final Map<Currency, BigDecimal> foreignBalances;
 
     // доходы и расходы по кошельку
     private final List<Transaction> transactions;
@@ -18,7 +36,41 @@ public class Wallet {
     // бюджеты по категориям: категория и объект бюджета
     private final Map<Category, CategoryBudget> categoryBudgets;
 
+    // индексы по дням и категориям для выборок транзакций
+    private final TransactionIndex index;
+
+    // инвертированный индекс слов из описаний
+    private final DescriptionIndex descriptionIndex;
+
+    // дневные агрегаты по категориям в основной валюте и отдельно по каждой другой валюте;
+    // сохраняются вместе с кошельком
+    private final TransactionRollups rollups;
+    private final Map<Currency, TransactionRollups> foreignRollups;
+
+    // скетчи сумм расходов по валюте, категории и месяцу (валюты не смешиваются, как в агрегатах);
+    // строятся при первом запросе
+    private final Map<Currency, Map<Category, NavigableMap<YearMonth, QuantileSketch>>> expenseSketches;
+
+    // прогноз темпа расходов по категориям; строится из дневных агрегатов при первом запросе
+    private final Map<Category, SpendingForecast> spendingForecasts;
+
+    // регулярные доходы и расходы; очередь упорядочена по дате следующего повторения
+    private final List<RecurringRule> recurringRules;
+    private final PriorityQueue<RecurringRule> dueRules;
+
+    // инкрементальные выгрузки: сколько первых транзакций (в порядке добавления)
+    // уже выгружено в каждую цель
+    private final Map<String, Integer> exportWatermarks;
+
+    // число транзакций с каждым отпечатком для поиска дубликатов при импорте;
+    // null, пока не понадобится, затем поддерживается при каждом изменении
+    private Map<TransactionFingerprint, Integer> fingerprints;
+
     public Wallet(String ownerLogin, BigDecimal initialBalance) {
+        this(ownerLogin, initialBalance, DEFAULT_CURRENCY);
+    }
+
+    public Wallet(String ownerLogin, BigDecimal initialBalance, Currency currency) {
         if (ownerLogin == null || ownerLogin.isBlank()) {
             throw new IllegalArgumentException("Owner login cannot be null or blank");
         }
@@ -28,17 +80,54 @@ public class Wallet {
         if (initialBalance.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("Initial balance cannot be negative");
         }
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
 
         this.ownerLogin = ownerLogin.trim();
+        this.currency = currency;
         this.balance = initialBalance;
+        this.foreignBalances = new LinkedHashMap<>();
         this.transactions = new ArrayList<>();
         this.categoryBudgets = new HashMap<>();
+        this.index = new TransactionIndex();
+        this.descriptionIndex = new DescriptionIndex();
+        this.rollups = new TransactionRollups();
+        this.foreignRollups = new LinkedHashMap<>();
+        this.expenseSketches = new HashMap<>();
+        this.spendingForecasts = new HashMap<>();
+        this.recurringRules = new ArrayList<>();
+        this.dueRules = new PriorityQueue<>(Comparator.comparing(RecurringRule::getNextDue));
+        this.exportWatermarks = new LinkedHashMap<>();
     }
 
     public BigDecimal getBalance() {
         return balance;
     }
 
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getBalance(Currency balanceCurrency) {
+        if (currency.equals(balanceCurrency)) {
+            return balance;
+        }
+        return foreignBalances.getOrDefault(balanceCurrency, BigDecimal.ZERO);
+    }
+
+    // Остатки по всем валютам, основная — первой
+    public Map<Currency, BigDecimal> getBalances() {
+        Map<Currency, BigDecimal> balances = new LinkedHashMap<>();
+        balances.put(currency, balance);
+        balances.putAll(foreignBalances);
+        return Collections.unmodifiableMap(balances);
+    }
+
+    public boolean hasForeignCurrencies() {
+        return !foreignBalances.isEmpty();
+    }
+
     public String getOwnerLogin() {
         return ownerLogin;
     }
@@ -58,16 +147,255 @@ public class Wallet {
         return Collections.unmodifiableMap(categoryBudgets);
     }
 
+    public TransactionIndex getIndex() {
+        return index;
+    }
+
+    public DescriptionIndex getDescriptionIndex() {
+        return descriptionIndex;
+    }
+
+    public TransactionRollups getRollups() {
+        return rollups;
+    }
+
+    public TransactionRollups getRollups(Currency rollupCurrency) {
+        if (currency.equals(rollupCurrency)) {
+            return rollups;
+        }
+        TransactionRollups foreign = foreignRollups.get(rollupCurrency);
+        return foreign != null ? foreign : new TransactionRollups();
+    }
+
+    // Валюты, по которым есть агрегаты; основная — первой
+    public Set<Currency> getRollupCurrencies() {
+        Set<Currency> currencies = new LinkedHashSet<>();
+        currencies.add(currency);
+        currencies.addAll(foreignRollups.keySet());
+        return currencies;
+    }
+
+    // Скетч расходов в основной валюте за все время
+    public QuantileSketch getExpenseSketch(Category category) {
+        return getExpenseSketch(category, currency, null, null);
+    }
+
+    public QuantileSketch getExpenseSketch(Category category, Currency sketchCurrency) {
+        return getExpenseSketch(category, sketchCurrency, null, null);
+    }
+
+    // Скетч расходов категории в валюте sketchCurrency за период (границы включительно, null — без границы).
+    // Полные месяцы периода сливаются из месячных скетчей, дни неполных месяцев на краях добавляются
+    // из самих транзакций. Возвращается новый скетч: его изменения кошелек не затрагивают
+    public QuantileSketch getExpenseSketch(Category category, Currency sketchCurrency,
+                                           LocalDate fromDate, LocalDate toDate) {
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
+        }
+        if (sketchCurrency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("From date cannot be after to date");
+        }
+
+        QuantileSketch result = new QuantileSketch();
+        NavigableMap<YearMonth, QuantileSketch> months = monthlyExpenseSketches(category, sketchCurrency);
+        if (months.isEmpty()) {
+            return result;
+        }
+        YearMonth first = fromDate != null ? YearMonth.from(fromDate) : months.firstKey();
+        YearMonth last = toDate != null ? YearMonth.from(toDate) : months.lastKey();
+        if (first.isAfter(last)) {
+            return result;
+        }
+        boolean firstPartial = fromDate != null && fromDate.getDayOfMonth() != 1;
+        boolean lastPartial = toDate != null && !toDate.equals(last.atEndOfMonth());
+        if (first.equals(last) && (firstPartial || lastPartial)) {
+            addExpenses(result, category, sketchCurrency, fromDate != null ? fromDate : first.atDay(1),
+                    toDate != null ? toDate : last.atEndOfMonth());
+            return result;
+        }
+
+        for (Map.Entry<YearMonth, QuantileSketch> month : months.subMap(first, true, last, true).entrySet()) {
+            boolean partial = (firstPartial && month.getKey().equals(first))
+                    || (lastPartial && month.getKey().equals(last));
+            if (!partial) {
+                result.merge(month.getValue());
+            }
+        }
+        if (firstPartial) {
+            addExpenses(result, category, sketchCurrency, fromDate, first.atEndOfMonth());
+        }
+        if (lastPartial) {
+            addExpenses(result, category, sketchCurrency, last.atDay(1), toDate);
+        }
+        return result;
+    }
+
+    // Прогноз для кошелька без других валют: пересчитывать нечего
+    public SpendingForecast getSpendingForecast(Category category) {
+        return getSpendingForecast(category, (amount, from, date) -> {
+            throw new IllegalStateException("No " + from.getCurrencyCode() + " rate to forecast spending");
+        });
+    }
+
+    // Прогноз в основной валюте, только для чтения: обновляется кошельком. Строится из дневных
+    // агрегатов всех валют; траты в других валютах пересчитываются converter по курсу на день траты
+    public SpendingForecast getSpendingForecast(Category category, CurrencyConverter converter) {
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
+        }
+        if (converter == null) {
+            throw new IllegalArgumentException("Converter cannot be null");
+        }
+        SpendingForecast forecast = spendingForecasts.get(category);
+        if (forecast == null) {
+            NavigableMap<LocalDate, BigDecimal> spentByDay = new TreeMap<>();
+            for (Currency rollupCurrency : getRollupCurrencies()) {
+                NavigableMap<LocalDate, RollupBucket> days = getRollups(rollupCurrency)
+                        .getDays(TransactionType.EXPENSE).get(category);
+                if (days == null) {
+                    continue;
+                }
+                for (Map.Entry<LocalDate, RollupBucket> day : days.entrySet()) {
+                    BigDecimal sum = day.getValue().getSum();
+                    if (!currency.equals(rollupCurrency)) {
+                        sum = converter.toWalletCurrency(sum, rollupCurrency, day.getKey());
+                    }
+                    spentByDay.merge(day.getKey(), sum, BigDecimal::add);
+                }
+            }
+            forecast = new SpendingForecast();
+            for (Map.Entry<LocalDate, BigDecimal> day : spentByDay.entrySet()) {
+                forecast.record(day.getKey(), day.getValue().doubleValue());
+            }
+            spendingForecasts.put(category, forecast);
+        }
+        return forecast;
+    }
+
+    // Сколько транзакций кошелька имеют такой отпечаток; при первом вызове строит таблицу за O(n)
+    public int countFingerprint(TransactionFingerprint fingerprint) {
+        if (fingerprints == null) {
+            fingerprints = new HashMap<>();
+            for (Transaction transaction : transactions) {
+                fingerprints.merge(TransactionFingerprint.of(transaction), 1, Integer::sum);
+            }
+        }
+        return fingerprints.getOrDefault(fingerprint, 0);
+    }
+
+    public Map<String, Integer> getExportWatermarks() {
+        return Collections.unmodifiableMap(exportWatermarks);
+    }
+
+    // Позиция, с которой начнется следующая выгрузка в target; не больше числа транзакций
+    public int getExportWatermark(String target) {
+        if (target == null || target.isBlank()) {
+            throw new IllegalArgumentException("Export target cannot be null or blank");
+        }
+        return Math.min(exportWatermarks.getOrDefault(target, 0), transactions.size());
+    }
+
+    public void setExportWatermark(String target, int position) {
+        if (target == null || target.isBlank()) {
+            throw new IllegalArgumentException("Export target cannot be null or blank");
+        }
+        if (position < 0 || position > transactions.size()) {
+            throw new IllegalArgumentException("Export watermark must be between 0 and the number of transactions");
+        }
+        exportWatermarks.put(target, position);
+    }
+
+    public List<RecurringRule> getRecurringRules() {
+        return Collections.unmodifiableList(recurringRules);
+    }
+
+    public void addRecurringRule(RecurringRule rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("Recurring rule cannot be null");
+        }
+        recurringRules.add(rule);
+        if (!rule.isFinished()) {
+            dueRules.add(rule);
+        }
+    }
+
+    public boolean removeRecurringRule(RecurringRule rule) {
+        dueRules.remove(rule);
+        return recurringRules.remove(rule);
+    }
+
+    // Правило с самым ранним повторением не позже today (удаляется из очереди) или null.
+    // После добавления транзакции правило возвращается через rescheduleRecurringRule.
+    public RecurringRule pollDueRecurringRule(LocalDate today) {
+        RecurringRule rule = dueRules.peek();
+        if (rule == null || rule.getNextDue().isAfter(today)) {
+            return null;
+        }
+        return dueRules.poll();
+    }
+
+    public void rescheduleRecurringRule(RecurringRule rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("Recurring rule cannot be null");
+        }
+        rule.advance();
+        if (!rule.isFinished()) {
+            dueRules.add(rule);
+        }
+    }
+
     public void addTransaction(Transaction transaction) {
         if (transaction == null) {
             throw new IllegalArgumentException("Transaction cannot be null");
         }
         this.transactions.add(transaction);
-        
-        if (transaction.getType() == TransactionType.INCOME) {
-            this.balance = this.balance.add(transaction.getAmount());
-        } else if (transaction.getType() == TransactionType.EXPENSE) {
-            this.balance = this.balance.subtract(transaction.getAmount());
+        this.index.add(transactions.size() - 1, transaction);
+        this.descriptionIndex.add(transactions.size() - 1, transaction);
+        rollupsFor(transaction.getCurrency()).add(transaction);
+        updateExpenseSketch(transaction);
+        updateSpendingForecast(transaction);
+        updateFingerprints(transaction, 1);
+        applyToBalance(transaction, false);
+    }
+
+    // Отменяет последнюю добавленную транзакцию, если сохранение не удалось
+    public void rollbackLastTransaction(Transaction transaction) {
+        rollbackLastTransactions(List.of(transaction));
+    }
+
+    // Отменяет последние добавленные транзакции (в порядке добавления). Агрегат каждого
+    // затронутого дня пересчитывается один раз после удаления всех транзакций пакета,
+    // а не после каждой — откат большого импорта за один день остается линейным
+    public void rollbackLastTransactions(List<Transaction> added) {
+        if (added == null) {
+            throw new IllegalArgumentException("Transactions cannot be null");
+        }
+        int first = transactions.size() - added.size();
+        if (first < 0) {
+            throw new IllegalStateException("Only the last added transactions can be rolled back");
+        }
+        for (int i = 0; i < added.size(); i++) {
+            if (transactions.get(first + i) != added.get(i)) {
+                throw new IllegalStateException("Only the last added transactions can be rolled back");
+            }
+        }
+
+        Map<RollupKey, Transaction> touchedDays = new LinkedHashMap<>();
+        for (int position = transactions.size() - 1; position >= first; position--) {
+            Transaction transaction = transactions.remove(position);
+            this.index.remove(position, transaction);
+            this.descriptionIndex.remove(position, transaction);
+            touchedDays.putIfAbsent(new RollupKey(transaction), transaction);
+            forgetExpenseSketch(transaction);
+            spendingForecasts.remove(transaction.getCategory());
+            updateFingerprints(transaction, -1);
+            applyToBalance(transaction, true);
+        }
+        for (Transaction transaction : touchedDays.values()) {
+            recomputeRollupDay(transaction);
         }
     }
 
@@ -81,6 +409,13 @@ public class Wallet {
         this.categoryBudgets.put(category, budget);
     }
 
+    public boolean removeCategoryBudget(Category category) {
+        if (category == null) {
+            return false;
+        }
+        return this.categoryBudgets.remove(category) != null;
+    }
+
     public CategoryBudget getCategoryBudget(Category category) {
         if (category == null) {
             return null;
@@ -100,6 +435,34 @@ public class Wallet {
             return;
         }
         this.transactions.add(transaction);
+        this.index.add(transactions.size() - 1, transaction);
+        this.descriptionIndex.add(transactions.size() - 1, transaction);
+        updateExpenseSketch(transaction);
+        updateFingerprints(transaction, 1);
+    }
+
+    // Агрегаты из сохраненных данных; restoreTransaction их не трогает
+    public void restoreRollupBucket(TransactionType type, Category category, LocalDate day, RollupBucket bucket) {
+        restoreRollupBucket(currency, type, category, day, bucket);
+    }
+
+    public void restoreRollupBucket(Currency bucketCurrency, TransactionType type, Category category,
+                                    LocalDate day, RollupBucket bucket) {
+        if (bucketCurrency == null || type == null || category == null || day == null || bucket == null) {
+            throw new IllegalArgumentException("Rollup currency, type, category, day and bucket cannot be null");
+        }
+        rollupsFor(bucketCurrency).restore(type, category, day, bucket);
+        this.spendingForecasts.remove(category);
+    }
+
+    // Для данных без сохраненных агрегатов
+    public void rebuildRollups() {
+        this.rollups.clear();
+        this.foreignRollups.clear();
+        this.spendingForecasts.clear();
+        for (Transaction transaction : transactions) {
+            rollupsFor(transaction.getCurrency()).add(transaction);
+        }
     }
 
     public void restoreBalance(BigDecimal balance) {
@@ -109,6 +472,17 @@ public class Wallet {
         this.balance = balance;
     }
 
+    public void restoreBalance(Currency balanceCurrency, BigDecimal amount) {
+        if (balanceCurrency == null || amount == null) {
+            throw new IllegalArgumentException("Currency and balance cannot be null");
+        }
+        if (currency.equals(balanceCurrency)) {
+            this.balance = amount;
+        } else {
+            foreignBalances.put(balanceCurrency, amount);
+        }
+    }
+
     public void replaceTransaction(int index, Transaction newTransaction) {
         if (index < 0 || index >= transactions.size()) {
             throw new IllegalArgumentException("Invalid transaction index");
@@ -118,22 +492,130 @@ public class Wallet {
         }
         
         Transaction oldTransaction = transactions.get(index);
-        
-        if (oldTransaction.getType() == TransactionType.INCOME) {
-            this.balance = this.balance.subtract(oldTransaction.getAmount());
-        } else if (oldTransaction.getType() == TransactionType.EXPENSE) {
-            this.balance = this.balance.add(oldTransaction.getAmount());
-        }
+        applyToBalance(oldTransaction, true);
         
         transactions.set(index, newTransaction);
-        
-        if (newTransaction.getType() == TransactionType.INCOME) {
-            this.balance = this.balance.add(newTransaction.getAmount());
-        } else if (newTransaction.getType() == TransactionType.EXPENSE) {
-            this.balance = this.balance.subtract(newTransaction.getAmount());
+        this.index.remove(index, oldTransaction);
+        this.index.add(index, newTransaction);
+        this.descriptionIndex.remove(index, oldTransaction);
+        this.descriptionIndex.add(index, newTransaction);
+        recomputeRollupDay(oldTransaction);
+        recomputeRollupDay(newTransaction);
+        // из скетча нельзя удалить значение — перестроится при следующем запросе
+        forgetExpenseSketch(oldTransaction);
+        forgetExpenseSketch(newTransaction);
+        spendingForecasts.remove(oldTransaction.getCategory());
+        spendingForecasts.remove(newTransaction.getCategory());
+        updateFingerprints(oldTransaction, -1);
+        updateFingerprints(newTransaction, 1);
+        applyToBalance(newTransaction, false);
+    }
+
+    private void updateFingerprints(Transaction transaction, int delta) {
+        if (fingerprints != null) {
+            // при нуле запись удаляется
+            fingerprints.merge(TransactionFingerprint.of(transaction), delta,
+                    (count, change) -> count + change == 0 ? null : count + change);
         }
     }
 
+    private void applyToBalance(Transaction transaction, boolean revert) {
+        BigDecimal delta = transaction.getType() == TransactionType.INCOME
+                ? transaction.getAmount()
+                : transaction.getAmount().negate();
+        if (revert) {
+            delta = delta.negate();
+        }
+        if (currency.equals(transaction.getCurrency())) {
+            this.balance = this.balance.add(delta);
+        } else {
+            foreignBalances.merge(transaction.getCurrency(), delta, BigDecimal::add);
+        }
+    }
+
+    private TransactionRollups rollupsFor(Currency rollupCurrency) {
+        if (currency.equals(rollupCurrency)) {
+            return rollups;
+        }
+        return foreignRollups.computeIfAbsent(rollupCurrency, c -> new TransactionRollups());
+    }
+
+    private NavigableMap<YearMonth, QuantileSketch> monthlyExpenseSketches(Category category, Currency sketchCurrency) {
+        Map<Category, NavigableMap<YearMonth, QuantileSketch>> sketches =
+                expenseSketches.computeIfAbsent(sketchCurrency, c -> new HashMap<>());
+        NavigableMap<YearMonth, QuantileSketch> months = sketches.get(category);
+        if (months == null) {
+            months = new TreeMap<>();
+            for (int position : index.positionsForCategories(List.of(category))) {
+                Transaction transaction = transactions.get(position);
+                if (transaction.getType() == TransactionType.EXPENSE
+                        && transaction.getCurrency().equals(sketchCurrency)) {
+                    months.computeIfAbsent(YearMonth.from(transaction.getTimestamp()), m -> new QuantileSketch())
+                            .update(transaction.getAmount().doubleValue());
+                }
+            }
+            sketches.put(category, months);
+        }
+        return months;
+    }
+
+    private void addExpenses(QuantileSketch sketch, Category category, Currency sketchCurrency,
+                             LocalDate fromDate, LocalDate toDate) {
+        for (int position : index.positionsBetween(fromDate, toDate)) {
+            Transaction transaction = transactions.get(position);
+            if (transaction.getType() == TransactionType.EXPENSE && transaction.getCategory().equals(category)
+                    && transaction.getCurrency().equals(sketchCurrency)) {
+                sketch.update(transaction.getAmount().doubleValue());
+            }
+        }
+    }
+
+    private void updateExpenseSketch(Transaction transaction) {
+        if (transaction.getType() != TransactionType.EXPENSE) {
+            return;
+        }
+        Map<Category, NavigableMap<YearMonth, QuantileSketch>> sketches = expenseSketches.get(transaction.getCurrency());
+        NavigableMap<YearMonth, QuantileSketch> months = sketches != null ? sketches.get(transaction.getCategory()) : null;
+        if (months != null) {
+            months.computeIfAbsent(YearMonth.from(transaction.getTimestamp()), m -> new QuantileSketch())
+                    .update(transaction.getAmount().doubleValue());
+        }
+    }
+
+    private void forgetExpenseSketch(Transaction transaction) {
+        Map<Category, NavigableMap<YearMonth, QuantileSketch>> sketches = expenseSketches.get(transaction.getCurrency());
+        if (sketches != null) {
+            sketches.remove(transaction.getCategory());
+        }
+    }
+
+    private void updateSpendingForecast(Transaction transaction) {
+        if (transaction.getType() != TransactionType.EXPENSE) {
+            return;
+        }
+        // курса здесь нет: прогноз перестроится с пересчетом при следующем запросе
+        if (!currency.equals(transaction.getCurrency())) {
+            spendingForecasts.remove(transaction.getCategory());
+            return;
+        }
+        SpendingForecast forecast = spendingForecasts.get(transaction.getCategory());
+        if (forecast != null) {
+            forecast.record(transaction.getTimestamp().toLocalDate(), transaction.getAmount().doubleValue());
+        }
+    }
+
+    private void recomputeRollupDay(Transaction transaction) {
+        LocalDate day = transaction.getTimestamp().toLocalDate();
+        List<Transaction> dayTransactions = new ArrayList<>();
+        for (int position : index.positionsBetween(day, day)) {
+            Transaction dayTransaction = transactions.get(position);
+            if (dayTransaction.getCurrency().equals(transaction.getCurrency())) {
+                dayTransactions.add(dayTransaction);
+            }
+        }
+        rollupsFor(transaction.getCurrency()).recompute(transaction.getType(), transaction.getCategory(), day, dayTransactions);
+    }
+
     public void replaceCategoryInBudget(Category oldCategory, Category newCategory, CategoryBudget budget) {
         if (oldCategory == null || newCategory == null || budget == null) {
             throw new IllegalArgumentException("Category and budget cannot be null");
@@ -141,4 +623,39 @@ public class Wallet {
         this.categoryBudgets.remove(oldCategory);
         this.categoryBudgets.put(newCategory, budget);
     }
-}
\ No newline at end of file
+
+    // День агрегата, который затрагивает транзакция
+    private static final class RollupKey {
+
+        private final Currency currency;
+        private final TransactionType type;
+        private final Category category;
+        private final LocalDate day;
+
+        private RollupKey(Transaction transaction) {
+            this.currency = transaction.getCurrency();
+            this.type = transaction.getType();
+            this.category = transaction.getCategory();
+            this.day = transaction.getTimestamp().toLocalDate();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RollupKey that)) {
+                return false;
+            }
+            return type == that.type
+                    && day.equals(that.day)
+                    && category.equals(that.category)
+                    && currency.equals(that.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(currency, type, category, day);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package vp.financemanager.core.models;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+
+// Итоги по группе кошельков (семья, все пользователи)
+public final class WalletsReport {
+
+    private final Currency currency;             // валюта всех сумм отчета
+    private final int walletCount;
+    private final int missingWallets;            // логины без сохраненного кошелька
+    private final List<String> failedLogins;     // кошельки, которые не удалось прочитать или посчитать
+    private final BigDecimal totalBalance;
+    private final BigDecimal totalIncome;
+    private final BigDecimal totalExpense;
+    private final BigDecimal totalBudgetLimit;
+    private final BigDecimal totalBudgetSpent;
+    private final int exceededBudgets;
+
+    private WalletsReport(Builder builder) {
+        this.currency = builder.currency;
+        this.walletCount = builder.walletCount;
+        this.missingWallets = builder.missingWallets;
+        this.failedLogins = Collections.unmodifiableList(new ArrayList<>(builder.failedLogins));
+        this.totalBalance = builder.totalBalance;
+        this.totalIncome = builder.totalIncome;
+        this.totalExpense = builder.totalExpense;
+        this.totalBudgetLimit = builder.totalBudgetLimit;
+        this.totalBudgetSpent = builder.totalBudgetSpent;
+        this.exceededBudgets = builder.exceededBudgets;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public int getWalletCount() {
+        return walletCount;
+    }
+
+    public int getMissingWallets() {
+        return missingWallets;
+    }
+
+    public int getFailedWallets() {
+        return failedLogins.size();
+    }
+
+    public List<String> getFailedLogins() {
+        return failedLogins;
+    }
+
+    public BigDecimal getTotalBalance() {
+        return totalBalance;
+    }
+
+    public BigDecimal getTotalIncome() {
+        return totalIncome;
+    }
+
+    public BigDecimal getTotalExpense() {
+        return totalExpense;
+    }
+
+    public BigDecimal getTotalBudgetLimit() {
+        return totalBudgetLimit;
+    }
+
+    public BigDecimal getTotalBudgetSpent() {
+        return totalBudgetSpent;
+    }
+
+    public int getExceededBudgets() {
+        return exceededBudgets;
+    }
+
+    public static final class Builder {
+        private Currency currency = Wallet.DEFAULT_CURRENCY;
+        private int walletCount;
+        private int missingWallets;
+        private final List<String> failedLogins = new ArrayList<>();
+        private BigDecimal totalBalance = BigDecimal.ZERO;
+        private BigDecimal totalIncome = BigDecimal.ZERO;
+        private BigDecimal totalExpense = BigDecimal.ZERO;
+        private BigDecimal totalBudgetLimit = BigDecimal.ZERO;
+        private BigDecimal totalBudgetSpent = BigDecimal.ZERO;
+        private int exceededBudgets;
+
+        private Builder() {
+        }
+
+        public Builder currency(Currency currency) {
+            if (currency == null) {
+                throw new IllegalArgumentException("Currency cannot be null");
+            }
+            this.currency = currency;
+            return this;
+        }
+
+        public Builder walletCount(int walletCount) {
+            this.walletCount = walletCount;
+            return this;
+        }
+
+        public Builder missingWallets(int missingWallets) {
+            this.missingWallets = missingWallets;
+            return this;
+        }
+
+        public Builder failedLogins(Collection<String> failedLogins) {
+            if (failedLogins != null) {
+                this.failedLogins.addAll(failedLogins);
+            }
+            return this;
+        }
+
+        public Builder totalBalance(BigDecimal totalBalance) {
+            this.totalBalance = totalBalance;
+            return this;
+        }
+
+        public Builder totalIncome(BigDecimal totalIncome) {
+            this.totalIncome = totalIncome;
+            return this;
+        }
+
+        public Builder totalExpense(BigDecimal totalExpense) {
+            this.totalExpense = totalExpense;
+            return this;
+        }
+
+        public Builder totalBudgetLimit(BigDecimal totalBudgetLimit) {
+            this.totalBudgetLimit = totalBudgetLimit;
+            return this;
+        }
+
+        public Builder totalBudgetSpent(BigDecimal totalBudgetSpent) {
+            this.totalBudgetSpent = totalBudgetSpent;
+            return this;
+        }
+
+        public Builder exceededBudgets(int exceededBudgets) {
+            this.exceededBudgets = exceededBudgets;
+            return this;
+        }
+
+        public WalletsReport build() {
+            return new WalletsReport(this);
+        }
+    }
+}
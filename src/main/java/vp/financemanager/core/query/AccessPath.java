@@ -0,0 +1,8 @@
+package vp.financemanager.core.query;
+
+public enum AccessPath {
+    FULL_SCAN,
+    TIME_INDEX,
+    CATEGORY_INDEX,
+    TEXT_INDEX
+}
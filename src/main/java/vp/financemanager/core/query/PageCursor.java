@@ -0,0 +1,45 @@
+package vp.financemanager.core.query;
+
+// Ключ страницы: позиция последней выданной транзакции в кошельке.
+// Позиции не меняются при добавлении новых транзакций, поэтому страницы не «съезжают».
+public final class PageCursor {
+
+    private static final PageCursor START = new PageCursor(-1);
+
+    private final int lastPosition;
+
+    private PageCursor(int lastPosition) {
+        this.lastPosition = lastPosition;
+    }
+
+    public static PageCursor start() {
+        return START;
+    }
+
+    public static PageCursor after(int position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Position cannot be negative");
+        }
+        return new PageCursor(position);
+    }
+
+    public int getLastPosition() {
+        return lastPosition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PageCursor that)) {
+            return false;
+        }
+        return lastPosition == that.lastPosition;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(lastPosition);
+    }
+}
@@ -0,0 +1,31 @@
+package vp.financemanager.core.query;
+
+public final class QueryPlan {
+
+    private final AccessPath accessPath;
+    private final int estimatedRows;   // сколько строк придется просмотреть
+
+    public QueryPlan(AccessPath accessPath, int estimatedRows) {
+        if (accessPath == null) {
+            throw new IllegalArgumentException("Access path cannot be null");
+        }
+        this.accessPath = accessPath;
+        this.estimatedRows = estimatedRows;
+    }
+
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    public int getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPlan{"
+                + "accessPath=" + accessPath
+                + ", estimatedRows=" + estimatedRows
+                + '}';
+    }
+}
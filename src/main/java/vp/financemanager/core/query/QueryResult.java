@@ -0,0 +1,31 @@
+package vp.financemanager.core.query;
+
+import vp.financemanager.core.models.Transaction;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class QueryResult {
+
+    private final List<Transaction> transactions;
+    private final QueryPlan plan;
+    private final int rowsScanned;   // сколько транзакций реально проверено фильтрами
+
+    public QueryResult(List<Transaction> transactions, QueryPlan plan, int rowsScanned) {
+        this.transactions = Collections.unmodifiableList(transactions);
+        this.plan = plan;
+        this.rowsScanned = rowsScanned;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public QueryPlan getPlan() {
+        return plan;
+    }
+
+    public int getRowsScanned() {
+        return rowsScanned;
+    }
+}
@@ -0,0 +1,35 @@
+package vp.financemanager.core.query;
+
+import vp.financemanager.core.models.Transaction;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class TransactionPage {
+
+    private final List<Transaction> transactions;
+    private final PageCursor nextCursor;   // null — это последняя страница
+    private final int rowsScanned;
+
+    public TransactionPage(List<Transaction> transactions, PageCursor nextCursor, int rowsScanned) {
+        this.transactions = Collections.unmodifiableList(transactions);
+        this.nextCursor = nextCursor;
+        this.rowsScanned = rowsScanned;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public PageCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public int getRowsScanned() {
+        return rowsScanned;
+    }
+}
@@ -0,0 +1,279 @@
+package vp.financemanager.core.query;
+
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.DescriptionTokenizer;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+public final class TransactionQuery {
+
+    private final TransactionType type;
+    private final Set<Category> categories;     // пустое множество — все категории
+    private final LocalDate fromDate;           // включительно
+    private final LocalDate toDate;             // включительно
+    private final BigDecimal minAmount;         // включительно
+    private final BigDecimal maxAmount;         // включительно
+    private final String descriptionContains;   // без учета регистра, в нижнем регистре
+    private final Set<String> keywords;         // нормализованные слова описания, все обязательны
+    private final Set<String> keywordPrefixes;  // префиксы слов описания, все обязательны
+    private final TransactionSort sort;
+    private final int offset;
+    private final int limit;                    // 0 — без ограничения
+
+    private TransactionQuery(Builder builder) {
+        this.type = builder.type;
+        this.categories = Collections.unmodifiableSet(new HashSet<>(builder.categories));
+        this.fromDate = builder.fromDate;
+        this.toDate = builder.toDate;
+        this.minAmount = builder.minAmount;
+        this.maxAmount = builder.maxAmount;
+        this.descriptionContains = builder.descriptionContains;
+        this.keywords = Collections.unmodifiableSet(new LinkedHashSet<>(builder.keywords));
+        this.keywordPrefixes = Collections.unmodifiableSet(new LinkedHashSet<>(builder.keywordPrefixes));
+        this.sort = builder.sort;
+        this.offset = builder.offset;
+        this.limit = builder.limit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static TransactionQuery all() {
+        return builder().build();
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public Set<Category> getCategories() {
+        return categories;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public String getDescriptionContains() {
+        return descriptionContains;
+    }
+
+    public Set<String> getKeywords() {
+        return keywords;
+    }
+
+    public Set<String> getKeywordPrefixes() {
+        return keywordPrefixes;
+    }
+
+    public TransactionSort getSort() {
+        return sort;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasCategoryFilter() {
+        return !categories.isEmpty();
+    }
+
+    public boolean hasDateFilter() {
+        return fromDate != null || toDate != null;
+    }
+
+    public boolean hasKeywordFilter() {
+        return !keywords.isEmpty() || !keywordPrefixes.isEmpty();
+    }
+
+    public boolean matches(Transaction tx) {
+        if (type != null && tx.getType() != type) {
+            return false;
+        }
+        if (!categories.isEmpty() && !categories.contains(tx.getCategory())) {
+            return false;
+        }
+        if (hasDateFilter()) {
+            LocalDate txDate = tx.getTimestamp().toLocalDate();
+            if (fromDate != null && txDate.isBefore(fromDate)) {
+                return false;
+            }
+            if (toDate != null && txDate.isAfter(toDate)) {
+                return false;
+            }
+        }
+        if (minAmount != null && tx.getAmount().compareTo(minAmount) < 0) {
+            return false;
+        }
+        if (maxAmount != null && tx.getAmount().compareTo(maxAmount) > 0) {
+            return false;
+        }
+        if (descriptionContains != null) {
+            String description = tx.getDescription();
+            if (description == null || !description.toLowerCase(Locale.ROOT).contains(descriptionContains)) {
+                return false;
+            }
+        }
+        if (hasKeywordFilter()) {
+            return matchesKeywords(DescriptionTokenizer.tokenize(tx.getDescription()));
+        }
+        return true;
+    }
+
+    private boolean matchesKeywords(Set<String> tokens) {
+        if (!tokens.containsAll(keywords)) {
+            return false;
+        }
+        for (String prefix : keywordPrefixes) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (token.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static final class Builder {
+        private TransactionType type;
+        private final Set<Category> categories = new HashSet<>();
+        private LocalDate fromDate;
+        private LocalDate toDate;
+        private BigDecimal minAmount;
+        private BigDecimal maxAmount;
+        private String descriptionContains;
+        private final Set<String> keywords = new LinkedHashSet<>();
+        private final Set<String> keywordPrefixes = new LinkedHashSet<>();
+        private TransactionSort sort = TransactionSort.WALLET_ORDER;
+        private int offset;
+        private int limit;
+
+        private Builder() {
+        }
+
+        public Builder type(TransactionType type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder category(Category category) {
+            if (category == null) {
+                throw new IllegalArgumentException("Category cannot be null");
+            }
+            this.categories.add(category);
+            return this;
+        }
+
+        public Builder categories(Collection<Category> categories) {
+            if (categories != null) {
+                for (Category category : categories) {
+                    category(category);
+                }
+            }
+            return this;
+        }
+
+        public Builder from(LocalDate fromDate) {
+            this.fromDate = fromDate;
+            return this;
+        }
+
+        public Builder to(LocalDate toDate) {
+            this.toDate = toDate;
+            return this;
+        }
+
+        public Builder between(LocalDate fromDate, LocalDate toDate) {
+            return from(fromDate).to(toDate);
+        }
+
+        public Builder minAmount(BigDecimal minAmount) {
+            this.minAmount = minAmount;
+            return this;
+        }
+
+        public Builder maxAmount(BigDecimal maxAmount) {
+            this.maxAmount = maxAmount;
+            return this;
+        }
+
+        public Builder descriptionContains(String text) {
+            this.descriptionContains = text == null || text.isBlank() ? null : text.trim().toLowerCase(Locale.ROOT);
+            return this;
+        }
+
+        // Каждое слово текста должно встречаться в описании целиком
+        public Builder keyword(String text) {
+            keywords.addAll(DescriptionTokenizer.tokenize(text));
+            return this;
+        }
+
+        // Каждое слово текста должно быть началом какого-то слова описания: «такс» найдет «Такси»
+        public Builder keywordPrefix(String text) {
+            keywordPrefixes.addAll(DescriptionTokenizer.tokenize(text));
+            return this;
+        }
+
+        public Builder sort(TransactionSort sort) {
+            if (sort == null) {
+                throw new IllegalArgumentException("Sort cannot be null");
+            }
+            this.sort = sort;
+            return this;
+        }
+
+        public Builder offset(int offset) {
+            if (offset < 0) {
+                throw new IllegalArgumentException("Offset cannot be negative");
+            }
+            this.offset = offset;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit cannot be negative");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public TransactionQuery build() {
+            if (minAmount != null && maxAmount != null && minAmount.compareTo(maxAmount) > 0) {
+                throw new IllegalArgumentException("Min amount cannot be greater than max amount");
+            }
+            return new TransactionQuery(this);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package vp.financemanager.core.query;
+
+import vp.financemanager.core.models.DescriptionIndex;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionIndex;
+import vp.financemanager.core.models.Wallet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Выбирает самый дешевый путь доступа: индекс по дням, по категориям, по словам описаний
+// или полный просмотр
+public class TransactionQueryPlanner {
+
+    public QueryPlan plan(Wallet wallet, TransactionQuery query) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+
+        TransactionIndex index = wallet.getIndex();
+        QueryPlan best = new QueryPlan(AccessPath.FULL_SCAN, wallet.getTransactions().size());
+
+        if (query.hasCategoryFilter()) {
+            int rows = index.countForCategories(query.getCategories());
+            if (rows < best.getEstimatedRows()) {
+                best = new QueryPlan(AccessPath.CATEGORY_INDEX, rows);
+            }
+        }
+
+        if (query.hasDateFilter()) {
+            int rows = index.countBetween(query.getFromDate(), query.getToDate());
+            if (rows < best.getEstimatedRows()) {
+                best = new QueryPlan(AccessPath.TIME_INDEX, rows);
+            }
+        }
+
+        if (query.hasKeywordFilter()) {
+            DescriptionIndex descriptionIndex = wallet.getDescriptionIndex();
+            String term = drivingTerm(descriptionIndex, query);
+            int rows = query.getKeywords().contains(term)
+                    ? descriptionIndex.count(term)
+                    : descriptionIndex.countPrefix(term);
+            if (rows < best.getEstimatedRows()) {
+                best = new QueryPlan(AccessPath.TEXT_INDEX, rows);
+            }
+        }
+
+        return best;
+    }
+
+    public QueryResult execute(Wallet wallet, TransactionQuery query) {
+        QueryPlan plan = plan(wallet, query);
+        List<Transaction> transactions = wallet.getTransactions();
+        int[] positions = candidatePositions(wallet, query, plan);
+        int candidates = positions == null ? transactions.size() : positions.length;
+
+        Comparator<Transaction> comparator = query.getSort().getComparator();
+        // без сортировки можно остановиться, как только набрали offset + limit строк
+        long needed = comparator != null || query.getLimit() == 0
+                ? Long.MAX_VALUE
+                : (long) query.getOffset() + query.getLimit();
+
+        List<Transaction> matches = new ArrayList<>();
+        int scanned = 0;
+        for (int i = 0; i < candidates && matches.size() < needed; i++) {
+            Transaction tx = transactions.get(positions == null ? i : positions[i]);
+            scanned++;
+            if (query.matches(tx)) {
+                matches.add(tx);
+            }
+        }
+
+        if (comparator != null) {
+            matches.sort(comparator);
+        }
+
+        return new QueryResult(page(matches, query.getOffset(), query.getLimit()), plan, scanned);
+    }
+
+    // Ленивый поток: строки читаются из кошелька по мере потребления.
+    // С сортировкой поток буферизует совпадения, без нее — нет.
+    public Stream<Transaction> stream(Wallet wallet, TransactionQuery query) {
+        QueryPlan plan = plan(wallet, query);
+        List<Transaction> transactions = wallet.getTransactions();
+        int[] positions = candidatePositions(wallet, query, plan);
+
+        IntStream source = positions == null ? IntStream.range(0, transactions.size()) : Arrays.stream(positions);
+        Stream<Transaction> stream = source.mapToObj(transactions::get).filter(query::matches);
+
+        Comparator<Transaction> comparator = query.getSort().getComparator();
+        if (comparator != null) {
+            stream = stream.sorted(comparator);
+        }
+        if (query.getOffset() > 0) {
+            stream = stream.skip(query.getOffset());
+        }
+        if (query.getLimit() > 0) {
+            stream = stream.limit(query.getLimit());
+        }
+        return stream;
+    }
+
+    // Keyset-пагинация в порядке кошелька; sort, offset и limit запроса не используются
+    public TransactionPage page(Wallet wallet, TransactionQuery query, PageCursor after, int pageSize) {
+        if (after == null) {
+            throw new IllegalArgumentException("Cursor cannot be null");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+
+        QueryPlan plan = plan(wallet, query);
+        List<Transaction> transactions = wallet.getTransactions();
+        // индекс читается с позиции курсора, а не копируется целиком на каждой странице
+        PrimitiveIterator.OfInt candidates = candidatePositionsAfter(wallet, query, plan, after.getLastPosition());
+
+        List<Transaction> matches = new ArrayList<>(pageSize);
+        int lastPosition = -1;
+        boolean hasMore = false;
+        int scanned = 0;
+        while (candidates.hasNext()) {
+            int position = candidates.nextInt();
+            Transaction tx = transactions.get(position);
+            scanned++;
+            if (!query.matches(tx)) {
+                continue;
+            }
+            if (matches.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            matches.add(tx);
+            lastPosition = position;
+        }
+
+        PageCursor next = hasMore ? PageCursor.after(lastPosition) : null;
+        return new TransactionPage(matches, next, scanned);
+    }
+
+    private PrimitiveIterator.OfInt candidatePositionsAfter(Wallet wallet, TransactionQuery query, QueryPlan plan,
+                                                            int after) {
+        TransactionIndex index = wallet.getIndex();
+        switch (plan.getAccessPath()) {
+            case CATEGORY_INDEX:
+                return index.positionsForCategoriesAfter(query.getCategories(), after);
+            case TIME_INDEX:
+                return index.positionsBetweenAfter(query.getFromDate(), query.getToDate(), after);
+            case TEXT_INDEX:
+                DescriptionIndex descriptionIndex = wallet.getDescriptionIndex();
+                String term = drivingTerm(descriptionIndex, query);
+                return query.getKeywords().contains(term)
+                        ? descriptionIndex.positionsAfter(term, after)
+                        : descriptionIndex.positionsForPrefixAfter(term, after);
+            default:
+                return IntStream.range(after + 1, wallet.getTransactions().size()).iterator();
+        }
+    }
+
+    // null означает полный просмотр
+    private int[] candidatePositions(Wallet wallet, TransactionQuery query, QueryPlan plan) {
+        TransactionIndex index = wallet.getIndex();
+        switch (plan.getAccessPath()) {
+            case CATEGORY_INDEX:
+                return index.positionsForCategories(query.getCategories());
+            case TIME_INDEX:
+                return index.positionsBetween(query.getFromDate(), query.getToDate());
+            case TEXT_INDEX:
+                return textPositions(wallet.getDescriptionIndex(), query);
+            default:
+                return null;
+        }
+    }
+
+    private List<Transaction> page(List<Transaction> matches, int offset, int limit) {
+        if (offset == 0 && limit == 0) {
+            return matches;
+        }
+        if (offset >= matches.size()) {
+            return new ArrayList<>();
+        }
+        int end = limit == 0 ? matches.size() : (int) Math.min(matches.size(), (long) offset + limit);
+        return new ArrayList<>(matches.subList(offset, end));
+    }
+
+    // Самое редкое из слов запроса: его позиции просматриваются, остальные слова проверяются фильтром
+    private String drivingTerm(DescriptionIndex index, TransactionQuery query) {
+        String best = null;
+        int bestRows = Integer.MAX_VALUE;
+        for (String keyword : query.getKeywords()) {
+            int rows = index.count(keyword);
+            if (rows < bestRows) {
+                best = keyword;
+                bestRows = rows;
+            }
+        }
+        for (String prefix : query.getKeywordPrefixes()) {
+            int rows = index.countPrefix(prefix);
+            if (rows < bestRows) {
+                best = prefix;
+                bestRows = rows;
+            }
+        }
+        return best;
+    }
+
+    private int[] textPositions(DescriptionIndex index, TransactionQuery query) {
+        String term = drivingTerm(index, query);
+        return query.getKeywords().contains(term) ? index.positions(term) : index.positionsForPrefix(term);
+    }
+}
@@ -0,0 +1,24 @@
+package vp.financemanager.core.query;
+
+import vp.financemanager.core.models.Transaction;
+
+import java.util.Comparator;
+
+public enum TransactionSort {
+    WALLET_ORDER(null),
+    DATE_ASC(Comparator.comparing(Transaction::getTimestamp)),
+    DATE_DESC(Comparator.comparing(Transaction::getTimestamp).reversed()),
+    AMOUNT_ASC(Comparator.comparing(Transaction::getAmount)),
+    AMOUNT_DESC(Comparator.comparing(Transaction::getAmount).reversed());
+
+    private final Comparator<Transaction> comparator;
+
+    TransactionSort(Comparator<Transaction> comparator) {
+        this.comparator = comparator;
+    }
+
+    // null для WALLET_ORDER: порядок добавления в кошелек
+    public Comparator<Transaction> getComparator() {
+        return comparator;
+    }
+}
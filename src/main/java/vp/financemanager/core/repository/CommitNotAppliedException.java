@@ -0,0 +1,18 @@
+package vp.financemanager.core.repository;
+
+// Изменение уже зафиксировано и не потеряется (будет доиграно при следующем сохранении
+// или запуске), но применить его сразу не удалось. Откатывать кошельки в памяти нельзя:
+// они совпадают с зафиксированным состоянием.
+public class CommitNotAppliedException extends RuntimeException {
+
+    private final String commitId;
+
+    public CommitNotAppliedException(String commitId, Throwable cause) {
+        super("Wallet changes are committed but not yet applied (commit " + commitId + ")", cause);
+        this.commitId = commitId;
+    }
+
+    public String getCommitId() {
+        return commitId;
+    }
+}
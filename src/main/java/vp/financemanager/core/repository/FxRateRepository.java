@@ -0,0 +1,9 @@
+package vp.financemanager.core.repository;
+
+import vp.financemanager.core.models.FxRateTable;
+
+public interface FxRateRepository {
+
+    // Все известные курсы; пустая таблица, если курсов нет
+    FxRateTable loadRates();
+}
@@ -3,10 +3,18 @@ package vp.financemanager.core.repository;
 import vp.financemanager.core.models.User;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository {
 
     Optional<User> findByLogin(String login);
 
     User save(User user);
+
+    // Сохраняет пользователя, только если логин свободен, атомарно относительно других
+    // вызовов; false — логин уже занят, хранилище не изменилось
+    boolean saveIfAbsent(User user);
+
+    // Логины всех пользователей; поток нужно закрыть
+    Stream<String> findAllLogins();
 }
\ No newline at end of file
@@ -2,9 +2,23 @@ package vp.financemanager.core.repository;
 
 import vp.financemanager.core.models.Wallet;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 public interface WalletRepository {
 
     Wallet findByOwnerLogin(String login);
 
     Wallet save(Wallet wallet);
+
+    // Сохраняет несколько кошельков как одно изменение: после сбоя видны либо все, либо ни один.
+    // CommitNotAppliedException — изменение зафиксировано, хотя файлы кошельков еще не обновлены
+    default void saveAll(List<Wallet> wallets) {
+        for (Wallet wallet : wallets) {
+            save(wallet);
+        }
+    }
+
+    // Логины владельцев всех сохраненных кошельков; сами кошельки не загружаются, поток нужно закрыть
+    Stream<String> findAllOwnerLogins();
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package vp.financemanager.core.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Первые k элементов по убыванию comparator: куча размера k, O(n log k) времени и O(k) памяти.
+// При равенстве остается элемент, пришедший раньше.
+final class BoundedTopN<T> {
+
+    private final int limit;
+    private final Comparator<Entry<T>> heapOrder;
+    private final PriorityQueue<Entry<T>> heap;
+    private long sequence;
+
+    BoundedTopN(int limit, Comparator<? super T> comparator) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        this.limit = limit;
+        // в вершине кучи — худший из отобранных: наименьший, а среди равных — самый поздний
+        this.heapOrder = Comparator.<Entry<T>, T>comparing(entry -> entry.value, comparator)
+                .thenComparing(Comparator.<Entry<T>>comparingLong(entry -> entry.sequence).reversed());
+        this.heap = new PriorityQueue<>(limit + 1, heapOrder);
+    }
+
+    void offer(T value) {
+        Entry<T> entry = new Entry<>(value, sequence++);
+        if (heap.size() < limit) {
+            heap.add(entry);
+        } else if (heapOrder.compare(entry, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    // По убыванию
+    List<T> result() {
+        List<Entry<T>> entries = new ArrayList<>(heap);
+        entries.sort(heapOrder.reversed());
+        List<T> values = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries) {
+            values.add(entry.value);
+        }
+        return values;
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long sequence;
+
+        Entry(T value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -2,23 +2,42 @@ package vp.financemanager.core.service;
 
 import vp.financemanager.core.models.Category;
 import vp.financemanager.core.models.CategoryBudget;
+import vp.financemanager.core.models.FxRateTable;
+import vp.financemanager.core.models.RollupBucket;
+import vp.financemanager.core.models.RollupGranularity;
 import vp.financemanager.core.models.Transaction;
 import vp.financemanager.core.models.TransactionType;
 import vp.financemanager.core.models.Wallet;
 import vp.financemanager.core.repository.WalletRepository;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Currency;
 import java.util.List;
+import java.util.Map;
 
 public class BudgetService {
 
     private final WalletRepository walletRepository;
     private final CategoryService categoryService;
+    private final FxRateService fxRateService;
 
     public BudgetService(WalletRepository walletRepository, CategoryService categoryService) {
+        this(walletRepository, categoryService, new FxRateService(FxRateTable.empty()));
+    }
+
+    public BudgetService(WalletRepository walletRepository, CategoryService categoryService,
+                         FxRateService fxRateService) {
         this.walletRepository = walletRepository;
         this.categoryService = categoryService;
+        this.fxRateService = fxRateService;
+    }
+
+    public FxRateService getFxRateService() {
+        return fxRateService;
     }
 
     public void setBudget(Wallet wallet, Category category, BigDecimal limit) {
@@ -82,7 +101,9 @@ public class BudgetService {
         for (Transaction tx : wallet.getTransactions()) {
             if (tx.getType() == TransactionType.EXPENSE 
                     && tx.getCategory().getName().equalsIgnoreCase(category.getName())) {
-                totalSpent = totalSpent.add(tx.getAmount());
+                // лимит в основной валюте кошелька
+                totalSpent = totalSpent.add(fxRateService.convert(tx.getAmount(), tx.getCurrency(),
+                        wallet.getCurrency(), tx.getTimestamp().toLocalDate()));
             }
         }
         
@@ -154,23 +175,132 @@ public class BudgetService {
         return spent.compareTo(eightyPercent) >= 0 && !isBudgetExceeded(wallet, category);
     }
 
+    // Прогноз трат категории на конец текущего периода (месяц, неделя...): траты с начала периода
+    // по сегодня из дневных агрегатов плюс темп трат на оставшиеся дни. Это траты периода,
+    // а не лимит: с лимитом сравнивается spent за все время, см. isProjectedToExceed
+    public BigDecimal projectedSpent(Wallet wallet, Category category, RollupGranularity period) {
+        return projectedSpent(wallet, category, period, LocalDate.now());
+    }
+
+    public BigDecimal projectedSpent(Wallet wallet, Category category, RollupGranularity period, LocalDate today) {
+        if (period == null) {
+            throw new IllegalArgumentException("Period cannot be null");
+        }
+        if (today == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        CategoryBudget budget = getBudget(wallet, category);
+        if (budget == null) {
+            throw new IllegalStateException("Budget is not set for category: " + category.getName());
+        }
+
+        BigDecimal projected = dailyRate(wallet, budget, today).multiply(BigDecimal.valueOf(daysLeft(period, today)));
+        return spentInPeriod(wallet, budget.getCategory(), period.bucketStart(today), today).add(projected);
+    }
+
+    // Будет ли лимит превышен до конца текущего периода при нынешнем темпе. Лимит бюджета
+    // относится к spent за все время, поэтому основа та же, что у daysUntilLimit:
+    // spent + темп * оставшиеся дни периода
+    public boolean isProjectedToExceed(Wallet wallet, Category category, RollupGranularity period) {
+        return isProjectedToExceed(wallet, category, period, LocalDate.now());
+    }
+
+    public boolean isProjectedToExceed(Wallet wallet, Category category, RollupGranularity period,
+                                       LocalDate today) {
+        if (period == null) {
+            throw new IllegalArgumentException("Period cannot be null");
+        }
+        Long days = daysUntilLimit(wallet, category, today);
+        return days != null && days <= daysLeft(period, today);
+    }
+
+    // Дни периода после today
+    private static long daysLeft(RollupGranularity period, LocalDate today) {
+        return ChronoUnit.DAYS.between(today, period.nextBucketStart(today)) - 1;
+    }
+
+    // Темп трат в основной валюте; траты в других валютах пересчитаны по курсам на дни трат
+    private BigDecimal dailyRate(Wallet wallet, CategoryBudget budget, LocalDate today) {
+        Currency walletCurrency = wallet.getCurrency();
+        double rate = wallet.getSpendingForecast(budget.getCategory(), (amount, from, date) ->
+                fxRateService.convertUnrounded(amount, from, walletCurrency, date)).dailyRate(today);
+        return BigDecimal.valueOf(rate).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Расходы категории за [fromDate, toDate] в основной валюте кошелька, по курсам на дни операций
+    private BigDecimal spentInPeriod(Wallet wallet, Category category, LocalDate fromDate, LocalDate toDate) {
+        BigDecimal spent = BigDecimal.ZERO;
+        for (Currency currency : wallet.getRollupCurrencies()) {
+            Map<LocalDate, RollupBucket> days = wallet.getRollups(currency)
+                    .query(TransactionType.EXPENSE, category, RollupGranularity.DAY, fromDate, toDate);
+            for (Map.Entry<LocalDate, RollupBucket> day : days.entrySet()) {
+                spent = spent.add(fxRateService.convertUnrounded(day.getValue().getSum(), currency,
+                        wallet.getCurrency(), day.getKey()));
+            }
+        }
+        return spent.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Через сколько дней при текущем темпе будет исчерпан лимит:
+    // 0 — уже исчерпан, null — лимит не задан или трат нет
+    public Long daysUntilLimit(Wallet wallet, Category category) {
+        return daysUntilLimit(wallet, category, LocalDate.now());
+    }
+
+    public Long daysUntilLimit(Wallet wallet, Category category, LocalDate today) {
+        if (today == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        CategoryBudget budget = getBudget(wallet, category);
+        if (budget == null || budget.getLimit().compareTo(BigDecimal.ZERO) == 0) {
+            return null;
+        }
+
+        BigDecimal remaining = budget.getLimit().subtract(budget.getSpent());
+        if (remaining.compareTo(BigDecimal.ZERO) <= 0) {
+            return 0L;
+        }
+        BigDecimal rate = dailyRate(wallet, budget, today);
+        if (rate.compareTo(BigDecimal.ZERO) == 0) {
+            return null;
+        }
+        return remaining.divide(rate, 0, RoundingMode.CEILING).longValueExact();
+    }
+
     public void ensureBudgetExists(Wallet wallet, Category category) {
         if (wallet == null || category == null) {
             return;
         }
-        
+
+        boolean existed = wallet.hasCategoryBudget(category);
+        createBudgetIfMissing(wallet, category);
+        if (!existed) {
+            walletRepository.save(wallet);
+        }
+    }
+
+    // Как ensureBudgetExists, но без сохранения: сохраняет вызывающий код
+    public CategoryBudget createBudgetIfMissing(Wallet wallet, Category category) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
+        }
+
         // Найти существующую категорию в бюджетах
         Category existingCategory = categoryService.findCategoryInBudgets(wallet, category);
         if (existingCategory == null) {
             existingCategory = category;
         }
-        
+
         // Создать бюджет с лимитом 0, если его нет
-        if (!wallet.hasCategoryBudget(existingCategory)) {
-            CategoryBudget newBudget = new CategoryBudget(existingCategory, BigDecimal.ZERO);
-            wallet.addCategoryBudget(existingCategory, newBudget);
-            walletRepository.save(wallet);
+        CategoryBudget budget = wallet.getCategoryBudget(existingCategory);
+        if (budget == null) {
+            budget = new CategoryBudget(existingCategory, BigDecimal.ZERO);
+            wallet.addCategoryBudget(existingCategory, budget);
         }
+        return budget;
     }
 
 }
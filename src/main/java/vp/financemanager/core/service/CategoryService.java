@@ -122,7 +122,9 @@ public class CategoryService {
                     tx.getAmount(),
                     newCategory,
                     tx.getDescription(),
-                    tx.getTimestamp()
+                    tx.getTimestamp(),
+                    tx.getCurrency(),
+                    tx.getTransferId()
                 );
                 wallet.replaceTransaction(i, newTx);
             }
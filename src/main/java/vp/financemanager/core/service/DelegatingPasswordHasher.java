@@ -0,0 +1,70 @@
+package vp.financemanager.core.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Новые хеши — текущим способом, проверка — тем способом, в формате которого записан хеш.
+// Хеш любого способа, кроме текущего, требует пересчета: так пароли переходят на новый
+// способ при входе, без отдельной миграции.
+public class DelegatingPasswordHasher implements PasswordHasher {
+
+    private final PasswordHasher current;
+    private final List<PasswordHasher> hashers;
+
+    // PBKDF2 со стоимостью по умолчанию и проверка старых хешей SHA-256
+    public DelegatingPasswordHasher() {
+        this(new Pbkdf2PasswordHasher(), new LegacySha256PasswordHasher());
+    }
+
+    public DelegatingPasswordHasher(PasswordHasher current, PasswordHasher... legacy) {
+        if (current == null) {
+            throw new IllegalArgumentException("Current password hasher cannot be null");
+        }
+        this.current = current;
+        this.hashers = new ArrayList<>();
+        this.hashers.add(current);
+        for (PasswordHasher hasher : legacy) {
+            if (hasher == null) {
+                throw new IllegalArgumentException("Legacy password hasher cannot be null");
+            }
+            this.hashers.add(hasher);
+        }
+    }
+
+    public PasswordHasher getCurrent() {
+        return current;
+    }
+
+    @Override
+    public String hash(String rawPassword) {
+        return current.hash(rawPassword);
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String passwordHash) {
+        PasswordHasher hasher = hasherFor(passwordHash);
+        return hasher != null && hasher.matches(rawPassword, passwordHash);
+    }
+
+    @Override
+    public boolean needsRehash(String passwordHash) {
+        return !current.supports(passwordHash) || current.needsRehash(passwordHash);
+    }
+
+    @Override
+    public boolean supports(String passwordHash) {
+        return hasherFor(passwordHash) != null;
+    }
+
+    private PasswordHasher hasherFor(String passwordHash) {
+        if (passwordHash == null) {
+            return null;
+        }
+        for (PasswordHasher hasher : hashers) {
+            if (hasher.supports(passwordHash)) {
+                return hasher;
+            }
+        }
+        return null;
+    }
+}
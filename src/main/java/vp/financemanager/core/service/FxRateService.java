@@ -0,0 +1,105 @@
+package vp.financemanager.core.service;
+
+import vp.financemanager.core.models.FxRateTable;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Пересчет сумм между валютами по курсу на дату.
+// Для каждой валюты при первом обращении строится плотный массив курсов по дням
+// (пропуски заполнены последним известным курсом), дальше поиск — индекс по epochDay.
+public class FxRateService {
+
+    private final FxRateTable table;
+    private final Map<Currency, DailyRates> cache = new ConcurrentHashMap<>();
+
+    public FxRateService(FxRateTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Rate table cannot be null");
+        }
+        this.table = table;
+    }
+
+    // Сколько единиц to стоит одна единица from на дату
+    public BigDecimal rate(Currency from, Currency to, LocalDate date) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        if (from.equals(to)) {
+            return BigDecimal.ONE;
+        }
+        BigDecimal fromRate = quoteRate(from, date);
+        BigDecimal toRate = quoteRate(to, date);
+        return to.equals(table.getQuoteCurrency()) ? fromRate : fromRate.divide(toRate, MathContext.DECIMAL64);
+    }
+
+    // Сумма в той же валюте возвращается как есть, иначе — с округлением до копеек
+    public BigDecimal convert(BigDecimal amount, Currency from, Currency to, LocalDate date) {
+        if (from != null && from.equals(to)) {
+            return amount;
+        }
+        return convertUnrounded(amount, from, to, date).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Без округления: для сумм из многих слагаемых округляется только итог
+    public BigDecimal convertUnrounded(BigDecimal amount, Currency from, Currency to, LocalDate date) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount cannot be null");
+        }
+        if (from != null && from.equals(to)) {
+            return amount;
+        }
+        return amount.multiply(rate(from, to, date));
+    }
+
+    private BigDecimal quoteRate(Currency currency, LocalDate date) {
+        if (currency.equals(table.getQuoteCurrency())) {
+            return BigDecimal.ONE;
+        }
+        BigDecimal rate = cache.computeIfAbsent(currency, c -> new DailyRates(table.getRates(c))).get(date);
+        if (rate == null) {
+            throw new IllegalStateException("No " + currency.getCurrencyCode() + " rate on or before " + date);
+        }
+        return rate;
+    }
+
+    private static final class DailyRates {
+        private final long firstDay;
+        private final BigDecimal[] byDay;
+
+        DailyRates(NavigableMap<LocalDate, BigDecimal> rates) {
+            if (rates.isEmpty()) {
+                this.firstDay = 0;
+                this.byDay = new BigDecimal[0];
+                return;
+            }
+            this.firstDay = rates.firstKey().toEpochDay();
+            this.byDay = new BigDecimal[(int) (rates.lastKey().toEpochDay() - firstDay + 1)];
+            BigDecimal current = null;
+            for (int i = 0; i < byDay.length; i++) {
+                BigDecimal exact = rates.get(LocalDate.ofEpochDay(firstDay + i));
+                if (exact != null) {
+                    current = exact;
+                }
+                byDay[i] = current;
+            }
+        }
+
+        BigDecimal get(LocalDate date) {
+            long offset = date.toEpochDay() - firstDay;
+            if (byDay.length == 0 || offset < 0) {
+                return null;
+            }
+            return byDay[(int) Math.min(offset, byDay.length - 1)];
+        }
+    }
+}
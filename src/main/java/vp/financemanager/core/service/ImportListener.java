@@ -0,0 +1,16 @@
+package vp.financemanager.core.service;
+
+import vp.financemanager.core.models.ImportProgress;
+
+// Получает ход импорта не чаще раза в PROGRESS_INTERVAL_NANOS и один раз в конце,
+// после сохранения кошелька. Вызывается в потоке импорта, поэтому должен быть быстрым.
+@FunctionalInterface
+public interface ImportListener {
+
+    long PROGRESS_INTERVAL_NANOS = 250_000_000L;
+
+    ImportListener NONE = progress -> {
+    };
+
+    void onProgress(ImportProgress progress);
+}
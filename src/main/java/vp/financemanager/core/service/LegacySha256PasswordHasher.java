@@ -0,0 +1,66 @@
+package vp.financemanager.core.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Прежний формат: 64 hex-символа несоленого SHA-256. Нужен только для проверки старых паролей —
+// такой хеш всегда требует пересчета. Сравнение — за постоянное время.
+public class LegacySha256PasswordHasher implements PasswordHasher {
+
+    private static final int HASH_LENGTH = 64;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    });
+
+    @Override
+    public String hash(String rawPassword) {
+        if (rawPassword == null) {
+            throw new IllegalArgumentException("Password cannot be null");
+        }
+        byte[] digest = SHA_256.get().digest(rawPassword.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(HASH_LENGTH);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String passwordHash) {
+        if (rawPassword == null || passwordHash == null || !supports(passwordHash)) {
+            return false;
+        }
+        byte[] expected = fromHex(passwordHash);
+        byte[] actual = SHA_256.get().digest(rawPassword.getBytes(StandardCharsets.UTF_8));
+        return expected != null && MessageDigest.isEqual(actual, expected);
+    }
+
+    @Override
+    public boolean needsRehash(String passwordHash) {
+        return true;
+    }
+
+    @Override
+    public boolean supports(String passwordHash) {
+        return passwordHash != null && passwordHash.length() == HASH_LENGTH && passwordHash.indexOf('$') < 0;
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+}
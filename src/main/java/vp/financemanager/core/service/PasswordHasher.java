@@ -1,38 +1,17 @@
 package vp.financemanager.core.service;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+// Способ хранения паролей. Хеш сам говорит, каким способом он получен (supports), поэтому
+// старые хеши проверяются прежним способом, а needsRehash подсказывает, что после успешного
+// входа хеш пора пересчитать текущим. По умолчанию — DelegatingPasswordHasher.
+public interface PasswordHasher {
 
-public class PasswordHasher {
+    String hash(String rawPassword);
 
-    public String hash(String rawPassword) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(rawPassword.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(hashBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
-        }
-    }
+    boolean matches(String rawPassword, String passwordHash);
 
-    public boolean matches(String rawPassword, String passwordHash) {
-        if (rawPassword == null || passwordHash == null) {
-            return false;
-        }
-        String calculatedHash = hash(rawPassword);
-        return calculatedHash.equals(passwordHash);
-    }
+    // Хеш получен другим способом или с меньшей стоимостью
+    boolean needsRehash(String passwordHash);
 
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                sb.append('0');
-            }
-            sb.append(hex);
-        }
-        return sb.toString();
-    }
-}
\ No newline at end of file
+    // Хеш в формате этого способа
+    boolean supports(String passwordHash);
+}
@@ -0,0 +1,142 @@
+package vp.financemanager.core.service;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+// PBKDF2-HMAC-SHA256 с солью и настраиваемым числом итераций.
+// Формат хеша: pbkdf2-sha256$<итерации>$<соль base64>$<ключ base64> — параметры хранятся
+// вместе с хешем, поэтому смена стоимости не ломает старые пароли, а needsRehash подсказывает,
+// что хеш пора пересчитать. Mac создается один раз на поток; сравнение хешей — за постоянное время.
+// Стоимость по умолчанию — рекомендация OWASP для HMAC-SHA256 (210 000 — цифра для HMAC-SHA512);
+// по PasswordHasherBenchmark это около 0.2 с на проверку на одном ядре. Дорогая проверка
+// выполняется только при входе — дальше запросы идут по токену сессии (SessionService).
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    public static final int DEFAULT_ITERATIONS = 600_000;
+    public static final int MIN_ITERATIONS = 1_000;
+
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BYTES = 32;          // один блок HMAC-SHA256
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " algorithm not available", e);
+        }
+    });
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    public Pbkdf2PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    public Pbkdf2PasswordHasher(int iterations) {
+        if (iterations < MIN_ITERATIONS) {
+            throw new IllegalArgumentException("Iterations must be at least " + MIN_ITERATIONS);
+        }
+        this.iterations = iterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public String hash(String rawPassword) {
+        if (rawPassword == null) {
+            throw new IllegalArgumentException("Password cannot be null");
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] key = pbkdf2(rawPassword, salt, iterations);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(key);
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String passwordHash) {
+        if (rawPassword == null || passwordHash == null) {
+            return false;
+        }
+        String[] parts = passwordHash.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+            return false;
+        }
+        try {
+            int hashIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            // испорченная запись не должна заставлять считать миллиарды итераций
+            if (hashIterations < MIN_ITERATIONS || hashIterations > Math.max(iterations, DEFAULT_ITERATIONS) * 16
+                    || expected.length != KEY_BYTES) {
+                return false;
+            }
+            return MessageDigest.isEqual(pbkdf2(rawPassword, salt, hashIterations), expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Хеш другого формата или с меньшей стоимостью; после успешной проверки его стоит заменить hash(пароль)
+    @Override
+    public boolean needsRehash(String passwordHash) {
+        if (passwordHash == null) {
+            return true;
+        }
+        String[] parts = passwordHash.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    @Override
+    public boolean supports(String passwordHash) {
+        return passwordHash != null && passwordHash.startsWith(PREFIX + "$");
+    }
+
+    // PBKDF2 (RFC 8018) для ключа в один блок: U1 = HMAC(P, S || 1), Ui = HMAC(P, Ui-1), T = U1 ^ ... ^ Uc.
+    // Блоки u и result переиспользуются между итерациями, поэтому цикл не выделяет память.
+    private static byte[] pbkdf2(String rawPassword, byte[] salt, int iterations) {
+        Mac mac = MAC.get();
+        byte[] password = rawPassword.getBytes(StandardCharsets.UTF_8);
+        try {
+            // пустой ключ SecretKeySpec не принимает, а HMAC дополняет ключ нулями — результат тот же
+            mac.init(new SecretKeySpec(password.length == 0 ? new byte[1] : password, HMAC_ALGORITHM));
+            byte[] u = new byte[KEY_BYTES];
+            mac.update(salt);
+            mac.update(new byte[]{0, 0, 0, 1});
+            mac.doFinal(u, 0);
+            byte[] result = u.clone();
+            for (int i = 1; i < iterations; i++) {
+                mac.update(u);
+                mac.doFinal(u, 0);
+                for (int j = 0; j < KEY_BYTES; j++) {
+                    result[j] ^= u[j];
+                }
+            }
+            return result;
+        } catch (InvalidKeyException | ShortBufferException e) {
+            throw new IllegalStateException("Failed to compute password hash", e);
+        } finally {
+            Arrays.fill(password, (byte) 0);
+        }
+    }
+}
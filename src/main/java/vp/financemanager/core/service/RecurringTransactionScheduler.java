@@ -0,0 +1,71 @@
+package vp.financemanager.core.service;
+
+import vp.financemanager.core.models.RecurringRule;
+import vp.financemanager.core.models.TransactionRequest;
+import vp.financemanager.core.models.TransactionResult;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.repository.WalletRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecurringTransactionScheduler {
+
+    private final WalletRepository walletRepository;
+    private final WalletService walletService;
+
+    public RecurringTransactionScheduler(WalletRepository walletRepository, WalletService walletService) {
+        this.walletRepository = walletRepository;
+        this.walletService = walletService;
+    }
+
+    public void addRule(Wallet wallet, RecurringRule rule) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        wallet.addRecurringRule(rule);
+        walletRepository.save(wallet);
+    }
+
+    public boolean removeRule(Wallet wallet, RecurringRule rule) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        boolean removed = wallet.removeRecurringRule(rule);
+        if (removed) {
+            walletRepository.save(wallet);
+        }
+        return removed;
+    }
+
+    public List<TransactionResult> runDue(Wallet wallet) {
+        return runDue(wallet, LocalDate.now());
+    }
+
+    // Добавляет все повторения с датой не позже today, в том числе пропущенные
+    // за время простоя, одним пакетом и одним save. Проверка без просроченных
+    // правил — один peek очереди.
+    public List<TransactionResult> runDue(Wallet wallet, LocalDate today) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (today == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+
+        // очередь отдает повторения в порядке дат, поэтому пакет уже отсортирован
+        List<TransactionRequest> requests = new ArrayList<>();
+        RecurringRule rule;
+        while ((rule = wallet.pollDueRecurringRule(today)) != null) {
+            requests.add(new TransactionRequest(rule.getType(), rule.getAmount(), rule.getCategory(),
+                    rule.getDescription(), rule.getNextDue().atStartOfDay()));
+            wallet.rescheduleRecurringRule(rule);
+        }
+
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        return walletService.addTransactions(wallet, requests);
+    }
+}
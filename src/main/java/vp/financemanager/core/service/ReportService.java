@@ -0,0 +1,241 @@
+package vp.financemanager.core.service;
+
+import vp.financemanager.core.models.CategoryBudget;
+import vp.financemanager.core.models.TransactionType;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.models.WalletsReport;
+import vp.financemanager.core.repository.WalletRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Отчеты по многим кошелькам. Каждый поток-обработчик сам берет логины из общей
+// ограниченной очереди, загружает кошелек, считает итоги в свой аккумулятор и отпускает
+// кошелек. В памяти одновременно не больше parallelism кошельков; общие данные у потоков —
+// только очередь, итоги сливаются один раз в конце.
+// Суммы приводятся к валюте отчета: операции — по курсам на их дни, остатки и бюджеты —
+// по курсу на день отчета.
+public class ReportService {
+
+    // маркер конца очереди, сравнивается по ссылке
+    private static final String END_OF_INPUT = new String("");
+    // как часто производитель, ожидая места в очереди, проверяет, живы ли обработчики
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final WalletRepository walletRepository;
+    private final WalletService walletService;
+    private final int parallelism;
+    private final Currency reportCurrency;
+
+    public ReportService(WalletRepository walletRepository, WalletService walletService) {
+        this(walletRepository, walletService, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ReportService(WalletRepository walletRepository, WalletService walletService, int parallelism) {
+        this(walletRepository, walletService, parallelism, Wallet.DEFAULT_CURRENCY);
+    }
+
+    public ReportService(WalletRepository walletRepository, WalletService walletService, int parallelism,
+                         Currency reportCurrency) {
+        if (walletRepository == null) {
+            throw new IllegalArgumentException("Wallet repository cannot be null");
+        }
+        if (walletService == null) {
+            throw new IllegalArgumentException("Wallet service cannot be null");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0");
+        }
+        if (reportCurrency == null) {
+            throw new IllegalArgumentException("Report currency cannot be null");
+        }
+        this.walletRepository = walletRepository;
+        this.walletService = walletService;
+        this.parallelism = parallelism;
+        this.reportCurrency = reportCurrency;
+    }
+
+    // Валюта всех сумм в отчете
+    public Currency getReportCurrency() {
+        return reportCurrency;
+    }
+
+    public WalletsReport aggregateAll() {
+        try (Stream<String> logins = walletRepository.findAllOwnerLogins()) {
+            return aggregate(logins.iterator());
+        }
+    }
+
+    public WalletsReport aggregate(Collection<String> logins) {
+        if (logins == null) {
+            throw new IllegalArgumentException("Logins cannot be null");
+        }
+        return aggregate(logins.iterator());
+    }
+
+    private WalletsReport aggregate(Iterator<String> logins) {
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(parallelism * 4);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<Accumulator>> workers = new ArrayList<>(parallelism);
+        LocalDate today = LocalDate.now();
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(executor.submit(() -> work(queue, today)));
+            }
+            while (logins.hasNext()) {
+                offer(queue, logins.next(), workers);
+            }
+            for (int i = 0; i < parallelism; i++) {
+                offer(queue, END_OF_INPUT, workers);
+            }
+
+            Accumulator total = new Accumulator(today);
+            for (Future<Accumulator> worker : workers) {
+                total.merge(worker.get());
+            }
+            return total.toReport();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Report was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Report failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Обработчик, упавший раньше маркера конца, больше не разбирает очередь: вместо вечного
+    // ожидания места в ней ошибка обработчика пробрасывается через get()
+    private void offer(BlockingQueue<String> queue, String login, List<Future<Accumulator>> workers)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(login, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            for (Future<Accumulator> worker : workers) {
+                if (worker.isDone()) {
+                    worker.get();
+                }
+            }
+        }
+    }
+
+    private Accumulator work(BlockingQueue<String> queue, LocalDate today) throws InterruptedException {
+        Accumulator accumulator = new Accumulator(today);
+        while (true) {
+            String login = queue.take();
+            if (login == END_OF_INPUT) {
+                return accumulator;
+            }
+
+            // ошибка одного кошелька не должна останавливать обработчик: очередь тогда не опустеет
+            try {
+                Wallet wallet = walletRepository.findByOwnerLogin(login);
+                if (wallet == null) {
+                    accumulator.missingWallets++;
+                } else {
+                    accumulator.add(wallet);
+                }
+            } catch (RuntimeException e) {
+                accumulator.failedLogins.add(login);
+            }
+        }
+    }
+
+    private final class Accumulator {
+        private final LocalDate today;
+        private int walletCount;
+        private int missingWallets;
+        private final List<String> failedLogins = new ArrayList<>();
+        private BigDecimal totalBalance = BigDecimal.ZERO;
+        private BigDecimal totalIncome = BigDecimal.ZERO;
+        private BigDecimal totalExpense = BigDecimal.ZERO;
+        private BigDecimal totalBudgetLimit = BigDecimal.ZERO;
+        private BigDecimal totalBudgetSpent = BigDecimal.ZERO;
+        private int exceededBudgets;
+
+        Accumulator(LocalDate today) {
+            this.today = today;
+        }
+
+        // итоги кошелька сначала считаются целиком, чтобы при ошибке курса он не попал в отчет частично
+        void add(Wallet wallet) {
+            BigDecimal balance;
+            BigDecimal income;
+            BigDecimal expense;
+            if (wallet.getCurrency().equals(reportCurrency) && !wallet.hasForeignCurrencies()) {
+                balance = wallet.getBalance();
+                income = walletService.getTotalIncome(wallet);
+                expense = walletService.getTotalExpense(wallet);
+            } else {
+                balance = walletService.getConvertedBalance(wallet, reportCurrency, today);
+                income = walletService.getConvertedTotal(wallet, TransactionType.INCOME, null, reportCurrency);
+                expense = walletService.getConvertedTotal(wallet, TransactionType.EXPENSE, null, reportCurrency);
+            }
+
+            BigDecimal budgetLimit = BigDecimal.ZERO;
+            BigDecimal budgetSpent = BigDecimal.ZERO;
+            int exceeded = 0;
+
+            // учитываются только бюджеты с заданным лимитом, без автоматически созданных с лимитом 0
+            for (CategoryBudget budget : wallet.getCategoryBudgets().values()) {
+                if (budget.getLimit().compareTo(BigDecimal.ZERO) <= 0) {
+                    continue;
+                }
+                // бюджеты ведутся в основной валюте кошелька
+                budgetLimit = budgetLimit.add(walletService.getFxRateService().convert(budget.getLimit(),
+                        wallet.getCurrency(), reportCurrency, today));
+                budgetSpent = budgetSpent.add(walletService.getFxRateService().convert(budget.getSpent(),
+                        wallet.getCurrency(), reportCurrency, today));
+                if (budget.getSpent().compareTo(budget.getLimit()) > 0) {
+                    exceeded++;
+                }
+            }
+
+            walletCount++;
+            totalBalance = totalBalance.add(balance);
+            totalIncome = totalIncome.add(income);
+            totalExpense = totalExpense.add(expense);
+            totalBudgetLimit = totalBudgetLimit.add(budgetLimit);
+            totalBudgetSpent = totalBudgetSpent.add(budgetSpent);
+            exceededBudgets += exceeded;
+        }
+
+        void merge(Accumulator other) {
+            walletCount += other.walletCount;
+            missingWallets += other.missingWallets;
+            failedLogins.addAll(other.failedLogins);
+            totalBalance = totalBalance.add(other.totalBalance);
+            totalIncome = totalIncome.add(other.totalIncome);
+            totalExpense = totalExpense.add(other.totalExpense);
+            totalBudgetLimit = totalBudgetLimit.add(other.totalBudgetLimit);
+            totalBudgetSpent = totalBudgetSpent.add(other.totalBudgetSpent);
+            exceededBudgets += other.exceededBudgets;
+        }
+
+        WalletsReport toReport() {
+            return WalletsReport.builder()
+                    .currency(reportCurrency)
+                    .walletCount(walletCount)
+                    .missingWallets(missingWallets)
+                    .failedLogins(failedLogins)
+                    .totalBalance(totalBalance)
+                    .totalIncome(totalIncome)
+                    .totalExpense(totalExpense)
+                    .totalBudgetLimit(totalBudgetLimit)
+                    .totalBudgetSpent(totalBudgetSpent)
+                    .exceededBudgets(exceededBudgets)
+                    .build();
+        }
+    }
+}
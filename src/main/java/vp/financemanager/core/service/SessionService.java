@@ -0,0 +1,149 @@
+package vp.financemanager.core.service;
+
+import vp.financemanager.core.models.Session;
+import vp.financemanager.core.models.User;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Сессии по непрозрачному токену: пароль хешируется только при входе, а каждый следующий
+// запрос проверяет токен одним get из ConcurrentHashMap. Сессия истекает через ttl после входа
+// или через idleTimeout без обращений. Истекшие сессии удаляются при обращении к ним и
+// периодической чисткой: ее запускает вход, не чаще раза в sweepInterval, и только в одном
+// потоке (CAS по времени прошлой чистки). Чистка обходит карту без общей блокировки —
+// параллельные входы и проверки не ждут ее.
+public class SessionService {
+
+    public static final Duration DEFAULT_TTL = Duration.ofHours(12);
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private static final int TOKEN_BYTES = 32;
+    // lastAccess обновляется не чаще раза в секунду, чтобы частые запросы одной сессии
+    // из разных потоков не перетягивали строку кэша
+    private static final long TOUCH_GRANULARITY_MILLIS = 1_000;
+
+    private final UserService userService;
+    private final long ttlMillis;
+    private final long idleTimeoutMillis;
+    private final long sweepIntervalMillis;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepMillis = new AtomicLong(Long.MIN_VALUE);
+    private final SecureRandom random = new SecureRandom();
+
+    public SessionService(UserService userService) {
+        this(userService, DEFAULT_TTL, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public SessionService(UserService userService, Duration ttl, Duration idleTimeout) {
+        if (userService == null) {
+            throw new IllegalArgumentException("User service cannot be null");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Session TTL must be greater than 0");
+        }
+        if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Idle timeout must be greater than 0");
+        }
+        this.userService = userService;
+        this.ttlMillis = ttl.toMillis();
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.sweepIntervalMillis = Math.min(ttlMillis, idleTimeoutMillis);
+    }
+
+    public Session login(String login, String rawPassword) {
+        return login(login, rawPassword, Instant.now());
+    }
+
+    // null — неверный логин или пароль
+    public Session login(String login, String rawPassword, Instant now) {
+        if (now == null) {
+            throw new IllegalArgumentException("Time cannot be null");
+        }
+        sweepIfDue(now.toEpochMilli());
+
+        User user = userService.login(login, rawPassword);
+        if (user == null) {
+            return null;
+        }
+        Session session = new Session(newToken(), user, now, now.plusMillis(ttlMillis));
+        sessions.put(session.getToken(), session);
+        return session;
+    }
+
+    public User authenticate(String token) {
+        return authenticate(token, Instant.now());
+    }
+
+    // Пользователь сессии или null, если токен неизвестен или сессия истекла
+    public User authenticate(String token, Instant now) {
+        if (token == null) {
+            return null;
+        }
+        if (now == null) {
+            throw new IllegalArgumentException("Time cannot be null");
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long nowMillis = now.toEpochMilli();
+        if (session.isExpired(nowMillis, idleTimeoutMillis)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        if (nowMillis - session.getLastAccessMillis() >= TOUCH_GRANULARITY_MILLIS) {
+            session.touch(nowMillis);
+        }
+        return session.getUser();
+    }
+
+    public boolean logout(String token) {
+        return token != null && sessions.remove(token) != null;
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    public int evictExpired() {
+        return evictExpired(Instant.now());
+    }
+
+    // Удаляет истекшие сессии и возвращает их число. Итератор ConcurrentHashMap
+    // не блокирует карту, а remove(key, value) не тронет сессию, замененную за время обхода.
+    public int evictExpired(Instant now) {
+        if (now == null) {
+            throw new IllegalArgumentException("Time cannot be null");
+        }
+        long nowMillis = now.toEpochMilli();
+        lastSweepMillis.set(nowMillis);
+        int evicted = 0;
+        for (Session session : sessions.values()) {
+            if (session.isExpired(nowMillis, idleTimeoutMillis) && sessions.remove(session.getToken(), session)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private void sweepIfDue(long nowMillis) {
+        long last = lastSweepMillis.get();
+        if (last != Long.MIN_VALUE && nowMillis - last < sweepIntervalMillis) {
+            return;
+        }
+        // чистит только поток, выигравший CAS; остальные входят, не дожидаясь ее
+        if (lastSweepMillis.compareAndSet(last, nowMillis)) {
+            evictExpired(Instant.ofEpochMilli(nowMillis));
+        }
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,142 @@
+package vp.financemanager.core.service;
+
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Суммы по транзакциям: последовательно для обычных кошельков,
+// через fork/join по диапазонам списка — начиная с parallelThreshold строк.
+// Сложение BigDecimal точное, поэтому оба пути дают одинаковый результат.
+public class TransactionAggregator {
+
+    // Оба значения по умолчанию не подобраны: AggregationBenchmark (src/test/.../benchmark) запускался
+    // только на одном ядре, где fork/join выигрыша не дает. На многоядерной машине их стоит
+    // подобрать тем же замером и передать в конструктор.
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+    public static final int DEFAULT_MIN_LEAF_SIZE = 8_192;
+
+    private final int parallelThreshold;
+    private final int minLeafSize;
+    private final ForkJoinPool pool;
+
+    public TransactionAggregator() {
+        this(DEFAULT_PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    public TransactionAggregator(int parallelThreshold, ForkJoinPool pool) {
+        this(parallelThreshold, DEFAULT_MIN_LEAF_SIZE, pool);
+    }
+
+    public TransactionAggregator(int parallelThreshold, int minLeafSize, ForkJoinPool pool) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be greater than 0");
+        }
+        if (minLeafSize <= 0) {
+            throw new IllegalArgumentException("Min leaf size must be greater than 0");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.parallelThreshold = parallelThreshold;
+        this.minLeafSize = minLeafSize;
+        this.pool = pool;
+    }
+
+    public BigDecimal sum(List<Transaction> transactions, TransactionType type, Collection<Category> categoriesOrNull) {
+        Map<Category, BigDecimal> byCategory = sumByCategory(transactions, type, categoriesOrNull);
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : byCategory.values()) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    // Ключи в порядке первого появления категории в списке
+    public Map<Category, BigDecimal> sumByCategory(List<Transaction> transactions,
+                                                   TransactionType type,
+                                                   Collection<Category> categoriesOrNull) {
+        if (transactions == null) {
+            throw new IllegalArgumentException("Transactions cannot be null");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Transaction type cannot be null");
+        }
+
+        Set<Category> categories = categoriesOrNull == null || categoriesOrNull.isEmpty()
+                ? null
+                : new HashSet<>(categoriesOrNull);
+
+        if (transactions.size() < parallelThreshold) {
+            return sumRange(transactions, 0, transactions.size(), type, categories);
+        }
+
+        int leafSize = Math.max(minLeafSize, transactions.size() / (pool.getParallelism() * 8));
+        return pool.invoke(new SumTask(transactions, 0, transactions.size(), leafSize, type, categories));
+    }
+
+    private static Map<Category, BigDecimal> sumRange(List<Transaction> transactions, int from, int to,
+                                                      TransactionType type, Set<Category> categories) {
+        Map<Category, BigDecimal> sums = new LinkedHashMap<>();
+        for (int i = from; i < to; i++) {
+            Transaction tx = transactions.get(i);
+            if (tx.getType() != type) {
+                continue;
+            }
+            if (categories != null && !categories.contains(tx.getCategory())) {
+                continue;
+            }
+            sums.merge(tx.getCategory(), tx.getAmount(), BigDecimal::add);
+        }
+        return sums;
+    }
+
+    private static final class SumTask extends RecursiveTask<Map<Category, BigDecimal>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Transaction> transactions;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final TransactionType type;
+        private final Set<Category> categories;
+
+        SumTask(List<Transaction> transactions, int from, int to, int leafSize,
+                TransactionType type, Set<Category> categories) {
+            this.transactions = transactions;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.type = type;
+            this.categories = categories;
+        }
+
+        @Override
+        protected Map<Category, BigDecimal> compute() {
+            if (to - from <= leafSize) {
+                return sumRange(transactions, from, to, type, categories);
+            }
+
+            int middle = (from + to) >>> 1;
+            SumTask right = new SumTask(transactions, middle, to, leafSize, type, categories);
+            right.fork();
+            Map<Category, BigDecimal> left = new SumTask(transactions, from, middle, leafSize, type, categories)
+                    .compute();
+
+            // левая часть первой — порядок ключей совпадает с последовательным путем
+            for (Map.Entry<Category, BigDecimal> entry : right.join().entrySet()) {
+                left.merge(entry.getKey(), entry.getValue(), BigDecimal::add);
+            }
+            return left;
+        }
+    }
+}
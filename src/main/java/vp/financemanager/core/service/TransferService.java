@@ -0,0 +1,102 @@
+package vp.financemanager.core.service;
+
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.repository.CommitNotAppliedException;
+import vp.financemanager.core.repository.WalletRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Переводы между кошельками. Каждый кошелек защищен своей блокировкой; пара берется
+// в порядке логинов владельцев, поэтому встречные переводы не блокируют друг друга намертво,
+// а переводы между разными парами кошельков идут параллельно.
+public class TransferService {
+
+    public static final Category TRANSFER_CATEGORY = new Category("Transfer");
+
+    private final WalletRepository walletRepository;
+    private final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public TransferService(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    public String transfer(Wallet from, Wallet to, BigDecimal amount, String description) {
+        if (from == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        return transfer(from, to, amount, from.getCurrency(), description);
+    }
+
+    // Возвращает id перевода, общий для расхода у отправителя и дохода у получателя.
+    // CommitNotAppliedException — перевод состоялся, но файлы кошельков обновятся позже
+    public String transfer(Wallet from, Wallet to, BigDecimal amount, Currency currency, String description) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (from.getOwnerLogin().equals(to.getOwnerLogin())) {
+            throw new IllegalArgumentException("Cannot transfer to the same wallet");
+        }
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be greater than 0");
+        }
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+
+        boolean fromFirst = from.getOwnerLogin().compareTo(to.getOwnerLogin()) < 0;
+        ReentrantLock first = lockFor(fromFirst ? from : to);
+        ReentrantLock second = lockFor(fromFirst ? to : from);
+        first.lock();
+        try {
+            second.lock();
+            try {
+                return transferLocked(from, to, amount, currency, description);
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    private String transferLocked(Wallet from, Wallet to, BigDecimal amount, Currency currency, String description) {
+        if (from.getBalance(currency).compareTo(amount) < 0) {
+            throw new IllegalArgumentException("Insufficient funds in " + currency.getCurrencyCode());
+        }
+
+        String transferId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        Transaction debit = new Transaction(TransactionType.EXPENSE, amount, TRANSFER_CATEGORY,
+                description, now, currency, transferId);
+        Transaction credit = new Transaction(TransactionType.INCOME, amount, TRANSFER_CATEGORY,
+                description, now, currency, transferId);
+
+        from.addTransaction(debit);
+        to.addTransaction(credit);
+        try {
+            walletRepository.saveAll(List.of(from, to));
+        } catch (CommitNotAppliedException e) {
+            // перевод зафиксирован и будет доигран репозиторием — кошельки в памяти уже верны
+            throw e;
+        } catch (RuntimeException e) {
+            // на диске ничего не изменилось — возвращаем кошельки в памяти к прежнему состоянию
+            to.rollbackLastTransaction(credit);
+            from.rollbackLastTransaction(debit);
+            throw e;
+        }
+        return transferId;
+    }
+
+    private ReentrantLock lockFor(Wallet wallet) {
+        return locks.computeIfAbsent(wallet.getOwnerLogin(), login -> new ReentrantLock());
+    }
+}
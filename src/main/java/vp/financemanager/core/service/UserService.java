@@ -5,6 +5,7 @@ import vp.financemanager.core.models.Wallet;
 import vp.financemanager.core.repository.UserRepository;
 
 import java.math.BigDecimal;
+import java.util.Currency;
 import java.util.Optional;
 
 public class UserService {
@@ -17,6 +18,11 @@ public class UserService {
     }
 
     public User register(String login, String rawPassword, BigDecimal initialBalance){
+        return register(login, rawPassword, initialBalance, Wallet.DEFAULT_CURRENCY);
+    }
+
+    public User register(String login, String rawPassword, BigDecimal initialBalance, Currency currency) {
+        // быстрый отказ до дорогого хеширования; окончательно логин проверяет saveIfAbsent
         Optional<User> existing = userRepository.findByLogin(login);
         if (existing.isPresent()) {
             throw new IllegalArgumentException("User with login '" + login + "' already exists");
@@ -28,10 +34,14 @@ public class UserService {
         }
 
         String passwordHash = passwordHasher.hash(rawPassword);
-        Wallet wallet = new Wallet(login, initialBalance);
+        Wallet wallet = new Wallet(login, initialBalance, currency);
         User user = new User(login, passwordHash, wallet);
 
-        return userRepository.save(user);
+        // параллельная регистрация того же логина могла успеть между проверкой и записью
+        if (!userRepository.saveIfAbsent(user)) {
+            throw new IllegalArgumentException("User with login '" + login + "' already exists");
+        }
+        return user;
     }
 
     public User login(String login, String rawPassword) {
@@ -46,6 +56,12 @@ public class UserService {
             return null; // пароль неверный
         }
 
+        // старый несоленый хеш или заниженная стоимость — пароль известен только сейчас,
+        // поэтому хеш пересчитывается при входе
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            user = userRepository.save(new User(user.getLogin(), passwordHasher.hash(rawPassword), user.getWallet()));
+        }
+
         return user; // успешный логин
     }
 }
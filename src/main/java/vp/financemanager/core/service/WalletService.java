@@ -1,33 +1,115 @@
 package vp.financemanager.core.service;
 
+import vp.financemanager.core.csv.CountingInputStream;
+import vp.financemanager.core.csv.CsvCompression;
+import vp.financemanager.core.csv.CsvImportPipeline;
+import vp.financemanager.core.csv.CsvRow;
+import vp.financemanager.core.csv.CsvTransactionWriter;
+import vp.financemanager.core.format.ColumnarTransactionReader;
+import vp.financemanager.core.format.JsonLinesTransactionReader;
+import vp.financemanager.core.format.TransactionFormat;
+import vp.financemanager.core.format.TransactionWriter;
 import vp.financemanager.core.models.*;
+import vp.financemanager.core.query.PageCursor;
+import vp.financemanager.core.query.QueryPlan;
+import vp.financemanager.core.query.QueryResult;
+import vp.financemanager.core.query.TransactionPage;
+import vp.financemanager.core.query.TransactionQuery;
+import vp.financemanager.core.query.TransactionQueryPlanner;
 import vp.financemanager.core.repository.WalletRepository;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.stream.Stream;
 
 public class WalletService {
+    // сколько первых байтов файла нужно, чтобы узнать формат
+    private static final int FORMAT_PROBE_SIZE = 16;
+    private static final int FORMAT_PROBE_BUFFER = 64 * 1024;
+    // сколько сообщений об ошибках импорта хранится в отчете
+    static final int MAX_IMPORT_ERRORS = 1000;
+
     private final WalletRepository walletRepository;
     private final BudgetService budgetService;
+    private final TransactionQueryPlanner queryPlanner;
+    private final TransactionAggregator aggregator;
+    private final FxRateService fxRateService;
+    private final CsvImportPipeline csvImportPipeline;
 
     public WalletService(WalletRepository walletRepository, BudgetService budgetService) {
+        this(walletRepository, budgetService, new TransactionAggregator());
+    }
+
+    public WalletService(WalletRepository walletRepository,
+                         BudgetService budgetService,
+                         TransactionAggregator aggregator) {
+        this(walletRepository, budgetService, aggregator, budgetService.getFxRateService());
+    }
+
+    public WalletService(WalletRepository walletRepository,
+                         BudgetService budgetService,
+                         TransactionAggregator aggregator,
+                         FxRateService fxRateService) {
+        this(walletRepository, budgetService, aggregator, fxRateService, new CsvImportPipeline());
+    }
+
+    public WalletService(WalletRepository walletRepository,
+                         BudgetService budgetService,
+                         TransactionAggregator aggregator,
+                         FxRateService fxRateService,
+                         CsvImportPipeline csvImportPipeline) {
         this.walletRepository = walletRepository;
         this.budgetService = budgetService;
+        this.queryPlanner = new TransactionQueryPlanner();
+        this.aggregator = aggregator;
+        this.fxRateService = fxRateService;
+        this.csvImportPipeline = csvImportPipeline;
+    }
+
+    public FxRateService getFxRateService() {
+        return fxRateService;
     }
 
     public void addIncome(Wallet wallet, BigDecimal amount, Category category, String description) {
         if (wallet == null) {
             throw new IllegalArgumentException("Wallet cannot be null");
         }
+        addIncome(wallet, amount, category, description, wallet.getCurrency());
+    }
+
+    public void addIncome(Wallet wallet, BigDecimal amount, Category category, String description,
+                          Currency currency) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
 
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Income must be greater than 0");
@@ -37,12 +119,17 @@ public class WalletService {
             throw new IllegalArgumentException("Category cannot be null");
         }
 
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+
         Transaction income = new Transaction(
                 TransactionType.INCOME,
                 amount,
                 category,
                 description,
-                LocalDateTime.now()
+                LocalDateTime.now(),
+                currency
         );
 
         wallet.addTransaction(income);
@@ -53,6 +140,14 @@ public class WalletService {
         if (wallet == null) {
             throw new IllegalArgumentException("Wallet cannot be null");
         }
+        addExpense(wallet, amount, category, description, wallet.getCurrency());
+    }
+
+    public void addExpense(Wallet wallet, BigDecimal amount, Category category, String description,
+                           Currency currency) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
 
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Expense must be greater than 0");
@@ -62,6 +157,14 @@ public class WalletService {
             throw new IllegalArgumentException("Category cannot be null");
         }
 
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+
+        // Бюджет ведется в основной валюте; без курса на дату расход не добавляется
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal budgetAmount = fxRateService.convert(amount, currency, wallet.getCurrency(), now.toLocalDate());
+
         // Убеждаемся, что бюджет существует для категории расходов
         budgetService.ensureBudgetExists(wallet, category);
         
@@ -78,19 +181,103 @@ public class WalletService {
                 amount,
                 existingCategory,
                 description,
-                LocalDateTime.now());
+                now,
+                currency);
         
         wallet.addTransaction(expense);
         
         // Обновляем spent в бюджете
         CategoryBudget categoryBudget = wallet.getCategoryBudget(existingCategory);
         if (categoryBudget != null) {
-            categoryBudget.addSpent(amount);
+            categoryBudget.addSpent(budgetAmount);
         }
 
         walletRepository.save(wallet);
     }
 
+    public List<TransactionResult> addTransactions(Wallet wallet, List<TransactionRequest> requests) {
+        List<TransactionResult> results = applyTransactions(wallet, requests);
+
+        // Один save на весь пакет, а не на каждую строку
+        for (TransactionResult result : results) {
+            if (result.isSuccess()) {
+                walletRepository.save(wallet);
+                break;
+            }
+        }
+
+        return results;
+    }
+
+    // Добавляет пакет транзакций в кошелек без сохранения; сохраняет вызывающий код
+    public List<TransactionResult> applyTransactions(Wallet wallet, List<TransactionRequest> requests) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (requests == null) {
+            throw new IllegalArgumentException("Requests cannot be null");
+        }
+
+        List<TransactionResult> results = new ArrayList<>(requests.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            String error = validateRequest(request);
+            if (error != null) {
+                results.add(TransactionResult.failure(i, error));
+                continue;
+            }
+
+            LocalDateTime timestamp = request.getTimestamp() != null ? request.getTimestamp() : now;
+            try {
+                results.add(TransactionResult.success(i, applyRequest(wallet, request, timestamp)));
+            } catch (IllegalStateException e) {
+                // нет курса валюты на дату
+                results.add(TransactionResult.failure(i, e.getMessage()));
+            }
+        }
+
+        return results;
+    }
+
+    private String validateRequest(TransactionRequest request) {
+        if (request == null) {
+            return "Request cannot be null";
+        }
+        if (request.getType() == null) {
+            return "Transaction type cannot be null";
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be greater than 0";
+        }
+        if (request.getCategory() == null) {
+            return "Category cannot be null";
+        }
+        return null;
+    }
+
+    private Transaction applyRequest(Wallet wallet, TransactionRequest request, LocalDateTime timestamp) {
+        Currency currency = request.getCurrency() != null ? request.getCurrency() : wallet.getCurrency();
+        if (request.getType() == TransactionType.INCOME) {
+            Transaction income = new Transaction(TransactionType.INCOME, request.getAmount(),
+                    request.getCategory(), request.getDescription(), timestamp, currency);
+            wallet.addTransaction(income);
+            return income;
+        }
+
+        // Курс проверяется до изменения кошелька
+        BigDecimal budgetAmount = fxRateService.convert(request.getAmount(), currency, wallet.getCurrency(),
+                timestamp.toLocalDate());
+        // Бюджет создается в памяти, spent обновляется сразу
+        CategoryBudget budget = budgetService.createBudgetIfMissing(wallet, request.getCategory());
+        Transaction expense = new Transaction(TransactionType.EXPENSE, request.getAmount(),
+                budget.getCategory(), request.getDescription(), timestamp, currency);
+        wallet.addTransaction(expense);
+        budget.addSpent(budgetAmount);
+        return expense;
+    }
+
     public BigDecimal getTotalIncome(Wallet wallet) {
         return getTotalByTypeAndCategories(wallet, TransactionType.INCOME, null);
     }
@@ -130,23 +317,198 @@ public class WalletService {
             throw new IllegalArgumentException("Transaction type cannot be null");
         }
 
-        boolean filterByCategory = categoriesOrNull != null && !categoriesOrNull.isEmpty();
+        // в кошельке с несколькими валютами итог — в основной валюте по курсам на даты операций
+        if (wallet.hasForeignCurrencies()) {
+            return getConvertedTotal(wallet, type, categoriesOrNull, wallet.getCurrency());
+        }
+        return aggregator.sum(wallet.getTransactions(), type, categoriesOrNull);
+    }
 
+    // Сумма в валюте target. Дневные агрегаты ведутся отдельно по каждой валюте,
+    // поэтому курс применяется к дню, а не к каждой транзакции
+    public BigDecimal getConvertedTotal(Wallet wallet,
+                                        TransactionType type,
+                                        Collection<Category> categoriesOrNull,
+                                        Currency target) {
         BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : convertedTotalsByCategory(wallet, type, categoriesOrNull, target).values()) {
+            total = total.add(amount);
+        }
+        return total;
+    }
 
-        for (Transaction tx : wallet.getTransactions()) {
-            if (tx.getType() != type) {
-                continue;
-            }
+    // Остатки по всем валютам в валюте target по курсу на дату
+    public BigDecimal getConvertedBalance(Wallet wallet, Currency target, LocalDate date) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Currency, BigDecimal> balance : wallet.getBalances().entrySet()) {
+            total = total.add(fxRateService.convertUnrounded(balance.getValue(), balance.getKey(), target, date));
+        }
+        return total.setScale(2, RoundingMode.HALF_UP);
+    }
 
-            if (filterByCategory && !categoriesOrNull.contains(tx.getCategory())) {
-                continue;
+    private Map<Category, BigDecimal> convertedTotalsByCategory(Wallet wallet,
+                                                                TransactionType type,
+                                                                Collection<Category> categoriesOrNull,
+                                                                Currency target) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Transaction type cannot be null");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+
+        Map<Category, BigDecimal> totals = new LinkedHashMap<>();
+        for (Currency currency : wallet.getRollupCurrencies()) {
+            for (Map.Entry<Category, NavigableMap<LocalDate, RollupBucket>> categoryDays
+                    : wallet.getRollups(currency).getDays(type).entrySet()) {
+                if (categoriesOrNull != null && !categoriesOrNull.isEmpty()
+                        && !categoriesOrNull.contains(categoryDays.getKey())) {
+                    continue;
+                }
+                BigDecimal sum = BigDecimal.ZERO;
+                for (Map.Entry<LocalDate, RollupBucket> day : categoryDays.getValue().entrySet()) {
+                    sum = sum.add(fxRateService.convertUnrounded(day.getValue().getSum(), currency, target,
+                            day.getKey()));
+                }
+                totals.merge(categoryDays.getKey(), sum, BigDecimal::add);
             }
+        }
+        totals.replaceAll((category, sum) -> sum.setScale(2, RoundingMode.HALF_UP));
+        return totals;
+    }
 
-            total = total.add(tx.getAmount());
+    public Map<Category, BigDecimal> getTotalsByCategory(Wallet wallet, TransactionType type) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Transaction type cannot be null");
+        }
+        if (wallet.hasForeignCurrencies()) {
+            return convertedTotalsByCategory(wallet, type, null, wallet.getCurrency());
         }
+        return aggregator.sumByCategory(wallet.getTransactions(), type, null);
+    }
 
-        return total;
+    // Сумма транзакции в основной валюте кошелька по курсу на дату операции
+    public BigDecimal getAmountInWalletCurrency(Wallet wallet, Transaction transaction) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be null");
+        }
+        if (transaction.getCurrency().equals(wallet.getCurrency())) {
+            return transaction.getAmount();
+        }
+        return inWalletCurrency(wallet, transaction).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal inWalletCurrency(Wallet wallet, Transaction transaction) {
+        return fxRateService.convertUnrounded(transaction.getAmount(), transaction.getCurrency(),
+                wallet.getCurrency(), transaction.getTimestamp().toLocalDate());
+    }
+
+    // Категории с наибольшей суммой в выборке query, по убыванию суммы; при равенстве — по имени,
+    // чтобы результат не зависел от порядка обхода HashMap. Суммы — в основной валюте кошелька,
+    // как в convertedTotalsByCategory: каждая транзакция пересчитывается по курсу на свою дату
+    public List<CategoryTotal> getTopCategories(Wallet wallet, TransactionQuery query, int n) {
+        Map<Category, BigDecimal> totals = new HashMap<>();
+        streamTransactions(wallet, query).forEach(tx -> totals.merge(tx.getCategory(), inWalletCurrency(wallet, tx),
+                BigDecimal::add));
+        if (wallet.hasForeignCurrencies()) {
+            totals.replaceAll((category, sum) -> sum.setScale(2, RoundingMode.HALF_UP));
+        }
+
+        // BoundedTopN оставляет большие элементы, поэтому имя, которое раньше по алфавиту, должно быть «больше»
+        BoundedTopN<CategoryTotal> top = new BoundedTopN<>(n, Comparator.comparing(CategoryTotal::getTotal)
+                .thenComparing(total -> total.getCategory().getName(), String.CASE_INSENSITIVE_ORDER.reversed()));
+        for (Map.Entry<Category, BigDecimal> entry : totals.entrySet()) {
+            top.offer(new CategoryTotal(entry.getKey(), entry.getValue()));
+        }
+        return top.result();
+    }
+
+    // Самые крупные транзакции выборки query, по убыванию суммы в основной валюте кошелька;
+    // при равенстве — в порядке кошелька
+    public List<Transaction> getLargestTransactions(Wallet wallet, TransactionQuery query, int n) {
+        BoundedTopN<Transaction> top = new BoundedTopN<>(n, Comparator.comparing(tx -> inWalletCurrency(wallet, tx)));
+        streamTransactions(wallet, query).forEach(top::offer);
+        return top.result();
+    }
+
+    // Суммы по дням, неделям, месяцам или годам из готовых агрегатов, без просмотра транзакций
+    public NavigableMap<LocalDate, RollupBucket> getRollup(Wallet wallet,
+                                                           TransactionType type,
+                                                           Category categoryOrNull,
+                                                           RollupGranularity granularity,
+                                                           LocalDate fromDate,
+                                                           LocalDate toDate) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Transaction type cannot be null");
+        }
+        if (granularity == null) {
+            throw new IllegalArgumentException("Granularity cannot be null");
+        }
+        return Collections.unmodifiableNavigableMap(
+                wallet.getRollups().query(type, categoryOrNull, granularity, fromDate, toDate));
+    }
+
+    // Квантиль q суммы расхода в категории по скетчу (погрешность — см. QuantileSketch); null, если расходов нет
+    public BigDecimal getExpenseQuantile(Wallet wallet, Category category, double q) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        return getExpenseQuantile(wallet, category, wallet.getCurrency(), q);
+    }
+
+    // То же по расходам в валюте currency
+    public BigDecimal getExpenseQuantile(Wallet wallet, Category category, Currency currency, double q) {
+        return getExpenseQuantile(wallet, category, currency, null, null, q);
+    }
+
+    // То же за период (границы включительно, null — без границы)
+    public BigDecimal getExpenseQuantile(Wallet wallet, Category category, Currency currency,
+                                         LocalDate fromDate, LocalDate toDate, double q) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        QuantileSketch sketch = wallet.getExpenseSketch(category, currency, fromDate, toDate);
+        if (sketch.isEmpty()) {
+            return null;
+        }
+        return BigDecimal.valueOf(sketch.quantile(q)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Общий скетч по категории и валюте для нескольких кошельков; исходные скетчи не меняются.
+    // Суммы в разных валютах несравнимы, поэтому сливаются только скетчи одной валюты
+    public QuantileSketch mergeExpenseSketches(Collection<Wallet> wallets, Category category, Currency currency) {
+        return mergeExpenseSketches(wallets, category, currency, null, null);
+    }
+
+    // То же за период (границы включительно, null — без границы)
+    public QuantileSketch mergeExpenseSketches(Collection<Wallet> wallets, Category category, Currency currency,
+                                               LocalDate fromDate, LocalDate toDate) {
+        if (wallets == null) {
+            throw new IllegalArgumentException("Wallets cannot be null");
+        }
+        QuantileSketch merged = new QuantileSketch();
+        for (Wallet wallet : wallets) {
+            merged.merge(wallet.getExpenseSketch(category, currency, fromDate, toDate));
+        }
+        return merged;
     }
 
     public List<Transaction> getTransactions(Wallet wallet, 
@@ -158,144 +520,427 @@ public class WalletService {
             throw new IllegalArgumentException("Wallet cannot be null");
         }
 
-        return wallet.getTransactions().stream()
-                .filter(tx -> type == null || tx.getType() == type)
-                .filter(tx -> categories == null || categories.isEmpty() || categories.contains(tx.getCategory()))
-                .filter(tx -> {
-                    if (fromDate == null && toDate == null) {
-                        return true;
-                    }
-                    LocalDate txDate = tx.getTimestamp().toLocalDate();
-                    boolean afterFrom = fromDate == null || !txDate.isBefore(fromDate);
-                    boolean beforeTo = toDate == null || !txDate.isAfter(toDate);
-                    return afterFrom && beforeTo;
-                })
-                .collect(Collectors.toList());
+        return getTransactions(wallet, type, categories, fromDate, toDate, null);
+    }
+
+    // keywords — слова или начала слов описания, например «такс»; null — без поиска по тексту
+    public List<Transaction> getTransactions(Wallet wallet,
+                                             TransactionType type,
+                                             List<Category> categories,
+                                             LocalDate fromDate,
+                                             LocalDate toDate,
+                                             String keywords) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+
+        TransactionQuery query = TransactionQuery.builder()
+                .type(type)
+                .categories(categories)
+                .between(fromDate, toDate)
+                .keywordPrefix(keywords)
+                .build();
+        return query(wallet, query).getTransactions();
+    }
+
+    public QueryResult query(Wallet wallet, TransactionQuery query) {
+        return queryPlanner.execute(wallet, query);
+    }
+
+    public QueryPlan explain(Wallet wallet, TransactionQuery query) {
+        return queryPlanner.plan(wallet, query);
+    }
+
+    public Stream<Transaction> streamTransactions(Wallet wallet, TransactionQuery query) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        return queryPlanner.stream(wallet, query);
+    }
+
+    public TransactionPage getTransactionPage(Wallet wallet, TransactionQuery query, PageCursor after, int pageSize) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        return queryPlanner.page(wallet, query, after, pageSize);
     }
 
-    public void exportTransactionsToCsv(Wallet wallet,
+    public int exportTransactionsToCsv(Wallet wallet,
                                        TransactionType type,
                                        List<Category> categories,
                                        LocalDate fromDate,
                                        LocalDate toDate,
                                        Writer writer) throws IOException {
-        List<Transaction> transactions = getTransactions(wallet, type, categories, fromDate, toDate);
-        
-        writer.write("Date,Type,Category,Amount,Description\n");
-        
-        for (Transaction tx : transactions) {
-            String date = tx.getTimestamp().toLocalDate().toString();
-            String txType = tx.getType().name();
-            String category = tx.getCategory().getName();
-            String amount = tx.getAmount().toString();
-            String description = tx.getDescription() != null ? tx.getDescription() : "";
-            
-            description = description.replace("\"", "\"\"").replace(",", ";");
-            
-            writer.write(String.format("%s,%s,%s,%s,\"%s\"\n",
-                    date, txType, category, amount, description));
+        TransactionQuery query = TransactionQuery.builder()
+                .type(type)
+                .categories(categories)
+                .between(fromDate, toDate)
+                .build();
+        return exportTransactionsToCsv(wallet, query, writer);
+    }
+
+    // Строки пишутся по мере чтения, без промежуточного списка; возвращает число строк.
+    // Writer не закрывается, буфер CsvTransactionWriter сбрасывается в него в конце.
+    public int exportTransactionsToCsv(Wallet wallet, TransactionQuery query, Writer writer) throws IOException {
+        CsvTransactionWriter csv = new CsvTransactionWriter(writer);
+        csv.writeHeader();
+
+        int exported = 0;
+        Iterator<Transaction> iterator = streamTransactions(wallet, query).iterator();
+        while (iterator.hasNext()) {
+            csv.write(iterator.next());
+            exported++;
+        }
+        csv.flush();
+        return exported;
+    }
+
+    // Инкрементальная выгрузка: все транзакции, добавленные после прошлой выгрузки в target,
+    // в порядке добавления (так попадают и транзакции задним числом). Стоимость пропорциональна
+    // числу новых транзакций. Фильтров нет намеренно: отметка сдвигается по всем новым транзакциям,
+    // и отфильтрованные строки не попали бы ни в одну выгрузку.
+    // writer закрывается здесь же: у сжатых файлов данные и концевик пишутся только при закрытии,
+    // поэтому отметка сдвигается и кошелек сохраняется лишь после успешного close.
+    // Если запись упала, следующий запуск выгрузит те же транзакции заново.
+    public int exportNewTransactionsToCsv(Wallet wallet, String target, Writer writer) throws IOException {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        int from = wallet.getExportWatermark(target);
+        List<Transaction> transactions = wallet.getTransactions();
+        int to = transactions.size();
+
+        try (Writer out = writer) {
+            CsvTransactionWriter csv = new CsvTransactionWriter(out);
+            csv.writeHeader();
+            for (Transaction tx : transactions.subList(from, to)) {
+                csv.write(tx);
+            }
+            csv.flush();
+        }
+
+        if (to > from) {
+            wallet.setExportWatermark(target, to);
+            try {
+                walletRepository.save(wallet);
+            } catch (RuntimeException e) {
+                wallet.setExportWatermark(target, from);
+                throw e;
+            }
+        }
+        return to - from;
+    }
+
+    // То же в новый файл (сжатый, если имя оканчивается на .gz или .zz). Существующий файл
+    // не перезаписывается — в нем могут быть строки, уже отмеченные как выгруженные;
+    // недописанный файл удаляется.
+    public int exportNewTransactionsToCsv(Wallet wallet, String target, Path file) throws IOException {
+        Writer writer = CsvCompression.newWriter(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            return exportNewTransactionsToCsv(wallet, target, writer);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    // Сколько транзакций добавлено после прошлой выгрузки в target (без учета фильтров)
+    public int countPendingExport(Wallet wallet, String target) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        return wallet.getTransactions().size() - wallet.getExportWatermark(target);
+    }
+
+    // Выгрузка в любом из форматов TransactionFormat; поток не закрывается
+    public int exportTransactions(Wallet wallet, TransactionQuery query, TransactionFormat format,
+                                  OutputStream out) throws IOException {
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        TransactionWriter writer = format.newWriter(out);
+        int exported = 0;
+        Iterator<Transaction> iterator = streamTransactions(wallet, query).iterator();
+        while (iterator.hasNext()) {
+            writer.write(iterator.next());
+            exported++;
+        }
+        writer.finish();
+        return exported;
+    }
+
+    // Импорт файла в любом из форматов выгрузки, в том числе сжатого; формат определяется по содержимому.
+    // В отличие от CSV, JSON Lines и колоночный формат сохраняют время, валюту и масштаб суммы.
+    public ImportReport importTransactions(Wallet wallet, Path file, CategoryService categoryService,
+                                           boolean skipDuplicates) throws IOException {
+        return importTransactions(wallet, file, categoryService, skipDuplicates, ImportListener.NONE);
+    }
+
+    public ImportReport importTransactions(Wallet wallet, Path file, CategoryService categoryService,
+                                           boolean skipDuplicates, ImportListener listener) throws IOException {
+        CsvCompression compression = CsvCompression.detect(file);
+        // байты считаются до распаковки, чтобы их можно было сравнить с размером файла
+        try (CountingInputStream source = new CountingInputStream(Files.newInputStream(file));
+             InputStream in = new BufferedInputStream(compression.wrap(source), FORMAT_PROBE_BUFFER)) {
+            in.mark(FORMAT_PROBE_SIZE);
+            byte[] head = new byte[FORMAT_PROBE_SIZE];
+            int length = in.readNBytes(head, 0, head.length);
+            in.reset();
+
+            TransactionFormat format = TransactionFormat.detect(head, length);
+            if (format == TransactionFormat.CSV && compression == CsvCompression.NONE) {
+                return importTransactionsFromCsv(wallet, file, categoryService, skipDuplicates, listener);
+            }
+            CsvImport csvImport = new CsvImport(wallet, categoryService, skipDuplicates, listener, Files.size(file));
+            csvImport.countBytes(source);
+            switch (format) {
+                case COLUMNAR:
+                    return csvImport.run(handler -> ColumnarTransactionReader.read(in, handler));
+                case JSON_LINES:
+                    Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+                    return csvImport.run(handler -> JsonLinesTransactionReader.read(reader, handler));
+                default:
+                    return importCsv(csvImport, new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            }
         }
     }
 
     public List<String> importTransactionsFromCsv(Wallet wallet, Reader reader, CategoryService categoryService) throws IOException {
-        List<String> errors = new ArrayList<>();
-        BufferedReader br = new BufferedReader(reader);
-        
-        String header = br.readLine();
-        if (header == null || !header.trim().equals("Date,Type,Category,Amount,Description")) {
-            errors.add("Invalid CSV header. Expected: Date,Type,Category,Amount,Description");
-            return errors;
+        return importTransactionsFromCsv(wallet, reader, categoryService, false).getErrors();
+    }
+
+    // skipDuplicates — строки, которые уже есть в кошельке (по TransactionFingerprint), пропускаются.
+    // Одинаковые строки внутри файла не теряются: каждая транзакция кошелька, в том числе
+    // добавленная этим же импортом, "поглощает" только одну строку.
+    // Разбор идет параллельно в CsvImportPipeline, строки применяются к кошельку в порядке файла.
+    public ImportReport importTransactionsFromCsv(Wallet wallet, Reader reader, CategoryService categoryService,
+                                                  boolean skipDuplicates) throws IOException {
+        CsvImport csvImport = new CsvImport(wallet, categoryService, skipDuplicates, ImportListener.NONE, -1);
+        return importCsv(csvImport, new BufferedReader(reader));
+    }
+
+    // Импорт файла с диска через отображение в память: строки не декодируются в String целиком.
+    // Сжатый файл (gzip, zlib — по первым байтам) распаковывается потоком и идет через Reader.
+    public ImportReport importTransactionsFromCsv(Wallet wallet, Path file, CategoryService categoryService,
+                                                  boolean skipDuplicates) throws IOException {
+        return importTransactionsFromCsv(wallet, file, categoryService, skipDuplicates, ImportListener.NONE);
+    }
+
+    public ImportReport importTransactionsFromCsv(Wallet wallet, Path file, CategoryService categoryService,
+                                                  boolean skipDuplicates, ImportListener listener) throws IOException {
+        CsvImport csvImport = new CsvImport(wallet, categoryService, skipDuplicates, listener, Files.size(file));
+        CsvCompression compression = CsvCompression.detect(file);
+        if (compression != CsvCompression.NONE) {
+            try (CountingInputStream source = new CountingInputStream(Files.newInputStream(file));
+                 BufferedReader reader = new BufferedReader(
+                         new InputStreamReader(compression.wrap(source), StandardCharsets.UTF_8))) {
+                csvImport.countBytes(source);
+                return importCsv(csvImport, reader);
+            }
         }
-        
-        String line;
-        int lineNumber = 1;
-        int importedCount = 0;
-        
-        while ((line = br.readLine()) != null) {
-            lineNumber++;
-            line = line.trim();
-            if (line.isEmpty()) {
-                continue;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long dataStart = csvHeaderEnd(channel);
+            if (dataStart < 0) {
+                return csvImport.rejectHeader();
+            }
+            csvImport.bytesRead(dataStart);
+            return csvImport.run(handler -> csvImportPipeline.run(channel, dataStart, 2, handler));
+        }
+    }
+
+    private ImportReport importCsv(CsvImport csvImport, BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null || !CsvTransactionWriter.isHeader(header)) {
+            return csvImport.rejectHeader();
+        }
+        return csvImport.run(handler -> csvImportPipeline.run(reader, 2, handler));
+    }
+
+    // Смещение первой строки данных или -1, если заголовок не тот
+    private static long csvHeaderEnd(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(CsvTransactionWriter.HEADER.length() + 64);
+        int read;
+        do {
+            read = channel.read(head);
+        } while (read >= 0 && head.hasRemaining());
+        int length = head.position();
+        int lineEnd = 0;
+        while (lineEnd < length && head.get(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        String header = new String(head.array(), 0, lineEnd, StandardCharsets.UTF_8);
+        if (!CsvTransactionWriter.isHeader(header)) {
+            return -1;
+        }
+        return Math.min(lineEnd + 1, length);
+    }
+
+    // Состояние одного импорта; accept вызывается конвейером в одном потоке.
+    // Все изменения идут через WalletUnitOfWork: бюджеты новых категорий создаются в памяти,
+    // кошелек сохраняется один раз в finish, а при сбое чтения или обработки откатывается.
+    // Сообщения хранятся только для первых MAX_IMPORT_ERRORS ошибок, остальные лишь считаются.
+    private final class CsvImport implements CsvImportPipeline.RowHandler {
+
+        private final WalletUnitOfWork unitOfWork;
+        private final Wallet wallet;
+        private final CategoryService categoryService;
+        private final boolean skipDuplicates;
+        private final ImportListener listener;
+        private final long totalBytes;
+        private final long startNanos = System.nanoTime();
+        private final List<String> errors = new ArrayList<>();
+        private final int[] errorCounts = new int[ImportErrorKind.values().length];
+        private final Map<TransactionFingerprint, Integer> matchedRows = new HashMap<>();
+        private CountingInputStream source;
+        private long bytesRead;
+        private long applyNanos;
+        private long persistNanos;
+        private long lastProgressNanos = startNanos;
+        private int imported;
+        private int skipped;
+
+        private CsvImport(Wallet wallet, CategoryService categoryService, boolean skipDuplicates,
+                          ImportListener listener, long totalBytes) {
+            if (listener == null) {
+                throw new IllegalArgumentException("Listener cannot be null");
+            }
+            this.unitOfWork = new WalletUnitOfWork(walletRepository, budgetService, wallet);
+            this.wallet = wallet;
+            this.categoryService = categoryService;
+            this.skipDuplicates = skipDuplicates;
+            this.listener = listener;
+            this.totalBytes = totalBytes;
+        }
+
+        // Поток, через который читается файл; прочитанные из него байты входят в bytesRead
+        private void countBytes(CountingInputStream source) {
+            this.source = source;
+        }
+
+        @Override
+        public void bytesRead(long bytes) {
+            bytesRead += bytes;
+        }
+
+        // Два вызова nanoTime на строку — десятки наносекунд против микросекунд на применение
+        @Override
+        public void accept(int lineNumber, CsvRow row) {
+            long started = System.nanoTime();
+            apply(lineNumber, row);
+            long finished = System.nanoTime();
+            applyNanos += finished - started;
+            if (finished - lastProgressNanos >= ImportListener.PROGRESS_INTERVAL_NANOS) {
+                lastProgressNanos = finished;
+                listener.onProgress(progress(finished));
+            }
+        }
+
+        private void apply(int lineNumber, CsvRow row) {
+            if (!row.isValid()) {
+                error(lineNumber, row.getErrorKind(), row.getError());
+                return;
             }
-            
             try {
-                String[] parts = parseCsvLine(line);
-                if (parts.length < 4) {
-                    errors.add("Line " + lineNumber + ": Invalid format (expected at least 4 fields)");
-                    continue;
-                }
-                
-                LocalDate date = LocalDate.parse(parts[0]);
-                TransactionType type = TransactionType.valueOf(parts[1]);
-                String categoryName = parts[2];
-                BigDecimal amount = new BigDecimal(parts[3]);
-                String description = parts.length > 4 ? parts[4].replace("\"\"", "\"") : "";
-                
-                if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-                    errors.add("Line " + lineNumber + ": Amount must be greater than 0");
-                    continue;
+                Currency currency = row.getCurrency() != null ? row.getCurrency() : wallet.getCurrency();
+                TransactionFingerprint fingerprint = null;
+                if (skipDuplicates) {
+                    fingerprint = TransactionFingerprint.of(row.getDate(), row.getType(),
+                            new Category(row.getCategoryName()), row.getAmount(), currency, row.getDescription());
+                    int matched = matchedRows.getOrDefault(fingerprint, 0);
+                    if (matched < wallet.countFingerprint(fingerprint)) {
+                        matchedRows.put(fingerprint, matched + 1);
+                        skipped++;
+                        return;
+                    }
                 }
-                
-                Category category = categoryService.createCategory(wallet, categoryName);
-                LocalDateTime timestamp = date.atTime(LocalTime.MIDNIGHT);
-                
-                if (type == TransactionType.INCOME) {
-                    Transaction transaction = new Transaction(type, amount, category, description, timestamp);
-                    wallet.addTransaction(transaction);
+
+                Category category = categoryService.createCategory(wallet, row.getCategoryName());
+                LocalDateTime timestamp = row.getTimestamp();
+                BigDecimal amount = row.getAmount();
+
+                if (row.getType() == TransactionType.INCOME) {
+                    unitOfWork.addTransaction(new Transaction(TransactionType.INCOME, amount, category,
+                            row.getDescription(), timestamp, currency));
                 } else {
-                    budgetService.ensureBudgetExists(wallet, category);
-                    Category existingCategory = category;
-                    CategoryBudget budget = wallet.getCategoryBudget(category);
-                    if (budget != null) {
-                        existingCategory = budget.getCategory();
-                    }
-                    
-                    Transaction transaction = new Transaction(type, amount, existingCategory, description, timestamp);
-                    wallet.addTransaction(transaction);
-                    
-                    CategoryBudget categoryBudget = wallet.getCategoryBudget(existingCategory);
-                    if (categoryBudget != null) {
-                        categoryBudget.addSpent(amount);
-                    }
+                    // курс проверяется до изменения кошелька
+                    BigDecimal budgetAmount = fxRateService.convert(amount, currency, wallet.getCurrency(),
+                            timestamp.toLocalDate());
+                    CategoryBudget budget = unitOfWork.ensureBudgetExists(category);
+                    unitOfWork.addTransaction(new Transaction(TransactionType.EXPENSE, amount, budget.getCategory(),
+                            row.getDescription(), timestamp, currency));
+                    unitOfWork.addSpent(budget, budgetAmount);
+                }
+
+                imported++;
+                if (fingerprint != null) {
+                    matchedRows.merge(fingerprint, 1, Integer::sum);
                 }
-                
-                importedCount++;
-            } catch (Exception e) {
-                errors.add("Line " + lineNumber + ": " + e.getMessage());
+            } catch (RuntimeException e) {
+                error(lineNumber, ImportErrorKind.REJECTED, e.getMessage());
             }
         }
-        
-        if (importedCount > 0) {
-            walletRepository.save(wallet);
+
+        private void error(int lineNumber, ImportErrorKind kind, String message) {
+            errorCounts[kind.ordinal()]++;
+            if (errors.size() < MAX_IMPORT_ERRORS) {
+                errors.add("Line " + lineNumber + ": " + message);
+            }
         }
-        
-        return errors;
-    }
-    
-    private String[] parseCsvLine(String line) {
-        List<String> fields = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder currentField = new StringBuilder();
-        
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            
-            if (c == '"') {
-                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                    currentField.append('"');
-                    i++;
-                } else {
-                    inQuotes = !inQuotes;
+
+        private ImportReport run(CsvRunner runner) throws IOException {
+            try {
+                runner.run(this);
+            } catch (IOException | RuntimeException e) {
+                unitOfWork.rollback();
+                throw e;
+            }
+            if (imported > 0) {
+                long started = System.nanoTime();
+                unitOfWork.commit();
+                persistNanos = System.nanoTime() - started;
+            }
+            return finish();
+        }
+
+        private ImportReport rejectHeader() {
+            errorCounts[ImportErrorKind.FORMAT.ordinal()]++;
+            errors.add("Invalid CSV header. Expected: " + CsvTransactionWriter.HEADER);
+            return finish();
+        }
+
+        private ImportReport finish() {
+            ImportProgress progress = progress(System.nanoTime());
+            listener.onProgress(progress);
+            return new ImportReport(errors, progress);
+        }
+
+        private ImportProgress progress(long now) {
+            Map<ImportErrorKind, Integer> errorsByKind = new EnumMap<>(ImportErrorKind.class);
+            for (ImportErrorKind kind : ImportErrorKind.values()) {
+                if (errorCounts[kind.ordinal()] > 0) {
+                    errorsByKind.put(kind, errorCounts[kind.ordinal()]);
                 }
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
             }
+            long elapsed = now - startNanos;
+            long read = bytesRead + (source != null ? source.getCount() : 0);
+            return ImportProgress.builder()
+                    .imported(imported)
+                    .skippedDuplicates(skipped)
+                    .errorsByKind(errorsByKind)
+                    .bytes(read, totalBytes)
+                    .elapsedNanos(elapsed)
+                    .parseNanos(Math.max(0, elapsed - applyNanos - persistNanos))
+                    .applyNanos(applyNanos)
+                    .persistNanos(persistNanos)
+                    .build();
         }
-        fields.add(currentField.toString());
+    }
 
-        return fields.toArray(new String[0]);
+    @FunctionalInterface
+    private interface CsvRunner {
+        void run(CsvImportPipeline.RowHandler handler) throws IOException;
     }
 }
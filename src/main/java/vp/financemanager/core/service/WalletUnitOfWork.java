@@ -0,0 +1,101 @@
+package vp.financemanager.core.service;
+
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.CategoryBudget;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.repository.WalletRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Пакет изменений одного кошелька: транзакции, новые бюджеты и траты по бюджетам
+// применяются только в памяти, commit сохраняет кошелек один раз, rollback возвращает
+// кошелек к состоянию до начала пакета. Не потокобезопасен — пакет ведет один поток.
+public class WalletUnitOfWork {
+
+    private final WalletRepository walletRepository;
+    private final BudgetService budgetService;
+    private final Wallet wallet;
+    private final List<Transaction> added = new ArrayList<>();
+    private final List<Category> createdBudgets = new ArrayList<>();
+    private final Map<CategoryBudget, BigDecimal> spentBefore = new IdentityHashMap<>();
+    private boolean finished;
+
+    public WalletUnitOfWork(WalletRepository walletRepository, BudgetService budgetService, Wallet wallet) {
+        if (wallet == null) {
+            throw new IllegalArgumentException("Wallet cannot be null");
+        }
+        this.walletRepository = walletRepository;
+        this.budgetService = budgetService;
+        this.wallet = wallet;
+    }
+
+    public Wallet getWallet() {
+        return wallet;
+    }
+
+    public void addTransaction(Transaction transaction) {
+        ensureActive();
+        wallet.addTransaction(transaction);
+        added.add(transaction);
+    }
+
+    // Как BudgetService.ensureBudgetExists, но без сохранения
+    public CategoryBudget ensureBudgetExists(Category category) {
+        ensureActive();
+        int budgetsBefore = wallet.getCategoryBudgets().size();
+        CategoryBudget budget = budgetService.createBudgetIfMissing(wallet, category);
+        if (wallet.getCategoryBudgets().size() > budgetsBefore) {
+            createdBudgets.add(budget.getCategory());
+        }
+        return budget;
+    }
+
+    public void addSpent(CategoryBudget budget, BigDecimal amount) {
+        ensureActive();
+        spentBefore.putIfAbsent(budget, budget.getSpent());
+        budget.addSpent(amount);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && createdBudgets.isEmpty() && spentBefore.isEmpty();
+    }
+
+    // Одно сохранение на весь пакет; если оно не удалось, пакет откатывается
+    public void commit() {
+        ensureActive();
+        if (!isEmpty()) {
+            try {
+                walletRepository.save(wallet);
+            } catch (RuntimeException e) {
+                rollback();
+                throw e;
+            }
+        }
+        finished = true;
+    }
+
+    public void rollback() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        wallet.rollbackLastTransactions(added);
+        for (Map.Entry<CategoryBudget, BigDecimal> entry : spentBefore.entrySet()) {
+            entry.getKey().setSpent(entry.getValue());
+        }
+        for (Category category : createdBudgets) {
+            wallet.removeCategoryBudget(category);
+        }
+    }
+
+    private void ensureActive() {
+        if (finished) {
+            throw new IllegalStateException("Unit of work is already finished");
+        }
+    }
+}
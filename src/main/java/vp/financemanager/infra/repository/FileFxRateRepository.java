@@ -0,0 +1,62 @@
+package vp.financemanager.infra.repository;
+
+import vp.financemanager.core.models.FxRateTable;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.repository.FxRateRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Currency;
+
+// Курсы из data/fx_rates.csv: строки "Date;Currency;Rate", курс — сколько рублей стоит единица валюты,
+// например "2026-01-09;USD;78.20". Первая строка — заголовок, некорректные строки пропускаются.
+public class FileFxRateRepository implements FxRateRepository {
+
+    private static final String RATES_FILE = "data/fx_rates.csv";
+
+    private final Path path;
+
+    public FileFxRateRepository() {
+        this(Paths.get(RATES_FILE));
+    }
+
+    public FileFxRateRepository(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public FxRateTable loadRates() {
+        FxRateTable table = new FxRateTable(Wallet.DEFAULT_CURRENCY);
+        if (!Files.exists(path)) {
+            return table;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            reader.readLine(); // заголовок
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(";");
+                if (parts.length < 3) {
+                    continue;
+                }
+                try {
+                    table.addRate(Currency.getInstance(parts[1].trim().toUpperCase()),
+                            LocalDate.parse(parts[0].trim()),
+                            new BigDecimal(parts[2].trim().replace(',', '.')));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    // NumberFormatException — тоже IllegalArgumentException
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read FX rates from " + path, e);
+        }
+        return table;
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import vp.financemanager.core.models.User;
 import vp.financemanager.core.models.Wallet;
 import vp.financemanager.core.repository.UserRepository;
+import vp.financemanager.core.repository.WalletRepository;
 
 import java.io.File;
 import java.io.IOException;
@@ -11,30 +12,53 @@ import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Пользователи читаются из ConcurrentHashMap без блокировок, поэтому вход не ждет регистраций.
+// Изменения идут под одной блокировкой: users.json пишется целиком из снимка, уже включающего
+// нового пользователя, и только после успешной записи пользователь попадает в кэш. Так другой
+// поток не увидит (и не войдет под) пользователя, которого нет на диске, а последний
+// записанный снимок всегда содержит все опубликованные изменения.
+// Кошельки читаются и пишутся только через WalletRepository: его журнал должен быть доигран
+// до загрузки пользователей, иначе в кэше окажутся кошельки до зафиксированного перевода.
 public class FileUserRepository implements UserRepository {
 
     private static final String DATA_DIR = "data";
-    private static final String USERS_FILE = DATA_DIR + "/users.json";
+    private static final String USERS_FILE = "users.json";
     private final ObjectMapper objectMapper;
-    private final Map<String, User> cache;
+    private final ConcurrentHashMap<String, User> cache;
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private final Path dataDir;
+    private final WalletRepository walletRepository;
+
+    public FileUserRepository(WalletRepository walletRepository) {
+        this(Paths.get(DATA_DIR), walletRepository);
+    }
 
-    public FileUserRepository() {
+    public FileUserRepository(Path dataDir, WalletRepository walletRepository) {
+        if (walletRepository == null) {
+            throw new IllegalArgumentException("Wallet repository cannot be null");
+        }
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
-        this.cache = new HashMap<>();
+        this.cache = new ConcurrentHashMap<>();
+        this.dataDir = dataDir;
+        this.walletRepository = walletRepository;
         ensureDataDirectory();
         loadUsers();
     }
 
     private void ensureDataDirectory() {
         try {
-            Path dataPath = Paths.get(DATA_DIR);
-            if (!Files.exists(dataPath)) {
-                Files.createDirectories(dataPath);
+            if (!Files.exists(dataDir)) {
+                Files.createDirectories(dataDir);
             }
         } catch (IOException e) {
             throw new RuntimeException("Failed to create data directory", e);
@@ -42,7 +66,7 @@ public class FileUserRepository implements UserRepository {
     }
 
     private void loadUsers() {
-        File usersFile = new File(USERS_FILE);
+        File usersFile = dataDir.resolve(USERS_FILE).toFile();
         if (!usersFile.exists()) {
             return;
         }
@@ -60,33 +84,31 @@ public class FileUserRepository implements UserRepository {
     }
 
     private Wallet loadWallet(String login) {
-        String walletFile = DATA_DIR + "/wallet_" + login + ".json";
-        File file = new File(walletFile);
-        if (!file.exists()) {
-            return new Wallet(login, BigDecimal.ZERO);
-        }
-
-        try {
-            WalletData walletData = objectMapper.readValue(file, WalletData.class);
-            return WalletData.toWallet(walletData);
-        } catch (IOException e) {
-            return new Wallet(login, BigDecimal.ZERO);
-        }
+        Wallet wallet = walletRepository.findByOwnerLogin(login);
+        return wallet != null ? wallet : new Wallet(login, BigDecimal.ZERO);
     }
 
-    private void saveUsers() {
+    // Вызывается под fileLock
+    private void writeUsers(Collection<User> users) {
         try {
-            UserData[] usersData = cache.values().stream()
+            UserData[] usersData = users.stream()
                     .map(user -> new UserData(user.getLogin(), user.getPasswordHash()))
                     .toArray(UserData[]::new);
-            
+
             objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValue(new File(USERS_FILE), usersData);
+                    .writeValue(dataDir.resolve(USERS_FILE).toFile(), usersData);
         } catch (IOException e) {
             throw new RuntimeException("Failed to save users to file", e);
         }
     }
 
+    // Текущие пользователи, где user заменяет запись с тем же логином
+    private Collection<User> snapshotWith(User user) {
+        Map<String, User> snapshot = new LinkedHashMap<>(cache);
+        snapshot.put(user.getLogin(), user);
+        return snapshot.values();
+    }
+
     @Override
     public Optional<User> findByLogin(String login) {
         if (login == null) {
@@ -100,23 +122,55 @@ public class FileUserRepository implements UserRepository {
         if (user == null) {
             throw new IllegalArgumentException("User cannot be null");
         }
-        cache.put(user.getLogin(), user);
-        saveUsers();
-        saveWallet(user.getWallet());
+        fileLock.lock();
+        try {
+            writeUsers(snapshotWith(user));
+            saveWallet(user.getWallet());
+            cache.put(user.getLogin(), user);
+        } finally {
+            fileLock.unlock();
+        }
         return user;
     }
 
-    private void saveWallet(Wallet wallet) {
+    @Override
+    public boolean saveIfAbsent(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        fileLock.lock();
         try {
-            String walletFile = DATA_DIR + "/wallet_" + wallet.getOwnerLogin() + ".json";
-            WalletData walletData = WalletData.fromWallet(wallet);
-            objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValue(new File(walletFile), walletData);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to save wallet to file", e);
+            if (cache.containsKey(user.getLogin())) {
+                return false;
+            }
+            writeUsers(snapshotWith(user));
+            try {
+                saveWallet(user.getWallet());
+            } catch (RuntimeException e) {
+                // users.json уже содержит нового пользователя — возвращаем файл к опубликованному снимку
+                try {
+                    writeUsers(cache.values());
+                } catch (RuntimeException restore) {
+                    e.addSuppressed(restore);
+                }
+                throw e;
+            }
+            cache.put(user.getLogin(), user);
+            return true;
+        } finally {
+            fileLock.unlock();
         }
     }
 
+    @Override
+    public Stream<String> findAllLogins() {
+        return List.copyOf(cache.keySet()).stream();
+    }
+
+    private void saveWallet(Wallet wallet) {
+        walletRepository.save(wallet);
+    }
+
     private static class UserData {
         public String login;
         public String passwordHash;
@@ -2,31 +2,56 @@ package vp.financemanager.infra.repository;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.repository.CommitNotAppliedException;
 import vp.financemanager.core.repository.WalletRepository;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 public class FileWalletRepository implements WalletRepository {
 
     private static final String DATA_DIR = "data";
+    private static final String WALLET_PREFIX = "wallet_";
+    private static final String WALLET_SUFFIX = ".json";
+    private static final String JOURNAL_PREFIX = "journal_";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final String TMP_SUFFIX = ".tmp";
 
     private final ObjectMapper objectMapper;
+    private final Path dataDir;
+    // зафиксированные, но еще не доигранные журналы: логин -> id журнала
+    private final ConcurrentHashMap<String, String> pendingCommits = new ConcurrentHashMap<>();
 
     public FileWalletRepository() {
+        this(Paths.get(DATA_DIR));
+    }
+
+    public FileWalletRepository(Path dataDir) {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        this.dataDir = dataDir;
         ensureDataDirectory();
+        recoverJournals();
     }
 
     private void ensureDataDirectory() {
         try {
-            Path dataPath = Paths.get(DATA_DIR);
-            if (!Files.exists(dataPath)) {
-                Files.createDirectories(dataPath);
+            if (!Files.exists(dataDir)) {
+                Files.createDirectories(dataDir);
             }
         } catch (IOException e) {
             throw new RuntimeException("Failed to create data directory", e);
@@ -39,8 +64,9 @@ public class FileWalletRepository implements WalletRepository {
             return null;
         }
 
-        String walletFile = DATA_DIR + "/wallet_" + login + ".json";
-        File file = new File(walletFile);
+        // иначе прочитается версия до зафиксированного изменения
+        applyPendingCommit(login);
+        File file = walletPath(login).toFile();
         if (!file.exists()) {
             return null;
         }
@@ -64,16 +90,195 @@ public class FileWalletRepository implements WalletRepository {
             throw new IllegalArgumentException("Wallet owner login cannot be null");
         }
 
+        // иначе доигрывание журнала позже перезапишет эту версию более старой
+        applyPendingCommit(ownerLogin);
         try {
-            String walletFile = DATA_DIR + "/wallet_" + ownerLogin + ".json";
             WalletData walletData = WalletData.fromWallet(wallet);
             objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValue(new File(walletFile), walletData);
+                    .writeValue(walletPath(ownerLogin).toFile(), walletData);
         } catch (IOException e) {
             throw new RuntimeException("Failed to save wallet to file", e);
         }
 
         return wallet;
     }
-}
 
+    // Журнал с повтором: новые версии пишутся во временные файлы, затем журнал со списком
+    // логинов атомарно появляется на диске (точка фиксации — переименование журнала и fsync
+    // каталога), и только после этого временные файлы переименовываются поверх старых.
+    // При запуске незавершенные журналы доигрываются, а временные файлы без журнала удаляются.
+    // Если переименование после фиксации не удалось, журнал запоминается и доигрывается
+    // перед следующим сохранением этих кошельков.
+    @Override
+    public void saveAll(List<Wallet> wallets) {
+        if (wallets == null) {
+            throw new IllegalArgumentException("Wallets cannot be null");
+        }
+        for (Wallet wallet : wallets) {
+            if (wallet == null) {
+                throw new IllegalArgumentException("Wallet cannot be null");
+            }
+            applyPendingCommit(wallet.getOwnerLogin());
+        }
+
+        String commitId = UUID.randomUUID().toString();
+        List<String> logins = new ArrayList<>(wallets.size());
+        try {
+            for (Wallet wallet : wallets) {
+                byte[] json = objectMapper.writerWithDefaultPrettyPrinter()
+                        .writeValueAsBytes(WalletData.fromWallet(wallet));
+                writeDurably(pendingPath(wallet.getOwnerLogin(), commitId), json);
+                logins.add(wallet.getOwnerLogin());
+            }
+
+            Path journal = journalPath(commitId);
+            Path journalTmp = dataDir.resolve(journal.getFileName() + TMP_SUFFIX);
+            writeDurably(journalTmp, String.join("\n", logins).getBytes(StandardCharsets.UTF_8));
+            Files.move(journalTmp, journal, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            for (String login : logins) {
+                pendingPath(login, commitId).toFile().delete();
+            }
+            Path journal = journalPath(commitId);
+            dataDir.resolve(journal.getFileName() + TMP_SUFFIX).toFile().delete();
+            throw new RuntimeException("Failed to save wallets", e);
+        }
+
+        try {
+            // без fsync каталога переименование журнала может не пережить сбой питания
+            syncDataDirectory();
+        } catch (IOException e) {
+            // журнал уже на месте: дальше — как при сбое после фиксации
+            rememberPendingCommit(commitId, logins);
+            throw new CommitNotAppliedException(commitId, e);
+        }
+
+        try {
+            applyJournal(commitId, logins);
+        } catch (IOException e) {
+            // изменение уже зафиксировано журналом и будет доиграно перед следующим сохранением
+            // этих кошельков или при следующем запуске
+            rememberPendingCommit(commitId, logins);
+            throw new CommitNotAppliedException(commitId, e);
+        }
+    }
+
+    private void rememberPendingCommit(String commitId, List<String> logins) {
+        for (String login : logins) {
+            pendingCommits.put(login, commitId);
+        }
+    }
+
+    // Доигрывает незавершенный журнал, в который входит login. Пока это не удалось,
+    // сохранять кошелек нельзя: журнал при запуске перезаписал бы новую версию старой.
+    private void applyPendingCommit(String login) {
+        String commitId = pendingCommits.get(login);
+        if (commitId == null) {
+            return;
+        }
+        synchronized (pendingCommits) {
+            if (!commitId.equals(pendingCommits.get(login))) {
+                return;
+            }
+            Path journal = journalPath(commitId);
+            if (!Files.exists(journal)) {
+                // журнал уже доигран
+                pendingCommits.remove(login, commitId);
+                return;
+            }
+            try {
+                List<String> logins = readJournal(journal);
+                applyJournal(commitId, logins);
+                for (String journalLogin : logins) {
+                    pendingCommits.remove(journalLogin, commitId);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Wallet journal " + commitId + " for '" + login
+                        + "' is not applied yet; cannot save until it is", e);
+            }
+        }
+    }
+
+    @Override
+    public Stream<String> findAllOwnerLogins() {
+        try {
+            // Files.list читает каталог лениво
+            return Files.list(dataDir)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(WALLET_PREFIX) && name.endsWith(WALLET_SUFFIX))
+                    .map(name -> name.substring(WALLET_PREFIX.length(), name.length() - WALLET_SUFFIX.length()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list wallet files", e);
+        }
+    }
+
+    private void recoverJournals() {
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(dataDir,
+                JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path journal : journals) {
+                String name = journal.getFileName().toString();
+                String commitId = name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length());
+                applyJournal(commitId, readJournal(journal));
+            }
+            // временные файлы незафиксированных изменений
+            try (DirectoryStream<Path> pending = Files.newDirectoryStream(dataDir, "*" + TMP_SUFFIX)) {
+                for (Path path : pending) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to recover wallet journals", e);
+        }
+    }
+
+    private static List<String> readJournal(Path journal) throws IOException {
+        List<String> logins = new ArrayList<>();
+        for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                logins.add(line);
+            }
+        }
+        return logins;
+    }
+
+    private void applyJournal(String commitId, List<String> logins) throws IOException {
+        for (String login : logins) {
+            Path pending = pendingPath(login, commitId);
+            // файла нет — он уже перенесен до сбоя
+            if (Files.exists(pending)) {
+                Files.move(pending, walletPath(login),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        // переименования должны оказаться на диске раньше, чем исчезнет журнал
+        syncDataDirectory();
+        Files.deleteIfExists(journalPath(commitId));
+    }
+
+    private void syncDataDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(dataDir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Windows не дает открыть каталог; там переименование в NTFS журналируется самой ФС
+        }
+    }
+
+    private static void writeDurably(Path path, byte[] content) throws IOException {
+        Files.write(path, content);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private Path walletPath(String login) {
+        return dataDir.resolve(WALLET_PREFIX + login + WALLET_SUFFIX);
+    }
+
+    private Path pendingPath(String login, String commitId) {
+        return dataDir.resolve(WALLET_PREFIX + login + WALLET_SUFFIX + "." + commitId + TMP_SUFFIX);
+    }
+
+    private Path journalPath(String commitId) {
+        return dataDir.resolve(JOURNAL_PREFIX + commitId + JOURNAL_SUFFIX);
+    }
+}
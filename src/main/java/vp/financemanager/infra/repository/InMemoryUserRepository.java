@@ -3,13 +3,15 @@ package vp.financemanager.infra.repository;
 import vp.financemanager.core.models.User;
 import vp.financemanager.core.repository.UserRepository;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
+// Чтение без блокировок: findByLogin не ждет параллельных регистраций
 public class InMemoryUserRepository implements UserRepository {
 
-    private final Map<String, User> users = new HashMap<>();
+    private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
 
     @Override
     public Optional<User> findByLogin(String login) {
@@ -27,4 +29,17 @@ public class InMemoryUserRepository implements UserRepository {
         users.put(user.getLogin(), user);
         return user;
     }
+
+    @Override
+    public boolean saveIfAbsent(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        return users.putIfAbsent(user.getLogin(), user) == null;
+    }
+
+    @Override
+    public Stream<String> findAllLogins() {
+        return List.copyOf(users.keySet()).stream();
+    }
 }
\ No newline at end of file
@@ -4,7 +4,9 @@ import vp.financemanager.core.models.Wallet;
 import vp.financemanager.core.repository.WalletRepository;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public class InMemoryWalletRepository implements WalletRepository {
 
@@ -31,4 +33,9 @@ public class InMemoryWalletRepository implements WalletRepository {
         wallets.put(ownerLogin, wallet);
         return wallet;
     }
+
+    @Override
+    public Stream<String> findAllOwnerLogins() {
+        return List.copyOf(wallets.keySet()).stream();
+    }
 }
\ No newline at end of file
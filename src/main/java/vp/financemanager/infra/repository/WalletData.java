@@ -3,27 +3,44 @@ package vp.financemanager.infra.repository;
 import vp.financemanager.core.models.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Currency;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 
 public class WalletData {
     public String ownerLogin;
     public BigDecimal balance;
+    public String currency;                        // null в файлах старого формата — RUB
+    public Map<String, BigDecimal> foreignBalances;
     public List<TransactionData> transactions;
     public Map<String, CategoryBudgetData> categoryBudgets;
+    public List<RollupData> rollups;   // null в файлах старого формата — агрегаты пересчитываются
+    public List<RecurringRuleData> recurringRules;
+    public Map<String, Integer> exportWatermarks;
 
     public WalletData() {
         this.transactions = new ArrayList<>();
         this.categoryBudgets = new HashMap<>();
+        this.foreignBalances = new HashMap<>();
+        this.recurringRules = new ArrayList<>();
+        this.exportWatermarks = new HashMap<>();
     }
 
     public static WalletData fromWallet(Wallet wallet) {
         WalletData data = new WalletData();
         data.ownerLogin = wallet.getOwnerLogin();
         data.balance = wallet.getBalance();
+        data.currency = wallet.getCurrency().getCurrencyCode();
+        for (Map.Entry<Currency, BigDecimal> balance : wallet.getBalances().entrySet()) {
+            if (!balance.getKey().equals(wallet.getCurrency())) {
+                data.foreignBalances.put(balance.getKey().getCurrencyCode(), balance.getValue());
+            }
+        }
         
         for (Transaction tx : wallet.getTransactions()) {
             data.transactions.add(TransactionData.fromTransaction(tx));
@@ -33,16 +50,42 @@ public class WalletData {
             String categoryName = entry.getKey().getName();
             data.categoryBudgets.put(categoryName, CategoryBudgetData.fromBudget(entry.getValue()));
         }
+
+        data.rollups = new ArrayList<>();
+        for (Currency rollupCurrency : wallet.getRollupCurrencies()) {
+            for (TransactionType type : TransactionType.values()) {
+                for (Map.Entry<Category, NavigableMap<LocalDate, RollupBucket>> categoryDays
+                        : wallet.getRollups(rollupCurrency).getDays(type).entrySet()) {
+                    for (Map.Entry<LocalDate, RollupBucket> day : categoryDays.getValue().entrySet()) {
+                        data.rollups.add(RollupData.fromBucket(rollupCurrency, type, categoryDays.getKey(),
+                                day.getKey(), day.getValue()));
+                    }
+                }
+            }
+        }
+
+        for (RecurringRule rule : wallet.getRecurringRules()) {
+            data.recurringRules.add(RecurringRuleData.fromRule(rule));
+        }
+        data.exportWatermarks.putAll(wallet.getExportWatermarks());
         
         return data;
     }
 
     public static Wallet toWallet(WalletData data) {
-        Wallet wallet = new Wallet(data.ownerLogin, BigDecimal.ZERO);
+        Currency walletCurrency = data.currency != null
+                ? Currency.getInstance(data.currency)
+                : Wallet.DEFAULT_CURRENCY;
+        Wallet wallet = new Wallet(data.ownerLogin, BigDecimal.ZERO, walletCurrency);
         wallet.restoreBalance(data.balance);
+        if (data.foreignBalances != null) {
+            for (Map.Entry<String, BigDecimal> balance : data.foreignBalances.entrySet()) {
+                wallet.restoreBalance(Currency.getInstance(balance.getKey()), balance.getValue());
+            }
+        }
         
         for (TransactionData txData : data.transactions) {
-            Transaction tx = TransactionData.toTransaction(txData);
+            Transaction tx = TransactionData.toTransaction(txData, walletCurrency);
             wallet.restoreTransaction(tx);
         }
         
@@ -51,6 +94,31 @@ public class WalletData {
             CategoryBudget budget = CategoryBudgetData.toBudget(entry.getValue(), category);
             wallet.addCategoryBudget(category, budget);
         }
+
+        if (data.rollups != null) {
+            for (RollupData rollupData : data.rollups) {
+                Currency rollupCurrency = rollupData.currency != null
+                        ? Currency.getInstance(rollupData.currency)
+                        : walletCurrency;
+                wallet.restoreRollupBucket(rollupCurrency, TransactionType.valueOf(rollupData.type),
+                        new Category(rollupData.categoryName), rollupData.date, RollupData.toBucket(rollupData));
+            }
+        } else {
+            wallet.rebuildRollups();
+        }
+
+        if (data.recurringRules != null) {
+            for (RecurringRuleData ruleData : data.recurringRules) {
+                wallet.addRecurringRule(RecurringRuleData.toRule(ruleData));
+            }
+        }
+
+        if (data.exportWatermarks != null) {
+            for (Map.Entry<String, Integer> watermark : data.exportWatermarks.entrySet()) {
+                wallet.setExportWatermark(watermark.getKey(),
+                        Math.min(watermark.getValue(), wallet.getTransactions().size()));
+            }
+        }
         
         return wallet;
     }
@@ -61,6 +129,8 @@ public class WalletData {
         public String categoryName;
         public String description;
         public LocalDateTime timestamp;
+        public String currency;
+        public String transferId;
 
         public TransactionData() {
         }
@@ -72,13 +142,49 @@ public class WalletData {
             data.categoryName = tx.getCategory().getName();
             data.description = tx.getDescription();
             data.timestamp = tx.getTimestamp();
+            data.currency = tx.getCurrency().getCurrencyCode();
+            data.transferId = tx.getTransferId();
             return data;
         }
 
-        static Transaction toTransaction(TransactionData data) {
+        static Transaction toTransaction(TransactionData data, Currency walletCurrency) {
             TransactionType type = TransactionType.valueOf(data.type);
             Category category = new Category(data.categoryName);
-            return new Transaction(type, data.amount, category, data.description, data.timestamp);
+            Currency currency = data.currency != null ? Currency.getInstance(data.currency) : walletCurrency;
+            return new Transaction(type, data.amount, category, data.description, data.timestamp, currency,
+                    data.transferId);
+        }
+    }
+
+    static class RollupData {
+        public String currency;
+        public String type;
+        public String categoryName;
+        public LocalDate date;
+        public BigDecimal sum;
+        public long count;
+        public BigDecimal min;
+        public BigDecimal max;
+
+        public RollupData() {
+        }
+
+        static RollupData fromBucket(Currency currency, TransactionType type, Category category, LocalDate date,
+                                     RollupBucket bucket) {
+            RollupData data = new RollupData();
+            data.currency = currency.getCurrencyCode();
+            data.type = type.name();
+            data.categoryName = category.getName();
+            data.date = date;
+            data.sum = bucket.getSum();
+            data.count = bucket.getCount();
+            data.min = bucket.getMin();
+            data.max = bucket.getMax();
+            return data;
+        }
+
+        static RollupBucket toBucket(RollupData data) {
+            return new RollupBucket(data.sum, data.count, data.min, data.max);
         }
     }
 
@@ -102,5 +208,42 @@ public class WalletData {
             return budget;
         }
     }
-}
 
+    static class RecurringRuleData {
+        public String type;
+        public BigDecimal amount;
+        public String categoryName;
+        public String description;
+        public String frequency;
+        public LocalDate startDate;
+        public LocalDate endDate;
+        public long occurrences;
+
+        public RecurringRuleData() {
+        }
+
+        static RecurringRuleData fromRule(RecurringRule rule) {
+            RecurringRuleData data = new RecurringRuleData();
+            data.type = rule.getType().name();
+            data.amount = rule.getAmount();
+            data.categoryName = rule.getCategory().getName();
+            data.description = rule.getDescription();
+            data.frequency = rule.getFrequency().name();
+            data.startDate = rule.getStartDate();
+            data.endDate = rule.getEndDate();
+            data.occurrences = rule.getOccurrences();
+            return data;
+        }
+
+        static RecurringRule toRule(RecurringRuleData data) {
+            return RecurringRule.builder()
+                    .type(TransactionType.valueOf(data.type))
+                    .amount(data.amount)
+                    .category(new Category(data.categoryName))
+                    .description(data.description)
+                    .schedule(RecurrenceFrequency.valueOf(data.frequency), data.startDate, data.endDate)
+                    .occurrences(data.occurrences)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package vp.financemanager.benchmark;
+
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+import vp.financemanager.core.service.TransactionAggregator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Ручной замер точки перехода на fork/join и размера листа для TransactionAggregator.
+// Запуск: mvn test-compile && java -cp target/classes:target/test-classes
+//         vp.financemanager.benchmark.AggregationBenchmark [размеры листа...]
+public final class AggregationBenchmark {
+
+    private static final int[] SIZES = {1_000, 10_000, 25_000, 50_000, 100_000, 1_000_000, 5_000_000};
+    private static final int ROUNDS = 20;
+    private static final int[] DEFAULT_LEAF_SIZES = {1_024, TransactionAggregator.DEFAULT_MIN_LEAF_SIZE, 65_536};
+
+    private AggregationBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int[] leafSizes = DEFAULT_LEAF_SIZES;
+        if (args.length > 0) {
+            leafSizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                leafSizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        TransactionAggregator sequential = new TransactionAggregator(Integer.MAX_VALUE, ForkJoinPool.commonPool());
+        TransactionAggregator[] parallel = new TransactionAggregator[leafSizes.length];
+        for (int i = 0; i < leafSizes.length; i++) {
+            parallel[i] = new TransactionAggregator(1, leafSizes[i], ForkJoinPool.commonPool());
+        }
+
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        StringBuilder header = new StringBuilder("rows       sequential(us)");
+        for (int leafSize : leafSizes) {
+            header.append(String.format("  leaf %-8d(us)", leafSize));
+        }
+        System.out.println(header);
+        for (int size : SIZES) {
+            List<Transaction> transactions = randomTransactions(size);
+            StringBuilder row = new StringBuilder(String.format("%-10d %-15d", size, measure(sequential, transactions) / 1_000));
+            for (TransactionAggregator aggregator : parallel) {
+                row.append(String.format("  %-17d", measure(aggregator, transactions) / 1_000));
+            }
+            System.out.println(row);
+        }
+    }
+
+    private static long measure(TransactionAggregator aggregator, List<Transaction> transactions) {
+        // прогрев JIT
+        for (int i = 0; i < ROUNDS; i++) {
+            aggregator.sumByCategory(transactions, TransactionType.EXPENSE, null);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            aggregator.sumByCategory(transactions, TransactionType.EXPENSE, null);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static List<Transaction> randomTransactions(int count) {
+        Random random = new Random(42);
+        LocalDateTime timestamp = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TransactionType type = random.nextBoolean() ? TransactionType.INCOME : TransactionType.EXPENSE;
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+            transactions.add(new Transaction(type, amount, new Category("Category" + random.nextInt(50)), "", timestamp));
+        }
+        return transactions;
+    }
+}
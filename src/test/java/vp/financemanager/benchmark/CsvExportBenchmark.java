@@ -0,0 +1,87 @@
+package vp.financemanager.benchmark;
+
+import vp.financemanager.core.csv.CsvTransactionWriter;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Ручной замер записи CSV: прежний String.format на строку против CsvTransactionWriter.
+// Вывод уходит в пустой Writer, чтобы мерить форматирование, а не диск.
+// Запуск: mvn test-compile && java -cp target/classes:target/test-classes
+//         vp.financemanager.benchmark.CsvExportBenchmark
+public final class CsvExportBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    private CsvExportBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Transaction> transactions = randomTransactions(ROWS);
+        System.out.println("rows: " + ROWS);
+        long formatNanos = measure(transactions, false);
+        long writerNanos = measure(transactions, true);
+        System.out.printf("String.format:        %d ms (%d rows/s)%n", formatNanos / 1_000_000, rowsPerSecond(formatNanos));
+        System.out.printf("CsvTransactionWriter: %d ms (%d rows/s)%n", writerNanos / 1_000_000, rowsPerSecond(writerNanos));
+    }
+
+    private static long rowsPerSecond(long nanos) {
+        return ROWS * 1_000_000_000L / Math.max(1, nanos);
+    }
+
+    private static long measure(List<Transaction> transactions, boolean buffered) throws IOException {
+        long best = Long.MAX_VALUE;
+        // первые прогоны служат прогревом JIT
+        for (int i = 0; i < ROUNDS * 2; i++) {
+            long start = System.nanoTime();
+            if (buffered) {
+                writeBuffered(transactions);
+            } else {
+                writeFormatted(transactions);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static void writeBuffered(List<Transaction> transactions) throws IOException {
+        try (CsvTransactionWriter writer = new CsvTransactionWriter(Writer.nullWriter())) {
+            writer.writeHeader();
+            for (Transaction tx : transactions) {
+                writer.write(tx);
+            }
+        }
+    }
+
+    private static void writeFormatted(List<Transaction> transactions) throws IOException {
+        Writer writer = Writer.nullWriter();
+        writer.write(CsvTransactionWriter.HEADER + "\n");
+        for (Transaction tx : transactions) {
+            String description = tx.getDescription().replace("\"", "\"\"").replace(",", ";");
+            writer.write(String.format("%s,%s,%s,%s,\"%s\"\n", tx.getTimestamp().toLocalDate().toString(),
+                    tx.getType().name(), tx.getCategory().getName(), tx.getAmount().toString(), description));
+        }
+    }
+
+    private static List<Transaction> randomTransactions(int count) {
+        Random random = new Random(42);
+        LocalDateTime timestamp = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TransactionType type = random.nextBoolean() ? TransactionType.INCOME : TransactionType.EXPENSE;
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+            transactions.add(new Transaction(type, amount, new Category("Category" + random.nextInt(50)),
+                    "Payment #" + i, timestamp.plusMinutes(i)));
+        }
+        return transactions;
+    }
+}
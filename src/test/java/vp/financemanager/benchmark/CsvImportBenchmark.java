@@ -0,0 +1,155 @@
+package vp.financemanager.benchmark;
+
+import vp.financemanager.core.csv.CsvImportPipeline;
+import vp.financemanager.core.models.TransactionType;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Ручной замер разбора CSV без применения к кошельку: прежний построчный разбор
+// (readLine + StringBuilder на поле + LocalDate.parse/valueOf/new BigDecimal),
+// CsvImportPipeline поверх Reader и CsvImportPipeline по отображенному в память файлу.
+// Запуск: mvn test-compile && java -cp target/classes:target/test-classes
+//         vp.financemanager.benchmark.CsvImportBenchmark [rows]
+public final class CsvImportBenchmark {
+
+    private static final int DEFAULT_ROWS = 2_000_000;
+    private static final int ROUNDS = 3;
+
+    private CsvImportBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+        Path file = Files.createTempFile("csv-import-benchmark", ".csv");
+        try {
+            writeFile(file, rows);
+            System.out.println("rows: " + rows + ", size: " + Files.size(file) / (1 << 20) + " MB, cores: "
+                    + Runtime.getRuntime().availableProcessors());
+            CsvImportPipeline pipeline = new CsvImportPipeline();
+            report("line-by-line", rows, measure(() -> parseLegacy(file)));
+            report("pipeline (Reader)", rows, measure(() -> parseReader(pipeline, file)));
+            report("pipeline (mapped)", rows, measure(() -> parseMapped(pipeline, file)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private interface Run {
+        long rows() throws IOException;
+    }
+
+    private static long measure(Run run) throws IOException {
+        long best = Long.MAX_VALUE;
+        // первый прогон служит прогревом JIT и кэша страниц
+        for (int i = 0; i <= ROUNDS; i++) {
+            long start = System.nanoTime();
+            run.rows();
+            long elapsed = System.nanoTime() - start;
+            if (i > 0) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best;
+    }
+
+    private static void report(String name, int rows, long nanos) {
+        System.out.printf("%-18s %6d ms %,12d rows/s%n", name, nanos / 1_000_000, rows * 1_000_000_000L / nanos);
+    }
+
+    private static long parseReader(CsvImportPipeline pipeline, Path file) throws IOException {
+        long[] count = new long[1];
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            pipeline.run(reader, 2, (lineNumber, row) -> count[0]++);
+        }
+        return count[0];
+    }
+
+    private static long parseMapped(CsvImportPipeline pipeline, Path file) throws IOException {
+        long[] count = new long[1];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            pipeline.run(channel, "Date,Type,Category,Amount,Description\n".length(), 2,
+                    (lineNumber, row) -> count[0]++);
+        }
+        return count[0];
+    }
+
+    // Повторяет разбор из WalletService до параллельного конвейера
+    private static long parseLegacy(Path file) throws IOException {
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    String[] parts = parseCsvLine(line);
+                    LocalDate date = LocalDate.parse(parts[0]);
+                    TransactionType type = TransactionType.valueOf(parts[1]);
+                    BigDecimal amount = new BigDecimal(parts[3]);
+                    if (date != null && type != null && amount.signum() > 0) {
+                        count++;
+                    }
+                } catch (RuntimeException e) {
+                    // ошибка строки
+                }
+            }
+        }
+        return count;
+    }
+
+    private static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        boolean inQuotes = false;
+        StringBuilder currentField = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    currentField.append('"');
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == ',' && !inQuotes) {
+                fields.add(currentField.toString());
+                currentField = new StringBuilder();
+            } else {
+                currentField.append(c);
+            }
+        }
+        fields.add(currentField.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private static void writeFile(Path file, int rows) throws IOException {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("Date,Type,Category,Amount,Description\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(start.plusDays(i / 1_000).toString());
+                writer.write(random.nextInt(5) == 0 ? ",INCOME," : ",EXPENSE,");
+                writer.write("Категория" + random.nextInt(50));
+                writer.write(',');
+                writer.write(BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2).toPlainString());
+                writer.write(",Платеж #" + i + '\n');
+            }
+        }
+    }
+}
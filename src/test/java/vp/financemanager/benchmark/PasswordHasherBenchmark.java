@@ -0,0 +1,90 @@
+package vp.financemanager.benchmark;
+
+import vp.financemanager.core.service.PasswordHasher;
+import vp.financemanager.core.service.Pbkdf2PasswordHasher;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Ручной замер проверки пароля для подбора стоимости Pbkdf2PasswordHasher: сколько входов в секунду
+// выдерживают все ядра при разном числе итераций PBKDF2. Для сравнения — PBKDF2 из JDK
+// (SecretKeyFactory создает Mac на каждый вызов) при стоимости по умолчанию.
+// Запуск: mvn test-compile && java -cp target/classes:target/test-classes
+//         vp.financemanager.benchmark.PasswordHasherBenchmark [итерации...]
+public final class PasswordHasherBenchmark {
+
+    private static final int[] DEFAULT_COSTS = {10_000, 50_000, 100_000, 210_000, Pbkdf2PasswordHasher.DEFAULT_ITERATIONS};
+    private static final long TARGET_NANOS = 2_000_000_000L;
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private PasswordHasherBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] costs = DEFAULT_COSTS;
+        if (args.length > 0) {
+            costs = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                costs[i] = Integer.parseInt(args[i]);
+            }
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.println("threads: " + threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int cost : costs) {
+                PasswordHasher hasher = new Pbkdf2PasswordHasher(cost);
+                String hash = hasher.hash(PASSWORD);
+                report("PasswordHasher " + cost, measure(executor, threads, () -> hasher.matches(PASSWORD, hash)));
+            }
+            byte[] salt = new byte[16];
+            report("JDK PBKDF2 " + Pbkdf2PasswordHasher.DEFAULT_ITERATIONS, measure(executor, threads, () -> {
+                PBEKeySpec spec = new PBEKeySpec(PASSWORD.toCharArray(), salt,
+                        Pbkdf2PasswordHasher.DEFAULT_ITERATIONS, 256);
+                return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded() != null;
+            }));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface Check {
+        boolean run() throws GeneralSecurityException;
+    }
+
+    // Проверок в секунду; каждый поток крутит проверки, пока не выйдет TARGET_NANOS (после прогрева)
+    private static double measure(ExecutorService executor, int threads, Check check) throws Exception {
+        check.run();
+        long start = System.nanoTime();
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                long count = 0;
+                while (System.nanoTime() - start < TARGET_NANOS) {
+                    if (!check.run()) {
+                        throw new IllegalStateException("Password check failed");
+                    }
+                    count++;
+                }
+                return count;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> result : results) {
+            total += result.get();
+        }
+        return total * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+
+    private static void report(String name, double perSecond) {
+        System.out.printf("%-24s %10.1f logins/s %8.2f ms/login/thread%n", name, perSecond,
+                Runtime.getRuntime().availableProcessors() * 1_000.0 / perSecond);
+    }
+}
@@ -0,0 +1,81 @@
+package vp.financemanager.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vp.financemanager.core.models.FxRateTable;
+import vp.financemanager.core.service.FxRateService;
+import vp.financemanager.core.service.Pbkdf2PasswordHasher;
+import vp.financemanager.infra.repository.FileWalletRepository;
+import vp.financemanager.infra.repository.InMemoryUserRepository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FinanceCliAppTest {
+
+    @Test
+    void testTransferSurvivesRecipientLoginInSameSession(@TempDir Path dir) {
+        String input = String.join("\n",
+                "register", "bob", "secret", "0", "",
+                "add_income", "100", "Salary", "", "",
+                "logout",
+                "register", "alice", "secret", "1000", "",
+                "transfer", "bob", "300", "", "",
+                "logout",
+                "login", "bob", "secret",
+                "exit", "");
+
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        FinanceCliApp app = new FinanceCliApp(new Scanner(input), userRepository, new FileWalletRepository(dir),
+                new FxRateService(FxRateTable.empty()),
+                new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.MIN_ITERATIONS));
+        app.run();
+
+        // кошелек на диске читается заново — зачисление должно пережить сохранение при выходе
+        FileWalletRepository reloaded = new FileWalletRepository(dir);
+        assertEquals(0, BigDecimal.valueOf(400).compareTo(reloaded.findByOwnerLogin("bob").getBalance()));
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(reloaded.findByOwnerLogin("alice").getBalance()));
+    }
+
+    @Test
+    void testCommittedTransferIsRecoveredBeforeUsersLoadWallets(@TempDir Path dir) throws IOException {
+        run(dir, "register", "bob", "secret", "0", "",
+                "logout",
+                "register", "alice", "secret", "1000", "",
+                "exit");
+        Path bobWallet = dir.resolve("wallet_bob.json");
+        Path aliceWallet = dir.resolve("wallet_alice.json");
+        Path bobBefore = Files.copy(bobWallet, dir.resolve("bob.before"));
+        Path aliceBefore = Files.copy(aliceWallet, dir.resolve("alice.before"));
+
+        run(dir, "login", "alice", "secret",
+                "transfer", "bob", "300", "", "",
+                "exit");
+
+        // сбой после фиксации журнала, но до переименования кошельков
+        Files.move(bobWallet, dir.resolve("wallet_bob.json.c1.tmp"));
+        Files.move(aliceWallet, dir.resolve("wallet_alice.json.c1.tmp"));
+        Files.move(bobBefore, bobWallet, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(aliceBefore, aliceWallet, StandardCopyOption.REPLACE_EXISTING);
+        Files.writeString(dir.resolve("journal_c1.log"), "bob\nalice");
+
+        // при выходе кошелек bob сохраняется из кэша пользователей
+        run(dir, "login", "bob", "secret", "exit");
+
+        FileWalletRepository reloaded = new FileWalletRepository(dir);
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(reloaded.findByOwnerLogin("bob").getBalance()));
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(reloaded.findByOwnerLogin("alice").getBalance()));
+    }
+
+    private static void run(Path dir, String... lines) {
+        String input = String.join("\n", lines) + "\n";
+        new FinanceCliApp(new Scanner(input), dir, new FxRateService(FxRateTable.empty()),
+                new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.MIN_ITERATIONS)).run();
+    }
+}
@@ -0,0 +1,73 @@
+package vp.financemanager.core.csv;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvCompressionTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWriterCompressesByExtension() throws IOException {
+        String content = "Date,Type,Category,Amount,Description\n"
+                + "2025-01-01,EXPENSE,Продукты,100.50,Чек\n".repeat(10_000);
+
+        for (String name : new String[]{"export.csv", "export.csv.gz", "export.csv.zz"}) {
+            Path file = dir.resolve(name);
+            try (Writer writer = CsvCompression.newWriter(file)) {
+                writer.write(content);
+            }
+            assertEquals(CsvCompression.forFileName(name), CsvCompression.detect(file), name);
+            assertEquals(content, readAll(file), name);
+            if (!name.endsWith(".csv")) {
+                assertTrue(Files.size(file) * 10 < content.length(), name);
+            }
+        }
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(dir.resolve("export.csv.gz")))) {
+            assertTrue(new String(in.readNBytes(37)).startsWith("Date,Type"));
+        }
+    }
+
+    @Test
+    void testReaderDetectsCompressionByContent() throws IOException {
+        Path compressed = dir.resolve("export.csv.gz");
+        try (Writer writer = CsvCompression.newWriter(compressed)) {
+            writer.write("Date,Type,Category,Amount,Description\n");
+        }
+        Path renamed = Files.move(compressed, dir.resolve("renamed.csv"));
+
+        assertEquals(CsvCompression.GZIP, CsvCompression.detect(renamed));
+        assertEquals("Date,Type,Category,Amount,Description\n", readAll(renamed));
+    }
+
+    @Test
+    void testForFileName() {
+        assertEquals(CsvCompression.GZIP, CsvCompression.forFileName("backup.CSV.GZ"));
+        assertEquals(CsvCompression.DEFLATE, CsvCompression.forFileName("backup.csv.zz"));
+        assertEquals(CsvCompression.NONE, CsvCompression.forFileName("backup.csv"));
+    }
+
+    private static String readAll(Path file) throws IOException {
+        StringBuilder content = new StringBuilder();
+        char[] buffer = new char[4096];
+        try (Reader reader = CsvCompression.newReader(file)) {
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                content.append(buffer, 0, read);
+            }
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,230 @@
+package vp.financemanager.core.csv;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.ImportErrorKind;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvImportPipelineTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSmallChunksKeepFileOrderAndLineNumbers() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 2_000; i++) {
+            if (i % 100 == 0) {
+                csv.append("\r\n");
+            } else if (i % 250 == 1) {
+                csv.append("2025-02-30,EXPENSE,Food,1,bad date\n");
+            } else {
+                csv.append("2025-01-01,EXPENSE,Food,").append(i).append(",row ").append(i).append('\n');
+            }
+        }
+
+        List<Integer> lineNumbers = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        new CsvImportPipeline(executor, 64, 3).run(new StringReader(csv.toString()), 2, (lineNumber, row) -> {
+            if (row.isValid()) {
+                assertEquals("row " + row.getAmount().intValue(), row.getDescription());
+                assertEquals(lineNumber - 1, row.getAmount().intValue());
+                lineNumbers.add(lineNumber);
+            } else {
+                errors.add(lineNumber + ": " + row.getError());
+            }
+        });
+
+        assertEquals(2_000 - 20 - 8, lineNumbers.size());
+        for (int i = 1; i < lineNumbers.size(); i++) {
+            assertTrue(lineNumbers.get(i) > lineNumbers.get(i - 1));
+        }
+        assertEquals(8, errors.size());
+        assertEquals("2: Invalid date '2025-02-30' (expected YYYY-MM-DD)", errors.get(0));
+        assertTrue(errors.get(1).startsWith("252: "));
+    }
+
+    @Test
+    void testLineLongerThanChunkAndMissingTrailingNewline() throws IOException {
+        String description = "x".repeat(500);
+        String csv = "2025-01-01,INCOME,Salary,100.50," + description + "\n2025-01-02,EXPENSE,Food,7,last";
+
+        List<CsvRow> rows = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        new CsvImportPipeline(executor, 16, 2).run(new StringReader(csv), 2, (lineNumber, row) -> {
+            rows.add(row);
+            lineNumbers.add(lineNumber);
+        });
+
+        assertEquals(List.of(2, 3), lineNumbers);
+        assertEquals(description, rows.get(0).getDescription());
+        assertEquals(new BigDecimal("100.50"), rows.get(0).getAmount());
+        assertEquals(TransactionType.INCOME, rows.get(0).getType());
+        assertEquals("last", rows.get(1).getDescription());
+    }
+
+    @Test
+    void testParsesQuotedFieldsAndRejectsBadValues() throws IOException {
+        String csv = "\"2025-03-07\",EXPENSE,\"Food, drinks\",1E+2,\"He said \"\"hi\"\"\"\n"
+                + "2025-03-07,TRANSFER,Food,1,\n"
+                + "2025-03-07,EXPENSE,Food,abc,\n"
+                + "2025-03-07,EXPENSE,Food,0,\n"
+                + "2025-03-07,EXPENSE,Food\n";
+
+        List<CsvRow> rows = new ArrayList<>();
+        new CsvImportPipeline().run(new StringReader(csv), 2, (lineNumber, row) -> rows.add(row));
+
+        CsvRow first = rows.get(0);
+        assertTrue(first.isValid());
+        assertEquals(LocalDate.of(2025, 3, 7), first.getDate());
+        assertEquals("Food, drinks", first.getCategoryName());
+        assertEquals(0, new BigDecimal("100").compareTo(first.getAmount()));
+        assertEquals("He said \"hi\"", first.getDescription());
+        assertEquals("Invalid transaction type 'TRANSFER'", rows.get(1).getError());
+        assertEquals("Invalid amount 'abc'", rows.get(2).getError());
+        assertEquals("Amount must be greater than 0", rows.get(3).getError());
+        assertEquals("Invalid format (expected at least 4 fields)", rows.get(4).getError());
+        assertNull(first.getErrorKind());
+        assertEquals(ImportErrorKind.TYPE, rows.get(1).getErrorKind());
+        assertEquals(ImportErrorKind.AMOUNT, rows.get(3).getErrorKind());
+        assertEquals(ImportErrorKind.FORMAT, rows.get(4).getErrorKind());
+    }
+
+    @Test
+    void testReadsOptionalCurrencyColumn() throws IOException {
+        String csv = "2025-03-07,EXPENSE,Food,50.00,,USD\n"
+                + "2025-03-07,EXPENSE,Food,1,legacy row\n"
+                + "2025-03-07,EXPENSE,Food,1,,\n"
+                + "2025-03-07,EXPENSE,Food,1,,XYZ1\n";
+
+        List<CsvRow> rows = new ArrayList<>();
+        new CsvImportPipeline().run(new StringReader(csv), 2, (lineNumber, row) -> rows.add(row));
+
+        assertEquals(Currency.getInstance("USD"), rows.get(0).getCurrency());
+        assertNull(rows.get(1).getCurrency());
+        assertNull(rows.get(2).getCurrency());
+        assertEquals(ImportErrorKind.CURRENCY, rows.get(3).getErrorKind());
+        assertEquals("Invalid currency 'XYZ1'", rows.get(3).getError());
+    }
+
+    @Test
+    void testMappedFileMatchesReaderAndInternsCategories(@TempDir Path dir) throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 1_000; i++) {
+            String category = i % 2 == 0 ? "Продукты" : "\"Кафе, бары\"";
+            csv.append(i == 500 ? "2025-13-01" : "2025-01-15").append(",EXPENSE,").append(category).append(',')
+                    .append(i).append(".5,\"Чек №").append(i).append(", \"\"ок\"\"\"")
+                    .append(i % 3 == 0 ? ",USD" : "").append("\r\n");
+        }
+        Path file = dir.resolve("import.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        List<String> fromReader = new ArrayList<>();
+        new CsvImportPipeline(executor, 256, 3).run(new StringReader(csv.toString()), 2,
+                (lineNumber, row) -> fromReader.add(describe(lineNumber, row)));
+
+        List<String> fromMapped = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new CsvImportPipeline(executor, 256, 3, 1_024).run(channel, 0, 2, (lineNumber, row) -> {
+                fromMapped.add(describe(lineNumber, row));
+                if (row.isValid()) {
+                    categories.add(row.getCategoryName());
+                }
+            });
+        }
+
+        assertEquals(fromReader, fromMapped);
+        assertEquals("501: Invalid date '2025-13-01' (expected YYYY-MM-DD)", fromMapped.get(499));
+        assertEquals("3 2025-01-15 EXPENSE Продукты 2.5 Чек №2, \"ок\"", fromMapped.get(1));
+        assertEquals("4 2025-01-15 EXPENSE Кафе, бары 3.5 Чек №3, \"ок\" USD", fromMapped.get(2));
+        assertEquals("Кафе, бары", categories.get(0));
+        assertSame(categories.get(1), categories.get(categories.size() - 1));
+        assertSame(categories.get(0), categories.get(categories.size() - 2));
+    }
+
+    @Test
+    void testLineBreaksInQuotedFieldsSurviveExportAndImport(@TempDir Path dir) throws IOException {
+        List<String> descriptions = new ArrayList<>();
+        StringWriter out = new StringWriter();
+        try (CsvTransactionWriter writer = new CsvTransactionWriter(out)) {
+            for (int i = 1; i <= 300; i++) {
+                String description = i % 3 == 0 ? "Чек " + i + "\nстрока 2\r\nстрока 3" : "row " + i;
+                descriptions.add(description);
+                writer.write(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(i),
+                        new Category(i % 7 == 0 ? "Food,\nnight" : "Food"), description,
+                        LocalDate.of(2025, 1, 15).atStartOfDay()));
+            }
+        }
+        String csv = out.toString();
+        Path file = dir.resolve("export.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        // маленькие блоки, чтобы граница блока попадала внутрь полей в кавычках
+        List<String> fromReader = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        new CsvImportPipeline(executor, 32, 3).run(new StringReader(csv), 2, (lineNumber, row) -> {
+            fromReader.add(row.getDescription());
+            lineNumbers.add(lineNumber);
+        });
+        List<String> fromMapped = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new CsvImportPipeline(executor, 32, 3, 64).run(channel, 0, 2,
+                    (lineNumber, row) -> fromMapped.add(row.getDescription()));
+        }
+
+        assertEquals(descriptions, fromReader);
+        assertEquals(descriptions, fromMapped);
+        // номер записи — номер первой ее строки в файле: перед третьей записью две строки без переносов
+        assertEquals(List.of(2, 3, 4, 7), lineNumbers.subList(0, 4));
+    }
+
+    private static String describe(int lineNumber, CsvRow row) {
+        if (!row.isValid()) {
+            return lineNumber + ": " + row.getError();
+        }
+        return lineNumber + " " + row.getDate() + " " + row.getType() + " " + row.getCategoryName() + " "
+                + row.getAmount() + " " + row.getDescription() + (row.getCurrency() != null ? " " + row.getCurrency() : "");
+    }
+
+    @Test
+    void testHandlerFailureStopsPipeline() {
+        String csv = "2025-01-01,EXPENSE,Food,1,\n".repeat(1_000);
+
+        CsvImportPipeline pipeline = new CsvImportPipeline(executor, 32, 2);
+        assertThrows(IllegalStateException.class, () -> pipeline.run(new StringReader(csv), 2, (lineNumber, row) -> {
+            throw new IllegalStateException("stop");
+        }));
+    }
+}
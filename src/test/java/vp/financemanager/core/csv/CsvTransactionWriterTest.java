@@ -0,0 +1,80 @@
+package vp.financemanager.core.csv;
+
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTransactionWriterTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 3, 7, 14, 30);
+
+    @Test
+    void testWritesHeaderAndPlainRow() throws IOException {
+        String csv = write(tx(new BigDecimal("1250.50"), "Food", "Groceries"));
+
+        assertEquals(CsvTransactionWriter.HEADER + "\n2025-03-07,EXPENSE,Food,1250.50,Groceries,RUB\n", csv);
+    }
+
+    @Test
+    void testQuotesFieldsPerRfc4180() throws IOException {
+        String csv = write(tx(BigDecimal.ONE, "Food, drinks", "He said \"hi\"\nthen left"));
+
+        assertEquals(CsvTransactionWriter.HEADER
+                + "\n2025-03-07,EXPENSE,\"Food, drinks\",1,\"He said \"\"hi\"\"\nthen left\",RUB\n", csv);
+    }
+
+    @Test
+    void testFormatsAmountsLikePlainString() throws IOException {
+        BigDecimal[] amounts = {
+                new BigDecimal("0.05"), new BigDecimal("7"), new BigDecimal("100.000"),
+                new BigDecimal("1E+3"), new BigDecimal("123456789012345678901234.5"),
+                new BigDecimal("999999999999999999")
+        };
+        for (BigDecimal amount : amounts) {
+            String csv = write(tx(amount, "Food", ""));
+            assertEquals(CsvTransactionWriter.HEADER + "\n2025-03-07,EXPENSE,Food," + amount.toPlainString() + ",,RUB\n",
+                    csv, amount.toString());
+        }
+    }
+
+    @Test
+    void testSmallBufferSpillsLongFields() throws IOException {
+        String description = "x".repeat(1000);
+        StringWriter out = new StringWriter();
+        try (CsvTransactionWriter writer = new CsvTransactionWriter(out, 128)) {
+            for (int i = 0; i < 50; i++) {
+                writer.write(tx(BigDecimal.TEN, "Food", description));
+            }
+        }
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(50, lines.length);
+        assertEquals("2025-03-07,EXPENSE,Food,10," + description + ",RUB", lines[49]);
+    }
+
+    @Test
+    void testRejectsTinyBuffer() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvTransactionWriter(new StringWriter(), 16));
+    }
+
+    private static Transaction tx(BigDecimal amount, String category, String description) {
+        return new Transaction(TransactionType.EXPENSE, amount, new Category(category), description, TIMESTAMP);
+    }
+
+    private static String write(Transaction transaction) throws IOException {
+        StringWriter out = new StringWriter();
+        try (CsvTransactionWriter writer = new CsvTransactionWriter(out)) {
+            writer.writeHeader();
+            writer.write(transaction);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,148 @@
+package vp.financemanager.core.format;
+
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.csv.CsvRow;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionFormatTest {
+
+    private static final Currency RUB = Currency.getInstance("RUB");
+    private static final Currency USD = Currency.getInstance("USD");
+
+    @Test
+    void testColumnarRoundTripAcrossBlocksKeepsPrecision() throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+        for (int i = 0; i < ColumnarTransactionWriter.BLOCK_ROWS * 2 + 17; i++) {
+            transactions.add(new Transaction(i % 3 == 0 ? TransactionType.INCOME : TransactionType.EXPENSE,
+                    BigDecimal.valueOf(100 + i, i % 3), new Category("Категория " + i % 40), "Платеж #" + i,
+                    start.plusMinutes(i * 37L).withNano(i * 1_000), i % 5 == 0 ? USD : RUB));
+        }
+        transactions.add(new Transaction(TransactionType.EXPENSE, new BigDecimal("12345678901234567890.123"),
+                new Category("Big"), "", start.minusYears(30), RUB));
+        transactions.add(new Transaction(TransactionType.EXPENSE, new BigDecimal("1E+3"),
+                new Category("Big"), "", start, RUB));
+
+        List<CsvRow> rows = roundTrip(TransactionFormat.COLUMNAR, transactions);
+
+        assertEquals(transactions.size(), rows.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            assertSameTransaction(transactions.get(i), rows.get(i));
+        }
+    }
+
+    @Test
+    void testJsonLinesRoundTripKeepsPrecision() throws IOException {
+        List<Transaction> transactions = List.of(
+                new Transaction(TransactionType.EXPENSE, new BigDecimal("100.50"), new Category("Food, drinks"),
+                        "He said \"hi\"\nthen left", LocalDateTime.of(2025, 3, 7, 14, 30, 5, 123_000_000), USD),
+                new Transaction(TransactionType.INCOME, new BigDecimal("1E+3"), new Category("Salary"), null,
+                        LocalDateTime.of(2025, 3, 8, 0, 0), RUB));
+
+        List<CsvRow> rows = roundTrip(TransactionFormat.JSON_LINES, transactions);
+
+        assertEquals(2, rows.size());
+        assertSameTransaction(transactions.get(0), rows.get(0));
+        assertEquals("", rows.get(1).getDescription());
+        assertEquals(new BigDecimal("1E+3"), rows.get(1).getAmount());
+    }
+
+    @Test
+    void testJsonLinesPutsEachObjectAtLineStart() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransactionWriter writer = TransactionFormat.JSON_LINES.newWriter(out);
+        for (int i = 1; i <= 3; i++) {
+            writer.write(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(i), new Category("Food"), "",
+                    LocalDateTime.of(2025, 3, i, 12, 0), RUB));
+        }
+        writer.finish();
+
+        String jsonl = out.toString(StandardCharsets.UTF_8);
+        assertTrue(jsonl.endsWith("}\n"));
+        String[] lines = jsonl.split("\n");
+        assertEquals(3, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("{"), line);
+        }
+    }
+
+    @Test
+    void testJsonLinesReportsBadLinesByNumber() throws IOException {
+        String jsonl = "{\"timestamp\":\"2025-01-01T00:00\",\"type\":\"EXPENSE\",\"category\":\"Food\",\"amount\":5}\n"
+                + "\n"
+                + "{\"timestamp\":\"2025-01-01T00:00\",\"type\":\"EXPENSE\",\"category\":\"Food\",\"amount\":-5}\n"
+                + "{broken\n"
+                + "{\"timestamp\":\"yesterday\",\"type\":\"EXPENSE\",\"category\":\"Food\",\"amount\":5,\"extra\":[1]}\n";
+
+        List<String> results = new ArrayList<>();
+        JsonLinesTransactionReader.read(new StringReader(jsonl), (lineNumber, row) ->
+                results.add(lineNumber + ": " + (row.isValid() ? "ok" : row.getError())));
+
+        assertEquals(4, results.size());
+        assertEquals("1: ok", results.get(0));
+        assertEquals("3: Amount must be greater than 0", results.get(1));
+        assertTrue(results.get(2).startsWith("4: Invalid JSON"));
+        assertEquals("5: Invalid timestamp 'yesterday'", results.get(3));
+    }
+
+    @Test
+    void testDetectAndFileNames() {
+        assertEquals(TransactionFormat.COLUMNAR, detect(new byte[]{'F', 'M', 'T', 'C', 1}));
+        assertEquals(TransactionFormat.JSON_LINES, detect(" {\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(TransactionFormat.CSV, detect("Date,Type".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(TransactionFormat.JSON_LINES, TransactionFormat.forFileName("export.jsonl.gz"));
+        assertEquals(TransactionFormat.COLUMNAR, TransactionFormat.forFileName("export.TXC"));
+        assertEquals(TransactionFormat.CSV, TransactionFormat.forFileName("export"));
+    }
+
+    private static TransactionFormat detect(byte[] head) {
+        return TransactionFormat.detect(head, head.length);
+    }
+
+    private static List<CsvRow> roundTrip(TransactionFormat format, List<Transaction> transactions) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransactionWriter writer = format.newWriter(out);
+        for (Transaction transaction : transactions) {
+            writer.write(transaction);
+        }
+        writer.finish();
+
+        byte[] bytes = out.toByteArray();
+        assertEquals(format, TransactionFormat.detect(Arrays.copyOf(bytes, 16), Math.min(16, bytes.length)));
+        List<CsvRow> rows = new ArrayList<>();
+        if (format == TransactionFormat.COLUMNAR) {
+            ColumnarTransactionReader.read(new ByteArrayInputStream(bytes), (lineNumber, row) -> rows.add(row));
+        } else {
+            JsonLinesTransactionReader.read(new StringReader(new String(bytes, StandardCharsets.UTF_8)),
+                    (lineNumber, row) -> rows.add(row));
+        }
+        return rows;
+    }
+
+    private static void assertSameTransaction(Transaction expected, CsvRow row) {
+        assertTrue(row.isValid(), row.getError());
+        assertEquals(expected.getTimestamp(), row.getTimestamp());
+        assertEquals(expected.getType(), row.getType());
+        assertEquals(expected.getCategory().getName(), row.getCategoryName());
+        // equals сравнивает и масштаб
+        assertEquals(expected.getAmount(), row.getAmount());
+        assertEquals(expected.getCurrency(), row.getCurrency());
+        assertEquals(expected.getDescription(), row.getDescription());
+    }
+}
@@ -0,0 +1,69 @@
+package vp.financemanager.core.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void testSmallInputIsExact() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 100; i++) {
+            sketch.update(i);
+        }
+
+        assertEquals(50, sketch.quantile(0.5));
+        assertEquals(90, sketch.quantile(0.9));
+        assertEquals(1, sketch.getMin());
+        assertEquals(100, sketch.getMax());
+    }
+
+    @Test
+    void testRankErrorWithinBound() {
+        Random random = new Random(7);
+        double[] values = new double[200_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2);
+            sketch.update(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.5, 0.9, 0.99}) {
+            double estimate = sketch.quantile(q);
+            double rank = (double) lowerBound(values, estimate) / values.length;
+            assertEquals(q, rank, 0.0165, "q=" + q);
+        }
+    }
+
+    @Test
+    void testMergeMatchesSingleSketch() {
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        for (int i = 0; i < 50_000; i++) {
+            left.update(i);
+            right.update(50_000 + i);
+        }
+
+        left.merge(right);
+
+        assertEquals(100_000, left.getCount());
+        assertEquals(0, left.getMin());
+        assertEquals(99_999, left.getMax());
+        assertEquals(50_000, left.quantile(0.5), 100_000 * 0.0165);
+    }
+
+    @Test
+    void testEmptySketch() {
+        assertTrue(Double.isNaN(new QuantileSketch().quantile(0.5)));
+    }
+
+    private int lowerBound(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        return index >= 0 ? index : -index - 1;
+    }
+}
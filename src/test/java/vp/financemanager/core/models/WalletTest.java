@@ -40,5 +40,117 @@ class WalletTest {
         assertEquals(BigDecimal.valueOf(1500), wallet.getBalance());
         assertEquals(1, wallet.getTransactions().size());
     }
-}
 
+    @Test
+    void testRollupsFollowAddAndReplace() {
+        Wallet wallet = new Wallet("testuser", BigDecimal.valueOf(1000));
+        java.time.LocalDateTime day = java.time.LocalDateTime.of(2025, 3, 10, 12, 0);
+        wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(100),
+                new Category("Food"), "", day));
+        wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(50),
+                new Category("food"), "", day.plusHours(1)));
+
+        RollupBucket bucket = wallet.getRollups().getDays(TransactionType.EXPENSE)
+                .get(new Category("Food")).get(day.toLocalDate());
+        assertEquals(BigDecimal.valueOf(150), bucket.getSum());
+        assertEquals(2, bucket.getCount());
+        assertEquals(BigDecimal.valueOf(50), bucket.getMin());
+        assertEquals(BigDecimal.valueOf(100), bucket.getMax());
+
+        wallet.replaceTransaction(0, new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(100),
+                new Category("Taxi"), "", day));
+
+        bucket = wallet.getRollups().getDays(TransactionType.EXPENSE).get(new Category("Food")).get(day.toLocalDate());
+        assertEquals(BigDecimal.valueOf(50), bucket.getSum());
+        assertEquals(BigDecimal.valueOf(50), bucket.getMax());
+        assertEquals(1, wallet.getRollups().getDays(TransactionType.EXPENSE)
+                .get(new Category("Taxi")).get(day.toLocalDate()).getCount());
+    }
+
+    @Test
+    void testSpendingForecastMatchesRebuildFromRollups() {
+        Wallet wallet = new Wallet("testuser", BigDecimal.valueOf(10000));
+        Category food = new Category("Food");
+        java.time.LocalDate start = java.time.LocalDate.of(2025, 3, 1);
+        wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(50),
+                food, "", start.atTime(10, 0)));
+        SpendingForecast incremental = wallet.getSpendingForecast(food);
+
+        int[] amounts = {120, 0, 30, 0, 0, 200, 80};
+        for (int i = 0; i < amounts.length; i++) {
+            if (amounts[i] > 0) {
+                wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(amounts[i]),
+                        food, "", start.plusDays(i + 1).atTime(10, 0)));
+            }
+        }
+        java.time.LocalDate asOf = start.plusDays(10);
+        double incrementalRate = incremental.dailyRate(asOf);
+
+        wallet.rebuildRollups();
+        assertEquals(incrementalRate, wallet.getSpendingForecast(food).dailyRate(asOf), 1e-9);
+        assertTrue(incrementalRate > 0);
+    }
+
+    @Test
+    void testExpenseSketchesAreKeptPerCurrency() {
+        Wallet wallet = new Wallet("testuser", BigDecimal.valueOf(100000));
+        Category travel = new Category("Travel");
+        java.util.Currency usd = java.util.Currency.getInstance("USD");
+        java.time.LocalDateTime day = java.time.LocalDateTime.of(2025, 3, 10, 12, 0);
+        wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(5000),
+                travel, "", day));
+        assertEquals(1, wallet.getExpenseSketch(travel).getCount());
+        assertTrue(wallet.getExpenseSketch(travel, usd).isEmpty());
+
+        wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(60),
+                travel, "", day, usd));
+        wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(3000),
+                travel, "", day));
+
+        QuantileSketch rub = wallet.getExpenseSketch(travel);
+        QuantileSketch dollars = wallet.getExpenseSketch(travel, usd);
+        assertEquals(2, rub.getCount());
+        assertEquals(3000, rub.getMin());
+        assertEquals(1, dollars.getCount());
+        assertEquals(60, dollars.getMax());
+
+        // после отмены скетч перестраивается только по своей валюте
+        wallet.rollbackLastTransaction(wallet.getTransactions().get(2));
+        assertEquals(1, wallet.getExpenseSketch(travel).getCount());
+        assertEquals(5000, wallet.getExpenseSketch(travel).getMin());
+        assertEquals(1, wallet.getExpenseSketch(travel, usd).getCount());
+    }
+
+    @Test
+    void testExpenseSketchForPeriodIsIndependentCopy() {
+        Wallet wallet = new Wallet("testuser", BigDecimal.valueOf(100000));
+        Category food = new Category("Food");
+        java.time.LocalDate start = java.time.LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < 120; i++) {
+            wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(i + 1),
+                    food, "", start.plusDays(i).atTime(12, 0)));
+        }
+        // строится до следующих добавлений, чтобы проверить и инкрементальное обновление
+        assertEquals(120, wallet.getExpenseSketch(food).getCount());
+        wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(1000),
+                food, "", start.plusDays(40).atTime(18, 0)));
+
+        // февраль целиком из месячного скетча, 20–31 января — из транзакций
+        java.time.LocalDate from = java.time.LocalDate.of(2025, 1, 20);
+        java.time.LocalDate to = java.time.LocalDate.of(2025, 2, 28);
+        QuantileSketch period = wallet.getExpenseSketch(food, Wallet.DEFAULT_CURRENCY, from, to);
+        assertEquals(12 + 28 + 1, period.getCount());
+        assertEquals(20, period.getMin());
+        assertEquals(1000, period.getMax());
+
+        QuantileSketch insideMonth = wallet.getExpenseSketch(food, Wallet.DEFAULT_CURRENCY,
+                java.time.LocalDate.of(2025, 3, 5), java.time.LocalDate.of(2025, 3, 6));
+        assertEquals(2, insideMonth.getCount());
+        assertEquals(64, insideMonth.getMin());
+
+        period.update(-1);
+        insideMonth.merge(period);
+        assertEquals(121, wallet.getExpenseSketch(food).getCount());
+        assertEquals(1, wallet.getExpenseSketch(food).getMin());
+    }
+}
@@ -0,0 +1,194 @@
+package vp.financemanager.core.query;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+import vp.financemanager.core.models.Wallet;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionQueryPlannerTest {
+
+    private TransactionQueryPlanner planner;
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        planner = new TransactionQueryPlanner();
+        wallet = new Wallet("testuser", BigDecimal.ZERO);
+        for (int day = 1; day <= 30; day++) {
+            String category = day % 10 == 0 ? "Taxi" : "Food";
+            wallet.addTransaction(expense(category, day, day, day % 10 == 0 ? "Такси домой" : "Продукты"));
+        }
+        wallet.addTransaction(new Transaction(TransactionType.INCOME, BigDecimal.valueOf(5000),
+                new Category("Salary"), "", LocalDate.of(2025, 1, 15).atStartOfDay()));
+    }
+
+    @Test
+    void testFullScanWithoutSelectiveFilters() {
+        QueryResult result = planner.execute(wallet, TransactionQuery.builder().type(TransactionType.EXPENSE).build());
+
+        assertEquals(AccessPath.FULL_SCAN, result.getPlan().getAccessPath());
+        assertEquals(31, result.getRowsScanned());
+        assertEquals(30, result.getTransactions().size());
+    }
+
+    @Test
+    void testCategoryIndexForRareCategory() {
+        TransactionQuery query = TransactionQuery.builder().category(new Category("taxi")).build();
+        QueryResult result = planner.execute(wallet, query);
+
+        assertEquals(AccessPath.CATEGORY_INDEX, result.getPlan().getAccessPath());
+        assertEquals(3, result.getRowsScanned());
+        assertEquals(3, result.getTransactions().size());
+    }
+
+    @Test
+    void testTimeIndexForNarrowRange() {
+        TransactionQuery query = TransactionQuery.builder()
+                .category(new Category("Food"))
+                .between(LocalDate.of(2025, 1, 3), LocalDate.of(2025, 1, 5))
+                .build();
+        QueryResult result = planner.execute(wallet, query);
+
+        assertEquals(AccessPath.TIME_INDEX, result.getPlan().getAccessPath());
+        assertEquals(3, result.getRowsScanned());
+        assertEquals(List.of(3, 4, 5), days(result.getTransactions()));
+    }
+
+    @Test
+    void testAmountDescriptionSortAndPaging() {
+        TransactionQuery query = TransactionQuery.builder()
+                .type(TransactionType.EXPENSE)
+                .minAmount(BigDecimal.valueOf(5))
+                .maxAmount(BigDecimal.valueOf(25))
+                .descriptionContains("продукты")
+                .sort(TransactionSort.AMOUNT_DESC)
+                .offset(2)
+                .limit(3)
+                .build();
+        QueryResult result = planner.execute(wallet, query);
+
+        assertEquals(List.of(23, 22, 21), days(result.getTransactions()));
+    }
+
+    @Test
+    void testIndexFollowsReplacedTransaction() {
+        wallet.replaceTransaction(0, expense("Taxi", 1, 1, "Такси"));
+
+        TransactionQuery query = TransactionQuery.builder().category(new Category("Taxi")).build();
+        QueryResult result = planner.execute(wallet, query);
+
+        assertEquals(4, result.getTransactions().size());
+        assertEquals(1, days(result.getTransactions()).get(0));
+        assertEquals(26, planner.plan(wallet, TransactionQuery.builder()
+                .category(new Category("Food")).build()).getEstimatedRows());
+    }
+
+    @Test
+    void testStreamMatchesExecute() {
+        TransactionQuery query = TransactionQuery.builder()
+                .type(TransactionType.EXPENSE)
+                .between(LocalDate.of(2025, 1, 10), null)
+                .sort(TransactionSort.DATE_DESC)
+                .limit(5)
+                .build();
+
+        assertEquals(planner.execute(wallet, query).getTransactions(), planner.stream(wallet, query).toList());
+    }
+
+    @Test
+    void testKeysetPagesCoverAllMatchesOnce() {
+        TransactionQuery query = TransactionQuery.builder().category(new Category("Food")).build();
+
+        TransactionPage page = planner.page(wallet, query, PageCursor.start(), 10);
+        int pages = 1;
+        int rows = page.getTransactions().size();
+        while (page.hasNext()) {
+            page = planner.page(wallet, query, page.getNextCursor(), 10);
+            pages++;
+            rows += page.getTransactions().size();
+        }
+
+        assertEquals(3, pages);
+        assertEquals(27, rows);
+        assertEquals(7, page.getTransactions().size());
+    }
+
+    @Test
+    void testKeysetPagesOverIndexesMatchExecute() {
+        wallet.addTransaction(expense("Food", 20, 12, "Такси и такса"));
+        List<TransactionQuery> queries = List.of(
+                TransactionQuery.builder().between(LocalDate.of(2025, 1, 8), LocalDate.of(2025, 1, 20)).build(),
+                TransactionQuery.builder().keywordPrefix("такс").build(),
+                TransactionQuery.builder().keyword("продукты").build());
+
+        for (TransactionQuery query : queries) {
+            List<Transaction> paged = new ArrayList<>();
+            TransactionPage page = planner.page(wallet, query, PageCursor.start(), 2);
+            paged.addAll(page.getTransactions());
+            while (page.hasNext()) {
+                page = planner.page(wallet, query, page.getNextCursor(), 2);
+                paged.addAll(page.getTransactions());
+            }
+
+            assertEquals(planner.execute(wallet, query).getTransactions(), paged);
+        }
+    }
+
+    @Test
+    void testLastFullPageHasNoNextCursor() {
+        TransactionQuery query = TransactionQuery.builder().category(new Category("Taxi")).build();
+
+        TransactionPage page = planner.page(wallet, query, PageCursor.start(), 3);
+
+        assertEquals(3, page.getTransactions().size());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testTextIndexForKeywordPrefix() {
+        TransactionQuery query = TransactionQuery.builder().keywordPrefix("такс").build();
+        QueryResult result = planner.execute(wallet, query);
+
+        assertEquals(AccessPath.TEXT_INDEX, result.getPlan().getAccessPath());
+        assertEquals(3, result.getRowsScanned());
+        assertEquals(List.of(10, 20, 30), days(result.getTransactions()));
+    }
+
+    @Test
+    void testKeywordsAreCaseAndYoInsensitive() {
+        wallet.addTransaction(expense("Food", 5, 2, "Ёлка, ЗЕЛЁНАЯ"));
+
+        assertEquals(1, planner.execute(wallet, TransactionQuery.builder().keyword("зеленая елка").build())
+                .getTransactions().size());
+        assertEquals(0, planner.execute(wallet, TransactionQuery.builder().keyword("зелен").build())
+                .getTransactions().size());
+    }
+
+    @Test
+    void testTextIndexFollowsReplacedDescription() {
+        wallet.replaceTransaction(9, expense("Taxi", 10, 10, "Метро"));
+
+        assertEquals(2, planner.execute(wallet, TransactionQuery.builder().keyword("такси").build())
+                .getTransactions().size());
+        assertEquals(List.of(10), days(planner.execute(wallet, TransactionQuery.builder().keyword("метро").build())
+                .getTransactions()));
+    }
+
+    private Transaction expense(String category, int amount, int day, String description) {
+        return new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(amount), new Category(category),
+                description, LocalDate.of(2025, 1, day).atTime(12, 0));
+    }
+
+    private List<Integer> days(List<Transaction> transactions) {
+        return transactions.stream().map(tx -> tx.getTimestamp().getDayOfMonth()).toList();
+    }
+}
@@ -4,12 +4,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import vp.financemanager.core.models.Category;
 import vp.financemanager.core.models.CategoryBudget;
+import vp.financemanager.core.models.FxRateTable;
+import vp.financemanager.core.models.RollupGranularity;
+import vp.financemanager.core.models.TransactionRequest;
 import vp.financemanager.core.models.TransactionType;
 import vp.financemanager.core.models.Wallet;
 import vp.financemanager.core.repository.WalletRepository;
 import vp.financemanager.infra.repository.InMemoryWalletRepository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -80,5 +87,109 @@ class BudgetServiceTest {
             budgetService.setBudget(wallet, category, BigDecimal.valueOf(1000));
         });
     }
-}
 
+    @Test
+    void testProjectedSpentAndDaysUntilLimit() {
+        Category category = new Category("Food");
+        addDailyExpenses(category, LocalDate.of(2026, 6, 1), 10, BigDecimal.valueOf(100));
+        budgetService.setBudget(wallet, category, BigDecimal.valueOf(1500));
+
+        LocalDate today = LocalDate.of(2026, 6, 10);
+        // 1000 уже потрачено, еще 20 дней по 100
+        assertEquals(0, new BigDecimal("3000").compareTo(
+                budgetService.projectedSpent(wallet, category, RollupGranularity.MONTH, today)));
+        // в текущем дне — только сегодняшние 100
+        assertEquals(0, new BigDecimal("100").compareTo(
+                budgetService.projectedSpent(wallet, category, RollupGranularity.DAY, today)));
+        assertEquals(5L, budgetService.daysUntilLimit(wallet, category, today));
+    }
+
+    @Test
+    void testProjectedSpentCountsOnlyCurrentPeriod() {
+        Category category = new Category("Food");
+        addDailyExpenses(category, LocalDate.of(2026, 5, 22), 10, BigDecimal.valueOf(100));
+        budgetService.setBudget(wallet, category, BigDecimal.valueOf(5000));
+
+        // с 22 по 31 мая потрачено 1000 — в июньский прогноз они не входят: 29 дней по 100
+        LocalDate today = LocalDate.of(2026, 6, 1);
+        BigDecimal projected = budgetService.projectedSpent(wallet, category, RollupGranularity.MONTH, today);
+        assertEquals(0, new BigDecimal("2900").compareTo(projected), projected.toString());
+        assertEquals(0, new BigDecimal("1000").compareTo(wallet.getCategoryBudget(category).getSpent()));
+    }
+
+    @Test
+    void testProjectedToExceedUsesLifetimeSpentLikeDaysUntilLimit() {
+        Category category = new Category("Food");
+        addDailyExpenses(category, LocalDate.of(2026, 5, 22), 10, BigDecimal.valueOf(100));
+        budgetService.setBudget(wallet, category, BigDecimal.valueOf(3500));
+
+        // июньский прогноз 2900 меньше лимита, но лимит относится ко всем 1000 + 2900
+        LocalDate today = LocalDate.of(2026, 6, 1);
+        assertTrue(budgetService.projectedSpent(wallet, category, RollupGranularity.MONTH, today)
+                .compareTo(BigDecimal.valueOf(3500)) < 0);
+        assertEquals(25L, budgetService.daysUntilLimit(wallet, category, today));
+        assertTrue(budgetService.isProjectedToExceed(wallet, category, RollupGranularity.MONTH, today));
+
+        budgetService.setBudget(wallet, category, BigDecimal.valueOf(5000));
+        assertFalse(budgetService.isProjectedToExceed(wallet, category, RollupGranularity.MONTH, today));
+    }
+
+    @Test
+    void testForecastConvertsForeignCurrencyExpenses() {
+        Currency usd = Currency.getInstance("USD");
+        FxRateTable table = new FxRateTable(Wallet.DEFAULT_CURRENCY);
+        table.addRate(usd, LocalDate.of(2026, 1, 1), new BigDecimal("80"));
+        budgetService = new BudgetService(walletRepository, categoryService, new FxRateService(table));
+        Category category = new Category("Travel");
+        budgetService.setBudget(wallet, category, BigDecimal.valueOf(10000));
+        // прогноз уже построен до трат в долларах — они должны его сбросить, а не пропасть
+        assertNull(budgetService.daysUntilLimit(wallet, category, LocalDate.of(2026, 6, 1)));
+
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(new TransactionRequest(TransactionType.EXPENSE, BigDecimal.TEN, category, "",
+                    LocalDate.of(2026, 6, 1).plusDays(i).atTime(12, 0), usd));
+        }
+        new WalletService(walletRepository, budgetService).addTransactions(wallet, requests);
+
+        // 8000 потрачено, темп 800 в день: оставшиеся 2000 — за 3 дня, до конца июня еще 20 дней
+        LocalDate today = LocalDate.of(2026, 6, 10);
+        assertEquals(3L, budgetService.daysUntilLimit(wallet, category, today));
+        assertEquals(0, new BigDecimal("24000").compareTo(
+                budgetService.projectedSpent(wallet, category, RollupGranularity.MONTH, today)));
+    }
+
+    @Test
+    void testForecastDecaysWithoutExpensesAndUpdatesIncrementally() {
+        Category category = new Category("Food");
+        addDailyExpenses(category, LocalDate.of(2026, 6, 1), 10, BigDecimal.valueOf(100));
+        budgetService.setBudget(wallet, category, BigDecimal.valueOf(5000));
+
+        LocalDate later = LocalDate.of(2026, 6, 25);
+        Long beforeGap = budgetService.daysUntilLimit(wallet, category, LocalDate.of(2026, 6, 10));
+        Long afterGap = budgetService.daysUntilLimit(wallet, category, later);
+        assertTrue(afterGap > beforeGap);
+
+        addDailyExpenses(category, later, 1, BigDecimal.valueOf(3000));
+        assertTrue(budgetService.daysUntilLimit(wallet, category, later) < afterGap);
+    }
+
+    @Test
+    void testDaysUntilLimitWithoutExpensesOrLimit() {
+        Category category = new Category("Food");
+        budgetService.setBudget(wallet, category, BigDecimal.valueOf(1000));
+
+        assertNull(budgetService.daysUntilLimit(wallet, category, LocalDate.of(2026, 6, 1)));
+        assertNull(budgetService.daysUntilLimit(wallet, new Category("Travel"), LocalDate.of(2026, 6, 1)));
+    }
+
+    private void addDailyExpenses(Category category, LocalDate from, int days, BigDecimal amount) {
+        WalletService walletService = new WalletService(walletRepository, budgetService);
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            requests.add(new TransactionRequest(TransactionType.EXPENSE, amount, category, "",
+                    from.plusDays(i).atTime(12, 0)));
+        }
+        walletService.addTransactions(wallet, requests);
+    }
+}
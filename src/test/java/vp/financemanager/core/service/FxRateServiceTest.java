@@ -0,0 +1,56 @@
+package vp.financemanager.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.FxRateTable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateServiceTest {
+
+    private static final Currency RUB = Currency.getInstance("RUB");
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    private FxRateService fxRateService;
+
+    @BeforeEach
+    void setUp() {
+        FxRateTable table = new FxRateTable(RUB);
+        table.addRate(USD, LocalDate.of(2026, 1, 9), new BigDecimal("80"));
+        table.addRate(USD, LocalDate.of(2026, 1, 12), new BigDecimal("78"));
+        table.addRate(EUR, LocalDate.of(2026, 1, 9), new BigDecimal("96"));
+        fxRateService = new FxRateService(table);
+    }
+
+    @Test
+    void testDaysWithoutRateUseLastKnownRate() {
+        assertEquals(0, new BigDecimal("80").compareTo(fxRateService.rate(USD, RUB, LocalDate.of(2026, 1, 11))));
+        assertEquals(0, new BigDecimal("78").compareTo(fxRateService.rate(USD, RUB, LocalDate.of(2026, 1, 12))));
+        assertEquals(0, new BigDecimal("78").compareTo(fxRateService.rate(USD, RUB, LocalDate.of(2026, 6, 1))));
+    }
+
+    @Test
+    void testConvertThroughQuoteCurrency() {
+        assertEquals(new BigDecimal("8000.00"),
+                fxRateService.convert(BigDecimal.valueOf(100), USD, RUB, LocalDate.of(2026, 1, 10)));
+        assertEquals(new BigDecimal("120.00"),
+                fxRateService.convert(BigDecimal.valueOf(100), EUR, USD, LocalDate.of(2026, 1, 10)));
+        assertEquals(new BigDecimal("1.25"),
+                fxRateService.convert(BigDecimal.valueOf(100), RUB, USD, LocalDate.of(2026, 1, 10)));
+        // та же валюта — без пересчета и округления
+        assertEquals(BigDecimal.valueOf(100), fxRateService.convert(BigDecimal.valueOf(100), USD, USD, null));
+    }
+
+    @Test
+    void testMissingRateFails() {
+        assertThrows(IllegalStateException.class,
+                () -> fxRateService.rate(USD, RUB, LocalDate.of(2025, 12, 31)));
+        assertThrows(IllegalStateException.class,
+                () -> fxRateService.rate(Currency.getInstance("CNY"), RUB, LocalDate.of(2026, 1, 10)));
+    }
+}
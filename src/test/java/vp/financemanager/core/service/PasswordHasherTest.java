@@ -0,0 +1,86 @@
+package vp.financemanager.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    // SHA-256("password123") в hex — так хранил пароли прежний PasswordHasher (LegacySha256PasswordHasher)
+    private static final String LEGACY_HASH = "ef92b778bafe771e89245b89ecbc08a44a4e166c06659911881f383d4473e94f";
+
+    private final PasswordHasher hasher = new DelegatingPasswordHasher(
+            new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.MIN_ITERATIONS), new LegacySha256PasswordHasher());
+
+    @Test
+    void testHashIsSaltedAndMatches() {
+        String first = hasher.hash("password123");
+        String second = hasher.hash("password123");
+
+        assertNotEquals(first, second);
+        assertTrue(first.startsWith("pbkdf2-sha256$1000$"));
+        assertTrue(hasher.matches("password123", first));
+        assertTrue(hasher.matches("password123", second));
+        assertFalse(hasher.matches("password124", first));
+        assertFalse(hasher.matches(null, first));
+        assertFalse(hasher.needsRehash(first));
+    }
+
+    @Test
+    void testMatchesJdkPbkdf2() throws GeneralSecurityException {
+        String hash = hasher.hash("пароль");
+        String[] parts = hash.split("\\$");
+        byte[] salt = Base64.getDecoder().decode(parts[2]);
+
+        PBEKeySpec spec = new PBEKeySpec("пароль".toCharArray(), salt, Pbkdf2PasswordHasher.MIN_ITERATIONS, 256);
+        byte[] expected = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+
+        assertArrayEquals(expected, Base64.getDecoder().decode(parts[3]));
+    }
+
+    @Test
+    void testLegacyHashMatchesAndNeedsRehash() {
+        assertTrue(hasher.matches("password123", LEGACY_HASH));
+        assertTrue(hasher.matches("password123", LEGACY_HASH.toUpperCase()));
+        assertFalse(hasher.matches("password", LEGACY_HASH));
+        assertTrue(hasher.needsRehash(LEGACY_HASH));
+        assertEquals(LEGACY_HASH, new LegacySha256PasswordHasher().hash("password123"));
+        assertFalse(new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.MIN_ITERATIONS).matches("password123", LEGACY_HASH));
+    }
+
+    @Test
+    void testHigherCostRequestsRehash() {
+        String cheap = hasher.hash("password123");
+        PasswordHasher stronger = new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.MIN_ITERATIONS * 2);
+
+        assertTrue(stronger.matches("password123", cheap));
+        assertTrue(stronger.needsRehash(cheap));
+        assertFalse(hasher.needsRehash(stronger.hash("password123")));
+    }
+
+    @Test
+    void testMalformedHashDoesNotMatch() {
+        String hash = hasher.hash("password123");
+
+        assertFalse(hasher.matches("password123", "pbkdf2-sha256$1000$not base64!$x"));
+        assertFalse(hasher.matches("password123", "pbkdf2-sha256$999999999" + hash.substring(hash.indexOf("$", 14))));
+        assertFalse(hasher.matches("password123", "md5$" + hash));
+        assertFalse(hasher.matches("password123", "zz" + LEGACY_HASH.substring(2)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.MIN_ITERATIONS - 1));
+    }
+
+    @Test
+    void testDefaultCostFollowsSha256Recommendation() {
+        String oldDefault = new Pbkdf2PasswordHasher(210_000).hash("password123");
+
+        assertEquals(600_000, Pbkdf2PasswordHasher.DEFAULT_ITERATIONS);
+        assertTrue(new DelegatingPasswordHasher().needsRehash(oldDefault));
+        assertFalse(hasher.supports("md5$abc"));
+    }
+}
@@ -0,0 +1,105 @@
+package vp.financemanager.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.RecurrenceFrequency;
+import vp.financemanager.core.models.RecurringRule;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionResult;
+import vp.financemanager.core.models.TransactionType;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.infra.repository.InMemoryWalletRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurringTransactionSchedulerTest {
+
+    private CountingWalletRepository walletRepository;
+    private RecurringTransactionScheduler scheduler;
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = new CountingWalletRepository();
+        BudgetService budgetService = new BudgetService(walletRepository, new CategoryService());
+        WalletService walletService = new WalletService(walletRepository, budgetService);
+        scheduler = new RecurringTransactionScheduler(walletRepository, walletService);
+        wallet = new Wallet("testuser", BigDecimal.ZERO);
+    }
+
+    @Test
+    void testCatchUpAddsMissedOccurrencesInOneBatch() {
+        scheduler.addRule(wallet, rule(TransactionType.EXPENSE, 30000, "Rent",
+                RecurrenceFrequency.MONTHLY, LocalDate.of(2026, 1, 31), null));
+        scheduler.addRule(wallet, rule(TransactionType.INCOME, 100000, "Salary",
+                RecurrenceFrequency.MONTHLY, LocalDate.of(2026, 2, 5), null));
+        walletRepository.saves = 0;
+
+        List<TransactionResult> results = scheduler.runDue(wallet, LocalDate.of(2026, 4, 15));
+
+        assertEquals(6, results.size());
+        assertEquals(1, walletRepository.saves);
+        // аренда на 31-е число сдвигается на конец февраля и возвращается на 31 марта
+        assertEquals(List.of(LocalDate.of(2026, 1, 31), LocalDate.of(2026, 2, 5), LocalDate.of(2026, 2, 28),
+                        LocalDate.of(2026, 3, 5), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 4, 5)),
+                wallet.getTransactions().stream().map(tx -> tx.getTimestamp().toLocalDate()).toList());
+        assertEquals(BigDecimal.valueOf(210000), wallet.getBalance());
+        assertEquals(BigDecimal.valueOf(90000), wallet.getCategoryBudget(new Category("Rent")).getSpent());
+    }
+
+    @Test
+    void testNothingDueDoesNotSave() {
+        scheduler.addRule(wallet, rule(TransactionType.INCOME, 1000, "Salary",
+                RecurrenceFrequency.WEEKLY, LocalDate.of(2026, 3, 2), null));
+        scheduler.runDue(wallet, LocalDate.of(2026, 3, 10));
+        walletRepository.saves = 0;
+
+        assertTrue(scheduler.runDue(wallet, LocalDate.of(2026, 3, 15)).isEmpty());
+        assertEquals(0, walletRepository.saves);
+        assertEquals(2, wallet.getTransactions().size());
+    }
+
+    @Test
+    void testEndDateAndRemovedRulesStopOccurrences() {
+        RecurringRule subscription = rule(TransactionType.EXPENSE, 500, "Music",
+                RecurrenceFrequency.MONTHLY, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 2, 10));
+        RecurringRule gym = rule(TransactionType.EXPENSE, 2000, "Sport",
+                RecurrenceFrequency.MONTHLY, LocalDate.of(2026, 1, 1), null);
+        scheduler.addRule(wallet, subscription);
+        scheduler.addRule(wallet, gym);
+        assertTrue(scheduler.removeRule(wallet, gym));
+
+        scheduler.runDue(wallet, LocalDate.of(2026, 6, 1));
+
+        assertEquals(2, wallet.getTransactions().size());
+        assertTrue(subscription.isFinished());
+        for (Transaction tx : wallet.getTransactions()) {
+            assertEquals("Music", tx.getCategory().getName());
+        }
+    }
+
+    private static class CountingWalletRepository extends InMemoryWalletRepository {
+        private int saves;
+
+        @Override
+        public Wallet save(Wallet wallet) {
+            saves++;
+            return super.save(wallet);
+        }
+    }
+
+    private RecurringRule rule(TransactionType type, int amount, String category, RecurrenceFrequency frequency,
+                               LocalDate startDate, LocalDate endDate) {
+        return RecurringRule.builder()
+                .type(type)
+                .amount(BigDecimal.valueOf(amount))
+                .category(new Category(category))
+                .schedule(frequency, startDate, endDate)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package vp.financemanager.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.FxRateTable;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.models.WalletsReport;
+import vp.financemanager.infra.repository.InMemoryWalletRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportServiceTest {
+
+    private InMemoryWalletRepository walletRepository;
+    private WalletService walletService;
+    private BudgetService budgetService;
+    private ReportService reportService;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = new InMemoryWalletRepository();
+        budgetService = new BudgetService(walletRepository, new CategoryService());
+        walletService = new WalletService(walletRepository, budgetService);
+        reportService = new ReportService(walletRepository, walletService, 4);
+
+        for (int i = 0; i < 100; i++) {
+            Wallet wallet = new Wallet("user" + i, BigDecimal.ZERO);
+            walletService.addIncome(wallet, BigDecimal.valueOf(1000), new Category("Salary"), "");
+            walletService.addExpense(wallet, BigDecimal.valueOf(300), new Category("Food"), "");
+            budgetService.setBudget(wallet, new Category("Food"), BigDecimal.valueOf(i % 2 == 0 ? 200 : 500));
+        }
+    }
+
+    @Test
+    void testAggregateAllWallets() {
+        WalletsReport report = reportService.aggregateAll();
+
+        assertEquals(100, report.getWalletCount());
+        assertEquals(0, report.getMissingWallets());
+        assertEquals(BigDecimal.valueOf(100_000), report.getTotalIncome());
+        assertEquals(BigDecimal.valueOf(30_000), report.getTotalExpense());
+        assertEquals(BigDecimal.valueOf(70_000), report.getTotalBalance());
+        assertEquals(BigDecimal.valueOf(35_000), report.getTotalBudgetLimit());
+        assertEquals(BigDecimal.valueOf(30_000), report.getTotalBudgetSpent());
+        assertEquals(50, report.getExceededBudgets());
+    }
+
+    @Test
+    void testAggregateHouseholdCountsMissingWallets() {
+        WalletsReport report = reportService.aggregate(List.of("user1", "user2", "nobody"));
+
+        assertEquals(2, report.getWalletCount());
+        assertEquals(1, report.getMissingWallets());
+        assertEquals(BigDecimal.valueOf(1400), report.getTotalBalance());
+        assertEquals(1, report.getExceededBudgets());
+        assertEquals(0, report.getFailedWallets());
+    }
+
+    @Test
+    void testUnreadableWalletsAreReportedSeparately() {
+        InMemoryWalletRepository failing = new InMemoryWalletRepository() {
+            @Override
+            public Wallet findByOwnerLogin(String login) {
+                if (login.equals("user3")) {
+                    throw new IllegalStateException("Corrupted wallet file");
+                }
+                return walletRepository.findByOwnerLogin(login);
+            }
+        };
+        WalletsReport report = new ReportService(failing, walletService, 2)
+                .aggregate(List.of("user1", "user3", "nobody"));
+
+        assertEquals(1, report.getWalletCount());
+        assertEquals(1, report.getMissingWallets());
+        assertEquals(List.of("user3"), report.getFailedLogins());
+    }
+
+    @Test
+    void testDeadWorkerDoesNotBlockProducer() {
+        InMemoryWalletRepository broken = new InMemoryWalletRepository() {
+            @Override
+            public Wallet findByOwnerLogin(String login) {
+                throw new AssertionError("Worker is dead");
+            }
+        };
+        List<String> logins = IntStream.range(0, 100).mapToObj(i -> "user" + i).collect(Collectors.toList());
+        ReportService single = new ReportService(broken, walletService, 1);
+
+        // очередь вмещает 4 логина: без проверки обработчиков производитель ждал бы вечно
+        IllegalStateException e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IllegalStateException.class, () -> single.aggregate(logins)));
+        assertInstanceOf(AssertionError.class, e.getCause());
+    }
+
+    @Test
+    void testWalletsInOtherCurrenciesAreConverted() {
+        Currency usd = Currency.getInstance("USD");
+        FxRateTable table = new FxRateTable(Wallet.DEFAULT_CURRENCY);
+        table.addRate(usd, LocalDate.of(2020, 1, 1), new BigDecimal("80"));
+        InMemoryWalletRepository repository = new InMemoryWalletRepository();
+        BudgetService fxBudgetService = new BudgetService(repository, new CategoryService(), new FxRateService(table));
+        WalletService fxWalletService = new WalletService(repository, fxBudgetService);
+
+        Wallet rub = new Wallet("rub", BigDecimal.ZERO);
+        fxWalletService.addIncome(rub, BigDecimal.valueOf(1000), new Category("Salary"), "");
+        fxWalletService.addExpense(rub, BigDecimal.valueOf(300), new Category("Food"), "");
+        Wallet dollars = new Wallet("usd", BigDecimal.ZERO, usd);
+        fxWalletService.addIncome(dollars, BigDecimal.valueOf(100), new Category("Salary"), "");
+        fxWalletService.addExpense(dollars, BigDecimal.valueOf(30), new Category("Food"), "");
+        fxBudgetService.setBudget(dollars, new Category("Food"), BigDecimal.valueOf(20));
+
+        WalletsReport report = new ReportService(repository, fxWalletService, 2).aggregate(List.of("rub", "usd"));
+
+        assertEquals(2, report.getWalletCount());
+        assertEquals(0, new BigDecimal("9000").compareTo(report.getTotalIncome()));
+        assertEquals(0, new BigDecimal("2700").compareTo(report.getTotalExpense()));
+        assertEquals(0, new BigDecimal("6300").compareTo(report.getTotalBalance()));
+        assertEquals(0, new BigDecimal("1600").compareTo(report.getTotalBudgetLimit()));
+        assertEquals(1, report.getExceededBudgets());
+
+        WalletsReport inDollars = new ReportService(repository, fxWalletService, 2, usd)
+                .aggregate(List.of("rub", "usd"));
+        assertEquals(usd, inDollars.getCurrency());
+        assertEquals(0, new BigDecimal("112.50").compareTo(inDollars.getTotalIncome()));
+    }
+}
@@ -0,0 +1,126 @@
+package vp.financemanager.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.Session;
+import vp.financemanager.core.models.User;
+import vp.financemanager.infra.repository.InMemoryUserRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionServiceTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T10:00:00Z");
+
+    private final AtomicInteger passwordChecks = new AtomicInteger();
+    private SessionService sessionService;
+
+    @BeforeEach
+    void setUp() {
+        PasswordHasher hasher = new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.MIN_ITERATIONS) {
+            @Override
+            public boolean matches(String rawPassword, String passwordHash) {
+                passwordChecks.incrementAndGet();
+                return super.matches(rawPassword, passwordHash);
+            }
+        };
+        UserService userService = new UserService(new InMemoryUserRepository(), hasher);
+        userService.register("alice", "secret", BigDecimal.ZERO);
+        userService.register("bob", "secret", BigDecimal.ZERO);
+        sessionService = new SessionService(userService, Duration.ofHours(1), Duration.ofMinutes(10));
+    }
+
+    @Test
+    void testTokenAuthenticatesWithoutPasswordCheck() {
+        Session session = sessionService.login("alice", "secret", START);
+        assertNull(sessionService.login("alice", "wrong", START));
+        assertEquals(2, passwordChecks.get());
+
+        for (int i = 0; i < 100; i++) {
+            User user = sessionService.authenticate(session.getToken(), START.plusSeconds(i));
+            assertEquals("alice", user.getLogin());
+        }
+
+        assertEquals(2, passwordChecks.get());
+        assertNull(sessionService.authenticate("unknown", START));
+        assertNotEquals(session.getToken(), sessionService.login("alice", "secret", START).getToken());
+    }
+
+    @Test
+    void testIdleTimeoutAndTtl() {
+        Session idle = sessionService.login("alice", "secret", START);
+        Session active = sessionService.login("bob", "secret", START);
+
+        // каждое обращение продлевает простой, но не абсолютный срок жизни
+        for (int minute = 5; minute < 60; minute += 5) {
+            assertNotNull(sessionService.authenticate(active.getToken(), START.plus(Duration.ofMinutes(minute))));
+        }
+        assertNull(sessionService.authenticate(idle.getToken(), START.plus(Duration.ofMinutes(10))));
+        assertNull(sessionService.authenticate(active.getToken(), START.plus(Duration.ofMinutes(60))));
+        assertEquals(0, sessionService.getActiveSessionCount());
+    }
+
+    @Test
+    void testLogoutAndSweep() {
+        Session first = sessionService.login("alice", "secret", START);
+        sessionService.login("bob", "secret", START);
+        Session late = sessionService.login("bob", "secret", START.plus(Duration.ofMinutes(8)));
+
+        assertTrue(sessionService.logout(first.getToken()));
+        assertFalse(sessionService.logout(first.getToken()));
+        assertNull(sessionService.authenticate(first.getToken(), START));
+
+        assertEquals(1, sessionService.evictExpired(START.plus(Duration.ofMinutes(12))));
+        assertEquals(1, sessionService.getActiveSessionCount());
+
+        // вход после интервала чистки сам удаляет истекшие сессии
+        sessionService.login("alice", "secret", START.plus(Duration.ofMinutes(30)));
+        assertEquals(1, sessionService.getActiveSessionCount());
+        assertNull(sessionService.authenticate(late.getToken(), START.plus(Duration.ofMinutes(30))));
+    }
+
+    @Test
+    void testConcurrentAuthenticationAndEviction() throws Exception {
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            sessions.add(sessionService.login(i % 2 == 0 ? "alice" : "bob", "secret", START));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    int authenticated = 0;
+                    for (int round = 0; round < 200; round++) {
+                        for (Session session : sessions) {
+                            if (sessionService.authenticate(session.getToken(), START.plusSeconds(round)) != null) {
+                                authenticated++;
+                            }
+                        }
+                        sessionService.evictExpired(START.plusSeconds(round));
+                    }
+                    return authenticated;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(200 * sessions.size(), result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(sessions.size(), sessionService.getActiveSessionCount());
+        assertEquals(sessions.size(), sessionService.evictExpired(START.plus(Duration.ofHours(1))));
+    }
+}
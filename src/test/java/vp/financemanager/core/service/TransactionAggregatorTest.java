@@ -0,0 +1,70 @@
+package vp.financemanager.core.service;
+
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionAggregatorTest {
+
+    private final TransactionAggregator sequential = new TransactionAggregator(Integer.MAX_VALUE, ForkJoinPool.commonPool());
+    private final TransactionAggregator parallel = new TransactionAggregator(1, new ForkJoinPool(4));
+
+    @Test
+    void testParallelSumsMatchSequential() {
+        List<Transaction> transactions = randomTransactions(100_000);
+
+        Map<Category, BigDecimal> expected = sequential.sumByCategory(transactions, TransactionType.EXPENSE, null);
+        Map<Category, BigDecimal> actual = parallel.sumByCategory(transactions, TransactionType.EXPENSE, null);
+
+        assertEquals(expected, actual);
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(actual.keySet()));
+    }
+
+    @Test
+    void testSmallLeavesMatchSequential() {
+        List<Transaction> transactions = randomTransactions(20_000);
+        TransactionAggregator fineGrained = new TransactionAggregator(1, 16, new ForkJoinPool(4));
+
+        assertEquals(sequential.sumByCategory(transactions, TransactionType.EXPENSE, null),
+                fineGrained.sumByCategory(transactions, TransactionType.EXPENSE, null));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionAggregator(1, 0, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void testParallelSumWithCategoryFilter() {
+        List<Transaction> transactions = randomTransactions(50_000);
+        List<Category> categories = List.of(new Category("category1"), new Category("CATEGORY2"));
+
+        assertEquals(sequential.sum(transactions, TransactionType.INCOME, categories),
+                parallel.sum(transactions, TransactionType.INCOME, categories));
+    }
+
+    @Test
+    void testEmptyList() {
+        assertEquals(BigDecimal.ZERO, parallel.sum(List.of(), TransactionType.EXPENSE, null));
+    }
+
+    private List<Transaction> randomTransactions(int count) {
+        Random random = new Random(42);
+        LocalDateTime timestamp = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TransactionType type = random.nextBoolean() ? TransactionType.INCOME : TransactionType.EXPENSE;
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+            Category category = new Category("Category" + random.nextInt(20));
+            transactions.add(new Transaction(type, amount, category, "", timestamp));
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,133 @@
+package vp.financemanager.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.repository.CommitNotAppliedException;
+import vp.financemanager.infra.repository.InMemoryWalletRepository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferServiceTest {
+
+    private InMemoryWalletRepository walletRepository;
+    private TransferService transferService;
+    private Wallet alice;
+    private Wallet bob;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = new InMemoryWalletRepository();
+        transferService = new TransferService(walletRepository);
+        alice = new Wallet("alice", BigDecimal.valueOf(1000));
+        bob = new Wallet("bob", BigDecimal.valueOf(500));
+    }
+
+    @Test
+    void testTransferLinksBothTransactions() {
+        String transferId = transferService.transfer(alice, bob, BigDecimal.valueOf(300), "Долг");
+
+        assertEquals(BigDecimal.valueOf(700), alice.getBalance());
+        assertEquals(BigDecimal.valueOf(800), bob.getBalance());
+
+        Transaction debit = alice.getTransactions().get(0);
+        Transaction credit = bob.getTransactions().get(0);
+        assertEquals(TransactionType.EXPENSE, debit.getType());
+        assertEquals(TransactionType.INCOME, credit.getType());
+        assertEquals(transferId, debit.getTransferId());
+        assertEquals(transferId, credit.getTransferId());
+        assertTrue(debit.isTransfer());
+        assertSame(alice, walletRepository.findByOwnerLogin("alice"));
+        assertSame(bob, walletRepository.findByOwnerLogin("bob"));
+    }
+
+    @Test
+    void testRejectsInvalidTransfers() {
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.transfer(alice, bob, BigDecimal.valueOf(1001), ""));
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.transfer(alice, new Wallet("alice", BigDecimal.ZERO), BigDecimal.ONE, ""));
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.transfer(alice, bob, BigDecimal.ZERO, ""));
+
+        assertTrue(alice.getTransactions().isEmpty());
+        assertTrue(bob.getTransactions().isEmpty());
+    }
+
+    @Test
+    void testFailedCommitRollsBackBothWallets() {
+        TransferService failing = new TransferService(new InMemoryWalletRepository() {
+            @Override
+            public void saveAll(List<Wallet> wallets) {
+                throw new RuntimeException("disk full");
+            }
+        });
+
+        assertThrows(RuntimeException.class, () -> failing.transfer(alice, bob, BigDecimal.valueOf(300), ""));
+
+        assertEquals(BigDecimal.valueOf(1000), alice.getBalance());
+        assertEquals(BigDecimal.valueOf(500), bob.getBalance());
+        assertTrue(alice.getTransactions().isEmpty());
+        assertEquals(0, bob.getIndex().getCategories().size());
+        assertTrue(bob.getRollups().getDays(TransactionType.INCOME).isEmpty());
+    }
+
+    @Test
+    void testCommittedButUnappliedTransferIsKept() {
+        TransferService unapplied = new TransferService(new InMemoryWalletRepository() {
+            @Override
+            public void saveAll(List<Wallet> wallets) {
+                throw new CommitNotAppliedException("c1", new IOException("rename failed"));
+            }
+        });
+
+        assertThrows(CommitNotAppliedException.class,
+                () -> unapplied.transfer(alice, bob, BigDecimal.valueOf(300), ""));
+
+        assertEquals(BigDecimal.valueOf(700), alice.getBalance());
+        assertEquals(BigDecimal.valueOf(800), bob.getBalance());
+    }
+
+    @Test
+    void testOppositeConcurrentTransfersDoNotDeadlock() throws Exception {
+        SynchronizedRepository repository = new SynchronizedRepository();
+        TransferService service = new TransferService(repository);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> service.transfer(alice, bob, BigDecimal.ONE, "")));
+                futures.add(executor.submit(() -> service.transfer(bob, alice, BigDecimal.ONE, "")));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(BigDecimal.valueOf(1000), alice.getBalance());
+        assertEquals(BigDecimal.valueOf(500), bob.getBalance());
+        assertEquals(400, alice.getTransactions().size());
+        assertEquals(400, bob.getTransactions().size());
+    }
+
+    // InMemoryWalletRepository рассчитан на один поток
+    private static class SynchronizedRepository extends InMemoryWalletRepository {
+        @Override
+        public synchronized Wallet save(Wallet wallet) {
+            return super.save(wallet);
+        }
+    }
+}
@@ -3,10 +3,19 @@ package vp.financemanager.core.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import vp.financemanager.core.models.User;
+import vp.financemanager.core.models.Wallet;
 import vp.financemanager.core.repository.UserRepository;
 import vp.financemanager.infra.repository.InMemoryUserRepository;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,7 +28,7 @@ class UserServiceTest {
     @BeforeEach
     void setUp() {
         userRepository = new InMemoryUserRepository();
-        passwordHasher = new PasswordHasher();
+        passwordHasher = new DelegatingPasswordHasher();
         userService = new UserService(userRepository, passwordHasher);
     }
 
@@ -42,6 +51,42 @@ class UserServiceTest {
         });
     }
 
+    @Test
+    void testConcurrentRegistrationOfSameLoginCreatesOneUser() throws Exception {
+        UserService cheapService = new UserService(userRepository,
+                new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.MIN_ITERATIONS));
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<User>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String password = "password" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cheapService.register("race", password, BigDecimal.ZERO);
+                }));
+            }
+            start.countDown();
+
+            User winner = null;
+            int rejected = 0;
+            for (Future<User> result : results) {
+                try {
+                    winner = result.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(IllegalArgumentException.class, e.getCause());
+                    rejected++;
+                }
+            }
+
+            assertEquals(threads - 1, rejected);
+            assertSame(winner, userRepository.findByLogin("race").orElseThrow());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     void testRegisterWithEmptyPassword() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -68,6 +113,24 @@ class UserServiceTest {
         assertNull(loggedIn);
     }
 
+    @Test
+    void testLoginRehashesLegacyPassword() {
+        // SHA-256("password123") без соли — формат прежних версий
+        String legacyHash = "ef92b778bafe771e89245b89ecbc08a44a4e166c06659911881f383d4473e94f";
+        userRepository.save(new User("legacy", legacyHash, new Wallet("legacy", BigDecimal.ZERO)));
+
+        assertNull(userService.login("legacy", "wrongpassword"));
+        assertEquals(legacyHash, userRepository.findByLogin("legacy").orElseThrow().getPasswordHash());
+
+        User loggedIn = userService.login("legacy", "password123");
+
+        assertNotNull(loggedIn);
+        String rehashed = userRepository.findByLogin("legacy").orElseThrow().getPasswordHash();
+        assertTrue(rehashed.startsWith("pbkdf2-sha256$"));
+        assertFalse(passwordHasher.needsRehash(rehashed));
+        assertSame(loggedIn, userService.login("legacy", "password123"));
+    }
+
     @Test
     void testLoginWithNonExistentUser() {
         User loggedIn = userService.login("nonexistent", "password123");
@@ -2,13 +2,47 @@ package vp.financemanager.core.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vp.financemanager.core.csv.CsvCompression;
+import vp.financemanager.core.csv.CsvImportPipeline;
+import vp.financemanager.core.csv.CsvTransactionWriter;
+import vp.financemanager.core.format.TransactionFormat;
 import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.CategoryTotal;
+import vp.financemanager.core.models.FxRateTable;
+import vp.financemanager.core.models.ImportErrorKind;
+import vp.financemanager.core.models.ImportProgress;
+import vp.financemanager.core.models.ImportReport;
+import vp.financemanager.core.models.RollupBucket;
+import vp.financemanager.core.models.RollupGranularity;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionRequest;
+import vp.financemanager.core.models.TransactionResult;
 import vp.financemanager.core.models.TransactionType;
 import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.query.TransactionQuery;
 import vp.financemanager.core.repository.WalletRepository;
 import vp.financemanager.infra.repository.InMemoryWalletRepository;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -102,5 +136,543 @@ class WalletServiceTest {
             walletService.addExpense(wallet, BigDecimal.ZERO, category, "");
         });
     }
-}
 
+    @Test
+    void testAddTransactionsSavesOnceAndReportsRows() {
+        CountingWalletRepository countingRepository = new CountingWalletRepository();
+        BudgetService countingBudgetService = new BudgetService(countingRepository, categoryService);
+        WalletService countingWalletService = new WalletService(countingRepository, countingBudgetService);
+
+        List<TransactionRequest> requests = List.of(
+                new TransactionRequest(TransactionType.INCOME, BigDecimal.valueOf(5000), new Category("Salary"), ""),
+                new TransactionRequest(TransactionType.EXPENSE, BigDecimal.valueOf(200), new Category("Food"), ""),
+                new TransactionRequest(TransactionType.EXPENSE, BigDecimal.ZERO, new Category("Food"), ""),
+                new TransactionRequest(TransactionType.EXPENSE, BigDecimal.valueOf(300), new Category("food"), ""),
+                new TransactionRequest(TransactionType.EXPENSE, BigDecimal.valueOf(100), new Category("Taxi"), "")
+        );
+
+        List<TransactionResult> results = countingWalletService.addTransactions(wallet, requests);
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals(2, results.get(2).getIndex());
+        assertEquals(1, countingRepository.saves);
+        assertEquals(4, wallet.getTransactions().size());
+        assertEquals(BigDecimal.valueOf(4400), wallet.getBalance());
+        assertEquals(BigDecimal.valueOf(500), wallet.getCategoryBudget(new Category("Food")).getSpent());
+        assertEquals("Food", results.get(3).getTransaction().getCategory().getName());
+        assertNotNull(wallet.getCategoryBudget(new Category("Taxi")));
+    }
+
+    @Test
+    void testAddTransactionsWithoutValidRowsDoesNotSave() {
+        CountingWalletRepository countingRepository = new CountingWalletRepository();
+        WalletService countingWalletService = new WalletService(countingRepository,
+                new BudgetService(countingRepository, categoryService));
+
+        List<TransactionResult> results = countingWalletService.addTransactions(wallet, List.of(
+                new TransactionRequest(null, BigDecimal.ONE, new Category("Food"), "")));
+
+        assertFalse(results.get(0).isSuccess());
+        assertEquals(0, countingRepository.saves);
+    }
+
+    @Test
+    void testImportCreatesBudgetsInMemoryAndSavesOnce() throws IOException {
+        CountingWalletRepository countingRepository = new CountingWalletRepository();
+        WalletService countingWalletService = new WalletService(countingRepository,
+                new BudgetService(countingRepository, categoryService));
+        StringBuilder csv = new StringBuilder("Date,Type,Category,Amount,Description\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append("2025-01-01,EXPENSE,Category").append(i).append(",10,\n");
+        }
+
+        ImportReport report = countingWalletService.importTransactionsFromCsv(wallet,
+                new StringReader(csv.toString()), categoryService, false);
+
+        assertEquals(500, report.getImported());
+        assertEquals(1, countingRepository.saves);
+        assertEquals(500, wallet.getCategoryBudgets().size());
+        assertEquals(BigDecimal.valueOf(10), wallet.getCategoryBudget(new Category("Category7")).getSpent());
+    }
+
+    @Test
+    void testAbortedImportRollsBackWallet() {
+        CountingWalletRepository countingRepository = new CountingWalletRepository();
+        BudgetService countingBudgetService = new BudgetService(countingRepository, categoryService);
+        // мелкие блоки: первые строки успевают примениться до ошибки чтения
+        WalletService countingWalletService = new WalletService(countingRepository, countingBudgetService,
+                new TransactionAggregator(), countingBudgetService.getFxRateService(),
+                new CsvImportPipeline(Runnable::run, 32, 1));
+        wallet.setBalance(BigDecimal.valueOf(1000));
+        Category food = new Category("Food");
+        countingWalletService.addExpense(wallet, BigDecimal.valueOf(100), food, "before import");
+        int savesBefore = countingRepository.saves;
+
+        String rows = "Date,Type,Category,Amount,Description\n"
+                + "2025-01-01,EXPENSE,Food,50,\n2025-01-01,EXPENSE,Taxi,70,\n2025-01-01,INCOME,Salary,500,\n";
+        Reader failing = new Reader() {
+            private final StringReader delegate = new StringReader(rows);
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = delegate.read(buffer, offset, length);
+                if (read < 0) {
+                    throw new IOException("Disk read failed");
+                }
+                return read;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        assertThrows(IOException.class, () -> countingWalletService.importTransactionsFromCsv(wallet, failing,
+                categoryService, false));
+
+        assertEquals(savesBefore, countingRepository.saves);
+        assertEquals(1, wallet.getTransactions().size());
+        assertEquals(BigDecimal.valueOf(900), wallet.getBalance());
+        assertEquals(BigDecimal.valueOf(100), wallet.getCategoryBudget(food).getSpent());
+        assertNull(wallet.getCategoryBudget(new Category("Taxi")));
+    }
+
+    @Test
+    void testExportTransactionsToCsvStreamsFilteredRows() throws IOException {
+        wallet.setBalance(BigDecimal.valueOf(1000));
+        walletService.addExpense(wallet, BigDecimal.valueOf(200), new Category("Food"), "Groceries");
+        walletService.addExpense(wallet, BigDecimal.valueOf(300), new Category("Taxi"), "Ride, home");
+
+        StringWriter writer = new StringWriter();
+        int exported = walletService.exportTransactionsToCsv(wallet,
+                TransactionQuery.builder().category(new Category("Taxi")).build(), writer);
+
+        assertEquals(1, exported);
+        String[] lines = writer.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].contains("Taxi,300"));
+    }
+
+    @Test
+    void testChunkedImportAppliesRowsInFileOrder() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            WalletService chunked = new WalletService(walletRepository, budgetService, new TransactionAggregator(),
+                    budgetService.getFxRateService(), new CsvImportPipeline(executor, 128, 4));
+            StringBuilder csv = new StringBuilder("Date,Type,Category,Amount,Description\n");
+            for (int i = 1; i <= 500; i++) {
+                csv.append("2025-01-01,").append(i == 250 ? "REFUND" : "INCOME").append(",Salary,")
+                        .append(i).append(",#").append(i).append('\n');
+            }
+
+            ImportReport report = chunked.importTransactionsFromCsv(wallet, new StringReader(csv.toString()),
+                    categoryService, false);
+
+            assertEquals(499, report.getImported());
+            assertEquals(List.of("Line 251: Invalid transaction type 'REFUND'"), report.getErrors());
+            List<Transaction> transactions = wallet.getTransactions();
+            for (int i = 1; i < transactions.size(); i++) {
+                assertTrue(transactions.get(i).getAmount().compareTo(transactions.get(i - 1).getAmount()) > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testImportFromMappedFileChecksHeader(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("import.csv");
+        Files.writeString(file, "Date,Type,Category,Amount,Description\n"
+                + "2025-01-01,INCOME,Salary,1000,January\n"
+                + "2025-01-02,EXPENSE,Food,250.40,\"Lunch, \"\"cafe\"\"\"\n");
+
+        ImportReport report = walletService.importTransactionsFromCsv(wallet, file, categoryService, false);
+
+        assertEquals(2, report.getImported());
+        assertTrue(report.getErrors().isEmpty(), report.getErrors().toString());
+        assertEquals(new BigDecimal("749.60"), wallet.getBalance());
+        assertEquals("Lunch, \"cafe\"", wallet.getTransactions().get(1).getDescription());
+
+        Files.writeString(file, "Date;Type;Category\n2025-01-01,INCOME,Salary,1000,\n");
+        ImportReport invalid = walletService.importTransactionsFromCsv(wallet, file, categoryService, false);
+        assertEquals(0, invalid.getImported());
+        assertTrue(invalid.getErrors().get(0).startsWith("Invalid CSV header"));
+    }
+
+    @Test
+    void testImportReportsProgressAndErrorKinds(@TempDir Path dir) throws IOException {
+        StringBuilder csv = new StringBuilder(CsvTransactionWriter.HEADER).append('\n');
+        csv.append("2025-01-01,INCOME,Salary,1000,January\n");
+        csv.append("2025-01-02,EXPENSE,Food,abc,\n");
+        csv.append("2025-13-02,EXPENSE,Food,5,\n");
+        csv.append("2025-01-03,EXPENSE,Food,0,\n");
+        csv.append("2025-01-04,EXPENSE,Food,250.40,Lunch\n");
+
+        for (String name : new String[]{"import.csv", "import.csv.gz"}) {
+            Path file = dir.resolve(name);
+            try (Writer writer = CsvCompression.newWriter(file)) {
+                writer.write(csv.toString());
+            }
+            Wallet target = new Wallet("copy", BigDecimal.ZERO);
+            List<ImportProgress> updates = new ArrayList<>();
+
+            ImportReport report = walletService.importTransactions(target, file, categoryService, false,
+                    updates::add);
+
+            ImportProgress progress = report.getProgress();
+            assertSame(progress, updates.get(updates.size() - 1), name);
+            assertEquals(2, progress.getImported(), name);
+            assertEquals(5, progress.getRowsProcessed(), name);
+            assertEquals(Files.size(file), progress.getBytesRead(), name);
+            assertEquals(100, progress.getPercentRead(), name);
+            assertEquals(Map.of(ImportErrorKind.AMOUNT, 2, ImportErrorKind.DATE, 1), progress.getErrorsByKind(), name);
+            assertEquals(3, report.getErrorCount(), name);
+            assertTrue(progress.getPersistNanos() > 0, name);
+            assertTrue(progress.getElapsedNanos() >= progress.getApplyNanos() + progress.getPersistNanos(), name);
+        }
+    }
+
+    @Test
+    void testImportKeepsOnlyFirstErrorMessages() throws IOException {
+        int badRows = WalletService.MAX_IMPORT_ERRORS + 500;
+        StringBuilder csv = new StringBuilder(CsvTransactionWriter.HEADER).append('\n');
+        for (int i = 0; i < badRows; i++) {
+            csv.append("2025-01-01,EXPENSE,Food,-").append(i + 1).append(",\n");
+        }
+        csv.append("2025-01-01,INCOME,Salary,100,\n");
+
+        ImportReport report = walletService.importTransactionsFromCsv(wallet, new StringReader(csv.toString()),
+                categoryService, false);
+
+        assertEquals(1, report.getImported());
+        assertEquals(badRows, report.getErrorCount());
+        assertEquals(WalletService.MAX_IMPORT_ERRORS, report.getErrors().size());
+        assertEquals("Line 2: Amount must be greater than 0", report.getErrors().get(0));
+    }
+
+    @Test
+    void testCompressedExportImportsBack(@TempDir Path dir) throws IOException {
+        wallet.setBalance(BigDecimal.valueOf(1000));
+        walletService.addExpense(wallet, BigDecimal.valueOf(300), new Category("Taxi"), "Ride, home");
+        walletService.addIncome(wallet, BigDecimal.valueOf(500), new Category("Salary"), "");
+
+        Path file = dir.resolve("export.csv.gz");
+        try (Writer writer = CsvCompression.newWriter(file)) {
+            walletService.exportTransactionsToCsv(wallet, TransactionQuery.builder().build(), writer);
+        }
+
+        Wallet copy = new Wallet("copy", BigDecimal.valueOf(1000));
+        ImportReport report = walletService.importTransactionsFromCsv(copy, file, categoryService, false);
+
+        assertEquals(2, report.getImported());
+        assertEquals(wallet.getBalance(), copy.getBalance());
+        assertEquals("Ride, home", copy.getTransactions().get(0).getDescription());
+    }
+
+    @Test
+    void testIncrementalExportWritesOnlyNewTransactionsPerTarget() throws IOException {
+        CountingWalletRepository countingRepository = new CountingWalletRepository();
+        WalletService countingWalletService = new WalletService(countingRepository,
+                new BudgetService(countingRepository, categoryService));
+        wallet.setBalance(BigDecimal.valueOf(1000));
+        countingWalletService.addExpense(wallet, BigDecimal.valueOf(100), new Category("Food"), "first");
+        countingWalletService.addExpense(wallet, BigDecimal.valueOf(200), new Category("Taxi"), "second");
+
+        StringWriter first = new StringWriter();
+        assertEquals(2, countingWalletService.exportNewTransactionsToCsv(wallet, "accounting", first));
+
+        // транзакция задним числом тоже новая для выгрузки
+        countingWalletService.addTransactions(wallet, List.of(new TransactionRequest(TransactionType.EXPENSE,
+                BigDecimal.valueOf(300), new Category("Food"), "back-dated", LocalDate.of(2020, 1, 1).atStartOfDay())));
+        assertEquals(1, countingWalletService.countPendingExport(wallet, "accounting"));
+        assertEquals(3, countingWalletService.countPendingExport(wallet, "bank"));
+
+        StringWriter second = new StringWriter();
+        assertEquals(1, countingWalletService.exportNewTransactionsToCsv(wallet, "accounting", second));
+        String[] lines = second.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("2020-01-01,EXPENSE,Food,300,back-dated"));
+
+        int saves = countingRepository.saves;
+        StringWriter empty = new StringWriter();
+        assertEquals(0, countingWalletService.exportNewTransactionsToCsv(wallet, "accounting", empty));
+        assertEquals(saves, countingRepository.saves);
+
+        assertEquals(3, countingWalletService.exportNewTransactionsToCsv(wallet, "bank", new StringWriter()));
+        assertEquals(0, countingWalletService.countPendingExport(wallet, "bank"));
+    }
+
+    @Test
+    void testIncrementalExportMovesWatermarkOnlyAfterFileIsComplete(@TempDir Path dir) throws IOException {
+        wallet.setBalance(BigDecimal.valueOf(1000));
+        walletService.addExpense(wallet, BigDecimal.valueOf(100), new Category("Food"), "first");
+
+        // у сжатого файла концевик пишется при закрытии — сбой там не должен сдвигать отметку
+        Writer failingClose = new StringWriter() {
+            @Override
+            public void close() throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        assertThrows(IOException.class, () -> walletService.exportNewTransactionsToCsv(wallet, "bank", failingClose));
+        assertEquals(1, walletService.countPendingExport(wallet, "bank"));
+
+        Path file = dir.resolve("bank.csv.gz");
+        assertEquals(1, walletService.exportNewTransactionsToCsv(wallet, "bank", file));
+        try (Reader reader = CsvCompression.newReader(file)) {
+            Wallet copy = new Wallet("copy", BigDecimal.valueOf(1000));
+            assertEquals(1, walletService.importTransactionsFromCsv(copy, reader, categoryService, false).getImported());
+        }
+
+        // второй запуск в тот же файл не затирает уже выгруженные строки
+        walletService.addExpense(wallet, BigDecimal.valueOf(50), new Category("Food"), "second");
+        assertThrows(FileAlreadyExistsException.class,
+                () -> walletService.exportNewTransactionsToCsv(wallet, "bank", file));
+        assertTrue(Files.size(file) > 0);
+        assertEquals(1, walletService.countPendingExport(wallet, "bank"));
+    }
+
+    @Test
+    void testColumnarAndJsonLinesExportsImportBack(@TempDir Path dir) throws IOException {
+        wallet.setBalance(BigDecimal.valueOf(1000));
+        walletService.addExpense(wallet, new BigDecimal("300.50"), new Category("Taxi"), "Ride, home");
+        walletService.addIncome(wallet, BigDecimal.valueOf(500), new Category("Salary"), "");
+
+        for (String name : new String[]{"export.txc", "export.jsonl.gz"}) {
+            Path file = dir.resolve(name);
+            try (OutputStream out = CsvCompression.newOutputStream(file)) {
+                walletService.exportTransactions(wallet, TransactionQuery.all(), TransactionFormat.forFileName(name),
+                        out);
+            }
+
+            Wallet copy = new Wallet("copy", BigDecimal.valueOf(1000));
+            ImportReport report = walletService.importTransactions(copy, file, categoryService, false);
+
+            assertEquals(2, report.getImported(), name);
+            assertEquals(wallet.getBalance(), copy.getBalance(), name);
+            assertEquals(wallet.getTransactions().get(0).getTimestamp(),
+                    copy.getTransactions().get(0).getTimestamp(), name);
+            assertEquals(new BigDecimal("300.50"), copy.getCategoryBudget(new Category("Taxi")).getSpent(), name);
+        }
+    }
+
+    @Test
+    void testExportedCsvImportsBackWithQuotedFields() throws IOException {
+        wallet.setBalance(BigDecimal.valueOf(1000));
+        walletService.addExpense(wallet, BigDecimal.valueOf(300), new Category("Taxi"), "Ride, \"home\"");
+
+        StringWriter writer = new StringWriter();
+        walletService.exportTransactionsToCsv(wallet, TransactionQuery.builder().build(), writer);
+        assertTrue(writer.toString().contains("Taxi,300,\"Ride, \"\"home\"\"\""));
+
+        Wallet copy = new Wallet("copy", BigDecimal.valueOf(1000));
+        List<String> errors = walletService.importTransactionsFromCsv(copy,
+                new StringReader(writer.toString()), categoryService);
+
+        assertTrue(errors.isEmpty(), errors.toString());
+        assertEquals("Ride, \"home\"", copy.getTransactions().get(0).getDescription());
+    }
+
+    @Test
+    void testGetTopCategoriesAndLargestTransactions() {
+        wallet.setBalance(BigDecimal.valueOf(10000));
+        walletService.addExpense(wallet, BigDecimal.valueOf(100), new Category("Food"), "");
+        walletService.addExpense(wallet, BigDecimal.valueOf(700), new Category("Rent"), "");
+        walletService.addExpense(wallet, BigDecimal.valueOf(300), new Category("Taxi"), "first");
+        walletService.addExpense(wallet, BigDecimal.valueOf(400), new Category("food"), "");
+        walletService.addExpense(wallet, BigDecimal.valueOf(300), new Category("Taxi"), "second");
+        walletService.addIncome(wallet, BigDecimal.valueOf(5000), new Category("Salary"), "");
+
+        TransactionQuery expenses = TransactionQuery.builder().type(TransactionType.EXPENSE).build();
+
+        List<CategoryTotal> topCategories = walletService.getTopCategories(wallet, expenses, 2);
+        assertEquals(List.of(new CategoryTotal(new Category("Rent"), BigDecimal.valueOf(700)),
+                new CategoryTotal(new Category("Taxi"), BigDecimal.valueOf(600))), topCategories);
+
+        List<Transaction> largest = walletService.getLargestTransactions(wallet, expenses, 3);
+        assertEquals(List.of(BigDecimal.valueOf(700), BigDecimal.valueOf(400), BigDecimal.valueOf(300)),
+                largest.stream().map(Transaction::getAmount).toList());
+        assertEquals("first", largest.get(2).getDescription());
+    }
+
+    @Test
+    void testTopCategoriesAndLargestTransactionsCompareInWalletCurrency() {
+        Currency usd = Currency.getInstance("USD");
+        FxRateTable table = new FxRateTable(Wallet.DEFAULT_CURRENCY);
+        table.addRate(usd, LocalDate.of(2026, 1, 1), new BigDecimal("80"));
+        BudgetService fxBudgetService = new BudgetService(walletRepository, categoryService, new FxRateService(table));
+        WalletService fxWalletService = new WalletService(walletRepository, fxBudgetService);
+        fxWalletService.addTransactions(wallet, List.of(
+                new TransactionRequest(TransactionType.INCOME, BigDecimal.valueOf(100000), new Category("Salary"), "",
+                        LocalDate.of(2026, 1, 10).atStartOfDay()),
+                new TransactionRequest(TransactionType.EXPENSE, BigDecimal.valueOf(5000), new Category("Food"), "",
+                        LocalDate.of(2026, 1, 12).atStartOfDay()),
+                new TransactionRequest(TransactionType.EXPENSE, BigDecimal.valueOf(100), new Category("Travel"), "",
+                        LocalDate.of(2026, 1, 15).atStartOfDay(), usd)));
+
+        TransactionQuery expenses = TransactionQuery.builder().type(TransactionType.EXPENSE).build();
+
+        // 100 USD по 80 — это 8000 в валюте кошелька, больше 5000
+        assertEquals(List.of(new CategoryTotal(new Category("Travel"), new BigDecimal("8000.00")),
+                        new CategoryTotal(new Category("Food"), new BigDecimal("5000.00"))),
+                fxWalletService.getTopCategories(wallet, expenses, 2));
+        assertEquals(List.of("Travel", "Food"), fxWalletService.getLargestTransactions(wallet, expenses, 2).stream()
+                .map(tx -> tx.getCategory().getName()).toList());
+        assertEquals(new BigDecimal("8000.00"),
+                fxWalletService.getAmountInWalletCurrency(wallet, wallet.getTransactions().get(2)));
+    }
+
+    @Test
+    void testTopCategoriesWithEqualTotalsAreOrderedByName() {
+        wallet.setBalance(BigDecimal.valueOf(10000));
+        for (String name : List.of("Taxi", "cafe", "Rent", "Books", "Gym")) {
+            walletService.addExpense(wallet, BigDecimal.valueOf(200), new Category(name), "");
+        }
+        walletService.addExpense(wallet, BigDecimal.valueOf(50), new Category("Food"), "");
+
+        List<CategoryTotal> top = walletService.getTopCategories(wallet, TransactionQuery.all(), 3);
+        assertEquals(List.of("Books", "cafe", "Gym"), top.stream().map(t -> t.getCategory().getName()).toList());
+    }
+
+    @Test
+    void testGetRollupByWeekAndMonth() {
+        List<TransactionRequest> requests = List.of(
+                expenseOn(LocalDate.of(2025, 3, 3), 100, "Food"),     // понедельник
+                expenseOn(LocalDate.of(2025, 3, 9), 50, "Food"),      // воскресенье той же недели
+                expenseOn(LocalDate.of(2025, 3, 10), 30, "Taxi"),
+                expenseOn(LocalDate.of(2025, 4, 1), 70, "Food"));
+        walletService.addTransactions(wallet, requests);
+
+        NavigableMap<LocalDate, RollupBucket> weeks = walletService.getRollup(wallet, TransactionType.EXPENSE,
+                new Category("Food"), RollupGranularity.WEEK, null, null);
+        assertEquals(BigDecimal.valueOf(150), weeks.get(LocalDate.of(2025, 3, 3)).getSum());
+        assertEquals(2, weeks.size());
+
+        NavigableMap<LocalDate, RollupBucket> months = walletService.getRollup(wallet, TransactionType.EXPENSE,
+                null, RollupGranularity.MONTH, LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31));
+        assertEquals(1, months.size());
+        assertEquals(BigDecimal.valueOf(180), months.get(LocalDate.of(2025, 3, 1)).getSum());
+        assertEquals(3, months.get(LocalDate.of(2025, 3, 1)).getCount());
+        assertEquals(BigDecimal.valueOf(30), months.get(LocalDate.of(2025, 3, 1)).getMin());
+    }
+
+    @Test
+    void testExpenseQuantilesFollowNewExpenses() {
+        Category food = new Category("Food");
+        for (int i = 1; i <= 10; i++) {
+            walletService.addExpense(wallet, BigDecimal.valueOf(i * 10), food, "");
+        }
+        assertEquals(new BigDecimal("50.00"), walletService.getExpenseQuantile(wallet, food, 0.5));
+
+        walletService.addExpense(wallet, BigDecimal.valueOf(1000), food, "");
+        assertEquals(new BigDecimal("1000.00"), walletService.getExpenseQuantile(wallet, food, 0.99));
+        assertNull(walletService.getExpenseQuantile(wallet, new Category("Taxi"), 0.5));
+
+        Wallet other = new Wallet("other", BigDecimal.ZERO);
+        walletService.addExpense(other, BigDecimal.valueOf(5), food, "");
+        assertEquals(12, walletService.mergeExpenseSketches(List.of(wallet, other), food,
+                Wallet.DEFAULT_CURRENCY).getCount());
+    }
+
+    private TransactionRequest expenseOn(LocalDate date, int amount, String category) {
+        return new TransactionRequest(TransactionType.EXPENSE, BigDecimal.valueOf(amount), new Category(category),
+                "", date.atTime(12, 0));
+    }
+
+    @Test
+    void testMultiCurrencyTotalsAreConvertedPerDay() {
+        Currency usd = Currency.getInstance("USD");
+        FxRateTable table = new FxRateTable(Wallet.DEFAULT_CURRENCY);
+        table.addRate(usd, LocalDate.of(2026, 1, 1), new BigDecimal("80"));
+        table.addRate(usd, LocalDate.of(2026, 2, 1), new BigDecimal("90"));
+        BudgetService fxBudgetService = new BudgetService(walletRepository, categoryService, new FxRateService(table));
+        WalletService fxWalletService = new WalletService(walletRepository, fxBudgetService);
+
+        fxWalletService.addTransactions(wallet, List.of(
+                new TransactionRequest(TransactionType.INCOME, BigDecimal.valueOf(50000), new Category("Salary"), "",
+                        LocalDate.of(2026, 1, 10).atStartOfDay()),
+                new TransactionRequest(TransactionType.EXPENSE, BigDecimal.valueOf(100), new Category("Travel"), "",
+                        LocalDate.of(2026, 1, 15).atStartOfDay(), usd),
+                new TransactionRequest(TransactionType.EXPENSE, BigDecimal.valueOf(10), new Category("Travel"), "",
+                        LocalDate.of(2026, 2, 15).atStartOfDay(), usd),
+                new TransactionRequest(TransactionType.EXPENSE, BigDecimal.valueOf(10), new Category("Travel"), "",
+                        LocalDate.of(2025, 12, 31).atStartOfDay(), usd)));
+
+        // курса на 2025-12-31 нет — строка отклонена, кошелек не изменен
+        assertEquals(3, wallet.getTransactions().size());
+        assertEquals(BigDecimal.valueOf(50000), wallet.getBalance());
+        assertEquals(BigDecimal.valueOf(-110), wallet.getBalance(usd));
+
+        assertEquals(new BigDecimal("8900.00"), fxWalletService.getTotalExpense(wallet));
+        assertEquals(new BigDecimal("110.00"), fxWalletService.getConvertedTotal(wallet, TransactionType.EXPENSE,
+                null, usd));
+        assertEquals(new BigDecimal("8900.00"), wallet.getCategoryBudget(new Category("Travel")).getSpent());
+        assertEquals(new BigDecimal("40100.00"),
+                fxWalletService.getConvertedBalance(wallet, Wallet.DEFAULT_CURRENCY, LocalDate.of(2026, 2, 20)));
+    }
+
+    @Test
+    void testCsvExportKeepsCurrencyForReimport(@TempDir Path dir) throws IOException {
+        Currency usd = Currency.getInstance("USD");
+        FxRateTable table = new FxRateTable(Wallet.DEFAULT_CURRENCY);
+        table.addRate(usd, LocalDate.of(2026, 1, 1), new BigDecimal("80"));
+        BudgetService fxBudgetService = new BudgetService(walletRepository, categoryService, new FxRateService(table));
+        WalletService fxWalletService = new WalletService(walletRepository, fxBudgetService);
+        fxWalletService.addTransactions(wallet, List.of(
+                new TransactionRequest(TransactionType.EXPENSE, new BigDecimal("50.00"), new Category("Travel"), "",
+                        LocalDate.of(2026, 1, 15).atStartOfDay(), usd)));
+
+        Path file = dir.resolve("export.csv");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            fxWalletService.exportTransactionsToCsv(wallet, TransactionQuery.builder().build(), writer);
+        }
+        assertTrue(Files.readString(file).contains("Travel,50.00,,USD"));
+
+        ImportReport again = fxWalletService.importTransactionsFromCsv(wallet, file, categoryService, true);
+        assertEquals(0, again.getImported());
+        assertEquals(1, again.getSkippedDuplicates());
+
+        Wallet copy = new Wallet("copy", BigDecimal.ZERO);
+        fxWalletService.importTransactionsFromCsv(copy, file, categoryService, false);
+        assertEquals(usd, copy.getTransactions().get(0).getCurrency());
+        assertEquals(new BigDecimal("-50.00"), copy.getBalance(usd));
+    }
+
+    @Test
+    void testReimportSkipsDuplicatesButKeepsRepeatedRows() throws IOException {
+        String csv = "Date,Type,Category,Amount,Description\n"
+                + "2026-03-01,EXPENSE,Food,250.00,\"Кофе\"\n"
+                + "2026-03-01,EXPENSE,Food,250.00,\"Кофе\"\n"
+                + "2026-03-02,INCOME,Salary,1000,\"\"\n";
+
+        ImportReport first = walletService.importTransactionsFromCsv(wallet, new StringReader(csv), categoryService, true);
+        assertEquals(3, first.getImported());
+        assertEquals(0, first.getSkippedDuplicates());
+
+        String overlapping = csv + "2026-03-03,EXPENSE,food,100,\"Обед\"\n";
+        ImportReport second = walletService.importTransactionsFromCsv(wallet, new StringReader(overlapping),
+                categoryService, true);
+
+        assertEquals(1, second.getImported());
+        assertEquals(3, second.getSkippedDuplicates());
+        assertEquals(4, wallet.getTransactions().size());
+        assertEquals(0, new BigDecimal("600").compareTo(wallet.getCategoryBudget(new Category("Food")).getSpent()));
+
+        ImportReport withoutCheck = walletService.importTransactionsFromCsv(wallet, new StringReader(csv),
+                categoryService, false);
+        assertEquals(3, withoutCheck.getImported());
+        assertEquals(7, wallet.getTransactions().size());
+    }
+
+    private static class CountingWalletRepository extends InMemoryWalletRepository {
+        private int saves;
+
+        @Override
+        public Wallet save(Wallet wallet) {
+            saves++;
+            return super.save(wallet);
+        }
+    }
+}
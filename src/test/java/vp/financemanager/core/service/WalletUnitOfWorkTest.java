@@ -0,0 +1,98 @@
+package vp.financemanager.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.CategoryBudget;
+import vp.financemanager.core.models.RollupBucket;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.infra.repository.InMemoryWalletRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletUnitOfWorkTest {
+
+    private Wallet wallet;
+    private CategoryService categoryService;
+
+    @BeforeEach
+    void setUp() {
+        wallet = new Wallet("testuser", BigDecimal.valueOf(1000));
+        categoryService = new CategoryService();
+    }
+
+    @Test
+    void testFailedCommitRollsBackEverything() {
+        FailingWalletRepository repository = new FailingWalletRepository();
+        BudgetService budgetService = new BudgetService(repository, categoryService);
+        CategoryBudget food = budgetService.createBudgetIfMissing(wallet, new Category("Food"));
+        food.addSpent(BigDecimal.valueOf(40));
+
+        WalletUnitOfWork unitOfWork = new WalletUnitOfWork(repository, budgetService, wallet);
+        unitOfWork.addSpent(unitOfWork.ensureBudgetExists(new Category("food")), BigDecimal.valueOf(60));
+        CategoryBudget taxi = unitOfWork.ensureBudgetExists(new Category("Taxi"));
+        unitOfWork.addSpent(taxi, BigDecimal.TEN);
+        unitOfWork.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.TEN, taxi.getCategory(),
+                "", LocalDateTime.now()));
+
+        assertThrows(IllegalStateException.class, unitOfWork::commit);
+
+        assertEquals(1, repository.saves);
+        assertEquals(BigDecimal.valueOf(1000), wallet.getBalance());
+        assertTrue(wallet.getTransactions().isEmpty());
+        assertEquals(BigDecimal.valueOf(40), food.getSpent());
+        assertNull(wallet.getCategoryBudget(new Category("Taxi")));
+        assertThrows(IllegalStateException.class, () -> unitOfWork.addSpent(food, BigDecimal.ONE));
+    }
+
+    @Test
+    void testRollbackRestoresRollupsOfTouchedDays() {
+        FailingWalletRepository repository = new FailingWalletRepository();
+        BudgetService budgetService = new BudgetService(repository, categoryService);
+        LocalDateTime day = LocalDateTime.of(2025, 3, 10, 12, 0);
+        Category food = new Category("Food");
+        wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(70), food, "", day));
+        RollupBucket before = wallet.getRollups().getDays(TransactionType.EXPENSE).get(food).get(day.toLocalDate());
+
+        WalletUnitOfWork unitOfWork = new WalletUnitOfWork(repository, budgetService, wallet);
+        for (int i = 1; i <= 500; i++) {
+            unitOfWork.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(i),
+                    i % 2 == 0 ? food : new Category("Taxi"), "", day.plusDays(i % 3)));
+        }
+        assertThrows(IllegalStateException.class, unitOfWork::commit);
+
+        assertEquals(1, wallet.getTransactions().size());
+        assertEquals(BigDecimal.valueOf(930), wallet.getBalance());
+        RollupBucket after = wallet.getRollups().getDays(TransactionType.EXPENSE).get(food).get(day.toLocalDate());
+        assertEquals(before.getSum(), after.getSum());
+        assertEquals(1, after.getCount());
+        assertEquals(1, wallet.getRollups().getDays(TransactionType.EXPENSE).get(food).size());
+        assertNull(wallet.getRollups().getDays(TransactionType.EXPENSE).get(new Category("Taxi")));
+    }
+
+    @Test
+    void testEmptyUnitOfWorkDoesNotSave() {
+        FailingWalletRepository repository = new FailingWalletRepository();
+        WalletUnitOfWork unitOfWork = new WalletUnitOfWork(repository,
+                new BudgetService(repository, categoryService), wallet);
+
+        unitOfWork.commit();
+
+        assertEquals(0, repository.saves);
+    }
+
+    private static class FailingWalletRepository extends InMemoryWalletRepository {
+        private int saves;
+
+        @Override
+        public Wallet save(Wallet wallet) {
+            saves++;
+            throw new IllegalStateException("Disk full");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package vp.financemanager.infra.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+import vp.financemanager.core.models.Wallet;
+import vp.financemanager.core.repository.CommitNotAppliedException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileWalletRepositoryTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void testSaveAllWritesEveryWalletAndRemovesJournal() throws Exception {
+        FileWalletRepository repository = new FileWalletRepository(dataDir);
+        Wallet alice = walletWithIncome("alice", 100);
+        Wallet bob = walletWithIncome("bob", 200);
+
+        repository.saveAll(List.of(alice, bob));
+
+        assertEquals(BigDecimal.valueOf(100), repository.findByOwnerLogin("alice").getBalance());
+        assertEquals(BigDecimal.valueOf(200), repository.findByOwnerLogin("bob").getBalance());
+        try (var files = Files.list(dataDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testCommittedJournalIsReplayedOnStartup() throws Exception {
+        FileWalletRepository repository = new FileWalletRepository(dataDir);
+        repository.saveAll(List.of(walletWithIncome("alice", 100), walletWithIncome("bob", 200)));
+
+        // сбой после фиксации журнала: новая версия alice еще во временном файле
+        Files.copy(dataDir.resolve("wallet_bob.json"), dataDir.resolve("wallet_alice.json.c1.tmp"));
+        Files.writeString(dataDir.resolve("journal_c1.log"), "alice", StandardCharsets.UTF_8);
+        // сбой до фиксации: временный файл без журнала
+        Files.copy(dataDir.resolve("wallet_bob.json"), dataDir.resolve("wallet_bob.json.c2.tmp"));
+
+        FileWalletRepository restarted = new FileWalletRepository(dataDir);
+
+        assertEquals(BigDecimal.valueOf(200), restarted.findByOwnerLogin("alice").getBalance());
+        assertFalse(Files.exists(dataDir.resolve("journal_c1.log")));
+        assertFalse(Files.exists(dataDir.resolve("wallet_bob.json.c2.tmp")));
+        assertEquals(List.of("alice", "bob"), restarted.findAllOwnerLogins().sorted().toList());
+    }
+
+    @Test
+    void testFailedApplyIsReplayedBeforeNextSave() throws Exception {
+        FileWalletRepository repository = new FileWalletRepository(dataDir);
+        repository.saveAll(List.of(walletWithIncome("alice", 100), walletWithIncome("bob", 200)));
+
+        // файл alice нельзя заменить: на его месте непустой каталог
+        Path alicePath = dataDir.resolve("wallet_alice.json");
+        Files.delete(alicePath);
+        Files.createDirectory(alicePath);
+        Files.writeString(alicePath.resolve("blocker"), "");
+
+        Wallet alice = walletWithIncome("alice", 300);
+        Wallet bob = walletWithIncome("bob", 400);
+        assertThrows(CommitNotAppliedException.class, () -> repository.saveAll(List.of(alice, bob)));
+        // пока журнал не доигран, более новая версия не пишется
+        assertThrows(IllegalStateException.class, () -> repository.save(alice));
+
+        Files.delete(alicePath.resolve("blocker"));
+        Files.delete(alicePath);
+        assertEquals(BigDecimal.valueOf(400), repository.findByOwnerLogin("bob").getBalance());
+
+        alice.addTransaction(new Transaction(TransactionType.INCOME, BigDecimal.valueOf(5),
+                new Category("Salary"), "", LocalDateTime.of(2026, 1, 11, 12, 0)));
+        repository.save(alice);
+
+        FileWalletRepository restarted = new FileWalletRepository(dataDir);
+        assertEquals(BigDecimal.valueOf(305), restarted.findByOwnerLogin("alice").getBalance());
+        assertEquals(BigDecimal.valueOf(400), restarted.findByOwnerLogin("bob").getBalance());
+        try (var files = Files.list(dataDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    private static Wallet walletWithIncome(String login, int amount) {
+        Wallet wallet = new Wallet(login, BigDecimal.ZERO);
+        wallet.addTransaction(new Transaction(TransactionType.INCOME, BigDecimal.valueOf(amount),
+                new Category("Salary"), "", LocalDateTime.of(2026, 1, 10, 12, 0)));
+        return wallet;
+    }
+}
@@ -0,0 +1,137 @@
+package vp.financemanager.infra.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vp.financemanager.core.models.Category;
+import vp.financemanager.core.models.RecurrenceFrequency;
+import vp.financemanager.core.models.RecurringRule;
+import vp.financemanager.core.models.RollupBucket;
+import vp.financemanager.core.models.RollupGranularity;
+import vp.financemanager.core.models.Transaction;
+import vp.financemanager.core.models.TransactionType;
+import vp.financemanager.core.models.Wallet;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.NavigableMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletDataTest {
+
+    private ObjectMapper objectMapper;
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        wallet = new Wallet("testuser", BigDecimal.valueOf(1000));
+        wallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(120),
+                new Category("Food"), "Продукты", LocalDateTime.of(2025, 3, 10, 9, 30)));
+        wallet.addTransaction(new Transaction(TransactionType.INCOME, BigDecimal.valueOf(5000),
+                new Category("Salary"), "", LocalDateTime.of(2025, 3, 11, 10, 0)));
+    }
+
+    @Test
+    void testRollupsSurviveRoundTrip() throws Exception {
+        String json = objectMapper.writeValueAsString(WalletData.fromWallet(wallet));
+        Wallet restored = WalletData.toWallet(objectMapper.readValue(json, WalletData.class));
+
+        assertEquals(rollup(wallet), rollup(restored));
+        assertEquals(2, restored.getTransactions().size());
+    }
+
+    @Test
+    void testRollupsRebuiltForOldFormat() throws Exception {
+        WalletData data = WalletData.fromWallet(wallet);
+        data.rollups = null;
+        String json = objectMapper.writeValueAsString(data);
+
+        Wallet restored = WalletData.toWallet(objectMapper.readValue(json, WalletData.class));
+
+        assertEquals(rollup(wallet), rollup(restored));
+    }
+
+    @Test
+    void testRecurringRulesSurviveRoundTrip() throws Exception {
+        RecurringRule rent = RecurringRule.builder()
+                .type(TransactionType.EXPENSE)
+                .amount(BigDecimal.valueOf(30000))
+                .category(new Category("Rent"))
+                .description("Аренда")
+                .schedule(RecurrenceFrequency.MONTHLY, LocalDate.of(2025, 1, 31), null)
+                .occurrences(2)
+                .build();
+        wallet.addRecurringRule(rent);
+
+        String json = objectMapper.writeValueAsString(WalletData.fromWallet(wallet));
+        Wallet restored = WalletData.toWallet(objectMapper.readValue(json, WalletData.class));
+
+        assertEquals(1, restored.getRecurringRules().size());
+        RecurringRule restoredRule = restored.getRecurringRules().get(0);
+        assertEquals(LocalDate.of(2025, 3, 31), restoredRule.getNextDue());
+        assertEquals(RecurrenceFrequency.MONTHLY, restoredRule.getFrequency());
+        assertEquals("Аренда", restoredRule.getDescription());
+        assertSame(restoredRule, restored.pollDueRecurringRule(LocalDate.of(2025, 3, 31)));
+    }
+
+    @Test
+    void testCurrenciesSurviveRoundTrip() throws Exception {
+        Currency usd = Currency.getInstance("USD");
+        Wallet eurWallet = new Wallet("euro", BigDecimal.valueOf(100), Currency.getInstance("EUR"));
+        eurWallet.addTransaction(new Transaction(TransactionType.EXPENSE, BigDecimal.valueOf(30),
+                new Category("Food"), "", LocalDateTime.of(2025, 3, 10, 9, 30), usd));
+
+        String json = objectMapper.writeValueAsString(WalletData.fromWallet(eurWallet));
+        Wallet restored = WalletData.toWallet(objectMapper.readValue(json, WalletData.class));
+
+        assertEquals(Currency.getInstance("EUR"), restored.getCurrency());
+        assertEquals(BigDecimal.valueOf(100), restored.getBalance());
+        assertEquals(BigDecimal.valueOf(-30), restored.getBalance(usd));
+        assertEquals(usd, restored.getTransactions().get(0).getCurrency());
+        assertEquals(1, restored.getRollups(usd).getDays(TransactionType.EXPENSE).size());
+        assertTrue(restored.getRollups().getDays(TransactionType.EXPENSE).isEmpty());
+    }
+
+    @Test
+    void testOldFormatDefaultsToRubles() throws Exception {
+        WalletData data = WalletData.fromWallet(wallet);
+        data.currency = null;
+        data.foreignBalances = null;
+        data.transactions.forEach(tx -> tx.currency = null);
+        data.rollups.forEach(r -> r.currency = null);
+
+        Wallet restored = WalletData.toWallet(objectMapper.readValue(objectMapper.writeValueAsString(data),
+                WalletData.class));
+
+        assertEquals(Wallet.DEFAULT_CURRENCY, restored.getCurrency());
+        assertFalse(restored.hasForeignCurrencies());
+        assertEquals(rollup(wallet), rollup(restored));
+    }
+
+    @Test
+    void testExportWatermarksSurviveRoundTrip() throws Exception {
+        wallet.setExportWatermark("accounting", 2);
+        WalletData data = WalletData.fromWallet(wallet);
+        data.exportWatermarks.put("stale", 10);
+
+        Wallet restored = WalletData.toWallet(objectMapper.readValue(objectMapper.writeValueAsString(data),
+                WalletData.class));
+
+        assertEquals(2, restored.getExportWatermark("accounting"));
+        assertEquals(2, restored.getExportWatermark("stale"));
+        assertEquals(0, restored.getExportWatermark("bank"));
+    }
+
+    private String rollup(Wallet source) {
+        NavigableMap<LocalDate, RollupBucket> days = source.getRollups()
+                .query(TransactionType.EXPENSE, null, RollupGranularity.DAY, null, null);
+        return days.toString();
+    }
+}
@@ -24,7 +24,7 @@ class FinanceManagerIntegrationTest {
     void setUp() {
         InMemoryUserRepository userRepository = new InMemoryUserRepository();
         InMemoryWalletRepository walletRepository = new InMemoryWalletRepository();
-        PasswordHasher passwordHasher = new PasswordHasher();
+        PasswordHasher passwordHasher = new DelegatingPasswordHasher();
 
         userService = new UserService(userRepository, passwordHasher);
         categoryService = new CategoryService();